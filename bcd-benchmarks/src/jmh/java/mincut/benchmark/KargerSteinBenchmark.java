@@ -0,0 +1,94 @@
+package mincut.benchmark;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.TIntSet;
+import mincut.cutGraphAPI.bipartition.HashableCut;
+import mincut.cutGraphImpl.minCutKargerStein.ArrayKargerGraph;
+import mincut.cutGraphImpl.minCutKargerStein.CompressedKargerGraph;
+import mincut.cutGraphImpl.minCutKargerStein.GraphUtils;
+import mincut.cutGraphImpl.minCutKargerStein.KargerStein;
+import mincut.cutGraphImpl.minCutKargerStein.SimpleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Karger-Stein minimum cut on a random connected graph and on a random hypergraph of the same size.
+ * The hypergraph is contracted with the bitmap and with the array based implementation.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+@State(Scope.Benchmark)
+public class KargerSteinBenchmark {
+    @Param({"50", "200"})
+    public int vertices;
+    @Param({"4"})
+    public int degree;
+    @Param({"true", "false"})
+    public boolean recursive;
+
+    private SimpleGraph simpleGraph;
+    private CompressedKargerGraph compressedGraph;
+    private ArrayKargerGraph arrayGraph;
+
+    @Setup(Level.Trial)
+    public void createGraphs() {
+        final Random r = new Random(42);
+
+        // ring to keep the graph connected, plus random edges
+        final int[][] adjacency = new int[vertices][];
+        for (int v = 0; v < vertices; v++) {
+            final TIntArrayList adj = new TIntArrayList(degree);
+            adj.add((v + 1) % vertices);
+            for (int d = 1; d < degree; d++) {
+                int w = r.nextInt(vertices - 1);
+                if (w >= v) w++;
+                if (!adj.contains(w))
+                    adj.add(w);
+            }
+            adjacency[v] = adj.toArray();
+        }
+        simpleGraph = GraphUtils.createGraph(adjacency);
+
+        // hyperedges over the vertices with roughly the same number of incidences
+        final List<TIntArrayList> hyperedges = new ArrayList<>();
+        final List<Double> weights = new ArrayList<>();
+        for (int v = 0; v < vertices; v++) {
+            final TIntArrayList edge = new TIntArrayList();
+            edge.add(v);
+            edge.add((v + 1) % vertices);
+            for (int d = 2; d < degree; d++) {
+                final int w = r.nextInt(vertices);
+                if (!edge.contains(w))
+                    edge.add(w);
+            }
+            hyperedges.add(edge);
+            weights.add(1d + r.nextInt(10));
+        }
+        compressedGraph = new CompressedKargerGraph(hyperedges, weights);
+        arrayGraph = compressedGraph.asArrayGraph();
+    }
+
+    @Benchmark
+    public HashableCut<TIntSet> simpleGraph() {
+        return new KargerStein<SimpleGraph, TIntSet>().getMinCut(simpleGraph, recursive);
+    }
+
+    @Benchmark
+    public HashableCut<RoaringBitmap> compressedGraph() {
+        return new KargerStein<CompressedKargerGraph, RoaringBitmap>().getMinCut(compressedGraph, recursive);
+    }
+
+    @Benchmark
+    public HashableCut<RoaringBitmap> arrayGraph() {
+        return new KargerStein<ArrayKargerGraph, RoaringBitmap>().getMinCut(arrayGraph, recursive);
+    }
+}
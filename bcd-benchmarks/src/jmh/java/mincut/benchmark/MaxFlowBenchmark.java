@@ -0,0 +1,130 @@
+package mincut.benchmark;
+
+import mincut.cutGraphImpl.maxFlowAhujaOrlin.ArrayFlowGraph;
+import mincut.cutGraphImpl.maxFlowAhujaOrlin.FlowGraph;
+import mincut.cutGraphImpl.maxFlowGoldbergTarjan.ArrayCutGraphImpl;
+import mincut.cutGraphImpl.maxFlowGoldbergTarjan.CutGraphImpl;
+import mincut.cutGraphImpl.maxFlowGoldbergTarjan.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * One s-t maximum flow on a generated BCD cut graph (taxa connected through hyperedge gadgets),
+ * including the construction of the flow network.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+@State(Scope.Benchmark)
+public class MaxFlowBenchmark {
+    private static final long INFINITY = 1000000000000000L;
+
+    @Param({"100", "1000"})
+    public int taxa;
+    @Param({"500", "5000"})
+    public int characters;
+    @Param({"0.1"})
+    public double density;
+
+    private int nodes;
+    private int[][] edges;
+    private int[] arcs;
+
+    @Setup(Level.Trial)
+    public void createGraph() {
+        final Random r = new Random(42);
+        final List<int[]> edgeList = new ArrayList<>();
+        // hyperedge gadget: taxa -> out -> in -> taxa
+        for (int c = 0; c < characters; c++) {
+            final int out = taxa + 2 * c;
+            final int in = out + 1;
+            edgeList.add(new int[]{out, in, 1 + r.nextInt(10)});
+            for (int t = 0; t < taxa; t++) {
+                if (r.nextDouble() < density) {
+                    edgeList.add(new int[]{t, out, -1});
+                    edgeList.add(new int[]{in, t, -1});
+                }
+            }
+        }
+
+        nodes = taxa + 2 * characters;
+        edges = edgeList.toArray(new int[edgeList.size()][]);
+        arcs = new int[nodes];
+        for (int[] edge : edges) {
+            arcs[edge[0]]++;
+            arcs[edge[1]]++;
+        }
+    }
+
+    private static long capacity(int[] edge) {
+        return edge[2] < 0 ? INFINITY : edge[2];
+    }
+
+    @Benchmark
+    public long goldbergTarjan() {
+        final CutGraphImpl hipri = new CutGraphImpl(nodes, 2 * edges.length);
+        final Node[] n = new Node[nodes];
+        for (int i = 0; i < nodes; i++) {
+            n[i] = hipri.createNode(i, arcs[i]);
+        }
+        for (int[] edge : edges) {
+            hipri.addEdge(n[edge[0]], n[edge[1]], capacity(edge));
+        }
+        hipri.setSource(n[0]);
+        hipri.setSink(n[taxa - 1]);
+        hipri.calculateMaxFlow(false);
+        return hipri.getValue();
+    }
+
+    @Benchmark
+    public long arrayGoldbergTarjan() {
+        final ArrayCutGraphImpl hipri = new ArrayCutGraphImpl(nodes, 2 * edges.length);
+        for (int i = 0; i < nodes; i++) {
+            hipri.createNode(i, arcs[i]);
+        }
+        for (int[] edge : edges) {
+            hipri.addEdge(edge[0], edge[1], capacity(edge));
+        }
+        hipri.setSource(0);
+        hipri.setSink(taxa - 1);
+        hipri.calculateMaxFlow();
+        return hipri.getValue();
+    }
+
+    @Benchmark
+    public double ahujaOrlin() {
+        final FlowGraph flow = new FlowGraph();
+        for (int i = 0; i < nodes; i++) {
+            flow.addNode(i);
+        }
+        for (int[] edge : edges) {
+            flow.addEdge(edge[0], edge[1], capacity(edge));
+        }
+        flow.setSource(0);
+        flow.setSink(taxa - 1);
+        flow.calculateSTFlow();
+        return flow.getMaximumFlow();
+    }
+
+    @Benchmark
+    public double arrayAhujaOrlin() {
+        final ArrayFlowGraph flow = new ArrayFlowGraph(nodes, 2 * edges.length);
+        for (int i = 0; i < nodes; i++) {
+            flow.createNode(i, arcs[i]);
+        }
+        for (int[] edge : edges) {
+            flow.addEdge(edge[0], edge[1], capacity(edge));
+        }
+        flow.setSource(0);
+        flow.setSink(taxa - 1);
+        flow.calculateMaxFlow();
+        return flow.getValue();
+    }
+}
@@ -0,0 +1,70 @@
+package phylo.tree.algorithm.flipcut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import phylo.tree.algorithm.flipcut.FlipCutMultiCut;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDMultiCutGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.MultiCutterFactory;
+import phylo.tree.algorithm.flipcut.flipCutGraph.CutGraphTypes;
+import phylo.tree.model.Tree;
+import phylo.tree.model.TreeUtils;
+
+import java.util.List;
+
+/**
+ * End-to-end beam search BCD computation. The source graph is created outside of the measurement,
+ * because the algorithm changes it.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+@State(Scope.Benchmark)
+public class FlipCutMultiCutBenchmark {
+    @Param({""})
+    public String inputFile;
+    @Param({"20"})
+    public int numTrees;
+    @Param({"50", "200"})
+    public int numTaxa;
+    @Param({"0.5"})
+    public double coverage;
+    @Param({"1"})
+    public int threads;
+    @Param({"5"})
+    public int numCuts;
+    @Param({"VAZIRANI", "CUT_SAMPLING"})
+    public MultiCutterFactory.MultiCutterType multiCutter;
+
+    private List<Tree> source;
+    private MultiCutterFactory factory;
+    private CompressedBCDMultiCutGraph graph;
+
+    @Setup(Level.Trial)
+    public void createInput() {
+        source = SyntheticInput.sourceTrees(inputFile, 42, numTrees, numTaxa, coverage);
+        factory = MultiCutterFactory.newInstance(multiCutter, CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG);
+    }
+
+    @Setup(Level.Invocation)
+    public void createGraph() {
+        graph = new CompressedBCDMultiCutGraph(CompressedGraphFactory.createSourceGraph(
+                SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.UNIT_COST), 0, false),
+                numCuts, factory);
+    }
+
+    @Benchmark
+    public List<Tree> multiCut() {
+        final FlipCutMultiCut fs = new FlipCutMultiCut(factory);
+        fs.setNumberOfCuts(numCuts);
+        fs.setInput(graph);
+        fs.setNumberOfThreads(threads);
+        fs.run();
+        return fs.getResults();
+    }
+}
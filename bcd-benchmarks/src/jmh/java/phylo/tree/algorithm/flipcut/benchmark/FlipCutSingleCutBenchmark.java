@@ -0,0 +1,61 @@
+package phylo.tree.algorithm.flipcut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import phylo.tree.algorithm.flipcut.FlipCutSingleCut;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDSourceGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.CompressedSingleCutter;
+import phylo.tree.model.Tree;
+import phylo.tree.model.TreeUtils;
+
+import java.util.List;
+
+/**
+ * End-to-end BCD supertree computation. The source graph is created outside of the measurement,
+ * because the algorithm changes it.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+@State(Scope.Benchmark)
+public class FlipCutSingleCutBenchmark {
+    @Param({""})
+    public String inputFile;
+    @Param({"50"})
+    public int numTrees;
+    @Param({"100", "1000"})
+    public int numTaxa;
+    @Param({"0.5"})
+    public double coverage;
+    @Param({"1"})
+    public int threads;
+
+    private List<Tree> source;
+    private CompressedBCDSourceGraph graph;
+
+    @Setup(Level.Trial)
+    public void createInput() {
+        source = SyntheticInput.sourceTrees(inputFile, 42, numTrees, numTaxa, coverage);
+    }
+
+    @Setup(Level.Invocation)
+    public void createGraph() {
+        graph = CompressedGraphFactory.createSourceGraph(
+                SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.UNIT_COST), 0, true);
+    }
+
+    @Benchmark
+    public Tree singleCut() {
+        final FlipCutSingleCut fs = new FlipCutSingleCut(new CompressedSingleCutter.CompressedSingleCutterFactory());
+        fs.setInput(graph);
+        fs.setNumberOfThreads(threads);
+        fs.run();
+        return fs.getResult();
+    }
+}
@@ -0,0 +1,54 @@
+package phylo.tree.algorithm.flipcut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDSourceGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.costComputer.CostComputer;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.model.Tree;
+import phylo.tree.model.TreeUtils;
+
+import java.util.List;
+
+/**
+ * Creation of the compressed source graph (character merging, bitmaps and taxon index) from source trees.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+@State(Scope.Benchmark)
+public class SourceGraphBenchmark {
+    @Param({""})
+    public String inputFile;
+    @Param({"50"})
+    public int numTrees;
+    @Param({"100", "1000"})
+    public int numTaxa;
+    @Param({"0.5"})
+    public double coverage;
+    @Param({"true", "false"})
+    public boolean mergedEdges;
+
+    private List<Tree> source;
+    private CostComputer costs;
+
+    @Setup(Level.Trial)
+    public void createInput() {
+        source = SyntheticInput.sourceTrees(inputFile, 42, numTrees, numTaxa, coverage);
+    }
+
+    @Setup(Level.Invocation)
+    public void createCosts() {
+        costs = SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.UNIT_COST);
+    }
+
+    @Benchmark
+    public CompressedBCDSourceGraph createSourceGraph() {
+        return CompressedGraphFactory.createSourceGraph(costs, 0, mergedEdges);
+    }
+}
@@ -0,0 +1,56 @@
+package phylo.tree.algorithm.flipcut.benchmark;
+
+import phylo.tree.io.Newick;
+import phylo.tree.model.Tree;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Source tree inputs for the benchmarks. Either a real newick file or random binary
+ * trees over a common taxon set, where every tree contains each taxon with the given probability.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class SyntheticInput {
+    private SyntheticInput() {
+    }
+
+    public static List<Tree> sourceTrees(String inputFile, long seed, int numTrees, int numTaxa, double coverage) {
+        if (inputFile != null && !inputFile.isEmpty())
+            return new ArrayList<>(Arrays.asList(Newick.getTreeFromFile(new File(inputFile))));
+        return randomTrees(new Random(seed), numTrees, numTaxa, coverage);
+    }
+
+    public static List<Tree> randomTrees(Random r, int numTrees, int numTaxa, double coverage) {
+        final List<Tree> trees = new ArrayList<>(numTrees);
+        for (int i = 0; i < numTrees; i++) {
+            final List<String> taxa = new ArrayList<>();
+            for (int t = 0; t < numTaxa; t++) {
+                if (r.nextDouble() < coverage)
+                    taxa.add("t" + t);
+            }
+            while (taxa.size() < 3) {
+                final String taxon = "t" + r.nextInt(numTaxa);
+                if (!taxa.contains(taxon))
+                    taxa.add(taxon);
+            }
+            trees.add(Newick.getTreeFromString(randomNewick(r, taxa) + ";"));
+        }
+        return trees;
+    }
+
+    private static String randomNewick(Random r, List<String> taxa) {
+        if (taxa.size() == 1)
+            return taxa.get(0);
+
+        Collections.shuffle(taxa, r);
+        final int k = 1 + r.nextInt(taxa.size() - 1);
+        return "(" + randomNewick(r, new ArrayList<>(taxa.subList(0, k))) + ","
+                + randomNewick(r, new ArrayList<>(taxa.subList(k, taxa.size()))) + ")";
+    }
+}
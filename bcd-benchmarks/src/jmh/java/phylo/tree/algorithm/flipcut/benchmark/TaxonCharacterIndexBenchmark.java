@@ -0,0 +1,79 @@
+package phylo.tree.algorithm.flipcut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.RoaringBitmap;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDSourceGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+
+import java.util.Random;
+
+/**
+ * Characters touching a subset of taxa: scanning all active characters versus
+ * the union over the rows of the taxon to character index.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+@State(Scope.Benchmark)
+public class TaxonCharacterIndexBenchmark {
+    private static final int NUM_SUBSETS = 64;
+
+    @Param({""})
+    public String inputFile;
+    @Param({"50"})
+    public int numTrees;
+    @Param({"100", "1000"})
+    public int numTaxa;
+    @Param({"0.5"})
+    public double coverage;
+    @Param({"0.01", "0.1", "0.5"})
+    public double subsetSize;
+
+    private CompressedBCDSourceGraph graph;
+    private RoaringBitmap[] subsets;
+
+    @Setup(Level.Trial)
+    public void createInput() {
+        graph = CompressedGraphFactory.createSourceGraph(SimpleCosts.newCostComputer(
+                SyntheticInput.sourceTrees(inputFile, 42, numTrees, numTaxa, coverage), FlipCutWeights.Weights.UNIT_COST),
+                0, true);
+
+        final Random r = new Random(42);
+        final int[] taxa = graph.taxa.toArray();
+        subsets = new RoaringBitmap[NUM_SUBSETS];
+        for (int i = 0; i < subsets.length; i++) {
+            subsets[i] = new RoaringBitmap();
+            for (int taxon : taxa) {
+                if (r.nextDouble() < subsetSize)
+                    subsets[i].add(taxon);
+            }
+        }
+    }
+
+    @Benchmark
+    public void scanCharacters(Blackhole bh) {
+        for (RoaringBitmap taxa : subsets) {
+            final RoaringBitmap subCharacters = new RoaringBitmap();
+            graph.characters.forEach((IntConsumer) i -> {
+                if (RoaringBitmap.intersects(graph.getEdge(i).ones(), taxa))
+                    subCharacters.add(i);
+            });
+            bh.consume(subCharacters);
+        }
+    }
+
+    @Benchmark
+    public void invertedIndex(Blackhole bh) {
+        for (RoaringBitmap taxa : subsets) {
+            bh.consume(graph.getCharactersOfTaxa(taxa));
+        }
+    }
+}
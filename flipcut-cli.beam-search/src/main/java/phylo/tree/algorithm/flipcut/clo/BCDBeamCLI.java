@@ -7,9 +7,10 @@ import phylo.tree.algorithm.flipcut.AbstractFlipCut;
 import phylo.tree.algorithm.flipcut.FlipCutMultiCut;
 import phylo.tree.algorithm.flipcut.SourceTreeGraph;
 import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDMultiCutGraph;
-import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDSourceGraph;
 import phylo.tree.algorithm.flipcut.cli.BCDCLI;
 import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.MultiCutGraphCutterUndirectedTranfomationCompressed;
 import phylo.tree.algorithm.flipcut.cutter.MultiCutterFactory;
 import phylo.tree.algorithm.flipcut.flipCutGraph.CutGraphTypes;
 import phylo.tree.algorithm.flipcut.flipCutGraph.FlipCutGraphMultiSimpleWeight;
@@ -41,11 +42,24 @@ public class BCDBeamCLI extends BCDCLI<FlipCutMultiCut> {
         this.cutNumber = Math.max(1, cutNumber);
     }
 
+    @Option(name = "--stableTrials", usage = "Stop the cut sampling (-x CUT_SAMPLING) if the sampled cuts did not change for this number of Karger-Stein trials. 0 runs the full number of trials")
+    private int stableTrials = 0;
+
+    @Option(name = "--samplingTimeLimit", usage = "Time limit in milliseconds for the cut sampling (-x CUT_SAMPLING) of a single graph. 0 means no limit")
+    private long samplingTimeLimit = 0;
+
+    private MultiCutterFactory createMultiCutterFactory() {
+        final MultiCutterFactory factory = MultiCutterFactory.newInstance(multiType, getGraphType(), getNumberOfThreads());
+        if (factory instanceof MultiCutGraphCutterUndirectedTranfomationCompressed.Factory)
+            ((MultiCutGraphCutterUndirectedTranfomationCompressed.Factory) factory).setAdaptiveSampling(stableTrials, samplingTimeLimit);
+        return factory;
+    }
+
 
     @Override
     public AbstractFlipCut createAlgorithmInstance() {
         if (multiType != null) {
-            FlipCutMultiCut algo = new FlipCutMultiCut(MultiCutterFactory.newInstance(multiType, getGraphType()));
+            FlipCutMultiCut algo = new FlipCutMultiCut(createMultiCutterFactory());
             algo.setNumberOfCuts(cutNumber);
             setParameters(algo);
             return algo;
@@ -55,20 +69,35 @@ public class BCDBeamCLI extends BCDCLI<FlipCutMultiCut> {
     }
 
     @Override
-    public SourceTreeGraph createGraphInstance(List<Tree> source, Tree scaffold) {
+    protected boolean isCompressedGraphType() {
+        if (multiType != null)
+            return getGraphType() == CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG;
+        return super.isCompressedGraphType();
+    }
+
+    @Override
+    public SourceTreeGraph createGraphInstance(List<Tree> source, Tree scaffold) throws IOException {
         if (multiType != null) {
-            MultiCutterFactory factory = MultiCutterFactory.newInstance(multiType, getGraphType());
-            if (getGraphType() == CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG) {
-                return new CompressedBCDMultiCutGraph(
-                        CompressedGraphFactory.createSourceGraph(SimpleCosts.newCostComputer(source, scaffold, getWeights()), getBootstrapThreshold(), false), cutNumber, factory);
+            checkSnapshotSupport();
+            if (isCompressedGraphType()) {
+                return createGraphInstance(createSourceGraph(source, scaffold, false));
             } else {
-                return new FlipCutGraphMultiSimpleWeight(SimpleCosts.newCostComputer(source, scaffold, getWeights()), cutNumber, factory);
+                return new FlipCutGraphMultiSimpleWeight(SimpleCosts.newCostComputer(source, scaffold, getWeights()), cutNumber, createMultiCutterFactory());
             }
         } else {
             return super.createGraphInstance(source, scaffold);
         }
     }
 
+    @Override
+    public SourceTreeGraph createGraphInstance(CompressedBCDSourceGraph sourceGraph) {
+        if (multiType != null) {
+            return new CompressedBCDMultiCutGraph(sourceGraph, cutNumber, createMultiCutterFactory());
+        } else {
+            return super.createGraphInstance(sourceGraph);
+        }
+    }
+
     @Override
     public void writeOutput(List<Tree> treesToWrite) throws IOException {
         super.writeOutput(treesToWrite);
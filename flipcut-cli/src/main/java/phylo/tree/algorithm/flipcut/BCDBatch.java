@@ -0,0 +1,145 @@
+package phylo.tree.algorithm.flipcut;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.InterfaceCmdLineParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phylo.tree.algorithm.flipcut.cli.BCDBatchCLI;
+import phylo.tree.algorithm.flipcut.cli.BCDCLI;
+import phylo.tree.model.Tree;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Batch mode of {@link BCDSupertrees}: computes the supertrees of all jobs of a manifest file in a single JVM,
+ * so JVM startup, class loading and JIT warm-up are only paid once.
+ * <p>
+ * All jobs share one {@link ForkJoinPool}. Up to {@link BCDBatchCLI#getParallelJobs()} jobs run at the same time,
+ * each of them uses the pool with (threads / parallel jobs) threads. A failed job is recorded in the report and the
+ * remaining jobs are computed anyway.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class BCDBatch {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BCDBatch.class);
+
+    public static void main(String[] args) {
+        final BCDBatchCLI cli = new BCDBatchCLI();
+        final CmdLineParser parser = new CmdLineParser(cli);
+        try {
+            parser.parseArgument(args);
+            if (cli.isHelp()) {
+                cli.printHelp(parser, System.out);
+                System.exit(0);
+            }
+
+            final int failed = run(cli);
+            System.exit(failed == 0 ? 0 : 3);
+
+        } catch (CmdLineException e) {
+            LOGGER.error(e.getMessage(), e);
+            System.err.println(e.getMessage());
+            System.err.println();
+            cli.printHelp(parser, System.err);
+            System.exit(1);
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage(), e);
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.exit(2);
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.exit(666);
+        }
+
+        System.exit(888);
+    }
+
+    /**
+     * Runs all jobs of the manifest and writes one report line per job
+     *
+     * @return number of failed jobs
+     */
+    public static int run(final BCDBatchCLI cli) throws IOException, InterruptedException {
+        final List<BCDBatchCLI.Job> jobs = cli.parseManifest();
+        final int threads = cli.getNumberOfThreads();
+        final int parallelJobs = Math.max(1, Math.min(cli.getParallelJobs(), Math.min(threads, jobs.size())));
+        final int jobThreads = Math.max(1, threads / parallelJobs);
+        LOGGER.info("Computing " + jobs.size() + " jobs with " + threads + " threads: " + parallelJobs + " jobs in parallel with " + jobThreads + " threads each");
+
+        final long start = System.nanoTime();
+        final AtomicInteger failed = new AtomicInteger(0);
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        final Semaphore running = new Semaphore(parallelJobs);
+        try (PrintWriter report = new PrintWriter(Files.newBufferedWriter(cli.getReportFile(), StandardCharsets.UTF_8))) {
+            report.println("line\tinput\toutput\tstatus\truntime\tscore\terror");
+            report.flush();
+
+            for (BCDBatchCLI.Job job : jobs) {
+                running.acquire();
+                pool.execute(() -> {
+                    try {
+                        if (!runJob(cli, job, jobThreads, pool, report))
+                            failed.incrementAndGet();
+                    } finally {
+                        running.release();
+                    }
+                });
+            }
+            // all permits are back when the last job is done
+            running.acquire(parallelJobs);
+        } finally {
+            pool.shutdown();
+        }
+
+        LOGGER.info("Batch DONE in " + seconds(System.nanoTime() - start) + "s: " + (jobs.size() - failed.get()) + " jobs successful, " + failed.get() + " failed");
+        return failed.get();
+    }
+
+    private static boolean runJob(final BCDBatchCLI batchCLI, final BCDBatchCLI.Job job, final int threads, final ForkJoinPool pool, final PrintWriter report) {
+        final long start = System.nanoTime();
+        Path output = job.output;
+        String score = "";
+        Throwable error = null;
+        try {
+            final BCDCLI cli = new BCDCLI();
+            new InterfaceCmdLineParser(cli).parseArgument(batchCLI.createJobArguments(job));
+            cli.setNumberOfThreads(threads);
+            cli.setExecutorService(pool);
+            output = cli.getOutputFile();
+
+            final List<Tree> supertrees = BCDSupertrees.calculateSupertrees(cli);
+            score = supertrees.stream().map(Tree::getName).collect(Collectors.joining(";"));
+        } catch (Throwable e) {
+            // every job has to be reported and counted, whatever went wrong (e.g. an OutOfMemoryError on a large input)
+            LOGGER.error("Job in line " + job.line + " of the manifest failed: " + job.input, e);
+            error = e;
+        }
+
+        final String line = job.line + "\t" + job.input + "\t" + (output == null ? "" : output) + "\t"
+                + (error == null ? "OK" : "FAILED") + "\t" + seconds(System.nanoTime() - start) + "\t" + score + "\t"
+                + (error == null ? "" : String.valueOf(error).replaceAll("\\s+", " "));
+        synchronized (report) {
+            report.println(line);
+            report.flush();
+        }
+        return error == null;
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e9);
+    }
+}
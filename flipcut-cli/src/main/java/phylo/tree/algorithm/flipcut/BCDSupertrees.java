@@ -3,6 +3,7 @@ package phylo.tree.algorithm.flipcut;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.InterfaceCmdLineParser;
+import phylo.tree.algorithm.flipcut.cli.BCDBatchCLI;
 import phylo.tree.algorithm.flipcut.cli.BCDCLI;
 import phylo.tree.algorithm.flipcut.utils.Utils;
 import phylo.tree.algorithm.gscm.SCMAlgorithm;
@@ -34,12 +35,15 @@ public class BCDSupertrees {
         System.getProperties().setProperty("de.unijena.bioinf.corelib.appname", "bcd");
     }
     public static void main(String[] args) {
+        if (args.length > 0 && BCDBatchCLI.BATCH_OPTION.equals(args[0])) {
+            BCDBatch.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         CLI = new BCDCLI();
         run(args);
     }
 
     public static void run(final String[] args) {
-        double startTime = System.currentTimeMillis();
         CLI.LOGGER_WRAPPER.info("Start calculation with following parameters: " + Arrays.toString(args));
         final CmdLineParser parser = new InterfaceCmdLineParser(CLI);
 
@@ -54,159 +58,181 @@ public class BCDSupertrees {
             }
 
 
-            //parse guide trees
-            Tree guideTree = CLI.parseSCM();
-
+            calculateSupertrees(CLI);
+            System.exit(0);
 
-            double scmRuntime = Double.NaN;
+        } catch (CmdLineException e) {
+            // if there's a problem in the command line,
+            // you'll get this exception. this will report
+            // an error message.
+            CLI.LOGGER_WRAPPER.error(e.getMessage(), e);
+            System.err.println(e.getMessage());
+            System.err.println();
+            CLI.printHelp(parser, System.err);
+            System.exit(1);
+        } catch (IOException e) {
+            CLI.LOGGER_WRAPPER.error(e.getMessage(), e);
+            System.err.println(e.getMessage());
+            System.err.println();
+            CLI.printHelp(parser, System.err);
+            System.exit(2);
+        } catch (Exception e) {
+            CLI.LOGGER_WRAPPER.error(e.getMessage(), e);
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.exit(666);
+        }
 
-            Tree guideTreeToCut = null;
-            if (CLI.useSCM) {
-                if (guideTree == null) { //scm tree option is hidden because should be activated
-                    CLI.LOGGER_WRAPPER.info("Calculating SCM Guide Tree...");
-                    scmRuntime = System.currentTimeMillis();
-                    SCMAlgorithm algo;
-                    {
+        System.exit(888);
+    }
 
-                        List<Tree> input = TreetoolUtils.removeDuplicates(CLI.parseInput());
-                        if (input.size() > 100){
-                            CLI.scorerTypes = new TreeScorers.ScorerType[]{TreeScorers.ScorerType.UNIQUE_TAXA};
-                            CLI.LOGGER_WRAPPER.warn("More than 100 input trees, using GSCM with Unique-Taxa scoring instead Unique-Clades-Lost scoring as default postprocessing.");
-                        }
-                        algo = CLI.getSCMInstance();
-                        algo.setInput(input);
+    /**
+     * Computes the supertree(s) for the parsed arguments of the given CLI and writes the output, runtime
+     * and metrics files. If the CLI has an executor service, it is used but not shut down.
+     *
+     * @return the supertrees, the name of a supertree is its score
+     */
+    public static List<Tree> calculateSupertrees(final BCDCLI cli) throws Exception {
+        final double startTime = System.currentTimeMillis();
+        //the snapshot already contains the graph of input and guide trees
+        final Path snapshot = cli.getSnapshotInputFile();
+
+        //parse guide trees
+        Tree guideTree = snapshot == null ? cli.parseSCM() : null;
+
+
+        double scmRuntime = Double.NaN;
+
+        Tree guideTreeToCut = null;
+        if (cli.useSCM && snapshot == null) {
+            if (guideTree == null) { //scm tree option is hidden because should be activated
+                cli.LOGGER_WRAPPER.info("Calculating SCM Guide Tree...");
+                scmRuntime = System.currentTimeMillis();
+                SCMAlgorithm algo;
+                {
+
+                    List<Tree> input = TreetoolUtils.removeDuplicates(cli.parseInput());
+                    if (input.size() > 100){
+                        cli.scorerTypes = new TreeScorers.ScorerType[]{TreeScorers.ScorerType.UNIQUE_TAXA};
+                        cli.LOGGER_WRAPPER.warn("More than 100 input trees, using GSCM with Unique-Taxa scoring instead Unique-Clades-Lost scoring as default postprocessing.");
                     }
-                    algo.call();
-                    algo.shutdown();
-                    guideTree = algo.getResult();
-                    scmRuntime = ((double) System.currentTimeMillis() - scmRuntime) / 1000d;
-                    CLI.LOGGER_WRAPPER.info("...SCM Guide Tree calculation DONE in " + scmRuntime + "s");
-                    if (CLI.isVerbose())
-                        CLI.LOGGER_WRAPPER.debug("GuideTree:" + System.lineSeparator() + Newick.getStringFromTree(guideTree));
-                } else {
-
+                    algo = cli.getSCMInstance();
+                    algo.setInput(input);
                 }
-                guideTreeToCut = guideTree;
-                guideTree = TreeUtils.deleteInnerLabels(guideTreeToCut);
-                CLI.LOGGER_WRAPPER.info("Clades in guide tree: " + (guideTree.vertexCount() - guideTree.getNumTaxa()));
-            }
-
-
-            Tree suppportTree = null;
-            ReductionModifier reducer = null;
-            List<Tree> inputTrees = CLI.parseInput();
-            if (CLI.isVerbose())
-                CLI.LOGGER_WRAPPER.debug("Tree sizes: " + Arrays.toString(inputTrees.stream().mapToInt(Tree::getNumTaxa).sorted().toArray()));
-
-            if (CLI.removeUndisputedSiblings) { //ATTENTION this is an Error prone method
-                if (suppportTree != null)
-                    inputTrees.add(suppportTree); //put support tree temporary in input list
-                if (guideTreeToCut != null)
-                    inputTrees.add(guideTreeToCut); //put guide tree temporary in input list
-                reducer = removeUndisputedSiblings(inputTrees);
-                if (guideTreeToCut != null)
-                    inputTrees.remove(inputTrees.size() - 1); //remove guide tree again from input list
+                algo.call();
+                algo.shutdown();
+                guideTree = algo.getResult();
+                scmRuntime = ((double) System.currentTimeMillis() - scmRuntime) / 1000d;
+                cli.LOGGER_WRAPPER.info("...SCM Guide Tree calculation DONE in " + scmRuntime + "s");
+                if (cli.isVerbose())
+                    cli.LOGGER_WRAPPER.debug("GuideTree:" + System.lineSeparator() + Newick.getStringFromTree(guideTree));
             } else {
-                if (suppportTree != null)
-                    inputTrees.add(suppportTree);
+
             }
+            guideTreeToCut = guideTree;
+            guideTree = TreeUtils.deleteInnerLabels(guideTreeToCut);
+            cli.LOGGER_WRAPPER.info("Clades in guide tree: " + (guideTree.vertexCount() - guideTree.getNumTaxa()));
+        }
 
 
-            // configure algorithm
-            AbstractFlipCut algorithm = CLI.createAlgorithmInstance();
+        Tree suppportTree = null;
+        ReductionModifier reducer = null;
+        List<Tree> inputTrees = snapshot == null || cli.supportValues ? cli.parseInput() : null;
+        if (cli.isVerbose() && inputTrees != null)
+            cli.LOGGER_WRAPPER.debug("Tree sizes: " + Arrays.toString(inputTrees.stream().mapToInt(Tree::getNumTaxa).sorted().toArray()));
+
+        if (cli.removeUndisputedSiblings) { //ATTENTION this is an Error prone method
+            if (suppportTree != null)
+                inputTrees.add(suppportTree); //put support tree temporary in input list
+            if (guideTreeToCut != null)
+                inputTrees.add(guideTreeToCut); //put guide tree temporary in input list
+            reducer = removeUndisputedSiblings(inputTrees);
+            if (guideTreeToCut != null)
+                inputTrees.remove(inputTrees.size() - 1); //remove guide tree again from input list
+        } else {
+            if (suppportTree != null)
+                inputTrees.add(suppportTree);
+        }
 
-            //set input trees
-            algorithm.setInput(CLI.createGraphInstance(inputTrees, guideTreeToCut));
 
-            //run bcd supertrees
-            algorithm.run();
-            //collect results
-            List<Tree> superTrees = algorithm.getResults();
+        // configure algorithm
+        AbstractFlipCut algorithm = cli.createAlgorithmInstance();
 
-            //postprocess results if needed
-            if (CLI.removeUndisputedSiblings)
-                reducer.unmodify(superTrees);
+        //set input trees
+        if (snapshot == null) {
+            algorithm.setInput(cli.createGraphInstance(inputTrees, guideTreeToCut));
+        } else {
+            algorithm.setInput(cli.readGraphInstance());
+        }
 
-            if (CLI.unsupportedCladeReduction) {
-                List<Tree> inputTreesUntouched = CLI.parseInput();
-                for (Tree superTree : superTrees) {
-                    removeUnsupportedClades(inputTreesUntouched.toArray(new Tree[inputTreesUntouched.size()]), superTree);
-                }
-            }
-            // calc support values
-            if (CLI.supportValues) {
-                Utils.addCladewiseSplitFit(inputTrees, CLI.getWeights(), superTrees);
-            }
-            inputTrees = null;
+        //run bcd supertrees
+        algorithm.run();
+        //collect results
+        List<Tree> superTrees = algorithm.getResults();
 
-            //write output file
-            if (CLI.isFullOutput() && guideTree != null) {
-                List<Tree> withSCM = new LinkedList(superTrees);
-                withSCM.add(guideTree);
-                CLI.writeOutput(withSCM);
-            } else {
-                CLI.writeOutput(superTrees);
+        //postprocess results if needed
+        if (cli.removeUndisputedSiblings)
+            reducer.unmodify(superTrees);
+
+        if (cli.unsupportedCladeReduction) {
+            List<Tree> inputTreesUntouched = cli.parseInput();
+            for (Tree superTree : superTrees) {
+                removeUnsupportedClades(inputTreesUntouched.toArray(new Tree[inputTreesUntouched.size()]), superTree);
             }
+        }
+        // calc support values
+        if (cli.supportValues) {
+            Utils.addCladewiseSplitFit(inputTrees, cli.getWeights(), superTrees);
+        }
+        inputTrees = null;
+
+        //write output file
+        if (cli.isFullOutput() && guideTree != null) {
+            List<Tree> withSCM = new LinkedList(superTrees);
+            withSCM.add(guideTree);
+            cli.writeOutput(withSCM);
+        } else {
+            cli.writeOutput(superTrees);
+        }
 
-            //calculate runtime
-            double calcTime = (System.currentTimeMillis() - startTime) / 1000d;
+        //calculate runtime
+        double calcTime = (System.currentTimeMillis() - startTime) / 1000d;
 
-            if (CLI.isVerbose()) {
-                int i = 1;
-                for (Tree supertree : superTrees) {
-                    CLI.LOGGER_WRAPPER.debug("SuperTree " + i++ +" with Score: " + supertree.getName()
-                            + System.lineSeparator()
-                            + Newick.getStringFromTree(supertree));
-                }
+        if (cli.isVerbose()) {
+            int i = 1;
+            for (Tree supertree : superTrees) {
+                cli.LOGGER_WRAPPER.debug("SuperTree " + i++ +" with Score: " + supertree.getName()
+                        + System.lineSeparator()
+                        + Newick.getStringFromTree(supertree));
             }
+        }
+
+        if (!Double.isNaN(scmRuntime)) {
+            cli.LOGGER_WRAPPER.info("...GSCM run in " + (scmRuntime) + "s");
+            cli.LOGGER_WRAPPER.info("...BCD run in " + (calcTime - scmRuntime) + "s");
+        }
 
+        //todo move this to write output???
+        Path timeFile = cli.getRuntimeFile();
+        if (timeFile != null) {
+            Files.deleteIfExists(timeFile);
             if (!Double.isNaN(scmRuntime)) {
-                CLI.LOGGER_WRAPPER.info("...GSCM run in " + (scmRuntime) + "s");
-                CLI.LOGGER_WRAPPER.info("...BCD run in " + (calcTime - scmRuntime) + "s");
+                Files.write(timeFile, ("gscm=" + Double.toString(scmRuntime) + System.lineSeparator()).getBytes(), StandardOpenOption.CREATE_NEW);
+                Files.write(timeFile, ("bcd=" + Double.toString(calcTime - scmRuntime) + System.lineSeparator()).getBytes(), StandardOpenOption.APPEND);
+                Files.write(timeFile, ("complete=" + Double.toString(calcTime)).getBytes(), StandardOpenOption.APPEND);
+            } else {
+                Files.write(timeFile, ("bcd=" + Double.toString(calcTime)).getBytes(), StandardOpenOption.CREATE_NEW);
             }
 
-            //todo move this to write output???
-            Path timeFile = CLI.getRuntimeFile();
-            if (timeFile != null) {
-                Files.deleteIfExists(timeFile);
-                if (!Double.isNaN(scmRuntime)) {
-                    Files.write(timeFile, ("gscm=" + Double.toString(scmRuntime) + System.lineSeparator()).getBytes(), StandardOpenOption.CREATE_NEW);
-                    Files.write(timeFile, ("bcd=" + Double.toString(calcTime - scmRuntime) + System.lineSeparator()).getBytes(), StandardOpenOption.APPEND);
-                    Files.write(timeFile, ("complete=" + Double.toString(calcTime)).getBytes(), StandardOpenOption.APPEND);
-                } else {
-                    Files.write(timeFile, ("bcd=" + Double.toString(calcTime)).getBytes(), StandardOpenOption.CREATE_NEW);
-                }
 
+        }
 
-            }
+        cli.writeMetricsReport(algorithm);
 
-            CLI.LOGGER_WRAPPER.info("Supertree calculation Done in: " + calcTime + "s");
+        cli.LOGGER_WRAPPER.info("Supertree calculation Done in: " + calcTime + "s");
+        if (cli.getExecutorService() == null)
             algorithm.shutdown();
-            System.exit(0);
-
-        } catch (CmdLineException e) {
-            // if there's a problem in the command line,
-            // you'll get this exception. this will report
-            // an error message.
-            CLI.LOGGER_WRAPPER.error(e.getMessage(), e);
-            System.err.println(e.getMessage());
-            System.err.println();
-            CLI.printHelp(parser, System.err);
-            System.exit(1);
-        } catch (IOException e) {
-            CLI.LOGGER_WRAPPER.error(e.getMessage(), e);
-            System.err.println(e.getMessage());
-            System.err.println();
-            CLI.printHelp(parser, System.err);
-            System.exit(2);
-        } catch (Exception e) {
-            CLI.LOGGER_WRAPPER.error(e.getMessage(), e);
-            System.err.println(e.getMessage());
-            System.err.println();
-            System.exit(666);
-        }
-
-        System.exit(888);
+        return superTrees;
     }
 
     private static ReductionModifier removeUndisputedSiblings(List<Tree> inputTrees) {
@@ -0,0 +1,148 @@
+package phylo.tree.algorithm.flipcut.cli;
+
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+import org.kohsuke.args4j.spi.StopOptionHandler;
+import phylo.tree.algorithm.flipcut.AbstractFlipCut;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line options of the batch mode, which computes the supertrees of all jobs of a manifest file in one JVM.
+ * <p>
+ * Every line of the manifest contains the tab separated paths of one job: {@code INPUT_TREE_FILE [GUIDE_TREE_FILE [OUTPUT_FILE]]}.
+ * Missing or "-" guide tree and output columns are treated as not specified. Relative paths are resolved against
+ * the directory of the manifest. Empty lines and lines starting with '#' are ignored.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class BCDBatchCLI {
+    public static final String BATCH_OPTION = "--batch";
+    private static final String NONE = "-";
+
+    @Argument(usage = "Path of the manifest file containing one job per line", index = 0, required = true, metaVar = "MANIFEST")
+    private Path manifest = null;
+
+    @Argument(usage = "Options for every job (everything after \"--\"). The number of threads and the output file are set by the batch mode", index = 1, multiValued = true, metaVar = "BCD_OPTIONS")
+    private List<String> jobOptions = new ArrayList<>();
+
+    @Option(name = "--", handler = StopOptionHandler.class, usage = "All following arguments are passed to every job")
+    private boolean stop = false;
+
+    @Option(name = "-t", aliases = "--threads", usage = "Size of the thread pool that is shared by all jobs, 0 means all available cores")
+    private int numberOfThreads = 0;
+
+    @Option(name = "-J", aliases = "--parallelJobs", usage = "Number of jobs that run at the same time. The threads are divided between the running jobs")
+    private int parallelJobs = 1;
+
+    @Option(name = "-r", aliases = "--report", usage = "Report file with runtime, score and status of every job (tab separated). Default is the manifest path with suffix \".report.tsv\"")
+    private Path report = null;
+
+    @Option(name = "-h", aliases = "--help", help = true, usage = "usage message")
+    private boolean help = false;
+
+    public Path getManifestFile() {
+        return manifest;
+    }
+
+    public Path getReportFile() {
+        if (report == null)
+            return Paths.get(manifest.toString() + ".report.tsv");
+        return report;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads <= 0 ? AbstractFlipCut.CORES_AVAILABLE : numberOfThreads;
+    }
+
+    public int getParallelJobs() {
+        return Math.max(1, parallelJobs);
+    }
+
+    public List<String> getJobOptions() {
+        return jobOptions;
+    }
+
+    public boolean isHelp() {
+        return help;
+    }
+
+    public List<Job> parseManifest() throws IOException {
+        final Path dir = manifest.toAbsolutePath().getParent();
+        final List<Job> jobs = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.trim().startsWith("#"))
+                    continue;
+                final String[] columns = line.split("\t");
+                if (columns.length > 3)
+                    throw new IOException("ERROR: Line " + lineNumber + " of the manifest has more than 3 columns: " + line);
+                final Path input = resolve(dir, columns, 0);
+                if (input == null)
+                    throw new IOException("ERROR: Line " + lineNumber + " of the manifest contains no input tree file: " + line);
+                jobs.add(new Job(lineNumber, input, resolve(dir, columns, 1), resolve(dir, columns, 2)));
+            }
+        }
+        return jobs;
+    }
+
+    private static Path resolve(Path dir, String[] columns, int index) {
+        if (columns.length <= index)
+            return null;
+        final String column = columns[index].trim();
+        if (column.isEmpty() || column.equals(NONE))
+            return null;
+        return dir.resolve(column);
+    }
+
+    /**
+     * @return the arguments for the {@link BCDCLI} of the given job
+     */
+    public String[] createJobArguments(Job job) {
+        final List<String> args = new ArrayList<>(jobOptions);
+        args.add("-B"); // progress bars of parallel jobs would be mixed up
+        if (job.output != null) {
+            args.add("-o");
+            args.add(job.output.toString());
+        }
+        args.add(job.input.toString());
+        if (job.guide != null)
+            args.add(job.guide.toString());
+        return args.toArray(new String[args.size()]);
+    }
+
+    public void printHelp(CmdLineParser parser, PrintStream stream) {
+        stream.println("Usage:");
+        stream.println(" bcd " + BATCH_OPTION + " [options...] MANIFEST [-- BCD_OPTIONS...]");
+        stream.println("    Computes the supertrees of all jobs of the manifest in one JVM. Every line of the manifest");
+        stream.println("    contains the tab separated paths: INPUT_TREE_FILE [GUIDE_TREE_FILE [OUTPUT_FILE]]");
+        stream.println();
+        parser.printUsage(stream);
+    }
+
+    public static class Job {
+        public final int line;
+        public final Path input;
+        public final Path guide;
+        public final Path output;
+
+        Job(int line, Path input, Path guide, Path output) {
+            this.line = line;
+            this.input = input;
+            this.guide = guide;
+            this.output = output;
+        }
+    }
+}
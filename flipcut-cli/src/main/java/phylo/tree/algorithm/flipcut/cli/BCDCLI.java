@@ -1,12 +1,18 @@
 package phylo.tree.algorithm.flipcut.cli;
 
+import org.kohsuke.args4j.Option;
+import org.slf4j.LoggerFactory;
 import phylo.tree.algorithm.consensus.Consensus;
 import phylo.tree.algorithm.flipcut.AbstractFlipCut;
+import phylo.tree.algorithm.flipcut.CutMetrics;
 import phylo.tree.algorithm.flipcut.FlipCutSingleCut;
 import phylo.tree.algorithm.flipcut.SourceTreeGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDSourceGraph;
 import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphSnapshot;
 import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
 import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.CompressedHaoOrlinCutter;
 import phylo.tree.algorithm.flipcut.cutter.CompressedSingleCutter;
 import phylo.tree.algorithm.flipcut.cutter.MaxFlowCutterFactory;
 import phylo.tree.algorithm.flipcut.flipCutGraph.CutGraphTypes;
@@ -18,9 +24,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by fleisch on 03.02.16.
@@ -54,6 +64,99 @@ public class BCDCLI<A extends AbstractFlipCut> extends BasicBCDCLI<A> {
         return graphType;
     } //deafault has to be null
 
+    //##### graph snapshots #####
+    @Option(name = "--writeSnapshot", usage = "Write the graph created from the input trees (and guide tree) to a binary snapshot file that can be used with --readSnapshot", forbids = "--readSnapshot")
+    private Path snapshotOutput = null;
+
+    @Option(name = "--readSnapshot", usage = "Read the graph from a snapshot file instead of creating it from the input trees. No guide tree is calculated, the input trees are only used for post-processing (-j). Weighting (-w) and bootstrap threshold (-b) are taken from the snapshot", forbids = {"--writeSnapshot", "-u", "-w", "-W", "-b"})
+    private Path snapshotInput = null;
+
+    public Path getSnapshotOutputFile() {
+        if (snapshotOutput == null)
+            return null;
+        return workingPath.resolve(snapshotOutput);
+    }
+
+    public Path getSnapshotInputFile() {
+        if (snapshotInput == null)
+            return null;
+        return workingPath.resolve(snapshotInput);
+    }
+
+    protected boolean isCompressedGraphType() {
+        return getGraphType() == CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG
+                || getGraphType() == CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_AHOJI_ORLIN
+                || getGraphType() == CutGraphTypes.COMPRESSED_BCD_VIA_MINCUT_HAO_ORLIN;
+    }
+
+    protected void checkSnapshotSupport() {
+        if ((snapshotInput != null || snapshotOutput != null) && !isCompressedGraphType())
+            throw new IllegalArgumentException("Graph snapshots are only supported for the compressed BCD graph types, not for " + getGraphType());
+    }
+
+
+    //##### checkpoints #####
+    @Option(name = "--checkpoint", usage = "Periodically save the state of the supertree computation to this file. The file is deleted when the computation is finished")
+    private Path checkpoint = null;
+
+    @Option(name = "--checkpointInterval", usage = "Minutes between two checkpoints", depends = "--checkpoint")
+    private int checkpointInterval = 10;
+
+    @Option(name = "--resume", usage = "Continue the computation from the checkpoint file, if it exists. The input (or snapshot) has to be the same as for the interrupted run", depends = "--checkpoint")
+    private boolean resume = false;
+
+    public Path getCheckpointFile() {
+        if (checkpoint == null)
+            return null;
+        return workingPath.resolve(checkpoint);
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+
+    //##### metrics #####
+    @Option(name = "--metricsReport", usage = "Record size, timings and max flow statistics of every cut and write them to this file at the end of the run (CSV if the file ends with .csv, JSON otherwise). The cuts are also emitted as JFR events if a flight recording is running")
+    private Path metricsReport = null;
+
+    public Path getMetricsReportFile() {
+        if (metricsReport == null)
+            return null;
+        return workingPath.resolve(metricsReport);
+    }
+
+    /**
+     * Writes the metrics report of the given algorithm if requested
+     */
+    public void writeMetricsReport(AbstractFlipCut algo) throws IOException {
+        final Path file = getMetricsReportFile();
+        if (file != null && algo instanceof FlipCutSingleCut && ((FlipCutSingleCut) algo).getMetrics() != null)
+            ((FlipCutSingleCut) algo).getMetrics().writeReport(file);
+    }
+
+
+    //##### shared executor #####
+    private ExecutorService executorService = null;
+
+    /**
+     * Executor that is used by the algorithm and the graph creation instead of their own thread pools.
+     * It is not shut down after the computation, so it can be shared between several runs (see batch mode).
+     *
+     * @param executorService the executor, null to let every run create its own thread pools
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
 
     //##### Methods ####
     private void checkForNexus() throws IOException {
@@ -82,15 +185,36 @@ public class BCDCLI<A extends AbstractFlipCut> extends BasicBCDCLI<A> {
 
     @Override
     public void setParameters(AbstractFlipCut algo) {
-        algo.setNumberOfThreads(getNumberOfThreads());
+        // a shared fork join pool bounds the number of threads, so the tree partitions can be computed in parallel too
+        if (getExecutorService() instanceof ForkJoinPool && getNumberOfThreads() > 1)
+            algo.setNumberOfThreads(-getNumberOfThreads());
+        else
+            algo.setNumberOfThreads(getNumberOfThreads());
         algo.setPrintProgress(isProgressBar());
+        if (getCheckpointFile() != null) {
+            if (!(algo instanceof FlipCutSingleCut) || !isCompressedGraphType())
+                throw new IllegalArgumentException("Checkpoints are only supported for the single cut algorithm on the compressed BCD graph types");
+            final FlipCutSingleCut singleCut = (FlipCutSingleCut) algo;
+            singleCut.setCheckpoint(getCheckpointFile(), TimeUnit.MINUTES.toMillis(getCheckpointInterval()));
+            singleCut.setResume(isResume());
+        }
+        if (getMetricsReportFile() != null) {
+            if (!(algo instanceof FlipCutSingleCut))
+                throw new IllegalArgumentException("Metrics are only supported for the single cut algorithm");
+            ((FlipCutSingleCut) algo).setMetrics(new CutMetrics());
+        }
     }
 
     @Override
     public AbstractFlipCut createAlgorithmInstance() {
-        AbstractFlipCut algo = new FlipCutSingleCut();
-        if (getGraphType() == CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG) {
-            algo.setCutter(new CompressedSingleCutter.CompressedSingleCutterFactory());
+        AbstractFlipCut algo = executorService == null
+                ? new FlipCutSingleCut()
+                : new FlipCutSingleCut(LoggerFactory.getLogger(FlipCutSingleCut.class), executorService, null);
+        if (getGraphType() == CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG
+                || getGraphType() == CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_AHOJI_ORLIN) {
+            algo.setCutter(new CompressedSingleCutter.CompressedSingleCutterFactory(getGraphType()));
+        } else if (getGraphType() == CutGraphTypes.COMPRESSED_BCD_VIA_MINCUT_HAO_ORLIN) {
+            algo.setCutter(new CompressedHaoOrlinCutter.CompressedHaoOrlinCutterFactory());
         } else {
             algo.setCutter(MaxFlowCutterFactory.newInstance(getGraphType()));
         }
@@ -98,14 +222,33 @@ public class BCDCLI<A extends AbstractFlipCut> extends BasicBCDCLI<A> {
         return algo;
     }
 
-    public SourceTreeGraph createGraphInstance(List<Tree> source, Tree scaffold) {
-        if (getGraphType() == CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG) {
-            return CompressedGraphFactory.createSourceGraph(SimpleCosts.newCostComputer(source, scaffold, getWeights()), getBootstrapThreshold(),true);
+    public SourceTreeGraph createGraphInstance(List<Tree> source, Tree scaffold) throws IOException {
+        checkSnapshotSupport();
+        if (isCompressedGraphType()) {
+            return createGraphInstance(createSourceGraph(source, scaffold, true));
         } else {
             return new FlipCutGraphSimpleWeight(SimpleCosts.newCostComputer(source, scaffold, getWeights()), getBootstrapThreshold());
         }
     }
 
+    // wraps the compressed source graph for the algorithm
+    public SourceTreeGraph createGraphInstance(CompressedBCDSourceGraph sourceGraph) {
+        return sourceGraph;
+    }
+
+    // creates the compressed source graph and writes a snapshot of it if requested
+    protected CompressedBCDSourceGraph createSourceGraph(List<Tree> source, Tree scaffold, boolean mergedEdges) throws IOException {
+        final CompressedBCDSourceGraph sourceGraph = CompressedGraphFactory.createSourceGraph(SimpleCosts.newCostComputer(source, scaffold, getWeights()), getBootstrapThreshold(), mergedEdges, getNumberOfThreads(), getExecutorService());
+        if (getSnapshotOutputFile() != null)
+            CompressedGraphSnapshot.write(sourceGraph, getSnapshotOutputFile());
+        return sourceGraph;
+    }
+
+    public SourceTreeGraph readGraphInstance() throws IOException {
+        checkSnapshotSupport();
+        return createGraphInstance(CompressedGraphSnapshot.read(getSnapshotInputFile()));
+    }
+
 
     public Tree parseSCM() throws IOException {
         if (getSCMInputFile() == null)
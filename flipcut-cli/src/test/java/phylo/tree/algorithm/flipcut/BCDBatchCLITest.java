@@ -0,0 +1,122 @@
+package phylo.tree.algorithm.flipcut;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kohsuke.args4j.CmdLineParser;
+import phylo.tree.algorithm.flipcut.cli.BCDBatchCLI;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class BCDBatchCLITest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test_options() throws Exception {
+        final Path manifest = folder.newFile("jobs.txt").toPath();
+        final BCDBatchCLI cli = new BCDBatchCLI();
+        new CmdLineParser(cli).parseArgument("-t", "8", "-J", "2", "-r", "report.tsv", manifest.toString(), "--", "-w", "BOOTSTRAP_WEIGHT", "-b", "50");
+
+        assertEquals(manifest, cli.getManifestFile());
+        assertEquals(8, cli.getNumberOfThreads());
+        assertEquals(2, cli.getParallelJobs());
+        assertEquals("report.tsv", cli.getReportFile().toString());
+        assertEquals(Arrays.asList("-w", "BOOTSTRAP_WEIGHT", "-b", "50"), cli.getJobOptions());
+    }
+
+    @Test
+    public void test_manifest() throws Exception {
+        final Path dir = folder.getRoot().toPath();
+        final Path manifest = dir.resolve("jobs.txt");
+        Files.write(manifest, Arrays.asList(
+                "# input\tguide\toutput",
+                "",
+                "a.tre",
+                "b.tre\tb.scm.tre",
+                "c.tre\t-\tout/c.tre"));
+
+        final BCDBatchCLI cli = new BCDBatchCLI();
+        new CmdLineParser(cli).parseArgument(manifest.toString(), "--", "-w", "TREE_WEIGHT");
+        assertEquals(Paths.get(manifest.toString() + ".report.tsv"), cli.getReportFile());
+
+        final List<BCDBatchCLI.Job> jobs = cli.parseManifest();
+        assertEquals(3, jobs.size());
+
+        assertEquals(3, jobs.get(0).line);
+        assertEquals(dir.resolve("a.tre"), jobs.get(0).input);
+        assertNull(jobs.get(0).guide);
+        assertNull(jobs.get(0).output);
+        assertArrayEquals(new String[]{"-w", "TREE_WEIGHT", "-B", dir.resolve("a.tre").toString()}, cli.createJobArguments(jobs.get(0)));
+
+        assertEquals(dir.resolve("b.scm.tre"), jobs.get(1).guide);
+        assertArrayEquals(new String[]{"-w", "TREE_WEIGHT", "-B", dir.resolve("b.tre").toString(), dir.resolve("b.scm.tre").toString()}, cli.createJobArguments(jobs.get(1)));
+
+        assertNull(jobs.get(2).guide);
+        assertEquals(dir.resolve("out/c.tre"), jobs.get(2).output);
+        assertArrayEquals(new String[]{"-w", "TREE_WEIGHT", "-B", "-o", dir.resolve("out/c.tre").toString(), dir.resolve("c.tre").toString()}, cli.createJobArguments(jobs.get(2)));
+    }
+
+    @Test
+    public void test_run_with_failing_job() throws Exception {
+        final Path dir = folder.getRoot().toPath();
+        copyResource(BCDSupertreesTest.newickInput, dir.resolve("input.tre"));
+        copyResource(BCDSupertreesTest.newickSCM, dir.resolve("scm.tre"));
+        final Path manifest = dir.resolve("jobs.txt");
+        Files.write(manifest, Arrays.asList(
+                "input.tre\tscm.tre\tout.tre",
+                "missing.tre\t-\tmissing.out.tre"));
+
+        final BCDBatchCLI cli = new BCDBatchCLI();
+        new CmdLineParser(cli).parseArgument("-t", "2", "-J", "1", manifest.toString());
+        assertEquals(1, BCDBatch.run(cli));
+
+        // header and one line per job, in manifest order because only one job runs at a time
+        final List<String> report = Files.readAllLines(cli.getReportFile(), StandardCharsets.UTF_8);
+        assertEquals(3, report.size());
+
+        final String[] ok = report.get(1).split("\t", -1);
+        assertEquals("1", ok[0]);
+        assertEquals("OK", ok[3]);
+        assertTrue("Missing score", !ok[5].isEmpty());
+        assertEquals("", ok[6]);
+        assertTrue(Files.exists(dir.resolve("out.tre")));
+
+        final String[] failed = report.get(2).split("\t", -1);
+        assertEquals("2", failed[0]);
+        assertEquals("FAILED", failed[3]);
+        assertEquals("", failed[5]);
+        assertTrue("Missing error", !failed[6].isEmpty());
+    }
+
+    private void copyResource(String resource, Path target) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/" + resource)) {
+            Files.copy(in, target);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void test_manifest_without_input() throws Exception {
+        final Path manifest = folder.getRoot().toPath().resolve("jobs.txt");
+        Files.write(manifest, Arrays.asList("a.tre", "\tguide.tre"));
+
+        final BCDBatchCLI cli = new BCDBatchCLI();
+        new CmdLineParser(cli).parseArgument(manifest.toString());
+        cli.parseManifest();
+    }
+}
@@ -1,6 +1,7 @@
 package phylo.tree.algorithm.flipcut;
 
 import org.junit.Test;
+import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import phylo.tree.algorithm.flipcut.cli.BCDCLI;
 import phylo.tree.algorithm.flipcut.flipCutGraph.CutGraphTypes;
@@ -196,6 +197,42 @@ public class BCDCLITest extends BCDCLI { //extending from class to test to get p
 
     }
 
+    @Test
+    public void test_snapshot() throws Exception {
+        String[] test_String = {"--writeSnapshot", "graph.bcdg", requiredInputPath};
+        final CmdLineParser parser = new CmdLineParser(this);
+        parser.parseArgument(test_String);
+
+        //assert
+        assertEquals(workingPath.resolve("graph.bcdg"), getSnapshotOutputFile());
+        assertEquals(null, getSnapshotInputFile());
+    }
+
+    // weighting and bootstrap threshold are part of the snapshot
+    @Test(expected = CmdLineException.class)
+    public void test_read_snapshot_with_weighting() throws Exception {
+        String[] test_String = {"--readSnapshot", "graph.bcdg", "-w", "BRANCH_LENGTH", requiredInputPath};
+        new CmdLineParser(this).parseArgument(test_String);
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void test_read_snapshot_with_bst_threshold() throws Exception {
+        String[] test_String = {"--readSnapshot", "graph.bcdg", "-b", "50", requiredInputPath};
+        new CmdLineParser(this).parseArgument(test_String);
+    }
+
+    @Test
+    public void test_checkpoint() throws Exception {
+        String[] test_String = {"--checkpoint", "run.bcdc", "--checkpointInterval", "5", "--resume", requiredInputPath};
+        final CmdLineParser parser = new CmdLineParser(this);
+        parser.parseArgument(test_String);
+
+        //assert
+        assertEquals(workingPath.resolve("run.bcdc"), getCheckpointFile());
+        assertEquals(5, getCheckpointInterval());
+        assertEquals(true, isResume());
+    }
+
     @Test
     public void test_help() throws Exception {
         String[] test_String = {"-h", requiredInputPath};
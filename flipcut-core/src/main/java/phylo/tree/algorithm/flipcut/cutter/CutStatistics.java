@@ -0,0 +1,31 @@
+package phylo.tree.algorithm.flipcut.cutter;
+
+import mincut.cutGraphAPI.MaxFlowStatistics;
+
+/**
+ * Size of the flow network and time spent for the last cut of a {@link GraphCutter}.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class CutStatistics {
+    public final int nodes;
+    public final int arcs;
+    public final long buildNanos;
+    public final long flowNanos;
+    public final MaxFlowStatistics flows;
+
+    /**
+     * @param nodes      number of nodes of the flow network
+     * @param arcs       number of arcs of the flow network (including reverse arcs)
+     * @param buildNanos time to create the flow network
+     * @param flowNanos  time of the s-t flow computations
+     * @param flows      operation counts of the s-t flows
+     */
+    public CutStatistics(int nodes, int arcs, long buildNanos, long flowNanos, MaxFlowStatistics flows) {
+        this.nodes = nodes;
+        this.arcs = arcs;
+        this.buildNanos = buildNanos;
+        this.flowNanos = flowNanos;
+        this.flows = flows;
+    }
+}
@@ -17,6 +17,13 @@ public interface GraphCutter<S> {
 
     Cut<S> getMinCut();
 
+    /**
+     * @return network size, timings and flow operation counts of the last cut or null if not supported
+     */
+    default CutStatistics getCutStatistics() {
+        return null;
+    }
+
     default boolean isFlipCut() {
         return !isBCD();
     }
@@ -44,18 +44,21 @@ public class DefaultMultiCut extends AbstractMultiCut<LinkedHashSet<FlipCutNodeS
     }
 
     public List<FlipCutGraphMultiSimpleWeight> getSplittedGraphs() {
-        if (splittedGraphs == null) {
-            if (comp != null) {
-                splittedGraphs = sourceGraph.buildComponentGraphs(comp);
-                comp = null;
-            } else {
-                splittedGraphs = (List<FlipCutGraphMultiSimpleWeight>) sourceGraph.split(getCutSet());
-                cutSet = null;
+        // the source graph is closed when all of its cuts are split, so splitting has to hold its lock
+        synchronized (sourceGraph) {
+            if (splittedGraphs == null) {
+                if (comp != null) {
+                    splittedGraphs = sourceGraph.buildComponentGraphs(comp);
+                    comp = null;
+                } else {
+                    splittedGraphs = (List<FlipCutGraphMultiSimpleWeight>) sourceGraph.split(getCutSet());
+                    cutSet = null;
+                }
+                sourceGraph.setCutSplitted(this);
+                sourceGraph.close();
             }
-            sourceGraph.setCutSplitted(this);
-            sourceGraph.close();
+            return splittedGraphs;
         }
-        return splittedGraphs;
     }
 
     @Override
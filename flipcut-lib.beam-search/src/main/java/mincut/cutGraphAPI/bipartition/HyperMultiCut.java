@@ -38,15 +38,16 @@ public class HyperMultiCut extends AbstractMultiCut<LinkedHashSet<FlipCutNodeSim
 
     @Override
     public List<FlipCutGraphMultiSimpleWeight> getSplittedGraphs() {
-        if (splittedGraphs == null) {
-
-            splittedGraphs = (List<FlipCutGraphMultiSimpleWeight>) sourceGraph.split(getCutSet());
-            sourceCut = null;
-            sourceGraph.setCutSplitted(this);
-            sourceGraph.close();
+        // the source graph is closed when all of its cuts are split, so splitting has to hold its lock
+        synchronized (sourceGraph) {
+            if (splittedGraphs == null) {
+                splittedGraphs = (List<FlipCutGraphMultiSimpleWeight>) sourceGraph.split(getCutSet());
+                sourceCut = null;
+                sourceGraph.setCutSplitted(this);
+                sourceGraph.close();
+            }
+            return splittedGraphs;
         }
-
-        return splittedGraphs;
     }
 
     @Override
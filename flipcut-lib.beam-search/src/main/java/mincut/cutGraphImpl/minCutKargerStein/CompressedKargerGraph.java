@@ -10,6 +10,7 @@ import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
 import mincut.cutGraphAPI.bipartition.HashableCut;
 import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.IntIterator;
 import org.roaringbitmap.RoaringBitmap;
 import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDGraph;
 import phylo.tree.algorithm.flipcut.bcdGraph.edge.Hyperedge;
@@ -73,10 +74,13 @@ public class CompressedKargerGraph implements KargerGraph<CompressedKargerGraph,
             TObjectDoubleMap<RoaringBitmap> charCandidates = new TObjectDoubleHashMap<>(sourceGraph.numCharacter(), Constants.DEFAULT_LOAD_FACTOR, Double.NaN);
 
 
-            for (Hyperedge hyperedge : sourceGraph.hyperEdges()) {
+            IntIterator chars = sourceGraph.characters.getIntIterator();
+            while (chars.hasNext()) {
+                final int charIndex = chars.next();
                 //check for normal edge
-                if (!hyperedge.isInfinite()) {
-                    RoaringBitmap taxa = hyperedge.ones().clone();
+                if (!sourceGraph.isInfinite(charIndex)) {
+                    final long weight = sourceGraph.getWeight(charIndex);
+                    RoaringBitmap taxa = sourceGraph.getEdge(charIndex).ones().clone();
                     for (Hyperedge guide : sourceGraph.guideHyperEdges()) {
                         RoaringBitmap intersection = RoaringBitmap.and(taxa, guide.ones());
                         if (!intersection.isEmpty()) {
@@ -88,7 +92,7 @@ public class CompressedKargerGraph implements KargerGraph<CompressedKargerGraph,
                     if (taxa.getCardinality() > 0) {
                         allTaxa.or(taxa);
                         if (taxa.getCardinality() > 1) //add characters and merge identical ones
-                            charCandidates.adjustOrPutValue(taxa, hyperedge.getWeight(), hyperedge.getWeight());
+                            charCandidates.adjustOrPutValue(taxa, weight, weight);
                     }
 
                 }
@@ -104,11 +108,15 @@ public class CompressedKargerGraph implements KargerGraph<CompressedKargerGraph,
             }
         } else {
             TObjectDoubleMap<RoaringBitmap> charCandidates = new TObjectDoubleHashMap<>(sourceGraph.numCharacter(), Constants.DEFAULT_LOAD_FACTOR, Double.NaN);
-            for (Hyperedge hyperedge : sourceGraph.hyperEdges()) {
+            IntIterator chars = sourceGraph.characters.getIntIterator();
+            while (chars.hasNext()) {
+                final int charIndex = chars.next();
+                final RoaringBitmap ones = sourceGraph.getEdge(charIndex).ones();
+                final long weight = sourceGraph.getWeight(charIndex);
                 //check for normal edge
-                if (!charCandidates.adjustValue(hyperedge.ones(), hyperedge.getWeight())) {
-                    charCandidates.put(hyperedge.ones().clone(), hyperedge.getWeight());
-                    allTaxa.or(hyperedge.ones());
+                if (!charCandidates.adjustValue(ones, weight)) {
+                    charCandidates.put(ones.clone(), weight);
+                    allTaxa.or(ones);
                 }
             }
 
@@ -302,6 +310,14 @@ public class CompressedKargerGraph implements KargerGraph<CompressedKargerGraph,
         return hashCache;
     }
 
+    /**
+     * @return an {@link ArrayKargerGraph} with the current (merged) hyperedges and vertices of this graph,
+     * which contracts without creating new bitmaps.
+     */
+    public ArrayKargerGraph asArrayGraph() {
+        return new ArrayKargerGraph(hyperEdges, weights, mergedTaxa);
+    }
+
     public HashableCut<RoaringBitmap> asCut() {
         if (!isCutted())
             throw new IllegalStateException("Graph has to be cutted to get Cut representation");
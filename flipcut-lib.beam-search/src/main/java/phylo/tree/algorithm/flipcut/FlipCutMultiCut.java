@@ -2,13 +2,19 @@ package phylo.tree.algorithm.flipcut;
 
 import core.algorithm.Algorithm;
 import org.slf4j.Logger;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDMultiCutGraph;
 import phylo.tree.algorithm.flipcut.cutter.MultiCutter;
 import phylo.tree.algorithm.flipcut.cutter.MultiCutterFactory;
 import phylo.tree.algorithm.flipcut.model.Partition;
 import phylo.tree.model.Tree;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Markus Fleischauer (markus.fleischauer@uni-jena.de)
@@ -58,42 +64,108 @@ public class FlipCutMultiCut<S, T extends SourceTreeGraphMultiCut<S, T>, C exten
             //initial step to generate
             final LinkedList<Partition> partitions = new Partition(initialGraph).getKBestNew(numberOfCuts, Long.MAX_VALUE);
             int minimalPartLevel = buildNextPartitionLevel(partitions, subsBench);
+            final CompressedBCDMultiCutGraph cacheOwner = initialGraph instanceof CompressedBCDMultiCutGraph ? (CompressedBCDMultiCutGraph) initialGraph : null;
             initialGraph = null; //get rid of these large graph
 
-            //iterates as long as all taxa are separated
-            while (minimalPartLevel < numTaxa) {
-                System.out.println(new Date().toString());
-                System.out.println(minimalPartLevel + " of " + numTaxa + " done!");
-                System.out.println("Number of solutions alive: " + partitions.size());
-                System.out.println();
-                final Set<Partition> allNewPartitionsSet = new HashSet<>();
-                //start with best partitions...
-                long upperBound = Long.MAX_VALUE;
-                while (!partitions.isEmpty()) {
-                    LinkedList<Partition> part = partitions.poll().getKBestNew(numberOfCuts, upperBound);
-
-                    //actualise upperbound
-                    if (allNewPartitionsSet.addAll(part) && allNewPartitionsSet.size() >= numberOfCuts) {
-                        long wannabeUpperBound = part.getLast().currentscore;
-                        if (wannabeUpperBound < upperBound)
-                            upperBound = wannabeUpperBound;
-                    }
+            final ExecutorService executor = initExecutor();
+            try {
+                //iterates as long as all taxa are separated
+                while (minimalPartLevel < numTaxa) {
+                    System.out.println(new Date().toString());
+                    System.out.println(minimalPartLevel + " of " + numTaxa + " done!");
+                    System.out.println("Number of solutions alive: " + partitions.size());
+                    System.out.println();
+                    final Set<Partition> allNewPartitionsSet = expandPartitions(partitions, executor);
+                    partitions.clear();
+                    partitions.addAll(allNewPartitionsSet);
+                    Collections.sort(partitions);
+                    if (partitions.size() > (numberOfCuts))
+                        partitions.subList(numberOfCuts + 1, partitions.size()).clear();
+                    minimalPartLevel = buildNextPartitionLevel(partitions, subsBench);
                 }
-
-                partitions.addAll(allNewPartitionsSet);
-                Collections.sort(partitions);
-                if (partitions.size() > (numberOfCuts))
-                    partitions.subList(numberOfCuts + 1, partitions.size()).clear();
-                minimalPartLevel = buildNextPartitionLevel(partitions, subsBench);
+            } finally {
+                if (executor != null && executor != executorService)
+                    executor.shutdown();
             }
 
             System.out.println("...DONE in " + ((double) (System.currentTimeMillis() - calctime) / 1000d) + "s");
+            if (cacheOwner != null)
+                LOGGER.info("Graph cache: " + cacheOwner.getCacheHits() + " graphs reused, " + cacheOwner.getCacheMisses() + " graphs created");
             System.out.println();
 
             result = buildTreesFromPartitions(partitions);
         }
     }
 
+    /**
+     * @return the executor to expand the partitions of a beam level in parallel or null for single threaded expansion
+     */
+    private ExecutorService initExecutor() {
+        final int threads = numberOfThreads == 0 ? CORES_AVAILABLE : Math.abs(numberOfThreads);
+        if (threads <= 1)
+            return null;
+        if (executorService != null)
+            return executorService;
+        LOGGER.info("Expanding partitions with " + threads + " threads.");
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    /*
+     * Expands all partitions of a beam level. The graphs of the partitions are shared, their cuts are computed only once.
+     * The upper bound is the (k+1)-best score of the distinct new partitions found so far. It never drops below the
+     * (k+1)-best score of all expansions, so the surviving partitions do not depend on the order the partitions are
+     * expanded in (except for ties at the bound).
+     */
+    private Set<Partition> expandPartitions(final List<Partition> partitions, final ExecutorService executor) {
+        final AtomicLong upperBound = new AtomicLong(Long.MAX_VALUE);
+        final Set<Partition> seen = new HashSet<>();
+        final PriorityQueue<Long> bestScores = new PriorityQueue<>(numberOfCuts + 2, Collections.reverseOrder());
+
+        final List<Callable<LinkedList<Partition>>> jobs = new ArrayList<>(partitions.size());
+        for (final Partition partition : partitions) {
+            jobs.add(() -> {
+                final LinkedList<Partition> part = partition.getKBestNew(numberOfCuts, upperBound.get());
+                //actualise upperbound
+                synchronized (seen) {
+                    for (Partition p : part) {
+                        if (seen.add(p)) {
+                            bestScores.add(p.currentscore);
+                            if (bestScores.size() > numberOfCuts + 1)
+                                bestScores.poll();
+                        }
+                    }
+                    if (bestScores.size() > numberOfCuts)
+                        upperBound.set(bestScores.peek());
+                }
+                return part;
+            });
+        }
+
+        //merge in the order of the partitions (best first), so that equal partitions are resolved deterministically
+        final Set<Partition> allNewPartitionsSet = new HashSet<>();
+        try {
+            if (executor == null) {
+                for (Callable<LinkedList<Partition>> job : jobs) {
+                    allNewPartitionsSet.addAll(job.call());
+                }
+            } else {
+                for (Future<LinkedList<Partition>> future : executor.invokeAll(jobs)) {
+                    allNewPartitionsSet.addAll(future.get());
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error during partition expansion", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Partition expansion interrupted", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error during partition expansion", e);
+        }
+        return allNewPartitionsSet;
+    }
+
     // this mehtod builds the new Partition list with respect to the subsBench ;-)
     private int buildNextPartitionLevel(final LinkedList<Partition> newPartitions, final TreeMap<Integer, Set<Partition>> subsBench) {
         int minimalPartSize = Integer.MAX_VALUE;
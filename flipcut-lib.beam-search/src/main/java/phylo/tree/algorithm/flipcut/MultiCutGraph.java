@@ -22,7 +22,7 @@ public abstract class MultiCutGraph<C, G extends MultiCutGraph<C, G>> implements
         nextCutIndexToCalculate = 0;
     }
 
-    public boolean containsCuts() {
+    public synchronized boolean containsCuts() {
         return nextCutIndexToCalculate > 0;
     }
 
@@ -63,14 +63,18 @@ public abstract class MultiCutGraph<C, G extends MultiCutGraph<C, G>> implements
     protected abstract MultiCut<C, G> getCutFromCompenents();
 
 
+    // the graph may be part of several partitions that are expanded in parallel,
+    // so the cuts are calculated while holding the lock of the graph
     class CutIterator implements Iterator<MultiCut<C, G>> {
         CutIterator() {
-            //check if graph is already disconnected
-            if (nextCutIndexToCalculate == 0 && maxCutNumber == cuts.length) {
-                if (!isConnected()) {//graph is already disconnected we have to build subgraph from parts
-                    cuts[nextCutIndexToCalculate] = getCutFromCompenents();
-                    nextCutIndexToCalculate++;
-                    maxCutNumber = nextCutIndexToCalculate;
+            synchronized (MultiCutGraph.this) {
+                //check if graph is already disconnected
+                if (nextCutIndexToCalculate == 0 && maxCutNumber == cuts.length) {
+                    if (!isConnected()) {//graph is already disconnected we have to build subgraph from parts
+                        cuts[nextCutIndexToCalculate] = getCutFromCompenents();
+                        nextCutIndexToCalculate++;
+                        maxCutNumber = nextCutIndexToCalculate;
+                    }
                 }
             }
         }
@@ -78,21 +82,24 @@ public abstract class MultiCutGraph<C, G extends MultiCutGraph<C, G>> implements
         int index = 0;
 
         public boolean hasNext() {
-            if (index >= nextCutIndexToCalculate) {
-                if (nextCutIndexToCalculate < maxCutNumber) {
-                    return calculateNextCut();
-                } else {
-                    return false;
+            synchronized (MultiCutGraph.this) {
+                if (index >= nextCutIndexToCalculate) {
+                    if (nextCutIndexToCalculate < maxCutNumber) {
+                        return calculateNextCut();
+                    } else {
+                        return false;
+                    }
                 }
+                return true;
             }
-            return true;
         }
 
         public MultiCut<C, G> next() {
-            if (cuts[index] == null)
-                calculateNextCut();
-            return cuts[index++];
-
+            synchronized (MultiCutGraph.this) {
+                if (cuts[index] == null)
+                    calculateNextCut();
+                return cuts[index++];
+            }
         }
     }
 
@@ -14,14 +14,28 @@ import java.util.List;
 
 public class CompressedBCDMultiCutGraph extends MultiCutGraph<RoaringBitmap, CompressedBCDMultiCutGraph> {
     private final CompressedBCDGraph source;
+    private final CompressedBCDMultiCutGraphCache cache;
 
     public RoaringBitmap getTaxa() {
         return source.taxa;
     }
 
     public CompressedBCDMultiCutGraph(CompressedBCDGraph source, int k, MultiCutterFactory<MultiCutter<RoaringBitmap, CompressedBCDMultiCutGraph>, RoaringBitmap, CompressedBCDMultiCutGraph> cutterFactory) {
+        this(source, k, cutterFactory, CompressedBCDMultiCutGraphCache.DEFAULT_SIZE);
+    }
+
+    /**
+     * @param cacheSize maximum number of graphs in the beam wide graph cache, that shares the cuts of equal graphs
+     *                  between the partitions of the beam. 0 disables the cache.
+     */
+    public CompressedBCDMultiCutGraph(CompressedBCDGraph source, int k, MultiCutterFactory<MultiCutter<RoaringBitmap, CompressedBCDMultiCutGraph>, RoaringBitmap, CompressedBCDMultiCutGraph> cutterFactory, int cacheSize) {
+        this(source, k, cutterFactory, cacheSize > 0 ? new CompressedBCDMultiCutGraphCache(cacheSize) : null);
+    }
+
+    private CompressedBCDMultiCutGraph(CompressedBCDGraph source, int k, MultiCutterFactory<MultiCutter<RoaringBitmap, CompressedBCDMultiCutGraph>, RoaringBitmap, CompressedBCDMultiCutGraph> cutterFactory, CompressedBCDMultiCutGraphCache cache) {
         super(k, cutterFactory);
         this.source = source;
+        this.cache = cache;
     }
 
     public CompressedBCDGraph getSource() {
@@ -77,8 +91,21 @@ public class CompressedBCDMultiCutGraph extends MultiCutGraph<RoaringBitmap, Com
         List<CompressedBCDGraph> splitSource = cutted.split();
         List<CompressedBCDMultiCutGraph> splitGraphs = new ArrayList<>(splitSource.size());
         for (CompressedBCDGraph bcdGraph : splitSource) {
-            splitGraphs.add(new CompressedBCDMultiCutGraph(bcdGraph, maxCutNumber, cutterFactory));
+            final CompressedBCDMultiCutGraph graph = new CompressedBCDMultiCutGraph(bcdGraph, maxCutNumber, cutterFactory, cache);
+            // single taxa are never cut
+            splitGraphs.add(cache == null || bcdGraph.numTaxa() < 2 ? graph : cache.canonical(graph));
         }
         return splitGraphs;
     }
+
+    /**
+     * @return number of split graphs that were replaced by an equal graph from the beam wide graph cache
+     */
+    public long getCacheHits() {
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return cache == null ? 0 : cache.getMisses();
+    }
 }
@@ -0,0 +1,98 @@
+package phylo.tree.algorithm.flipcut.bcdGraph;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Beam wide cache of the graphs created during the beam search. Different partitions of the beam often contain
+ * graphs with the same taxa, characters and guide edges. The cache maps such graphs to a single instance, so that
+ * their cuts are calculated only once and are shared between the partitions.
+ * <p>
+ * A graph is identified by its content at the time it was created, i.e. before semi universals are deleted.
+ * The least recently used graphs are evicted if the cache is full. Thread safe.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+class CompressedBCDMultiCutGraphCache {
+    static final int DEFAULT_SIZE = 10000;
+
+    private final LinkedHashMap<Key, CompressedBCDMultiCutGraph> graphs;
+    private long hits = 0;
+    private long misses = 0;
+
+    CompressedBCDMultiCutGraphCache(final int maxSize) {
+        graphs = new LinkedHashMap<Key, CompressedBCDMultiCutGraph>(Math.min(maxSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompressedBCDMultiCutGraph> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param graph a newly created graph
+     * @return the cached graph with the same content or the given graph, if there is none.
+     */
+    synchronized CompressedBCDMultiCutGraph canonical(CompressedBCDMultiCutGraph graph) {
+        final CompressedBCDGraph source = graph.getSource();
+        final Key key = new Key(source.taxa, source.characters, source.activeGuideEdges);
+        final CompressedBCDMultiCutGraph cached = graphs.get(key);
+        if (cached != null) {
+            hits++;
+            return cached;
+        }
+        misses++;
+        // the graph changes when its semi universals are deleted, so the key needs a copy of the mutable bitmaps
+        graphs.put(key.copy(), graph);
+        return graph;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    private static class Key {
+        private final RoaringBitmap taxa;
+        private final RoaringBitmap characters;
+        private final RoaringBitmap guides;
+        private final int hash;
+
+        private Key(RoaringBitmap taxa, RoaringBitmap characters, RoaringBitmap guides) {
+            this(taxa, characters, guides, 31 * (31 * taxa.hashCode() + characters.hashCode()) + (guides == null ? 0 : guides.hashCode()));
+        }
+
+        private Key(RoaringBitmap taxa, RoaringBitmap characters, RoaringBitmap guides, int hash) {
+            this.taxa = taxa;
+            this.characters = characters;
+            this.guides = guides;
+            this.hash = hash;
+        }
+
+        // taxa of a graph never change
+        private Key copy() {
+            return new Key(taxa, characters.clone(), guides == null ? null : guides.clone(), hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key key = (Key) o;
+            return hash == key.hash
+                    && taxa.equals(key.taxa)
+                    && characters.equals(key.characters)
+                    && (guides == null ? key.guides == null : guides.equals(key.guides));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
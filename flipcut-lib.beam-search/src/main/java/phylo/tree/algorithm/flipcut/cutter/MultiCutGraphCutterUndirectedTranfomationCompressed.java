@@ -9,18 +9,22 @@ import mincut.cutGraphAPI.bipartition.CompressedBCDCut;
 import mincut.cutGraphAPI.bipartition.CompressedBCDMultiCut;
 import mincut.cutGraphAPI.bipartition.Cut;
 import mincut.cutGraphAPI.bipartition.MultiCut;
+import mincut.cutGraphImpl.minCutKargerStein.ArrayKargerGraph;
 import mincut.cutGraphImpl.minCutKargerStein.CompressedKargerGraph;
 import mincut.cutGraphImpl.minCutKargerStein.KargerStein;
 import org.roaringbitmap.IntConsumer;
 import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phylo.tree.algorithm.flipcut.AbstractFlipCut;
 import phylo.tree.algorithm.flipcut.SourceTreeGraph;
 import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDGraph;
 import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDMultiCutGraph;
-import phylo.tree.algorithm.flipcut.bcdGraph.edge.Hyperedge;
 
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -29,10 +33,16 @@ import java.util.stream.Collectors;
  * @author Markus Fleischauer (markus.fleischauer@gmail.com)
  */
 public class MultiCutGraphCutterUndirectedTranfomationCompressed extends CutGraphCutter<RoaringBitmap> implements MultiCutter<RoaringBitmap, CompressedBCDMultiCutGraph> {
+    private final static Logger LOGGER = LoggerFactory.getLogger(MultiCutGraphCutterUndirectedTranfomationCompressed.class);
+
     private LinkedList<Cut<RoaringBitmap>> mincuts = null;
     private Cut<RoaringBitmap> mincut = null;
     private final CompressedBCDMultiCutGraph source;//todo make reusable??
     private final boolean rescursive;
+    private int stableTrials = 0;
+    private long timeLimit = 0;
+    private int trials = 0;
+    private double confidence = Double.NaN;
 
     public MultiCutGraphCutterUndirectedTranfomationCompressed(CompressedBCDMultiCutGraph graphToCut, boolean recursive) {
         super();
@@ -54,12 +64,44 @@ public class MultiCutGraphCutterUndirectedTranfomationCompressed extends CutGrap
         return null;
     }
 
+    /**
+     * Enables the adaptive sampling, see {@link KargerStein#setStableTrials(int)} and {@link KargerStein#setTimeLimit(long)}.
+     *
+     * @param stableTrials stop if the sampled cuts did not change for this number of trials, 0 to disable
+     * @param timeLimit    stop sampling after this number of milliseconds, 0 to disable
+     */
+    public void setAdaptiveSampling(int stableTrials, long timeLimit) {
+        this.stableTrials = stableTrials;
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * @return number of Karger-Stein trials that have been run to sample the cuts, 0 if they are not sampled yet.
+     */
+    public int getNumberOfTrials() {
+        return trials;
+    }
+
+    /**
+     * @return estimated probability that the sampling found a minimum cut, NaN if the cuts are not sampled yet.
+     * @see KargerStein#getConfidence()
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
     private LinkedList<Cut<RoaringBitmap>> calculateMinCuts() {
         LinkedList<Cut<RoaringBitmap>> mincuts = null;
 
-        KargerStein<CompressedKargerGraph, RoaringBitmap> cutter = new KargerStein<>();
+        KargerStein<ArrayKargerGraph, RoaringBitmap> cutter = new KargerStein<>();
         cutter.setMaxCutNumber(source.getK());
-        CompressedKargerGraph virginGraph = new CompressedKargerGraph(source.getSource());
+        cutter.setStableTrials(stableTrials);
+        cutter.setTimeLimit(timeLimit);
+        // the trials run in parallel if we got a fork join pool
+        if (executorService instanceof ForkJoinPool && threads != 1)
+            cutter.setForkJoinPool((ForkJoinPool) executorService);
+        // the compressed graph merges guide trees and identical characters, the array graph does the contractions
+        ArrayKargerGraph virginGraph = new CompressedKargerGraph(source.getSource()).asArrayGraph();
 
         //sample k random cuts
         mincuts = cutter.getMinCuts(virginGraph, rescursive).stream().map((it) -> {
@@ -67,6 +109,11 @@ public class MultiCutGraphCutterUndirectedTranfomationCompressed extends CutGrap
             assert Double.compare(cut.minCutValue(), it.minCutValue()) == 0 : cut.minCutValue() + " vs " + it.minCutValue();
             return cut;
         }).collect(Collectors.toCollection(LinkedList::new));
+        trials = cutter.getNumberOfTrials();
+        confidence = cutter.getConfidence();
+        if (cutter.isStoppedEarly())
+            LOGGER.debug("Adaptive sampling stopped after {} of {} trials ({} taxa), confidence {}",
+                    trials, cutter.getMaxNumberOfTrials(), virginGraph.getNumberOfVertices(), confidence);
 
         //check if optimal is found again needed
         if (mincuts == null) {
@@ -110,14 +157,13 @@ public class MultiCutGraphCutterUndirectedTranfomationCompressed extends CutGrap
         final AtomicLong minCutValue = new AtomicLong(0);
         final RoaringBitmap toDelete = new RoaringBitmap();
 
-        g.characters.forEach((IntConsumer) i -> {
-            Hyperedge hyperEdge = g.getEdge(i);
-
-            if (RoaringBitmap.intersects(hyperEdge.ones(), sourceSetTaxa) && RoaringBitmap.intersects(hyperEdge.ones(), targetSetTaxa)) {
-                assert !hyperEdge.isInfinite() : "HyperEdge is part of Cut: weight=" + hyperEdge.getWeight() + " taxa: " + hyperEdge.ones();
-                toDelete.add(i);
-                minCutValue.addAndGet(hyperEdge.getWeight());
-            }
+        // characters with taxa on both sides of the split
+        final RoaringBitmap cutCharacters = g.getCharactersOfTaxa(sourceSetTaxa);
+        cutCharacters.and(g.getCharactersOfTaxa(targetSetTaxa));
+        cutCharacters.forEach((IntConsumer) i -> {
+            assert !g.isInfinite(i) : "HyperEdge is part of Cut: weight=" + g.getWeight(i) + " taxa: " + g.getEdge(i).ones();
+            toDelete.add(i);
+            minCutValue.addAndGet(g.getWeight(i));
         });
 
         return new CompressedBCDMultiCut(toDelete, minCutValue.longValue(), multiGraph);
@@ -153,21 +199,59 @@ public class MultiCutGraphCutterUndirectedTranfomationCompressed extends CutGrap
         return true;
     }
 
-    static class Factory implements MultiCutterFactory<MultiCutGraphCutterUndirectedTranfomationCompressed, RoaringBitmap, CompressedBCDMultiCutGraph> {
+    public static class Factory implements MultiCutterFactory<MultiCutGraphCutterUndirectedTranfomationCompressed, RoaringBitmap, CompressedBCDMultiCutGraph> {
         private final boolean recursive;
+        private final int threads;
+        private ForkJoinPool pool = null;
+        private int stableTrials = 0;
+        private long timeLimit = 0;
 
         Factory(boolean recursive) {
+            this(recursive, 1);
+        }
+
+        /**
+         * @param threads number of threads for the Karger-Stein trials of the cutters created by this factory.
+         *                0 means all cores, negative values are used as absolute value.
+         */
+        Factory(boolean recursive, int threads) {
             this.recursive = recursive;
+            this.threads = threads == 0 ? AbstractFlipCut.CORES_AVAILABLE : Math.abs(threads);
+        }
+
+        /**
+         * Enables the adaptive sampling for all cutters created by this factory.
+         *
+         * @see MultiCutGraphCutterUndirectedTranfomationCompressed#setAdaptiveSampling(int, long)
+         */
+        public void setAdaptiveSampling(int stableTrials, long timeLimit) {
+            this.stableTrials = stableTrials;
+            this.timeLimit = timeLimit;
         }
 
         @Override
         public MultiCutGraphCutterUndirectedTranfomationCompressed newInstance(CompressedBCDMultiCutGraph graph) {
-            return new MultiCutGraphCutterUndirectedTranfomationCompressed(graph, recursive);
+            final MultiCutGraphCutterUndirectedTranfomationCompressed cutter;
+            if (threads <= 1)
+                cutter = new MultiCutGraphCutterUndirectedTranfomationCompressed(graph, recursive);
+            else
+                cutter = new MultiCutGraphCutterUndirectedTranfomationCompressed(graph, recursive, getPool(), threads);
+            cutter.setAdaptiveSampling(stableTrials, timeLimit);
+            return cutter;
+        }
+
+        // shared by all cutters of this factory. The workers of a fork join pool terminate if they are idle.
+        private synchronized ForkJoinPool getPool() {
+            if (pool == null)
+                pool = new ForkJoinPool(threads);
+            return pool;
         }
 
         @Override
         public MultiCutGraphCutterUndirectedTranfomationCompressed newInstance(CompressedBCDMultiCutGraph graph, ExecutorService executorService, int threads) {
-            return new MultiCutGraphCutterUndirectedTranfomationCompressed(graph, recursive, executorService, threads);
+            final MultiCutGraphCutterUndirectedTranfomationCompressed cutter = new MultiCutGraphCutterUndirectedTranfomationCompressed(graph, recursive, executorService, threads);
+            cutter.setAdaptiveSampling(stableTrials, timeLimit);
+            return cutter;
         }
 
         @Override
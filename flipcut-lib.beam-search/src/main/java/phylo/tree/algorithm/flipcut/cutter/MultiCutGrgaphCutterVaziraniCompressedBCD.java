@@ -1,41 +1,147 @@
 package phylo.tree.algorithm.flipcut.cutter;
 
 import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import mincut.cutGraphAPI.bipartition.CompressedBCDMultiCut;
 import mincut.cutGraphAPI.bipartition.MultiCut;
 import mincut.cutGraphAPI.bipartition.VaziraniCut;
-import mincut.cutGraphImpl.maxFlowGoldbergTarjan.CutGraphImpl;
-import mincut.cutGraphImpl.maxFlowGoldbergTarjan.Node;
+import mincut.cutGraphImpl.maxFlowGoldbergTarjan.ArrayCutGraphImpl;
 import org.roaringbitmap.IntConsumer;
 import org.roaringbitmap.RoaringBitmap;
+import phylo.tree.algorithm.flipcut.AbstractFlipCut;
+import phylo.tree.algorithm.flipcut.bcdGraph.BitmapInterner;
 import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDGraph;
 import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDMultiCutGraph;
 import phylo.tree.algorithm.flipcut.flipCutGraph.CutGraphTypes;
 
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Vazirani-Yannakakis enumeration of the k best cuts of a {@link CompressedBCDMultiCutGraph}.
+ * <p>
+ * The flow network is built only once per graph. It contains the merged characters and taxa of the graph plus a super
+ * source and a super sink that are connected to every taxon by an arc with capacity zero. A partial cut (the first taxa
+ * are fixed to the source or sink side) is calculated by setting the capacities of the arcs of the fixed taxa to
+ * infinity, which is equivalent to merging them into the source or sink. The partial cuts of one step are independent
+ * and are calculated in parallel, every worker uses its own copy of the flow state on the shared network.
+ */
 public class MultiCutGrgaphCutterVaziraniCompressedBCD extends AbstractMultiCutGraphCutterVazirani<RoaringBitmap, CompressedBCDMultiCutGraph> {
 
+    private final ExecutorService executorService;
+    private final int threads;
+
     int[] taxa;
-    RoaringBitmap taxaAsMap;
+
+    private ArrayCutGraphImpl network;
+    private TIntObjectMap<TIntList> charMapping;
+    private int superSource;
+    private int superSink;
+    private int[] sourceArcs; // arc from the super source to taxa[i]
+    private int[] sinkArcs; // arc from taxa[i] to the super sink
+    private Queue<ArrayCutGraphImpl> networkCopies;
 
 
     public MultiCutGrgaphCutterVaziraniCompressedBCD(CompressedBCDMultiCutGraph graphToCut) {
+        this(graphToCut, null, 1);
+    }
+
+    /**
+     * @param executorService executor to calculate the partial cuts in parallel, may be null if threads is 1.
+     *                        The calling thread takes part in the calculation, so it may be a worker of the executor.
+     * @param threads         maximum number of threads used for the partial cuts of one step
+     */
+    public MultiCutGrgaphCutterVaziraniCompressedBCD(CompressedBCDMultiCutGraph graphToCut, ExecutorService executorService, int threads) {
         super(graphToCut);
+        this.executorService = executorService;
+        this.threads = executorService == null ? 1 : Math.max(1, threads);
     }
 
-    //creates a cutset, that contains taxa an characters to delete
-    //todo, this is ugly, do something nice
-    private RoaringBitmap buildCutSet(CutGraphImpl hipri, CompressedBCDGraph source, TIntObjectMap<TIntList> charMapping, RoaringBitmap sourceSetTaxa, RoaringBitmap sinkSetTaxa) {
-        RoaringBitmap sourceChars = new RoaringBitmap();
+    @Override
+    public void clear() {
+        super.clear();
+        taxa = null;
+        network = null;
+        charMapping = null;
+        sourceArcs = null;
+        sinkArcs = null;
+        networkCopies = null;
+    }
+
+    // creates the flow network with the merged characters, the taxa and the super source and sink
+    private void createNetwork() {
+        final CompressedBCDGraph graph = source.getSource();
+        final BitmapInterner<TIntList> hyperEdgeMerging = CompressedSingleCutter.mergeHyperEdges(graph, CompressedSingleCutter.createGuideEdges(graph));
+        final TIntIntMap taxonToArcs = new TIntIntHashMap(graph.numTaxa());
+
+        int numArcs = 0;
+        for (RoaringBitmap edgeOnes : hyperEdgeMerging.keys()) {
+            numArcs += 2 + 4 * edgeOnes.getCardinality();
+            edgeOnes.forEach((IntConsumer) t -> taxonToArcs.adjustOrPutValue(t, 2, 2));
+        }
+        // every taxon is connected to the super source and the super sink
+        numArcs += 4 * taxonToArcs.size();
+
+        charMapping = new TIntObjectHashMap<>();
+        final TIntIntMap cutgraphTaxa = new TIntIntHashMap(taxonToArcs.size());
+        network = new ArrayCutGraphImpl(2 * hyperEdgeMerging.size() + taxonToArcs.size() + 2, numArcs);
+
+        hyperEdgeMerging.forEach((edgeOnes, mergedIndeces) -> {
+            final int edgeIndex = mergedIndeces.get(0);
+            final int edgeCloneIndex = graph.getCloneIndex(edgeIndex);
+            final int arcs = 1 + edgeOnes.getCardinality();
+
+            final int out = network.createNode(edgeIndex, arcs);
+            final int in = network.createNode(edgeCloneIndex, arcs);
+
+            network.addEdge(out, in, CompressedSingleCutter.getMergedWeight(graph, mergedIndeces, charMapping));
+
+            edgeOnes.forEach((IntConsumer) taxonIndex -> {
+                int t;
+                if (cutgraphTaxa.containsKey(taxonIndex)) {
+                    t = cutgraphTaxa.get(taxonIndex);
+                } else {
+                    t = network.createNode(taxonIndex, taxonToArcs.get(taxonIndex) + 2);
+                    cutgraphTaxa.put(taxonIndex, t);
+                }
+                network.addEdge(t, out, CutGraphCutter.getInfinity());
+                network.addEdge(in, t, CutGraphCutter.getInfinity());
+            });
+        });
+
+        taxa = cutgraphTaxa.keys();
+        Arrays.sort(taxa);
 
-        for (Node node : hipri.getNodes()) {
-            int nodeIndex = ((Node.IntNode) node).getIntName();
-            if (hipri.isInSourceSet(node)) {
-                if (!source.isTaxon(nodeIndex)) {
+        // the names of super source and sink are neither taxa nor characters
+        superSource = network.createNode(-1, taxa.length);
+        superSink = network.createNode(-2, taxa.length);
+        sourceArcs = new int[taxa.length];
+        sinkArcs = new int[taxa.length];
+        for (int i = 0; i < taxa.length; i++) {
+            final int t = cutgraphTaxa.get(taxa[i]);
+            sourceArcs[i] = network.addEdge(superSource, t, 0);
+            sinkArcs[i] = network.addEdge(t, superSink, 0);
+        }
+
+        networkCopies = new ConcurrentLinkedQueue<>();
+    }
+
+    //creates a cutset, that contains the source side taxa and the characters to delete
+    private RoaringBitmap buildCutSet(ArrayCutGraphImpl hipri) {
+        final CompressedBCDGraph graph = source.getSource();
+        final RoaringBitmap sourceChars = new RoaringBitmap();
+        final RoaringBitmap sourceSetTaxa = new RoaringBitmap();
+
+        for (int node = 0; node < hipri.n; node++) {
+            if (node != superSource && node != superSink && hipri.isInSourceSet(node)) {
+                final int nodeIndex = hipri.getName(node);
+                if (!graph.isTaxon(nodeIndex)) {
                     sourceChars.add(nodeIndex);
                 } else {
                     sourceSetTaxa.add(nodeIndex);
@@ -43,11 +149,8 @@ public class MultiCutGrgaphCutterVaziraniCompressedBCD extends AbstractMultiCutG
             }
         }
 
-
-        RoaringBitmap sourceSet = collectCharsToRemove(sourceChars, source, charMapping);
-        sourceSetTaxa.and(taxaAsMap);
+        final RoaringBitmap sourceSet = collectCharsToRemove(sourceChars, graph, charMapping);
         sourceSet.or(sourceSetTaxa);
-
         return sourceSet;
     }
 
@@ -77,91 +180,104 @@ public class MultiCutGrgaphCutterVaziraniCompressedBCD extends AbstractMultiCutG
         return cutSet;
     }
 
-    private List<RoaringBitmap> mergeGuideEdgesWithTaxonSet(final List<RoaringBitmap> guideEdges, final RoaringBitmap taxonSet) {
-        //merge taxa with giude edge if they do overlap
-        Iterator<RoaringBitmap> it = guideEdges.iterator();
-        while (it.hasNext()) {
-            RoaringBitmap guideEdge = it.next();
-            if (RoaringBitmap.intersects(taxonSet, guideEdge)) {
-                taxonSet.or(guideEdge);
-                it.remove();
+    // calculates the minimum cut that separates the fixed source and sink taxa of the partial cut
+    private VaziraniCut<RoaringBitmap> calculatePartialCut(final ArrayCutGraphImpl hipri, final PartialCut partialCut) {
+        // the network is reused for other partial cuts, so the terminal arcs are reset even if the flow fails
+        try {
+            for (int i : partialCut.sourceTaxa) {
+                hipri.setCapacity(sourceArcs[i], CutGraphCutter.getInfinity());
+            }
+            for (int i : partialCut.sinkTaxa) {
+                hipri.setCapacity(sinkArcs[i], CutGraphCutter.getInfinity());
+            }
+
+            hipri.setSource(superSource);
+            hipri.setSink(superSink);
+            hipri.calculateMaxFlow();
+
+            return new VaziraniCut<>(buildCutSet(hipri), hipri.getValue(), partialCut.k);
+        } finally {
+            for (int i : partialCut.sourceTaxa) {
+                hipri.setCapacity(sourceArcs[i], 0);
+            }
+            for (int i : partialCut.sinkTaxa) {
+                hipri.setCapacity(sinkArcs[i], 0);
             }
         }
-        guideEdges.add(taxonSet); //add (merged) taxa to set og guide edges
-        return guideEdges;
     }
 
-    @Override
-    protected void initialCut() {
-        // get the mincut, fix s iterate over t
-        VaziraniCut<RoaringBitmap> currentNode;
-        VaziraniCut<RoaringBitmap> lightestCut;
+    // calculates the given partial cuts on copies of the network, the results have the order of the input
+    private VaziraniCut<RoaringBitmap>[] calculatePartialCuts(final List<PartialCut> partialCuts) {
+        final VaziraniCut<RoaringBitmap>[] cuts = new VaziraniCut[partialCuts.size()];
+        final AtomicInteger nextJob = new AtomicInteger(0);
+        final CountDownLatch finishedJobs = new CountDownLatch(cuts.length);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            ArrayCutGraphImpl hipri = networkCopies.poll();
+            if (hipri == null)
+                hipri = new ArrayCutGraphImpl(network);
+            try {
+                int job;
+                while ((job = nextJob.getAndIncrement()) < cuts.length) {
+                    try {
+                        cuts[job] = calculatePartialCut(hipri, partialCuts.get(job));
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        finishedJobs.countDown();
+                    }
+                }
+            } finally {
+                networkCopies.offer(hipri);
+            }
+        };
 
-        // inti data structures
-        TIntObjectMap<TIntList> charMapping = new TIntObjectHashMap<>();
-        TIntObjectMap<Node.IntNode> cutgraphTaxa = new TIntObjectHashMap<>(source.numTaxa());
+        // the calling thread works on the jobs too, so helpers that do not get a thread are just not needed
+        final int numWorkers = Math.min(threads, cuts.length);
+        final List<Future<?>> helpers = new ArrayList<>(numWorkers);
+        for (int i = 1; i < numWorkers; i++) {
+            helpers.add(executorService.submit(worker));
+        }
+        worker.run();
+        try {
+            finishedJobs.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            for (Future<?> helper : helpers) {
+                helper.cancel(false);
+            }
+        }
 
-        List<RoaringBitmap> guideEdges = CompressedSingleCutter.createGuideEdges(source.getSource());
-        CutGraphImpl hipri = CompressedSingleCutter.createHipri(
-                source.getSource(), guideEdges, charMapping, cutgraphTaxa
-        );
+        if (failure.get() != null)
+            throw new RuntimeException(failure.get());
+        return cuts;
+    }
 
-        taxa = cutgraphTaxa.keys();
-        Arrays.sort(taxa);
-        taxaAsMap = RoaringBitmap.bitmapOf(taxa);
+    @Override
+    protected void initialCut() {
+        createNetwork();
         initCuts = new VaziraniCut[taxa.length - 1];
         queueAscHEAP = new PriorityQueue<>();
 
-
-        RoaringBitmap sSet = RoaringBitmap.bitmapOf(taxa[0]);
-        RoaringBitmap tSet = RoaringBitmap.bitmapOf(taxa[1]);
-
-        //j=0
-        hipri.setSource(cutgraphTaxa.get(sSet.first()));
-        hipri.setSink(cutgraphTaxa.get(tSet.first()));
-        hipri.calculateMaxFlow(false);
-
-        long cutValue = hipri.getValue();
-
-        //createCutset
-        RoaringBitmap cutSet = buildCutSet(hipri, source.getSource(), charMapping, sSet, tSet);
-
-        //here the cutset is the set of characters to delete
-        lightestCut = new VaziraniCut<>(cutSet, cutValue, 1);
-        initCuts[0] = lightestCut;
-
         //ATTENTION this is  the undirected graph version as tweak for symmetric bcd graph
-        for (int j = 1; j < taxa.length - 1; j++) {
-            //build cutgraph from patial cut
-            //merge taxa together for a partial cut
-            sSet = new RoaringBitmap();
-            tSet = RoaringBitmap.bitmapOf(taxa[j + 1]);
+        // taxa 0 to j are in the source set, taxon j + 1 is the sink
+        final List<PartialCut> partialCuts = new ArrayList<>(initCuts.length);
+        for (int j = 0; j < taxa.length - 1; j++) {
+            final int[] sourceTaxa = new int[j + 1];
             for (int i = 0; i <= j; i++) {
-                sSet.add(taxa[i]);
+                sourceTaxa[i] = i;
             }
+            partialCuts.add(new PartialCut(sourceTaxa, new int[]{j + 1}, 1));
+        }
 
-            //add merged taxa as a guide tree
-            guideEdges = mergeGuideEdgesWithTaxonSet(
-                    CompressedSingleCutter.createGuideEdges(source.getSource()), sSet
-            );
-
-            //create graph: add characters and remaining taxa to cutgraph and merge everything that has to
-            charMapping.clear();
-            cutgraphTaxa.clear();
-            hipri = CompressedSingleCutter.createHipri(source.getSource(), guideEdges, charMapping, cutgraphTaxa);
-
-            //calculate partial cut
-            hipri.setSource(cutgraphTaxa.get(sSet.first())); // taxa 0 to j are in sset and the lowest taxon ist returned after merging. so we use sset.first instead
-            hipri.setSink(cutgraphTaxa.get(tSet.first()));
-            hipri.calculateMaxFlow(false);
-
-            cutValue = hipri.getValue();
-            cutSet = buildCutSet(hipri, source.getSource(), charMapping, sSet, tSet);
-
-            currentNode = new VaziraniCut<>(cutSet, cutValue, 1);
-            initCuts[j] = currentNode;
+        final VaziraniCut<RoaringBitmap>[] cuts = calculatePartialCuts(partialCuts);
+        VaziraniCut<RoaringBitmap> lightestCut = cuts[0];
+        for (int j = 0; j < cuts.length; j++) {
+            initCuts[j] = cuts[j];
             //save lightest cut for HEAP init
-            if (currentNode.minCutValue() < lightestCut.minCutValue()) lightestCut = currentNode;
+            if (cuts[j].minCutValue() < lightestCut.minCutValue()) lightestCut = cuts[j];
         }
         //initialize heap
         VaziraniCut<RoaringBitmap> initialToHeap = new VaziraniCut<>(lightestCut.getCutSet(), lightestCut.minCutValue(), lightestCut.k()); //todo why new node?
@@ -172,57 +288,35 @@ public class MultiCutGrgaphCutterVaziraniCompressedBCD extends AbstractMultiCutG
     @Override
     protected List<VaziraniCut<RoaringBitmap>> findCutsFromPartialCuts(VaziraniCut<RoaringBitmap> sourceCut, VaziraniCut<RoaringBitmap>[] initCuts) {
         RoaringBitmap cut = sourceCut.getCutSet();
-        List<VaziraniCut<RoaringBitmap>> cuts = new ArrayList<>(taxa.length - sourceCut.k());// todo is the size correct?
+        // null for the 0^k case
+        final VaziraniCut<RoaringBitmap>[] cuts = new VaziraniCut[taxa.length - sourceCut.k()];
+        final List<PartialCut> partialCuts = new ArrayList<>(cuts.length);
+        final TIntList partialCutIndices = new TIntArrayList(cuts.length);
 
         // finding all partial mincut
         for (int k = sourceCut.k(); k < taxa.length; k++) {
-            RoaringBitmap sSet = new RoaringBitmap();
-            RoaringBitmap tSet = new RoaringBitmap();
-
+            final TIntList sSet = new TIntArrayList(k + 1);
+            final TIntList tSet = new TIntArrayList();
 
-            int taxon;
             for (int i = 0; i < k; i++) {
-                //todo maybe use Bitmap operations here
-                taxon = taxa[i];
-                if (cut.contains(taxon)) {
-                    sSet.add(taxon);
+                if (cut.contains(taxa[i])) {
+                    sSet.add(i);
                 } else {
-                    tSet.add(taxon);
+                    tSet.add(i);
                 }
             }
 
             //change position of taxon number k
-            taxon = taxa[k];
-            if (!cut.contains(taxon)) {
-                sSet.add(taxon);
+            if (!cut.contains(taxa[k])) {
+                sSet.add(k);
             } else {
-                tSet.add(taxon);
+                tSet.add(k);
             }
 
             if (!tSet.isEmpty()) {
-                //build guide tree edgeSet and merge it with s and t set if nessecary
-                List<RoaringBitmap> guideEdges = CompressedSingleCutter.createGuideEdges(source.getSource());
-
-                guideEdges = mergeGuideEdgesWithTaxonSet(guideEdges, sSet);
-                guideEdges = mergeGuideEdgesWithTaxonSet(guideEdges, tSet);
-
-                TIntObjectMap<TIntList> charMapping = new TIntObjectHashMap<>();
-                TIntObjectMap<Node.IntNode> cutgraphTaxa = new TIntObjectHashMap<>(source.numTaxa());
-
-                CutGraphImpl hipri = CompressedSingleCutter.createHipri(source.getSource(), guideEdges, charMapping, cutgraphTaxa);
-
-                hipri.setSource(cutgraphTaxa.get(sSet.first()));
-                hipri.setSink(cutgraphTaxa.get(tSet.first()));
-
-                hipri.calculateMaxFlow(false);
-
-                long cutValue = hipri.getValue();
-                RoaringBitmap cutSet = buildCutSet(hipri, source.getSource(), charMapping, sSet, tSet);
-
-                VaziraniCut<RoaringBitmap> currentCut = new VaziraniCut<>(cutSet, cutValue, k + 1);
-                cuts.add(currentCut);
-
-            } else if (sSet.getCardinality() < taxa.length) {
+                partialCutIndices.add(k - sourceCut.k());
+                partialCuts.add(new PartialCut(sSet.toArray(), tSet.toArray(), k + 1));
+            } else if (sSet.size() < taxa.length) {
                 //find cut for 0^k case
                 //tSet empty --> adding new init Graph! 0^k case);
                 VaziraniCut<RoaringBitmap> initCut = null;
@@ -233,11 +327,21 @@ public class MultiCutGrgaphCutterVaziraniCompressedBCD extends AbstractMultiCutG
                     }
                 }
                 //copy to new object
-                initCut = new VaziraniCut<>(initCut.getCutSet(), initCut.minCutValue(), k + 1);
-                cuts.add(initCut);
+                cuts[k - sourceCut.k()] = new VaziraniCut<>(initCut.getCutSet(), initCut.minCutValue(), k + 1);
             }
         }
-        return cuts;
+
+        final VaziraniCut<RoaringBitmap>[] calculated = calculatePartialCuts(partialCuts);
+        for (int i = 0; i < calculated.length; i++) {
+            cuts[partialCutIndices.get(i)] = calculated[i];
+        }
+
+        final List<VaziraniCut<RoaringBitmap>> result = new ArrayList<>(cuts.length);
+        for (VaziraniCut<RoaringBitmap> c : cuts) {
+            if (c != null)
+                result.add(c);
+        }
+        return result;
     }
 
 
@@ -253,17 +357,62 @@ public class MultiCutGrgaphCutterVaziraniCompressedBCD extends AbstractMultiCutG
         return true;
     }
 
+    // taxa (indices of the taxa array) that are fixed to the source or sink side
+    private static class PartialCut {
+        final int[] sourceTaxa;
+        final int[] sinkTaxa;
+        final int k;
+
+        PartialCut(int[] sourceTaxa, int[] sinkTaxa, int k) {
+            this.sourceTaxa = sourceTaxa;
+            this.sinkTaxa = sinkTaxa;
+            this.k = k;
+        }
+    }
+
     public static class Factory implements MultiCutterFactory<MultiCutGrgaphCutterVaziraniCompressedBCD, RoaringBitmap, CompressedBCDMultiCutGraph>, MaxFlowCutterFactory<MultiCutGrgaphCutterVaziraniCompressedBCD, RoaringBitmap, CompressedBCDMultiCutGraph> {
+        private final int threads;
+        private ExecutorService executorService = null;
+
+        public Factory() {
+            this(1);
+        }
 
+        /**
+         * @param threads number of threads for the partial cuts of the cutters created by this factory.
+         *                0 means all cores, negative values are used as absolute value.
+         */
+        public Factory(int threads) {
+            this.threads = threads == 0 ? AbstractFlipCut.CORES_AVAILABLE : Math.abs(threads);
+        }
 
         @Override
         public MultiCutGrgaphCutterVaziraniCompressedBCD newInstance(CompressedBCDMultiCutGraph graph) {
-            return new MultiCutGrgaphCutterVaziraniCompressedBCD(graph);
+            if (threads <= 1)
+                return new MultiCutGrgaphCutterVaziraniCompressedBCD(graph);
+            return new MultiCutGrgaphCutterVaziraniCompressedBCD(graph, getExecutorService(), threads);
         }
 
         @Override
         public MultiCutGrgaphCutterVaziraniCompressedBCD newInstance(CompressedBCDMultiCutGraph graph, ExecutorService executorService, int threads) {
-            return new MultiCutGrgaphCutterVaziraniCompressedBCD(graph); //todo multi multi threading
+            return new MultiCutGrgaphCutterVaziraniCompressedBCD(graph, executorService, threads);
+        }
+
+        // shared by all cutters of this factory, so that the cutters of the partitions that are expanded in parallel
+        // do not start more than the given number of threads in total. Helpers that wait in the queue are not needed,
+        // because the calling thread of a cutter calculates the partial cuts too.
+        // Idle threads terminate and do not prevent the JVM from exiting.
+        private synchronized ExecutorService getExecutorService() {
+            if (executorService == null) {
+                final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    final Thread thread = new Thread(r);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                pool.allowCoreThreadTimeOut(true);
+                executorService = pool;
+            }
+            return executorService;
         }
 
         @Override
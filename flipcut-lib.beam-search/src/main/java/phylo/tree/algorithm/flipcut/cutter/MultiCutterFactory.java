@@ -44,13 +44,22 @@ public interface MultiCutterFactory<C extends MultiCutter<S, T>, S, T extends So
     }
 
     static MultiCutterFactory newInstance(MultiCutterType multiCutterType, CutGraphTypes simpleCutterType) {
+        return newInstance(multiCutterType, simpleCutterType, 1);
+    }
+
+    /**
+     * @param threads number of threads a single cutter may use (0 means all cores, negative values are used as
+     *                absolute value). Only supported by the compressed {@link MultiCutterType#VAZIRANI} and
+     *                {@link MultiCutterType#CUT_SAMPLING} cutters.
+     */
+    static MultiCutterFactory newInstance(MultiCutterType multiCutterType, CutGraphTypes simpleCutterType, int threads) {
         switch (multiCutterType) {
             case VAZIRANI:
-                return createVazirani(simpleCutterType);
+                return createVazirani(simpleCutterType, threads);
             case CUT_SAMPLING:
-                return new MultiCutGraphCutterUndirectedTranfomationCompressed.Factory(true);
+                return new MultiCutGraphCutterUndirectedTranfomationCompressed.Factory(true, threads);
             case CUT_SAMPLING_NON_RECURSIVE:
-                return new MultiCutGraphCutterUndirectedTranfomationCompressed.Factory(false);
+                return new MultiCutGraphCutterUndirectedTranfomationCompressed.Factory(false, threads);
             case GREEDY:
                 return new MultiCutGraphCutterGreedy.Factory(simpleCutterType, new GreedyBlackList());
             case GREEDY_RAND:
@@ -71,15 +80,19 @@ public interface MultiCutterFactory<C extends MultiCutter<S, T>, S, T extends So
             case MC_STATIC_REL:
                 return new MultiCutGraphCutterUndirectedTranfomation.Factory(new RelativeToNumOfConnection(), new StaticKargerGraphCreator(), false);
             default:
-                return createVazirani(simpleCutterType);
+                return createVazirani(simpleCutterType, threads);
         }
     }
 
     static MultiCutterFactory createVazirani(CutGraphTypes simpleCutterType) {
+        return createVazirani(simpleCutterType, 1);
+    }
+
+    static MultiCutterFactory createVazirani(CutGraphTypes simpleCutterType, int threads) {
         if (simpleCutterType == CutGraphTypes.HYPERGRAPH_MINCUT_VIA_MAXFLOW_TARJAN_GOLDBERG) {
             return new MultiCutGraphCutterVazirani.Factory();
         } else {
-            return new MultiCutGrgaphCutterVaziraniCompressedBCD.Factory();
+            return new MultiCutGrgaphCutterVaziraniCompressedBCD.Factory(threads);
         }
     }
 
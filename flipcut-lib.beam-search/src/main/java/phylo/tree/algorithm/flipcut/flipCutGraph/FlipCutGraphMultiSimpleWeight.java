@@ -61,7 +61,7 @@ public class FlipCutGraphMultiSimpleWeight extends FlipCutGraphSimpleWeight impl
         return new CutIterator();
     }
 
-    public void setCutSplitted(MultiCut c) {
+    public synchronized void setCutSplitted(MultiCut c) {
         splittedCuts.add(c);
     }
 
@@ -322,7 +322,7 @@ public class FlipCutGraphMultiSimpleWeight extends FlipCutGraphSimpleWeight impl
     }
 
 
-    public void close() {
+    public synchronized void close() {
         if (splittedCuts != null && splittedCuts.size() == maxCutNumber) {
             disableCutting();
             cutterFactory = null;
@@ -342,7 +342,7 @@ public class FlipCutGraphMultiSimpleWeight extends FlipCutGraphSimpleWeight impl
         return taxa.size();
     }
 
-    public boolean containsCuts() {
+    public synchronized boolean containsCuts() {
         return nextCutIndexToCalculate > 0;
     }
 
@@ -350,15 +350,19 @@ public class FlipCutGraphMultiSimpleWeight extends FlipCutGraphSimpleWeight impl
         return cuts.length;
     }
 
+    // the graph may be part of several partitions that are expanded in parallel,
+    // so the cuts are calculated while holding the lock of the graph
     class CutIterator implements Iterator<MultiCut<LinkedHashSet<FlipCutNodeSimpleWeight>, FlipCutGraphMultiSimpleWeight>> {
         CutIterator() {
-            //check if graph is already disconnected
-            if (nextCutIndexToCalculate == 0 && maxCutNumber == cuts.length) {
-                List<List<FlipCutNodeSimpleWeight>> comp = getComponents();
-                if (comp.size() > 1) {//graph is already disconnected we have to build subgraph from parts
-                    cuts[nextCutIndexToCalculate] = getCompCut(comp);
-                    nextCutIndexToCalculate++;
-                    maxCutNumber = nextCutIndexToCalculate;
+            synchronized (FlipCutGraphMultiSimpleWeight.this) {
+                //check if graph is already disconnected
+                if (nextCutIndexToCalculate == 0 && maxCutNumber == cuts.length) {
+                    List<List<FlipCutNodeSimpleWeight>> comp = getComponents();
+                    if (comp.size() > 1) {//graph is already disconnected we have to build subgraph from parts
+                        cuts[nextCutIndexToCalculate] = getCompCut(comp);
+                        nextCutIndexToCalculate++;
+                        maxCutNumber = nextCutIndexToCalculate;
+                    }
                 }
             }
         }
@@ -366,21 +370,24 @@ public class FlipCutGraphMultiSimpleWeight extends FlipCutGraphSimpleWeight impl
         int index = 0;
 
         public boolean hasNext() {
-            if (index >= nextCutIndexToCalculate) {
-                if (nextCutIndexToCalculate < maxCutNumber) {
-                    return calculateNextCut();
-                } else {
-                    return false;
+            synchronized (FlipCutGraphMultiSimpleWeight.this) {
+                if (index >= nextCutIndexToCalculate) {
+                    if (nextCutIndexToCalculate < maxCutNumber) {
+                        return calculateNextCut();
+                    } else {
+                        return false;
+                    }
                 }
+                return true;
             }
-            return true;
         }
 
         public MultiCut next() {
-            if (cuts[index] == null)
-                calculateNextCut();
-            return cuts[index++];
-
+            synchronized (FlipCutGraphMultiSimpleWeight.this) {
+                if (cuts[index] == null)
+                    calculateNextCut();
+                return cuts[index++];
+            }
         }
     }
 
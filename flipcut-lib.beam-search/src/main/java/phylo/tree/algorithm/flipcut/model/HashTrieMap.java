@@ -0,0 +1,253 @@
+package phylo.tree.algorithm.flipcut.model;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Persistent hash array mapped trie. Every modification returns a new map that shares all unchanged nodes with
+ * the old one, so a modification copies only the O(log32 n) nodes on the path to the changed entry.
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+final class HashTrieMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node<K, V> root;
+    private final int size;
+
+    private HashTrieMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    static <K, V> HashTrieMap<K, V> empty() {
+        return new HashTrieMap<>(null, 0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    V get(K key) {
+        final int hash = key.hashCode();
+        Node<K, V> node = root;
+        int shift = 0;
+        while (node instanceof Branch) {
+            final Branch<K, V> branch = (Branch<K, V>) node;
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            if ((branch.bitmap & bit) == 0)
+                return null;
+            node = branch.children[Integer.bitCount(branch.bitmap & (bit - 1))];
+            shift += BITS;
+        }
+        if (node instanceof Leaf) {
+            final Leaf<K, V> leaf = (Leaf<K, V>) node;
+            return leaf.hash == hash && leaf.key.equals(key) ? leaf.value : null;
+        }
+        if (node instanceof Collision) {
+            for (Leaf<K, V> leaf : ((Collision<K, V>) node).leaves) {
+                if (leaf.key.equals(key))
+                    return leaf.value;
+            }
+        }
+        return null;
+    }
+
+    HashTrieMap<K, V> put(K key, V value) {
+        final Leaf<K, V> leaf = new Leaf<>(key.hashCode(), key, value);
+        final boolean[] added = new boolean[1];
+        final Node<K, V> nuRoot = put(root, 0, leaf, added);
+        return new HashTrieMap<>(nuRoot, added[0] ? size + 1 : size);
+    }
+
+    HashTrieMap<K, V> remove(K key) {
+        final Node<K, V> nuRoot = remove(root, 0, key.hashCode(), key);
+        if (nuRoot == root)
+            return this;
+        return new HashTrieMap<>(nuRoot, size - 1);
+    }
+
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(root, action);
+    }
+
+    private static <K, V> void forEach(Node<K, V> node, BiConsumer<? super K, ? super V> action) {
+        if (node instanceof Leaf) {
+            final Leaf<K, V> leaf = (Leaf<K, V>) node;
+            action.accept(leaf.key, leaf.value);
+        } else if (node instanceof Collision) {
+            for (Leaf<K, V> leaf : ((Collision<K, V>) node).leaves) {
+                action.accept(leaf.key, leaf.value);
+            }
+        } else if (node instanceof Branch) {
+            for (Node<K, V> child : ((Branch<K, V>) node).children) {
+                forEach(child, action);
+            }
+        }
+    }
+
+    private static <K, V> Node<K, V> put(Node<K, V> node, int shift, Leaf<K, V> leaf, boolean[] added) {
+        if (node == null) {
+            added[0] = true;
+            return leaf;
+        }
+
+        if (node instanceof Branch) {
+            final Branch<K, V> branch = (Branch<K, V>) node;
+            final int bit = 1 << ((leaf.hash >>> shift) & MASK);
+            final int pos = Integer.bitCount(branch.bitmap & (bit - 1));
+            if ((branch.bitmap & bit) == 0) {
+                added[0] = true;
+                final Node<K, V>[] children = Arrays.copyOf(branch.children, branch.children.length + 1);
+                System.arraycopy(branch.children, pos, children, pos + 1, branch.children.length - pos);
+                children[pos] = leaf;
+                return new Branch<>(branch.bitmap | bit, children);
+            }
+            final Node<K, V>[] children = branch.children.clone();
+            children[pos] = put(children[pos], shift + BITS, leaf, added);
+            return new Branch<>(branch.bitmap, children);
+        }
+
+        final int hash = node instanceof Leaf ? ((Leaf<K, V>) node).hash : ((Collision<K, V>) node).hash;
+        if (hash != leaf.hash) {
+            added[0] = true;
+            return merge(shift, node, hash, leaf, leaf.hash);
+        }
+
+        if (node instanceof Leaf) {
+            final Leaf<K, V> old = (Leaf<K, V>) node;
+            if (old.key.equals(leaf.key))
+                return leaf;
+            added[0] = true;
+            final Leaf<K, V>[] leaves = newArray(Leaf.class, 2);
+            leaves[0] = old;
+            leaves[1] = leaf;
+            return new Collision<>(hash, leaves);
+        }
+
+        final Leaf<K, V>[] leaves = ((Collision<K, V>) node).leaves;
+        for (int i = 0; i < leaves.length; i++) {
+            if (leaves[i].key.equals(leaf.key)) {
+                final Leaf<K, V>[] nuLeaves = leaves.clone();
+                nuLeaves[i] = leaf;
+                return new Collision<>(hash, nuLeaves);
+            }
+        }
+        added[0] = true;
+        final Leaf<K, V>[] nuLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+        nuLeaves[leaves.length] = leaf;
+        return new Collision<>(hash, nuLeaves);
+    }
+
+    // the hashes are different, so the nodes get separated at the latest when the last bits of the hashes are used
+    private static <K, V> Node<K, V> merge(int shift, Node<K, V> a, int hashA, Node<K, V> b, int hashB) {
+        final int indexA = (hashA >>> shift) & MASK;
+        final int indexB = (hashB >>> shift) & MASK;
+        if (indexA == indexB) {
+            final Node<K, V>[] children = newArray(Node.class, 1);
+            children[0] = merge(shift + BITS, a, hashA, b, hashB);
+            return new Branch<>(1 << indexA, children);
+        }
+        final Node<K, V>[] children = newArray(Node.class, 2);
+        children[indexA < indexB ? 0 : 1] = a;
+        children[indexA < indexB ? 1 : 0] = b;
+        return new Branch<>((1 << indexA) | (1 << indexB), children);
+    }
+
+    private static <K, V> Node<K, V> remove(Node<K, V> node, int shift, int hash, Object key) {
+        if (node instanceof Branch) {
+            final Branch<K, V> branch = (Branch<K, V>) node;
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            if ((branch.bitmap & bit) == 0)
+                return node;
+            final int pos = Integer.bitCount(branch.bitmap & (bit - 1));
+            final Node<K, V> child = branch.children[pos];
+            final Node<K, V> nuChild = remove(child, shift + BITS, hash, key);
+            if (nuChild == child)
+                return node;
+            if (nuChild != null) {
+                final Node<K, V>[] children = branch.children.clone();
+                children[pos] = nuChild;
+                return new Branch<>(branch.bitmap, children);
+            }
+            if (branch.children.length == 1)
+                return null;
+            // a single leaf does not need a branch
+            if (branch.children.length == 2 && !(branch.children[1 - pos] instanceof Branch))
+                return branch.children[1 - pos];
+            final Node<K, V>[] children = Arrays.copyOf(branch.children, branch.children.length - 1);
+            System.arraycopy(branch.children, pos + 1, children, pos, children.length - pos);
+            return new Branch<>(branch.bitmap ^ bit, children);
+        }
+
+        if (node instanceof Leaf) {
+            final Leaf<K, V> leaf = (Leaf<K, V>) node;
+            return leaf.hash == hash && leaf.key.equals(key) ? null : node;
+        }
+
+        if (node instanceof Collision) {
+            final Collision<K, V> collision = (Collision<K, V>) node;
+            if (collision.hash != hash)
+                return node;
+            for (int i = 0; i < collision.leaves.length; i++) {
+                if (collision.leaves[i].key.equals(key)) {
+                    if (collision.leaves.length == 2)
+                        return collision.leaves[1 - i];
+                    final Leaf<K, V>[] leaves = Arrays.copyOf(collision.leaves, collision.leaves.length - 1);
+                    System.arraycopy(collision.leaves, i + 1, leaves, i, leaves.length - i);
+                    return new Collision<>(hash, leaves);
+                }
+            }
+        }
+        return node;
+    }
+
+    // arrays of generic nodes can not be created with new
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(Class<?> type, int length) {
+        return (T[]) Array.newInstance(type, length);
+    }
+
+    private static abstract class Node<K, V> {
+    }
+
+    private static final class Leaf<K, V> extends Node<K, V> {
+        final int hash;
+        final K key;
+        final V value;
+
+        Leaf(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    // keys with equal hashes
+    private static final class Collision<K, V> extends Node<K, V> {
+        final int hash;
+        final Leaf<K, V>[] leaves;
+
+        Collision(int hash, Leaf<K, V>[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+    }
+
+    private static final class Branch<K, V> extends Node<K, V> {
+        final int bitmap;
+        final Node<K, V>[] children;
+
+        Branch(int bitmap, Node<K, V>[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+    }
+}
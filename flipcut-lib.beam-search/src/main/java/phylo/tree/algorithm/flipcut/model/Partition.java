@@ -24,26 +24,29 @@ public class Partition implements Comparable<Partition> {
     public final int cachedHash;
     public final AtomicInteger treeNodeIndex;
 
-    private final Map<SourceTreeGraphMultiCut, Edge> graphs;
-    private List<Edge> supertreeEdges = new LinkedList<>();
-    private int finishedGraphs;
+    // persistent structures, a partition shares all unchanged graphs and edges with the partition it was created from
+    private final HashTrieMap<SourceTreeGraphMultiCut, Edge> graphs;
+    private final int graphsHash; // hash of the graph map, i.e. the sum of the hashes of its entries
+    private final EdgeList supertreeEdges;
+    private final int finishedGraphs;
 
     public Partition(SourceTreeGraphMultiCut initialGraph) {
         currentscore = 0;
         finishedGraphs = 0;
         treeNodeIndex = new AtomicInteger(0);
 
-        graphs = new HashMap<>();
-        graphs.put(initialGraph, new Edge(0, treeNodeIndex.incrementAndGet()));
-        cachedHash = this.graphs.keySet().hashCode();
+        final Edge edge = new Edge(0, treeNodeIndex.incrementAndGet());
+        graphs = HashTrieMap.<SourceTreeGraphMultiCut, Edge>empty().put(initialGraph, edge);
+        graphsHash = entryHash(initialGraph, edge);
+        supertreeEdges = null;
+        cachedHash = initialGraph.hashCode();
     }
 
-    private Partition(long score, Map<SourceTreeGraphMultiCut, Edge> graphs, List<Edge> edges, int finished, final AtomicInteger treeNodeIndex) {
+    private Partition(long score, HashTrieMap<SourceTreeGraphMultiCut, Edge> graphs, int graphsHash, EdgeList edges, int finished, final AtomicInteger treeNodeIndex) {
         currentscore = score;
-        finishedGraphs = 0;
-
         this.graphs = graphs;
-        cachedHash = this.graphs.hashCode();
+        this.graphsHash = graphsHash;
+        cachedHash = graphsHash;
         supertreeEdges = edges;
         finishedGraphs = finished;
         this.treeNodeIndex = treeNodeIndex;
@@ -60,17 +63,21 @@ public class Partition implements Comparable<Partition> {
             }
         });
 
-        List<Iterator<MultiCut>> graphIterList = new LinkedList<>();
-        List<SourceTreeGraphMultiCut> toRemove = new LinkedList<>();
-        for (SourceTreeGraphMultiCut graph : graphs.keySet()) {
+        final List<Iterator<MultiCut>> graphIterList = new LinkedList<>();
+        graphs.forEach((graph, edge) -> {
             assert graph.numTaxa() > 1 : "Error: Graph of size <= 1 shouldn't be possible!!!"; //only 1 taxon left --> labeling node corresponding to the graph with the label of the last taxon
 
-            //delete semi universals
-            if (!graph.containsCuts())
-                graph.deleteSemiUniversals();
-            //get first partition of every graph to preselect and save time and memory
-            Iterator<MultiCut> iter = graph.getCutIterator();
-            MultiCut c = iter.next();
+            final Iterator<MultiCut> iter;
+            final MultiCut c;
+            // the graph may be shared with partitions that are expanded in parallel
+            synchronized (graph) {
+                //delete semi universals
+                if (!graph.containsCuts())
+                    graph.deleteSemiUniversals();
+                //get first partition of every graph to preselect and save time and memory
+                iter = graph.getCutIterator();
+                c = iter.next();
+            }
             //check if this partition can be better than one outside
             if ((c.minCutValue() + currentscore) < upperBound) {
                 //add the graphs that have a chance
@@ -86,11 +93,7 @@ public class Partition implements Comparable<Partition> {
                     graphIterList.add(iter);
                 }
             }
-        }
-
-        for (SourceTreeGraphMultiCut g : toRemove) {
-            supertreeEdges.add(graphs.remove(g));
-        }
+        });
 
         //find the k-best mincut of all k^2
         while (!graphIterList.isEmpty()) {
@@ -128,14 +131,11 @@ public class Partition implements Comparable<Partition> {
             //add new edge for cutted graph to supertree edgeset
             List<SourceTreeGraphMultiCut> splittedGraphs = cut.getSplittedGraphs();
 
-            //edges for new partition
-            List<Edge> edges = new LinkedList<>(supertreeEdges);
-
-            //build new partition
-            Map<SourceTreeGraphMultiCut, Edge> newPartitionGraphs = new HashMap<>(graphs);
-            Edge sourceGraphEdge = newPartitionGraphs.remove(cut.sourceGraph());
-            edges.add(sourceGraphEdge);
-
+            //build new partition, sharing everything that is not changed by the cut
+            final Edge sourceGraphEdge = graphs.get(cut.sourceGraph());
+            HashTrieMap<SourceTreeGraphMultiCut, Edge> newPartitionGraphs = graphs.remove(cut.sourceGraph());
+            int newPartitionHash = graphsHash - entryHash(cut.sourceGraph(), sourceGraphEdge);
+            EdgeList edges = new EdgeList(sourceGraphEdge, supertreeEdges);
 
             //check if one of the splitted graphes is finished
             int newFinished = finishedGraphs;
@@ -147,19 +147,25 @@ public class Partition implements Comparable<Partition> {
                 assert taxaNum >= 0 : "Error: empty graph in partition";
                 if (taxaNum == 1) {
                     splitGraphEdge.treeNodeLabel = (String) splitGraph.taxaLabels().iterator().next();
-                    edges.add(splitGraphEdge);
+                    edges = new EdgeList(splitGraphEdge, edges);
                     newFinished++;
                 } else {
-                    newPartitionGraphs.put(splitGraph, splitGraphEdge);
+                    newPartitionGraphs = newPartitionGraphs.put(splitGraph, splitGraphEdge);
+                    newPartitionHash += entryHash(splitGraph, splitGraphEdge);
                 }
             }
 
-            Partition p = new Partition(currentscore + cut.minCutValue(), newPartitionGraphs, edges, newFinished, treeNodeIndex);
+            Partition p = new Partition(currentscore + cut.minCutValue(), newPartitionGraphs, newPartitionHash, edges, newFinished, treeNodeIndex);
             partitions.add(p);
         }
         return partitions;
     }
 
+    // same as the hash of a map entry, so the hash of the partition is the hash of its graph map
+    private static int entryHash(SourceTreeGraphMultiCut graph, Edge edge) {
+        return graph.hashCode() ^ edge.hashCode();
+    }
+
     public int getSize() {
         return graphs.size() + finishedGraphs;
     }
@@ -172,23 +178,28 @@ public class Partition implements Comparable<Partition> {
         return Long.compare(currentscore, o.currentscore);
     }
 
+    /**
+     * Materializes the supertree of this partition from its edge chain.
+     */
     public Tree buildTree() {
+        // edges in the order they were created
+        final Edge[] edges = new Edge[supertreeEdges == null ? 0 : supertreeEdges.size];
+        for (EdgeList e = supertreeEdges; e != null; e = e.previous) {
+            edges[e.size - 1] = e.edge;
+        }
+
         TIntObjectMap<TreeNode> nodeMap = new TIntObjectHashMap<>();
         Tree tree = new Tree();
-
-        Iterator<Edge> it = supertreeEdges.iterator();
-        while (it.hasNext()) {
-            Edge edge = it.next();
+        for (Edge edge : edges) {
             nodeMap.put(edge.treeNode, new TreeNode(edge.treeNodeLabel));
             tree.addVertex(nodeMap.get(edge.treeNode));
-            if (edge.parentNode == 0) {
+            if (edge.parentNode == 0)
                 tree.setRoot(nodeMap.get(edge.treeNode));
-                it.remove();
-            }
         }
 
-        for (Edge edge : supertreeEdges) {
-            tree.addEdge(nodeMap.get(edge.parentNode), nodeMap.get(edge.treeNode));
+        for (Edge edge : edges) {
+            if (edge.parentNode != 0)
+                tree.addEdge(nodeMap.get(edge.parentNode), nodeMap.get(edge.treeNode));
         }
 
         tree.setName(String.valueOf(currentscore));
@@ -214,6 +225,19 @@ public class Partition implements Comparable<Partition> {
         return !graphs.isEmpty() && !p2.graphs.isEmpty() && cachedHash == p2.cachedHash;
     }
 
+    // persistent list of supertree edges, newest first
+    private static final class EdgeList {
+        final Edge edge;
+        final EdgeList previous;
+        final int size;
+
+        EdgeList(Edge edge, EdgeList previous) {
+            this.edge = edge;
+            this.previous = previous;
+            size = previous == null ? 1 : previous.size + 1;
+        }
+    }
+
     class Edge {
         final int parentNode;
         final int treeNode;
@@ -0,0 +1,69 @@
+package phylo.tree.algorithm.flipcut;
+
+import org.junit.Test;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDMultiCutGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.MultiCutterFactory;
+import phylo.tree.algorithm.flipcut.flipCutGraph.CutGraphTypes;
+import phylo.tree.model.Tree;
+import phylo.tree.model.TreeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The beam wide graph cache only shares the cuts of equal graphs, so the beam search has to find the same
+ * supertrees with and without it.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class FlipCutMultiCutGraphCacheTest {
+    private static final int NUMBER_OF_CUTS = 5;
+
+    @Test
+    public void testSameResultsWithoutCache() {
+        // cut sampling is randomized, so the deterministic cut enumeration is used for the comparison
+        final MultiCutterFactory factory = MultiCutterFactory.newInstance(MultiCutterFactory.MultiCutterType.VAZIRANI, CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG);
+        final Random r = new Random(4711);
+        long hits = 0;
+        for (int run = 0; run < 10; run++) {
+            final List<Tree> source = FlipCutMultiCutParallelTest.randomTrees(r, 3 + r.nextInt(6), 10 + r.nextInt(30));
+
+            final CompressedBCDMultiCutGraph cached = createGraph(source, factory, 10000);
+            final List<String> expected = run(cached, factory);
+            hits += cached.getCacheHits();
+
+            assertEquals("Results differ without cache", expected, run(createGraph(source, factory, 0), factory));
+            // a small cache evicts graphs during the search
+            assertEquals("Results differ with a small cache", expected, run(createGraph(source, factory, 2), factory));
+        }
+        assertTrue("The cache was never used", hits > 0);
+    }
+
+    private static CompressedBCDMultiCutGraph createGraph(List<Tree> source, MultiCutterFactory factory, int cacheSize) {
+        return new CompressedBCDMultiCutGraph(CompressedGraphFactory.createSourceGraph(
+                SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.EDGE_WEIGHTS), 0, true),
+                NUMBER_OF_CUTS, factory, cacheSize);
+    }
+
+    private static List<String> run(CompressedBCDMultiCutGraph graph, MultiCutterFactory factory) {
+        final FlipCutMultiCut fs = new FlipCutMultiCut(factory);
+        fs.setNumberOfCuts(NUMBER_OF_CUTS);
+        fs.setNumberOfThreads(1);
+        fs.setInput(graph);
+        fs.run();
+
+        final List<Tree> results = fs.getResults();
+        final List<String> scores = new ArrayList<>(results.size());
+        for (Tree tree : results) {
+            scores.add(tree.getName());
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,154 @@
+package phylo.tree.algorithm.flipcut;
+
+import org.junit.Test;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDMultiCutGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.MultiCutterFactory;
+import phylo.tree.algorithm.flipcut.flipCutGraph.CutGraphTypes;
+import phylo.tree.algorithm.flipcut.flipCutGraph.FlipCutGraphMultiSimpleWeight;
+import phylo.tree.io.Newick;
+import phylo.tree.model.Tree;
+import phylo.tree.model.TreeNode;
+import phylo.tree.model.TreeUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The partitions of a beam level are expanded in parallel and share their graphs, so the beam search has to find
+ * the same supertrees for any number of threads.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class FlipCutMultiCutParallelTest {
+    private static final int[] THREADS = {1, 4, -16};
+    private static final int NUMBER_OF_CUTS = 5;
+
+    @Test
+    public void testHypergraph() {
+        // the MC cutter creates HyperMultiCuts, which split their graphs lazily. It samples its cuts randomly,
+        // so only the validity of the supertrees is checked
+        final MultiCutterFactory factory = MultiCutterFactory.newInstance(MultiCutterFactory.MultiCutterType.MC, CutGraphTypes.HYPERGRAPH_MINCUT_VIA_MAXFLOW_TARJAN_GOLDBERG);
+        final Random r = new Random(4242);
+        for (int run = 0; run < 10; run++) {
+            final List<Tree> source = randomTrees(r, 3 + r.nextInt(6), 8 + r.nextInt(12));
+            final Set<String> taxa = new HashSet<>();
+            for (Tree tree : source) {
+                for (TreeNode leaf : tree.getLeaves())
+                    taxa.add(leaf.getLabel());
+            }
+
+            for (int threads : THREADS) {
+                final FlipCutMultiCut fs = new FlipCutMultiCut(factory);
+                fs.setNumberOfCuts(NUMBER_OF_CUTS);
+                fs.setInput(new FlipCutGraphMultiSimpleWeight(SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.EDGE_WEIGHTS), NUMBER_OF_CUTS, factory));
+                fs.setNumberOfThreads(threads);
+                fs.run();
+
+                final List<Tree> results = fs.getResults();
+                assertTrue(!results.isEmpty() && results.size() <= NUMBER_OF_CUTS);
+                long lastScore = Long.MIN_VALUE;
+                for (Tree supertree : results) {
+                    final List<String> labels = new ArrayList<>();
+                    for (TreeNode leaf : supertree.getLeaves())
+                        labels.add(leaf.getLabel());
+                    assertEquals("Supertree with " + threads + " threads has wrong taxa", taxa.size(), labels.size());
+                    assertEquals("Supertree with " + threads + " threads has wrong taxa", taxa, new HashSet<>(labels));
+
+                    final long score = Long.parseLong(supertree.getName());
+                    assertTrue("Supertrees with " + threads + " threads are not sorted", lastScore <= score);
+                    lastScore = score;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompressed() {
+        final MultiCutterFactory factory = MultiCutterFactory.newInstance(MultiCutterFactory.MultiCutterType.VAZIRANI, CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG);
+        final Random r = new Random(2424);
+        for (int run = 0; run < 10; run++) {
+            final List<Tree> source = randomTrees(r, 3 + r.nextInt(6), 10 + r.nextInt(30));
+            String expected = null;
+            for (int threads : THREADS) {
+                final FlipCutMultiCut fs = new FlipCutMultiCut(factory);
+                fs.setNumberOfCuts(NUMBER_OF_CUTS);
+                fs.setInput(new CompressedBCDMultiCutGraph(CompressedGraphFactory.createSourceGraph(
+                        SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.EDGE_WEIGHTS), 0, true),
+                        NUMBER_OF_CUTS, factory));
+                expected = compareScores(fs, threads, expected);
+            }
+        }
+    }
+
+    @Test
+    public void testCompressedParallelCutter() {
+        // the partial cuts of all partitions of a beam level share the thread pool of the factory
+        final MultiCutterFactory single = MultiCutterFactory.newInstance(MultiCutterFactory.MultiCutterType.VAZIRANI, CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG);
+        final MultiCutterFactory parallel = MultiCutterFactory.newInstance(MultiCutterFactory.MultiCutterType.VAZIRANI, CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG, 4);
+        final Random r = new Random(4711);
+        for (int run = 0; run < 5; run++) {
+            final List<Tree> source = randomTrees(r, 3 + r.nextInt(6), 10 + r.nextInt(30));
+            String expected = null;
+            for (MultiCutterFactory factory : new MultiCutterFactory[]{single, parallel}) {
+                final FlipCutMultiCut fs = new FlipCutMultiCut(factory);
+                fs.setNumberOfCuts(NUMBER_OF_CUTS);
+                fs.setInput(new CompressedBCDMultiCutGraph(CompressedGraphFactory.createSourceGraph(
+                        SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.EDGE_WEIGHTS), 0, true),
+                        NUMBER_OF_CUTS, factory));
+                expected = compareScores(fs, factory == single ? 1 : 4, expected);
+            }
+        }
+    }
+
+    private static String compareScores(FlipCutMultiCut fs, int threads, String expected) {
+        fs.setNumberOfThreads(threads);
+        fs.run();
+
+        // only the best score is compared, partitions that tie at the upper bound may differ
+        final List<Tree> results = fs.getResults();
+        final String score = results.get(0).getName();
+        if (expected == null)
+            return score;
+        assertEquals("Score with " + threads + " threads differs", expected, score);
+        return expected;
+    }
+
+    static List<Tree> randomTrees(Random r, int numTrees, int numTaxa) {
+        final List<Tree> trees = new ArrayList<>(numTrees);
+        for (int i = 0; i < numTrees; i++) {
+            final List<String> taxa = new ArrayList<>();
+            for (int t = 0; t < numTaxa; t++) {
+                if (r.nextInt(3) > 0)
+                    taxa.add("t" + t);
+            }
+            while (taxa.size() < 3)
+                taxa.add("t" + (numTaxa + taxa.size()));
+            trees.add(Newick.getTreeFromString(randomNewick(r, taxa) + ";"));
+        }
+        return trees;
+    }
+
+    // random branch lengths, so that the beam search does not depend on the order of equally scored cuts
+    private static String randomNewick(Random r, List<String> taxa) {
+        if (taxa.size() == 1)
+            return taxa.get(0);
+        Collections.shuffle(taxa, r);
+        final int k = 1 + r.nextInt(taxa.size() - 1);
+        return "(" + randomNewick(r, new ArrayList<>(taxa.subList(0, k))) + ":" + branchLength(r) + ","
+                + randomNewick(r, new ArrayList<>(taxa.subList(k, taxa.size()))) + ":" + branchLength(r) + ")";
+    }
+
+    private static int branchLength(Random r) {
+        return 1 + r.nextInt(1000);
+    }
+}
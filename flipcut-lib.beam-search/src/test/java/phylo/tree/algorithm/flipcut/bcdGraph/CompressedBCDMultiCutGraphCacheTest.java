@@ -0,0 +1,84 @@
+package phylo.tree.algorithm.flipcut.bcdGraph;
+
+import org.junit.Test;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.MultiCutterFactory;
+import phylo.tree.io.Newick;
+import phylo.tree.model.Tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class CompressedBCDMultiCutGraphCacheTest {
+    private static final MultiCutterFactory FACTORY = MultiCutterFactory.newInstance();
+
+    @Test
+    public void testHitOnEqualGraph() {
+        final CompressedBCDMultiCutGraphCache cache = new CompressedBCDMultiCutGraphCache(10);
+        final CompressedBCDMultiCutGraph graph = createGraph("((a,b),c);", "((a,c),d);");
+
+        assertSame(graph, cache.canonical(graph));
+        // a graph created from the same trees has the same taxa, characters and guide edges
+        assertSame(graph, cache.canonical(createGraph("((a,b),c);", "((a,c),d);")));
+        assertSame(graph, cache.canonical(graph));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        final CompressedBCDMultiCutGraph other = createGraph("((a,b),c);", "((b,c),d,e);");
+        assertSame(other, cache.canonical(other));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testKeyIsCopied() {
+        final CompressedBCDMultiCutGraphCache cache = new CompressedBCDMultiCutGraphCache(10);
+        final CompressedBCDMultiCutGraph graph = createGraph("((a,b),c,d);", "((a,b),c,d);", "((c,d),a);");
+        assertSame(graph, cache.canonical(graph));
+
+        // the cached graph is identified by its content at the time it was added,
+        // e.g. deleting semi universals removes characters afterwards
+        graph.getSource().characters.clear();
+        assertSame(graph, cache.canonical(createGraph("((a,b),c,d);", "((a,b),c,d);", "((c,d),a);")));
+    }
+
+    @Test
+    public void testEviction() {
+        final CompressedBCDMultiCutGraphCache cache = new CompressedBCDMultiCutGraphCache(2);
+        final CompressedBCDMultiCutGraph a = createGraph("((a,b),c);");
+        final CompressedBCDMultiCutGraph b = createGraph("((a,b),c,d);");
+        final CompressedBCDMultiCutGraph c = createGraph("((a,b),c,d,e);");
+
+        assertSame(a, cache.canonical(a));
+        assertSame(b, cache.canonical(b));
+        // a is now used more recently than b
+        assertSame(a, cache.canonical(createGraph("((a,b),c);")));
+        // evicts the least recently used graph b
+        assertSame(c, cache.canonical(c));
+
+        assertSame(a, cache.canonical(createGraph("((a,b),c);")));
+        assertSame(c, cache.canonical(createGraph("((a,b),c,d,e);")));
+        final CompressedBCDMultiCutGraph b2 = createGraph("((a,b),c,d);");
+        assertSame(b2, cache.canonical(b2));
+
+        assertEquals(3, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    // the cache identifies graphs by taxa and character indices, so graphs of different trees need different numbers of taxa
+    private static CompressedBCDMultiCutGraph createGraph(String... newick) {
+        final List<Tree> trees = new ArrayList<>(newick.length);
+        for (String tree : newick) {
+            trees.add(Newick.getTreeFromString(tree));
+        }
+        return new CompressedBCDMultiCutGraph(CompressedGraphFactory.createSourceGraph(
+                SimpleCosts.newCostComputer(trees, FlipCutWeights.Weights.UNIT_COST), 0, true), 3, FACTORY, 0);
+    }
+}
@@ -0,0 +1,96 @@
+package phylo.tree.algorithm.flipcut.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class HashTrieMapTest {
+
+    @Test
+    public void testRandomOperations() {
+        final Random r = new Random(42);
+        final List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // few different hashes to get collisions and deep tries
+            keys.add(new Key(i, r.nextBoolean() ? r.nextInt(50) : r.nextInt()));
+        }
+
+        final List<HashTrieMap<Key, Integer>> versions = new ArrayList<>();
+        final List<Map<Key, Integer>> expected = new ArrayList<>();
+        HashTrieMap<Key, Integer> map = HashTrieMap.empty();
+        Map<Key, Integer> reference = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            final Key key = keys.get(r.nextInt(keys.size()));
+            if (r.nextInt(3) == 0) {
+                map = map.remove(key);
+                reference.remove(key);
+            } else {
+                map = map.put(key, i);
+                reference.put(key, i);
+            }
+            if (i % 500 == 0) {
+                versions.add(map);
+                expected.add(new HashMap<>(reference));
+            }
+        }
+        versions.add(map);
+        expected.add(reference);
+
+        // old versions must not be changed by later modifications
+        for (int v = 0; v < versions.size(); v++) {
+            assertContent(expected.get(v), versions.get(v), keys);
+        }
+    }
+
+    @Test
+    public void testRemoveAbsent() {
+        final HashTrieMap<Key, Integer> map = HashTrieMap.<Key, Integer>empty().put(new Key(1, 7), 1);
+        assertSame(map, map.remove(new Key(2, 7)));
+        assertSame(map, map.remove(new Key(3, 8)));
+        assertEquals(0, map.remove(new Key(1, 7)).size());
+    }
+
+    private static void assertContent(Map<Key, Integer> expected, HashTrieMap<Key, Integer> map, List<Key> keys) {
+        assertEquals(expected.size(), map.size());
+        for (Key key : keys) {
+            if (expected.containsKey(key))
+                assertEquals(expected.get(key), map.get(key));
+            else
+                assertNull(map.get(key));
+        }
+        final Map<Key, Integer> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+
+    private static class Key {
+        final int id;
+        final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package phylo.tree.algorithm.flipcut;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of one cut, see {@link CutMetrics}. The {@code jdk.jfr} API is not part of every Java 8 JDK, so this class
+ * is compiled separately (source set {@code jfr}) and only loaded by {@link CutMetrics} if the JVM supports flight recording.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+@Name("phylo.tree.flipcut.Cut")
+@Label("BCD Cut")
+@Category("BCD Supertrees")
+@Description("Graph size, flow network size, timings and max flow operation counts of one cut")
+@StackTrace(false)
+class CutEvent extends Event {
+    @Label("Taxa")
+    int taxa;
+    @Label("Characters")
+    int characters;
+    @Label("Components")
+    int components;
+    @Label("Cut Weight")
+    long weight;
+    @Label("Cut Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cutTime;
+    @Label("Build Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long buildTime;
+    @Label("Flow Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long flowTime;
+    @Label("Network Nodes")
+    int nodes;
+    @Label("Network Arcs")
+    int arcs;
+    @Label("s-t Flows")
+    long flows;
+    @Label("Aborted s-t Flows")
+    long abortedFlows;
+    @Label("Pushes")
+    long pushes;
+    @Label("Relabels")
+    long relabels;
+    @Label("Gaps")
+    long gaps;
+    @Label("Global Updates")
+    long updates;
+
+    // created reflectively by CutMetrics
+    static class Sink implements CutMetrics.EventSink {
+        @Override
+        public void commit(CutMetrics.Record record) {
+            CutEvent.commit(record);
+        }
+    }
+
+    static void commit(CutMetrics.Record record) {
+        final CutEvent event = new CutEvent();
+        if (!event.isEnabled())
+            return;
+        event.taxa = record.taxa;
+        event.characters = record.characters;
+        event.components = record.components;
+        event.weight = record.weight;
+        event.cutTime = record.cutNanos;
+        event.buildTime = record.buildNanos;
+        event.flowTime = record.flowNanos;
+        event.nodes = record.nodes;
+        event.arcs = record.arcs;
+        event.flows = record.flows;
+        event.abortedFlows = record.abortedFlows;
+        event.pushes = record.pushes;
+        event.relabels = record.relabels;
+        event.gaps = record.gaps;
+        event.updates = record.updates;
+        event.commit();
+    }
+}
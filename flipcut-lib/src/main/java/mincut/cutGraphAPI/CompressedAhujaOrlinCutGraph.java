@@ -0,0 +1,126 @@
+package mincut.cutGraphAPI;
+
+import core.utils.parallel.IterationCallableFactory;
+import mincut.cutGraphAPI.bipartition.STCut;
+import mincut.cutGraphImpl.maxFlowAhujaOrlin.ArrayFlowGraph;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * s-t cut calculations on an {@link ArrayFlowGraph} (Ahuja-Orlin shortest augmenting paths). Source and sink are the
+ * internal node indices, the resulting cut sets contain the node names. Every worker uses its own flow state on the shared graph structure.
+ */
+public class CompressedAhujaOrlinCutGraph extends MaxFlowCutGraph<Integer> {
+    private final ArrayFlowGraph flowGraph;
+
+    private AhujaOrlinCallableFactory factory = null;
+
+    public CompressedAhujaOrlinCutGraph(ArrayFlowGraph flowGraph) {
+        this.flowGraph = flowGraph;
+    }
+
+
+    @Override
+    AhujaOrlinCallableFactory getMaxFlowCallableFactory() {
+        if (factory == null)
+            factory = new AhujaOrlinCallableFactory();
+        return factory;
+    }
+
+
+    /**
+     * Does the mincut execution
+     *
+     * @param source the source
+     * @param sink   the sink
+     */
+    @Override
+    public STCut<Integer> calculateMinSTCut(Integer source, Integer sink) {
+        return calculateMinSTCut(source, sink, flowGraph);
+    }
+
+    @Override
+    STCut<Integer> calculateMinSTCut(Integer source, Integer sink, long cutoff, AtomicLong sharedBound) {
+        return calculateMinSTCut(source, sink, flowGraph, cutoff, sharedBound);
+    }
+
+    public STCut<Integer> calculateMinSTCut(final int source, final int sink, final ArrayFlowGraph flowGraph) {
+        return calculateMinSTCut(source, sink, flowGraph, Long.MAX_VALUE, null);
+    }
+
+    STCut<Integer> calculateMinSTCut(final int source, final int sink, final ArrayFlowGraph flowGraph, long cutoff, AtomicLong sharedBound) {
+        flowGraph.setSource(source);
+        flowGraph.setSink(sink);
+        flowGraph.setCutoff(cutoff);
+        flowGraph.setSharedBound(sharedBound);
+        calculateMaxFlow(flowGraph);
+
+        // capacities are integral, the rounding only removes floating point noise
+        final long value = Math.round(flowGraph.getValue());
+        if (flowGraph.isAborted())
+            return new STCut<>(new LinkedHashSet<>(), new LinkedHashSet<>(), source, sink, value);
+
+        LinkedHashSet<Integer> sSet = new LinkedHashSet<>();
+        LinkedHashSet<Integer> tSet = new LinkedHashSet<>();
+        for (int i = 0; i < flowGraph.n; i++) {
+            if (flowGraph.isInSourceSet(i)) {
+                sSet.add(flowGraph.getName(i));
+            } else {
+                tSet.add(flowGraph.getName(i));
+            }
+        }
+        return new STCut<>(sSet, tSet, source, sink, value);
+    }
+
+    // augmentations are counted as pushes, global updates are done once at the start and end of every flow
+    private void calculateMaxFlow(final ArrayFlowGraph flowGraph) {
+        final MaxFlowStatistics statistics = getStatistics();
+        if (statistics == null) {
+            flowGraph.calculateMaxFlow();
+        } else {
+            final long augmentations = flowGraph.getAugmentCount();
+            final long relabels = flowGraph.getRelabelCount();
+            final long gaps = flowGraph.getGapCount();
+            flowGraph.calculateMaxFlow();
+            statistics.addFlow(flowGraph.isAborted(), flowGraph.getAugmentCount() - augmentations,
+                    flowGraph.getRelabelCount() - relabels, flowGraph.getGapCount() - gaps, 0);
+        }
+    }
+
+
+    private class AhujaOrlinCallable extends MaxFlowCallable {
+        private ArrayFlowGraph h;
+
+        public AhujaOrlinCallable(List<MaxFlowCutGraph<Integer>.SS> jobs) {
+            super(jobs);
+        }
+
+        @Override
+        void initGraph() {
+            if (h == null)
+                h = new ArrayFlowGraph(flowGraph);
+        }
+
+        @Override
+        public STCut<Integer> doJob(SS ss) {
+            return calculateMinSTCut(ss.source, ss.sink, h);
+        }
+
+        @Override
+        STCut<Integer> doJob(SS ss, long cutoff, AtomicLong sharedBound) {
+            return calculateMinSTCut(ss.source, ss.sink, h, cutoff, sharedBound);
+        }
+    }
+
+
+    private class AhujaOrlinCallableFactory implements IterationCallableFactory<AhujaOrlinCallable, SS> {
+        @Override
+        public AhujaOrlinCallable newIterationCallable(List<SS> list) {
+            return new AhujaOrlinCallable(list);
+        }
+    }
+
+
+}
@@ -2,22 +2,22 @@ package mincut.cutGraphAPI;
 
 import core.utils.parallel.IterationCallableFactory;
 import mincut.cutGraphAPI.bipartition.STCut;
-import mincut.cutGraphImpl.maxFlowGoldbergTarjan.Arc;
-import mincut.cutGraphImpl.maxFlowGoldbergTarjan.CutGraphImpl;
-import mincut.cutGraphImpl.maxFlowGoldbergTarjan.Node;
+import mincut.cutGraphImpl.maxFlowGoldbergTarjan.ArrayCutGraphImpl;
 
-import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
-//todo buid graph for primitive int Node names to save memory and time
-public class CompressedGoldbergTarjanCutGraph extends MaxFlowCutGraph<Object> {
-    private final CutGraphImpl hipri;
+/**
+ * s-t cut calculations on an {@link ArrayCutGraphImpl}. Source and sink are the internal node indices,
+ * the resulting cut sets contain the node names. Every worker uses its own flow state on the shared graph structure.
+ */
+public class CompressedGoldbergTarjanCutGraph extends MaxFlowCutGraph<Integer> {
+    private final ArrayCutGraphImpl hipri;
 
     private HipriCallableFactory factory = null;
 
-    public CompressedGoldbergTarjanCutGraph(CutGraphImpl hipri) {
+    public CompressedGoldbergTarjanCutGraph(ArrayCutGraphImpl hipri) {
         this.hipri = hipri;
     }
 
@@ -37,63 +37,78 @@ public class CompressedGoldbergTarjanCutGraph extends MaxFlowCutGraph<Object> {
      * @param sink   the sink
      */
     @Override
-    public STCut<Object> calculateMinSTCut(Object source, Object sink) {
-        return calculateMinSTCut((Node) source, (Node) sink);
+    public STCut<Integer> calculateMinSTCut(Integer source, Integer sink) {
+        return calculateMinSTCut(source, sink, hipri);
     }
 
-    public STCut<Object> calculateMinSTCut(Node source, Node sink) {
-        return calculateMinSTCut(source, sink, hipri);
+    @Override
+    STCut<Integer> calculateMinSTCut(Integer source, Integer sink, long cutoff, AtomicLong sharedBound) {
+        return calculateMinSTCut(source, sink, hipri, cutoff, sharedBound);
     }
 
-    public STCut<Object> calculateMinSTCut(final Object source, final Object sink, final CutGraphImpl hipri) {
-        return calculateMinSTCut((Node) source, (Node) sink, hipri);
+    public STCut<Integer> calculateMinSTCut(final int source, final int sink, final ArrayCutGraphImpl hipri) {
+        return calculateMinSTCut(source, sink, hipri, Long.MAX_VALUE, null);
     }
 
-    public STCut<Object> calculateMinSTCut(final Node source, final Node sink, final CutGraphImpl hipri) {
+    STCut<Integer> calculateMinSTCut(final int source, final int sink, final ArrayCutGraphImpl hipri, long cutoff, AtomicLong sharedBound) {
         hipri.setSource(source);
         hipri.setSink(sink);
+        hipri.setCutoff(cutoff);
+        hipri.setSharedBound(sharedBound);
+        calculateMaxFlow(hipri);
+
+        if (hipri.isAborted())
+            return new STCut<>(new LinkedHashSet<>(), new LinkedHashSet<>(), source, sink, hipri.getValue());
+
+        LinkedHashSet<Integer> sSet = new LinkedHashSet<>();
+        LinkedHashSet<Integer> tSet = new LinkedHashSet<>();
+        for (int i = 0; i < hipri.n; i++) {
+            if (hipri.isInSourceSet(i)) {
+                sSet.add(hipri.getName(i));
+            } else {
+                tSet.add(hipri.getName(i));
+            }
+        }
+        return new STCut<>(sSet, tSet, source, sink, hipri.getValue());
+    }
 
-        List<LinkedHashSet<Object>> cutList = hipri.calculateMaxSTFlowFull(false);
-        return new STCut(cutList.get(0), cutList.get(1), source, sink, hipri.getValue());
+    private void calculateMaxFlow(final ArrayCutGraphImpl hipri) {
+        final MaxFlowStatistics statistics = getStatistics();
+        if (statistics == null) {
+            hipri.calculateMaxFlow();
+        } else {
+            final long pushes = hipri.getPushCount();
+            final long relabels = hipri.getRelabelCount();
+            final long gaps = hipri.getGapCount();
+            final long updates = hipri.getUpdateCount();
+            hipri.calculateMaxFlow();
+            statistics.addFlow(hipri.isAborted(), hipri.getPushCount() - pushes, hipri.getRelabelCount() - relabels,
+                    hipri.getGapCount() - gaps, hipri.getUpdateCount() - updates);
+        }
     }
 
 
     private class HipriCallable extends MaxFlowCallable {
-        private CutGraphImpl h;
-        Map<Node, Node> nodeMapping;
+        private ArrayCutGraphImpl h;
 
-        public HipriCallable(List<MaxFlowCutGraph<Object>.SS> jobs) {
+        public HipriCallable(List<MaxFlowCutGraph<Integer>.SS> jobs) {
             super(jobs);
         }
 
         @Override
         void initGraph() {
-            if (h == null) {
-                createHipriFromSource(hipri);
-            }
+            if (h == null)
+                h = new ArrayCutGraphImpl(hipri);
         }
 
-        private void createHipriFromSource(CutGraphImpl hipri) {
-            nodeMapping = new HashMap<>(hipri.n);
-            h = new CutGraphImpl(hipri.n, hipri.m);
-            // iterate over all nodes and create clones
-            for (Node node : hipri.getNodes()) {
-                nodeMapping.put(node, h.createNode(node.getName(), node.getArcs().length));
-            }
-
-
-            //iterate over all arcs an insert them into cloned graph
-            for (Node node : hipri.getNodes()) {
-                for (Arc arc : node.getArcs()) {
-                    if (arc.getCap() > 0)
-                        h.addEdge(nodeMapping.get(arc.getSource()), nodeMapping.get(arc.getTarget()), arc.getCap());
-                }
-            }
+        @Override
+        public STCut<Integer> doJob(SS ss) {
+            return calculateMinSTCut(ss.source, ss.sink, h);
         }
 
         @Override
-        public STCut<Object> doJob(SS ss) {
-            return calculateMinSTCut(nodeMapping.get((Node) ss.source), nodeMapping.get((Node) ss.sink), h);
+        STCut<Integer> doJob(SS ss, long cutoff, AtomicLong sharedBound) {
+            return calculateMinSTCut(ss.source, ss.sink, h, cutoff, sharedBound);
         }
     }
 
@@ -0,0 +1,234 @@
+package phylo.tree.algorithm.flipcut;
+
+import mincut.cutGraphAPI.MaxFlowStatistics;
+import phylo.tree.algorithm.flipcut.cutter.CutStatistics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects one {@link Record} per cut of a {@link FlipCutSingleCut} run. Every record is also emitted as JFR event
+ * ({@code phylo.tree.flipcut.Cut}), if the JVM supports flight recording. The events are only written if a recording
+ * is running, e.g. when the JVM was started with {@code -XX:StartFlightRecording}.
+ * <p>
+ * After the run, the records can be written to a JSON report (summary, per thread summary and all cuts)
+ * or a CSV file with one line per cut, see {@link #writeReport(Path)}.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class CutMetrics {
+    private static final EventSink JFR_EVENTS = loadJfrEvents();
+
+    private final ConcurrentLinkedQueue<Record> records = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Adds the record of a cut that was done by the current thread
+     *
+     * @param taxa       number of taxa of the graph
+     * @param characters number of characters of the graph
+     * @param components number of components after the cut
+     * @param weight     weight of the cut
+     * @param cutNanos   time for the whole cut including the splitting of the graph
+     * @param statistics statistics of the cutter or null if not supported by the cutter
+     */
+    public void record(int taxa, int characters, int components, long weight, long cutNanos, CutStatistics statistics) {
+        final Record record = new Record(Thread.currentThread().getName(), taxa, characters, components, weight, cutNanos, statistics);
+        records.add(record);
+        if (JFR_EVENTS != null)
+            JFR_EVENTS.commit(record);
+    }
+
+    public List<Record> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    /**
+     * Writes the report as CSV if the file name ends with ".csv" and as JSON otherwise.
+     */
+    public void writeReport(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv"))
+                writeCsv(out);
+            else
+                writeJson(out);
+        }
+    }
+
+    public void writeCsv(PrintWriter out) {
+        final List<Record> records = getRecords();
+        out.println("thread,taxa,characters,components,weight,cutMs,buildMs,flowMs,nodes,arcs,flows,abortedFlows,pushes,relabels,gaps,updates");
+        for (Record r : records) {
+            out.println(r.thread.replace(',', ' ') + "," + r.taxa + "," + r.characters + "," + r.components + "," + r.weight + ","
+                    + millis(r.cutNanos) + "," + millis(r.buildNanos) + "," + millis(r.flowNanos) + "," + r.nodes + "," + r.arcs + ","
+                    + r.flows + "," + r.abortedFlows + "," + r.pushes + "," + r.relabels + "," + r.gaps + "," + r.updates);
+        }
+    }
+
+    public void writeJson(PrintWriter out) {
+        final List<Record> records = getRecords();
+        final Summary total = new Summary();
+        final Map<String, Summary> threads = new TreeMap<>();
+        for (Record r : records) {
+            total.add(r);
+            threads.computeIfAbsent(r.thread, t -> new Summary()).add(r);
+        }
+
+        out.println("{");
+        out.print("  \"summary\": ");
+        total.writeJson(out);
+        out.println(",");
+
+        out.println("  \"threads\": {");
+        int i = 0;
+        for (Map.Entry<String, Summary> entry : threads.entrySet()) {
+            out.print("    " + quote(entry.getKey()) + ": ");
+            entry.getValue().writeJson(out);
+            out.println(++i < threads.size() ? "," : "");
+        }
+        out.println("  },");
+
+        out.println("  \"cuts\": [");
+        i = 0;
+        for (Record r : records) {
+            out.print("    {\"thread\": " + quote(r.thread) + ", \"taxa\": " + r.taxa + ", \"characters\": " + r.characters
+                    + ", \"components\": " + r.components + ", \"weight\": " + r.weight + ", \"cutMs\": " + millis(r.cutNanos)
+                    + ", \"buildMs\": " + millis(r.buildNanos) + ", \"flowMs\": " + millis(r.flowNanos)
+                    + ", \"nodes\": " + r.nodes + ", \"arcs\": " + r.arcs + ", \"flows\": " + r.flows
+                    + ", \"abortedFlows\": " + r.abortedFlows + ", \"pushes\": " + r.pushes + ", \"relabels\": " + r.relabels
+                    + ", \"gaps\": " + r.gaps + ", \"updates\": " + r.updates + "}");
+            out.println(++i < records.size() ? "," : "");
+        }
+        out.println("  ]");
+        out.println("}");
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static String quote(String s) {
+        final StringBuilder b = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+                b.append('\\').append(c);
+            else if (c < 0x20)
+                b.append(String.format("\\u%04x", (int) c));
+            else
+                b.append(c);
+        }
+        return b.append('"').toString();
+    }
+
+    // the JFR event is compiled separately (source set jfr) and must not be loaded on JVMs without jdk.jfr
+    private static EventSink loadJfrEvents() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return Class.forName("phylo.tree.algorithm.flipcut.CutEvent$Sink").asSubclass(EventSink.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Emits the records as events of a monitoring API, i.e. JFR.
+     */
+    interface EventSink {
+        void commit(Record record);
+    }
+
+    /**
+     * Metrics of one cut. Network size, timings and flow counts are 0 if the cutter does not support them.
+     */
+    public static class Record {
+        public final String thread;
+        public final int taxa;
+        public final int characters;
+        public final int components;
+        public final long weight;
+        public final long cutNanos;
+        public final long buildNanos;
+        public final long flowNanos;
+        public final int nodes;
+        public final int arcs;
+        public final long flows;
+        public final long abortedFlows;
+        public final long pushes;
+        public final long relabels;
+        public final long gaps;
+        public final long updates;
+
+        Record(String thread, int taxa, int characters, int components, long weight, long cutNanos, CutStatistics statistics) {
+            this.thread = thread;
+            this.taxa = taxa;
+            this.characters = characters;
+            this.components = components;
+            this.weight = weight;
+            this.cutNanos = cutNanos;
+            if (statistics != null) {
+                buildNanos = statistics.buildNanos;
+                flowNanos = statistics.flowNanos;
+                nodes = statistics.nodes;
+                arcs = statistics.arcs;
+            } else {
+                buildNanos = 0;
+                flowNanos = 0;
+                nodes = 0;
+                arcs = 0;
+            }
+            final MaxFlowStatistics flowStatistics = statistics == null ? null : statistics.flows;
+            if (flowStatistics != null) {
+                flows = flowStatistics.getFlows();
+                abortedFlows = flowStatistics.getAborted();
+                pushes = flowStatistics.getPushes();
+                relabels = flowStatistics.getRelabels();
+                gaps = flowStatistics.getGaps();
+                updates = flowStatistics.getUpdates();
+            } else {
+                flows = 0;
+                abortedFlows = 0;
+                pushes = 0;
+                relabels = 0;
+                gaps = 0;
+                updates = 0;
+            }
+        }
+    }
+
+    private static class Summary {
+        long cuts, cutNanos, buildNanos, flowNanos, flows, abortedFlows, pushes, relabels, gaps, updates;
+        int maxTaxa, maxCharacters;
+
+        void add(Record r) {
+            cuts++;
+            cutNanos += r.cutNanos;
+            buildNanos += r.buildNanos;
+            flowNanos += r.flowNanos;
+            flows += r.flows;
+            abortedFlows += r.abortedFlows;
+            pushes += r.pushes;
+            relabels += r.relabels;
+            gaps += r.gaps;
+            updates += r.updates;
+            maxTaxa = Math.max(maxTaxa, r.taxa);
+            maxCharacters = Math.max(maxCharacters, r.characters);
+        }
+
+        void writeJson(PrintWriter out) {
+            out.print("{\"cuts\": " + cuts + ", \"cutMs\": " + millis(cutNanos) + ", \"buildMs\": " + millis(buildNanos)
+                    + ", \"flowMs\": " + millis(flowNanos) + ", \"flows\": " + flows + ", \"abortedFlows\": " + abortedFlows
+                    + ", \"pushes\": " + pushes + ", \"relabels\": " + relabels + ", \"gaps\": " + gaps + ", \"updates\": " + updates
+                    + ", \"maxTaxa\": " + maxTaxa + ", \"maxCharacters\": " + maxCharacters + "}");
+        }
+    }
+}
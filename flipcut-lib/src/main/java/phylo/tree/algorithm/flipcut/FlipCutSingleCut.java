@@ -5,17 +5,29 @@ import me.tongfei.progressbar.ProgressBar;
 import me.tongfei.progressbar.ProgressBarStyle;
 import mincut.cutGraphAPI.bipartition.Cut;
 import org.slf4j.Logger;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphCheckpoint;
 import phylo.tree.algorithm.flipcut.cutter.CutterFactory;
 import phylo.tree.algorithm.flipcut.cutter.GraphCutter;
 import phylo.tree.model.Tree;
 import phylo.tree.model.TreeNode;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 /**
@@ -25,15 +37,29 @@ import java.util.logging.Level;
  */
 public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCutter<S>> extends AbstractFlipCut<S, T, C, CutterFactory<C, S, T>> {
     private static final boolean CALCULATE_SCORE = true;
-    private long globalWeight;
+    /**
+     * Graphs with at least this many taxa times characters are cut with parallel max flow computations,
+     * as long as there are not enough other graphs waiting to keep all threads busy.
+     */
+    private static final long PARALLEL_CUT_SIZE = 1L << 15;
+    private final AtomicLong globalWeight = new AtomicLong();
 
-    private Queue<Future<Queue<TreeNode>>> results = new ConcurrentLinkedQueue<>();
-    private Queue<C> cutterQueue;
+    private Queue<C> singleCutterQueue;
+    private Queue<C> parallelCutterQueue;
 
     public DebugInfo debugInfo;
 
     protected Tree supertree = null;
 
+    private Path checkpointFile = null;
+    private long checkpointInterval = CompressedGraphCheckpoint.DEFAULT_INTERVAL;
+    private boolean resume = false;
+    private CompressedGraphCheckpoint checkpoint = null;
+    // graphs of the parallel computation that are not finished yet, guarded by the supertree
+    private Map<TreeNode, CompressedGraphCheckpoint.Pending> pendingGraphs = null;
+
+    private CutMetrics metrics = null;
+
     public FlipCutSingleCut() {
     }
 
@@ -49,6 +75,37 @@ public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCu
         super(log, executorService1, type);
     }
 
+    /**
+     * Periodically writes the partial supertree and the graphs that still have to be split to the given file.
+     * The file is deleted when the computation is done. Only supported for the compressed BCD graph.
+     *
+     * @param file           checkpoint file, null disables checkpoints
+     * @param intervalMillis minimal time between two checkpoints
+     */
+    public void setCheckpoint(Path file, long intervalMillis) {
+        checkpointFile = file;
+        checkpointInterval = intervalMillis;
+    }
+
+    /**
+     * @param resume continue the computation from the checkpoint file if it exists.
+     *               The input graph has to be created from the same data as the graph of the checkpoint.
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * @param metrics collects size, timings and flow statistics of every cut, null disables the collection
+     */
+    public void setMetrics(CutMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public CutMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public Tree getResult() {
         return supertree;
@@ -67,8 +124,14 @@ public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCu
 
     ProgressBar progressBar = null;
     AtomicInteger partitions = null;
-    private void initProgress(){
+    private void initProgress(CompressedGraphCheckpoint.Resumed resumed){
         partitions = new AtomicInteger(0);
+        if (resumed != null) {
+            // every leaf of the partial supertree is a finished taxon or a pending graph
+            partitions.set(resumed.numLeaves() - 1);
+            if (CALCULATE_SCORE)
+                globalWeight.set(resumed.weight);
+        }
             java.util.logging.Logger.getLogger("org.jline").setLevel(Level.OFF);        if (printProgress) {
             System.err.println();
             System.out.flush();
@@ -86,21 +149,24 @@ public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCu
                 debugInfo.overallCalculationTime = System.currentTimeMillis();
             }
             if (CALCULATE_SCORE)
-                globalWeight = 0;
+                globalWeight.set(0);
+
+            final CompressedGraphCheckpoint.Resumed resumed = checkpointFile == null ? null : initCheckpoint();
+
+            // 0 means all cores with parallel partitioning, independent of whether an executor was given
+            if (numberOfThreads == 0)
+                numberOfThreads = -CORES_AVAILABLE;
 
             Tree supertree = null;
             try {
                 //this is the all parralel version
-                if (numberOfThreads <= 0) {
-                    if (executorService == null) {
-                        if (numberOfThreads == 0)
-                            numberOfThreads = CORES_AVAILABLE;
-                        executorService = Executors.newWorkStealingPool(Math.abs(numberOfThreads));
-                    }
+                if (numberOfThreads < 0) {
+                    if (executorService == null)
+                        executorService = new ForkJoinPool(Math.abs(numberOfThreads));
 
                     LOGGER.info("Computing Supertree with " + Math.abs(numberOfThreads) + " threads. Parallelization over MinCuts AND Tree Partitions");
-                    initProgress();
-                    supertree = computeSTIterativeMultiThreaded();
+                    initProgress(resumed);
+                    supertree = computeSTIterativeMultiThreaded(resumed);
                     //only max flow calculation is parralel, more efficient
                 } else {
                     if (executorService == null) {
@@ -112,16 +178,20 @@ public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCu
                             LOGGER.info("Computing Supertree with " + Math.abs(numberOfThreads) + " threads.");
                         }
                     }
-                    initProgress();
-                    supertree = computeSTIterativeSingleThreaded();
+                    initProgress(resumed);
+                    supertree = computeSTIterativeSingleThreaded(resumed);
                 }
-            } catch (ExecutionException | InterruptedException e) {
-                LOGGER.error("Error during BCD algorithm execution", e);
+            } catch (ExecutionException e) {
+                // the checkpoint of a failed computation is kept, so it can be resumed
+                throw new RuntimeException("Error during BCD algorithm execution", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("BCD algorithm execution was interrupted", e);
             }
 
-            if (CALCULATE_SCORE) supertree.setName("" + globalWeight);
+            if (CALCULATE_SCORE) supertree.setName("" + globalWeight.get());
             if (DEBUG) {
-                debugInfo.weight = globalWeight;
+                debugInfo.weight = globalWeight.get();
                 debugInfo.overallCalculationTime = (System.currentTimeMillis() - debugInfo.overallCalculationTime) / 1000;
             }
 
@@ -133,6 +203,17 @@ public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCu
                 System.out.flush();
             }
 
+            // the computation was successful, so the checkpoint is not needed anymore
+            if (checkpoint != null) {
+                try {
+                    checkpoint.delete();
+                } catch (IOException e) {
+                    LOGGER.warn("Could not delete checkpoint " + checkpoint.getFile(), e);
+                }
+                checkpoint = null;
+                pendingGraphs = null;
+            }
+
             this.supertree = supertree;
 
         } else {
@@ -140,49 +221,119 @@ public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCu
         }
     }
 
-    private Tree computeSTIterativeMultiThreaded() throws ExecutionException, InterruptedException {
-        Tree supertree = null;
-
-        supertree = new Tree();
-        TreeNode root = new TreeNode();
-        supertree.addVertex(root);
-        supertree.setRoot(root);
-
-        cutterQueue = new ConcurrentLinkedQueue<>();
-        results.offer(executorService.submit(new GraphSplitterIterative(initialGraph, root)));
-        initialGraph = null;
-
-        //building supertree during waiting for threads
-        while (!results.isEmpty()) {
-            Future<Queue<TreeNode>> f = results.poll();
-            Queue<TreeNode> toAdd = f.get();
-            if (toAdd != null && toAdd.size() > 1) {
-                TreeNode parent = toAdd.poll();
-                for (TreeNode child : toAdd) {
-                    supertree.addVertex(child);
-                    supertree.addEdge(parent, child);
-                }
-                printProgress((partitions.addAndGet(toAdd.size() - 1)));
+    private CompressedGraphCheckpoint.Resumed initCheckpoint() {
+        if (!(initialGraph instanceof CompressedBCDGraph))
+            throw new IllegalArgumentException("Checkpoints are only supported for the compressed BCD graph");
+        checkpoint = new CompressedGraphCheckpoint(((CompressedBCDGraph) initialGraph).getSource(), checkpointFile, checkpointInterval);
+        if (resume && Files.exists(checkpointFile)) {
+            try {
+                return checkpoint.read();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not resume from checkpoint " + checkpointFile, e);
             }
         }
+        return null;
+    }
+
+    private void writeCheckpoint(final Tree supertree, final Collection<CompressedGraphCheckpoint.Pending> pending) {
+        final CompressedGraphCheckpoint.State state;
+        synchronized (supertree) {
+            state = checkpoint.capture(supertree, pending, globalWeight.get());
+        }
+        try {
+            checkpoint.write(state);
+        } catch (IOException e) {
+            LOGGER.error("Could not write checkpoint to " + checkpoint.getFile(), e);
+        }
+    }
+
+    private Tree computeSTIterativeMultiThreaded(final CompressedGraphCheckpoint.Resumed resumed) throws ExecutionException, InterruptedException {
+        final Tree supertree;
+        final List<TreeNode> nodes;
+        final List<T> graphs;
+        if (resumed == null) {
+            supertree = new Tree();
+            final TreeNode root = new TreeNode();
+            supertree.addVertex(root);
+            supertree.setRoot(root);
+            nodes = Collections.singletonList(root);
+            graphs = Collections.singletonList(initialGraph);
+        } else {
+            supertree = resumed.supertree;
+            nodes = resumed.pendingNodes;
+            graphs = (List<T>) resumed.pendingGraphs;
+        }
+
+        // the graphs are changed during the computation, so the checkpoint keeps a copy of their initial state
+        if (checkpoint != null) {
+            pendingGraphs = new IdentityHashMap<>();
+            for (int i = 0; i < graphs.size(); i++) {
+                pendingGraphs.put(nodes.get(i), new CompressedGraphCheckpoint.Pending((CompressedBCDGraph) graphs.get(i), nodes.get(i), true));
+            }
+        }
+
+        singleCutterQueue = new ConcurrentLinkedQueue<>();
+        parallelCutterQueue = new ConcurrentLinkedQueue<>();
+
+        // the partitioning tasks need a fork join pool, the max flow jobs still run on the given executor
+        final ForkJoinPool pool;
+        if (executorService instanceof ForkJoinPool)
+            pool = (ForkJoinPool) executorService;
+        else
+            pool = new ForkJoinPool(Math.abs(numberOfThreads));
+
+        try {
+            final List<GraphSplitterTask> rootTasks = new ArrayList<>(graphs.size());
+            for (int i = 0; i < graphs.size(); i++) {
+                rootTasks.add(new GraphSplitterTask(null, graphs.get(i), nodes.get(i), supertree));
+            }
+            initialGraph = null;
+            if (rootTasks.size() == 1)
+                pool.invoke(rootTasks.get(0));
+            else
+                pool.invoke(ForkJoinTask.adapt((Runnable) () -> ForkJoinTask.invokeAll(rootTasks)));
+        } catch (RuntimeException e) {
+            throw new ExecutionException(e);
+        } finally {
+            if (pool != executorService)
+                pool.shutdown();
+        }
         return supertree;
     }
 
-    private Tree computeSTIterativeSingleThreaded() {
+    private Tree computeSTIterativeSingleThreaded(final CompressedGraphCheckpoint.Resumed resumed) {
         final C cutter = type.newInstance(initialGraph, executorService, numberOfThreads);
-        final Tree supertree = new Tree();
+        final Tree supertree;
 
         Queue<T> graphs = new LinkedList<>();
         Queue<TreeNode> treeNodes = new LinkedList<>();
 
-        graphs.offer(initialGraph);
-        TreeNode parentNode = new TreeNode();
-        treeNodes.offer(parentNode);
-        supertree.addVertex(parentNode);
-        supertree.setRoot(parentNode);
+        TreeNode parentNode;
+        if (resumed == null) {
+            supertree = new Tree();
+            graphs.offer(initialGraph);
+            parentNode = new TreeNode();
+            treeNodes.offer(parentNode);
+            supertree.addVertex(parentNode);
+            supertree.setRoot(parentNode);
+        } else {
+            supertree = resumed.supertree;
+            graphs.addAll((List<T>) resumed.pendingGraphs);
+            treeNodes.addAll(resumed.pendingNodes);
+        }
 
         int pcount = 1;
         while (graphs.size() > 0) {
+            // queued graphs are not changed until they are polled
+            if (checkpoint != null && checkpoint.isDue()) {
+                final List<CompressedGraphCheckpoint.Pending> pending = new ArrayList<>(graphs.size());
+                final Iterator<TreeNode> nodeIt = treeNodes.iterator();
+                for (T graph : graphs) {
+                    pending.add(new CompressedGraphCheckpoint.Pending((CompressedBCDGraph) graph, nodeIt.next(), false));
+                }
+                writeCheckpoint(supertree, pending);
+            }
+
             initialGraph = graphs.poll();
             parentNode = treeNodes.poll();
 
@@ -214,7 +365,15 @@ public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCu
                 final int partitionIndex = partitions.get() + 1;
                 printProgress("START Part " + partitionIndex + ": " + initialGraph.numTaxa() + " Taxa - " + initialGraph.numCharacter() + " Clades" );
 
+                final int taxa = initialGraph.numTaxa();
+                final int characters = initialGraph.numCharacter();
+                final long cutStart = System.nanoTime();
                 List<T> componentGraphs = (List<T>) initialGraph.getPartitions(cutter);
+                if (metrics != null) {
+                    final Cut<S> cut = cutter.getMinCut();
+                    metrics.record(taxa, characters, componentGraphs.size(), cut == null ? 0 : cut.minCutValue(),
+                            System.nanoTime() - cutStart, cutter.getCutStatistics());
+                }
                 for (T componentGraph : componentGraphs) {
                     // add the node
                     TreeNode treeNode = new TreeNode();
@@ -230,7 +389,7 @@ public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCu
                 if (CALCULATE_SCORE) {
                     Cut<S> cut = cutter.getMinCut();
                     if (cut != null)
-                        globalWeight += cut.minCutValue();
+                        globalWeight.addAndGet(cut.minCutValue());
                 }
                 if (DEBUG)
                     if (componentGraphs.size() > 2)
@@ -290,17 +449,27 @@ public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCu
     }
 
 
-    private class GraphSplitterIterative implements Callable<Queue<TreeNode>> {
+    /**
+     * Partitions one graph and forks a task for every component. The tree nodes of the components are added to the
+     * supertree as soon as the cut is done. Large graphs are cut with parallel max flow computations when there is
+     * not enough other work queued, small graphs are cut single threaded and processed concurrently instead.
+     */
+    private class GraphSplitterTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
         final T currentGraph;
         final TreeNode treeNode;
+        final Tree supertree;
 
-        GraphSplitterIterative(final T currentGraph, final TreeNode treeNode) {
+        GraphSplitterTask(final CountedCompleter<?> parent, final T currentGraph, final TreeNode treeNode, final Tree supertree) {
+            super(parent);
             this.currentGraph = currentGraph;
             this.treeNode = treeNode;
+            this.supertree = supertree;
         }
 
         @Override
-        public Queue<TreeNode> call() throws Exception {
+        public void compute() {
 
             // init the graph (remove semi universals)
             currentGraph.deleteSemiUniversals();
@@ -308,46 +477,88 @@ public class FlipCutSingleCut<S, T extends SourceTreeGraph<S>, C extends GraphCu
             // check if we have just one taxon left
             if (currentGraph.numTaxa() == 1) {
                 // the current node becomes the leaf
-                treeNode.setLabel((String) currentGraph.taxaLabels().iterator().next());
-                return null;
+                final String taxon = (String) currentGraph.taxaLabels().iterator().next();
+                synchronized (supertree) {
+                    treeNode.setLabel(taxon);
+                    if (pendingGraphs != null)
+                        pendingGraphs.remove(treeNode);
+                }
             } else {
                 final int c = currentGraph.numCharacter();
                 final int t = currentGraph.numTaxa();
                 final int partitionIndex = partitions.get() + 1;
-                printProgress("START Part " + partitionIndex + ": " + t + " Taxa - " + c + " Clades" );
-
-                final Queue<TreeNode> nodes = new LinkedList<>();
-                nodes.offer(treeNode);
+                printProgress("START Part " + partitionIndex + ": " + t + " Taxa - " + c + " Clades");
 
                 //partition the current graph
-                List<T> componentGraphs = null;
+                final List<T> componentGraphs;
+                long cutWeight = 0;
                 {
+                    final boolean parallelCut = useParallelCut();
+                    final Queue<C> cutterQueue = parallelCut ? parallelCutterQueue : singleCutterQueue;
                     C cutter = cutterQueue.poll();
                     if (cutter == null)
-                        cutter = type.newInstance(currentGraph, executorService, Math.abs(numberOfThreads));
+                        cutter = type.newInstance(currentGraph, executorService, parallelCut ? Math.abs(numberOfThreads) : 1);
                     cutter.clear();
 
+                    final long cutStart = System.nanoTime();
                     componentGraphs = (List<T>) currentGraph.getPartitions(cutter);
                     if (CALCULATE_SCORE) {
                         Cut<S> cut = cutter.getMinCut();
                         if (cut != null)
-                            globalWeight += cut.minCutValue();
+                            cutWeight = cut.minCutValue();
                     }
+                    if (metrics != null)
+                        metrics.record(t, c, componentGraphs.size(), cutWeight, System.nanoTime() - cutStart, cutter.getCutStatistics());
 
                     cutter.clear();
                     cutterQueue.offer(cutter);
                 }
 
-                for (T componentGraph : componentGraphs) {
-                    TreeNode componentTreeNode = new TreeNode();
-                    nodes.offer(componentTreeNode);
-                    results.offer(executorService.submit(new GraphSplitterIterative(componentGraph, componentTreeNode)));
+                final List<TreeNode> componentNodes = new ArrayList<>(componentGraphs.size());
+                for (int i = 0; i < componentGraphs.size(); i++) {
+                    componentNodes.add(new TreeNode());
+                }
+                final List<CompressedGraphCheckpoint.Pending> pendingComponents = pendingGraphs == null ? null : new ArrayList<>(componentGraphs.size());
+                if (pendingComponents != null) {
+                    for (int i = 0; i < componentGraphs.size(); i++) {
+                        pendingComponents.add(new CompressedGraphCheckpoint.Pending((CompressedBCDGraph) componentGraphs.get(i), componentNodes.get(i), true));
+                    }
+                }
+
+                // tree, score and pending graphs change together, so that a checkpoint is always consistent
+                synchronized (supertree) {
+                    for (TreeNode componentTreeNode : componentNodes) {
+                        supertree.addVertex(componentTreeNode);
+                        supertree.addEdge(treeNode, componentTreeNode);
+                    }
+                    globalWeight.addAndGet(cutWeight);
+                    if (pendingComponents != null) {
+                        pendingGraphs.remove(treeNode);
+                        for (CompressedGraphCheckpoint.Pending pending : pendingComponents) {
+                            pendingGraphs.put(pending.getNode(), pending);
+                        }
+                    }
                 }
 
-                printProgress("DONE Part " + partitionIndex + ": " + t + " Taxa - " + c + " Clades" );
+                setPendingCount(componentGraphs.size());
+                for (int i = 0; i < componentGraphs.size(); i++) {
+                    new GraphSplitterTask(this, componentGraphs.get(i), componentNodes.get(i), supertree).fork();
+                }
 
-                return nodes;
+                printProgress("DONE Part " + partitionIndex + ": " + t + " Taxa - " + c + " Clades", partitions.addAndGet(componentGraphs.size() - 1));
             }
+
+            if (checkpoint != null && checkpoint.isDue())
+                writeCheckpoint(supertree, pendingGraphs.values());
+            tryComplete();
+        }
+
+        private boolean useParallelCut() {
+            if (Math.abs(numberOfThreads) < 2 || (long) currentGraph.numTaxa() * currentGraph.numCharacter() < PARALLEL_CUT_SIZE)
+                return false;
+            // enough other graphs to keep the threads busy
+            final ForkJoinPool pool = getPool();
+            return pool == null || pool.getQueuedTaskCount() < pool.getParallelism();
         }
     }
 
@@ -0,0 +1,148 @@
+package phylo.tree.algorithm.flipcut.bcdGraph;
+
+import gnu.trove.impl.Constants;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Hash consing of taxa bitmaps based on a Zobrist fingerprint instead of the content hash of the bitmap.
+ * The fingerprint of a bitmap is the xor of a fixed random 64 bit key per taxon ({@link #key(int)}),
+ * so it can be updated in constant time for every taxon that is added or removed.
+ * E.g. the fingerprint of the union of disjoint sets is the xor of their fingerprints.
+ * Bitmaps are only compared by content if their fingerprints are equal.
+ * <p>
+ * Entries are kept in insertion order, so iterating them is deterministic. Not thread safe.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class BitmapInterner<V> {
+    private static final int NO_ENTRY = -1;
+
+    private final TLongIntMap heads;
+    private final TIntArrayList next;
+    private final List<RoaringBitmap> keys;
+    private final List<V> values;
+
+    public BitmapInterner() {
+        this(Constants.DEFAULT_CAPACITY);
+    }
+
+    public BitmapInterner(int capacity) {
+        heads = new TLongIntHashMap(capacity, Constants.DEFAULT_LOAD_FACTOR, 0L, NO_ENTRY);
+        next = new TIntArrayList(capacity);
+        keys = new ArrayList<>(capacity);
+        values = new ArrayList<>(capacity);
+    }
+
+    /**
+     * @return the random but fixed key of the given taxon (SplitMix64 of the taxon index)
+     */
+    public static long key(int taxon) {
+        long z = (taxon & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Computes the fingerprint from scratch, prefer deriving it from already known fingerprints.
+     */
+    public static long fingerprint(RoaringBitmap bits) {
+        long fingerprint = 0L;
+        final IntIterator it = bits.getIntIterator();
+        while (it.hasNext()) {
+            fingerprint ^= key(it.next());
+        }
+        return fingerprint;
+    }
+
+    private int indexOf(RoaringBitmap bits, long fingerprint) {
+        int i = heads.get(fingerprint);
+        while (i != NO_ENTRY) {
+            final RoaringBitmap candidate = keys.get(i);
+            if (candidate == bits || candidate.equals(bits))
+                return i;
+            i = next.get(i);
+        }
+        return NO_ENTRY;
+    }
+
+    /**
+     * @param fingerprint the fingerprint of the given bitmap
+     * @return the value stored for a bitmap with the same content or null
+     */
+    public V get(RoaringBitmap bits, long fingerprint) {
+        final int i = indexOf(bits, fingerprint);
+        return i == NO_ENTRY ? null : values.get(i);
+    }
+
+    /**
+     * @param fingerprint the fingerprint of the given bitmap
+     * @return the value stored for a bitmap with the same content or null if the given value was added.
+     */
+    public V putIfAbsent(RoaringBitmap bits, long fingerprint, V value) {
+        final int i = indexOf(bits, fingerprint);
+        if (i != NO_ENTRY)
+            return values.get(i);
+
+        next.add(heads.get(fingerprint));
+        heads.put(fingerprint, keys.size());
+        keys.add(bits);
+        values.add(value);
+        return null;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * @return all bitmaps in insertion order
+     */
+    public List<RoaringBitmap> keys() {
+        return Collections.unmodifiableList(keys);
+    }
+
+    public void forEach(BiConsumer<RoaringBitmap, ? super V> action) {
+        for (int i = 0; i < keys.size(); i++) {
+            action.accept(keys.get(i), values.get(i));
+        }
+    }
+
+    /**
+     * Thread safe interning of bitmaps. The fingerprint selects one of several independently locked shards.
+     */
+    public static class Concurrent {
+        private final List<BitmapInterner<RoaringBitmap>> shards;
+        private final int mask;
+
+        public Concurrent(int concurrency) {
+            final int numShards = Integer.highestOneBit(Math.max(1, 4 * concurrency - 1)) << 1;
+            shards = new ArrayList<>(numShards);
+            for (int i = 0; i < numShards; i++) {
+                shards.add(new BitmapInterner<>());
+            }
+            mask = numShards - 1;
+        }
+
+        /**
+         * @param fingerprint the fingerprint of the given bitmap
+         * @return the first added bitmap with the same content as the given one
+         */
+        public RoaringBitmap intern(RoaringBitmap bits, long fingerprint) {
+            final BitmapInterner<RoaringBitmap> shard = shards.get((int) (fingerprint >>> 32) & mask);
+            synchronized (shard) {
+                final RoaringBitmap canonical = shard.putIfAbsent(bits, fingerprint, bits);
+                return canonical == null ? bits : canonical;
+            }
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package phylo.tree.algorithm.flipcut.bcdGraph;
 
+import gnu.trove.impl.Constants;
+import gnu.trove.map.TIntLongMap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntLongHashMap;
 import mincut.cutGraphAPI.bipartition.CompressedBCDCut;
+import org.roaringbitmap.FastAggregation;
 import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.IntIterator;
 import org.roaringbitmap.RoaringBitmap;
 import phylo.tree.algorithm.flipcut.SourceTreeGraph;
 import phylo.tree.algorithm.flipcut.bcdGraph.edge.Hyperedge;
+import phylo.tree.algorithm.flipcut.cutter.CutGraphCutter;
 import phylo.tree.algorithm.flipcut.cutter.GraphCutter;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -17,6 +25,15 @@ public abstract class CompressedBCDGraph implements SourceTreeGraph<RoaringBitma
     public final RoaringBitmap characters;
     protected final RoaringBitmap activeGuideEdges;
 
+    // weights of the characters within this graph that differ from the weights in the source graph.
+    // The map is never changed after creation and can be shared between a graph and its components.
+    private TIntLongMap edgeWeights = null;
+
+    // merged taxa of the characters of the last cut graph built for this graph (or the graph it was split from)
+    private TIntObjectMap<RoaringBitmap> mergedCharacterTaxa = null;
+    private TIntLongMap mergedCharacterFingerprints = null;
+    private RoaringBitmap mergedGuideEdges = null;
+
     protected CompressedBCDGraph(RoaringBitmap taxa, RoaringBitmap characters, RoaringBitmap activeGuideEdges) {
         this.taxa = taxa;
         this.characters = characters;
@@ -35,6 +52,21 @@ public abstract class CompressedBCDGraph implements SourceTreeGraph<RoaringBitma
         return getSource().sourceMergedHyperEdges.get(hyperEdgeIndex);
     }
 
+    //this is unchecked
+    public long getWeight(int hyperEdgeIndex) {
+        if (edgeWeights != null) {
+            final long weight = edgeWeights.get(hyperEdgeIndex);
+            if (weight != Hyperedge.SEMI_UNIVERSAL)
+                return weight;
+        }
+        return getEdge(hyperEdgeIndex).getWeight();
+    }
+
+    //this is unchecked
+    public boolean isInfinite(int hyperEdgeIndex) {
+        return getWeight(hyperEdgeIndex) == CutGraphCutter.getInfinity();
+    }
+
     //this is unchecked
     public String getTaxon(int taxonIndex) {
         return getSource().sourceTaxa[taxonIndex];
@@ -73,6 +105,66 @@ public abstract class CompressedBCDGraph implements SourceTreeGraph<RoaringBitma
     }
 
 
+    /**
+     * Stores the merged taxa of every character of the cut graph built for this graph,
+     * so that the components of this graph do not have to merge their taxa again.
+     *
+     * @param mergedCharacterTaxa         character index mapped to the taxa of its merged hyperedge
+     * @param mergedCharacterFingerprints character index mapped to the fingerprint of these taxa
+     */
+    public void setMergedCharacterTaxa(TIntObjectMap<RoaringBitmap> mergedCharacterTaxa, TIntLongMap mergedCharacterFingerprints) {
+        this.mergedCharacterTaxa = mergedCharacterTaxa;
+        this.mergedCharacterFingerprints = mergedCharacterFingerprints;
+        mergedGuideEdges = activeGuideEdges.clone();
+    }
+
+    /**
+     * @return the merged taxa of every character as computed for this graph or the graph it was split from.
+     * Null if there is no such merging or if the guide edges touching this graph changed since then.
+     */
+    public TIntObjectMap<RoaringBitmap> getMergedCharacterTaxa() {
+        if (mergedCharacterTaxa == null)
+            return null;
+        // new guide edges got activated
+        if (!RoaringBitmap.andNot(activeGuideEdges, mergedGuideEdges).isEmpty())
+            return null;
+        // a guide edge of this graph got deleted
+        final RoaringBitmap deletedGuides = RoaringBitmap.andNot(mergedGuideEdges, activeGuideEdges);
+        for (Hyperedge guideEdge : new IntMapBitMapIterable<>(getSource().sourceMergedHyperEdges, deletedGuides)) {
+            if (RoaringBitmap.intersects(guideEdge.ones(), taxa))
+                return null;
+        }
+        return mergedCharacterTaxa;
+    }
+
+    /**
+     * @return the fingerprints belonging to {@link #getMergedCharacterTaxa()}
+     */
+    public TIntLongMap getMergedCharacterFingerprints() {
+        return mergedCharacterFingerprints;
+    }
+
+    private CompressedBCDSubGraph inherit(CompressedBCDSubGraph child) {
+        final CompressedBCDGraph g = child;
+        g.edgeWeights = edgeWeights;
+        g.mergedCharacterTaxa = mergedCharacterTaxa;
+        g.mergedCharacterFingerprints = mergedCharacterFingerprints;
+        g.mergedGuideEdges = mergedGuideEdges;
+        return child;
+    }
+
+    /**
+     * Uses the taxon to character index of the source graph instead of testing every character.
+     *
+     * @param taxa subset of the taxa of this graph
+     * @return all characters of this graph that contain at least one of the given taxa
+     */
+    public RoaringBitmap getCharactersOfTaxa(RoaringBitmap taxa) {
+        final RoaringBitmap chars = FastAggregation.or(new ArrayBitMapIteratable<>(getSource().taxonCharacters, taxa).iterator());
+        chars.and(characters);
+        return chars;
+    }
+
     public int numTaxa() {
         return taxa.getCardinality();
     }
@@ -82,40 +174,120 @@ public abstract class CompressedBCDGraph implements SourceTreeGraph<RoaringBitma
     }
 
     public RoaringBitmap getConnectedComponent() {
-//        long t = System.currentTimeMillis();
-        LinkedList<Hyperedge> edges = getHyperEdgesAsList();
-
-        RoaringBitmap component;
-        if (!edges.isEmpty()) {
-            component = edges.poll().ones().clone();
-            boolean changed = true;
-            while (changed) {
-                changed = false;
-                Iterator<Hyperedge> it = edges.iterator();
-                while (it.hasNext()) {
-                    RoaringBitmap currentEdge = it.next().ones();
-                    if (RoaringBitmap.intersects(component, currentEdge)) {
-                        component.or(currentEdge);
-                        it.remove();
-                        changed = true;
-                    }
+        return getConnectedComponents().get(0);
+    }
+
+    /**
+     * @return the taxa of all connected components of this graph. Components are ordered by their smallest
+     * character, taxa without any character follow as single components.
+     */
+    public List<RoaringBitmap> getConnectedComponents() {
+        return Arrays.asList(labelComponents().taxa);
+    }
+
+    // single pass union-find over the taxa of every hyperedge
+    private Components labelComponents() {
+        final int[] taxonIndices = taxa.toArray();
+        final int[] charIndices = characters.toArray();
+        final int[] parent = new int[taxonIndices.length];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+
+        // some taxon of every character, to find the component of the character afterwards
+        final int[] charTaxon = new int[charIndices.length];
+        for (int c = 0; c < charIndices.length; c++) {
+            int first = -1;
+            final IntIterator it = getEdge(charIndices[c]).ones().getIntIterator();
+            while (it.hasNext()) {
+                final int t = Arrays.binarySearch(taxonIndices, it.next());
+                if (t >= 0) {
+                    if (first < 0)
+                        first = t;
+                    else
+                        union(parent, first, t);
                 }
             }
-        } else {
-            component = new RoaringBitmap();
-            component.add(taxa.first());
+            charTaxon[c] = first;
+        }
+
+        // number the components by their smallest character, taxa without character come last
+        final int[] label = new int[taxonIndices.length];
+        Arrays.fill(label, -1);
+        int numComponents = 0;
+        for (int t : charTaxon) {
+            if (t >= 0) {
+                final int root = find(parent, t);
+                if (label[root] < 0)
+                    label[root] = numComponents++;
+            }
+        }
+        for (int t = 0; t < taxonIndices.length; t++) {
+            final int root = find(parent, t);
+            if (label[root] < 0)
+                label[root] = numComponents++;
+        }
+
+        final Components components = new Components(numComponents);
+        for (int t = 0; t < taxonIndices.length; t++) {
+            components.taxa[label[find(parent, t)]].add(taxonIndices[t]);
+        }
+        for (int c = 0; c < charIndices.length; c++) {
+            if (charTaxon[c] >= 0)
+                components.characters[label[find(parent, charTaxon[c])]].add(charIndices[c]);
+        }
+        return components;
+    }
+
+    private static int find(final int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(final int[] parent, final int i, final int j) {
+        final int ri = find(parent, i);
+        final int rj = find(parent, j);
+        if (ri < rj)
+            parent[rj] = ri;
+        else if (rj < ri)
+            parent[ri] = rj;
+    }
+
+    private static class Components {
+        final RoaringBitmap[] taxa;
+        final RoaringBitmap[] characters;
+
+        Components(int size) {
+            taxa = new RoaringBitmap[size];
+            characters = new RoaringBitmap[size];
+            for (int i = 0; i < size; i++) {
+                taxa[i] = new RoaringBitmap();
+                characters[i] = new RoaringBitmap();
+            }
+        }
+
+        int size() {
+            return taxa.length;
         }
-//        System.out.println("Connected Component in: " + (double) (System.currentTimeMillis() - t) / 1000d + "s");
-        return component;
     }
 
     public void deleteSemiUniversals() {
         RoaringBitmap toDelete = new RoaringBitmap();
+        // the hyperedges are shared with other graphs, so the new weights are stored in this graph
+        final TIntLongMap weights = new TIntLongHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1, Hyperedge.SEMI_UNIVERSAL);
         characters.forEach((IntConsumer) i -> {
-            if (getEdge(i).removeSemiuniversals(taxa)) {
+            final Hyperedge edge = getEdge(i);
+            final long weight = edge.getWeight(taxa);
+            if (weight == Hyperedge.SEMI_UNIVERSAL) {
                 toDelete.add(i);
+            } else if (weight != edge.getWeight()) {
+                weights.put(i, weight);
             }
         });
+        edgeWeights = weights;
 
         deleteCharacters(toDelete);
     }
@@ -137,63 +309,41 @@ public abstract class CompressedBCDGraph implements SourceTreeGraph<RoaringBitma
     }
 
     public static CompressedBCDGraph cloneAndDeleteCharacters(RoaringBitmap toDelete, CompressedBCDGraph g) {
-        CompressedBCDGraph clone = new CompressedBCDSubGraph(g.getSource(), g.taxa, g.characters.clone(), g.activeGuideEdges.clone());
+        CompressedBCDGraph clone = g.inherit(new CompressedBCDSubGraph(g.getSource(), g.taxa, g.characters.clone(), g.activeGuideEdges.clone()));
         deleteCharacters(toDelete, clone);
         return clone;
     }
 
     public List<CompressedBCDGraph> split() {
-        List<CompressedBCDGraph> comps = new ArrayList<>();
-        split(comps);
-        return comps;
-    }
-
-    protected void split(final List<CompressedBCDGraph> graphs) {
-        if (taxa.getCardinality() > 1) {
-            RoaringBitmap connectedTaxa = getConnectedComponent();
-            if (!connectedTaxa.equals(taxa)) {
-                RoaringBitmap cCurrent = getCharacterForSubSetOfTaxa(connectedTaxa);
-                RoaringBitmap guideCurrent = RoaringBitmap.and(cCurrent, activeGuideEdges);
-                CompressedBCDSubGraph gCurrent = new CompressedBCDSubGraph(getSource(), connectedTaxa, cCurrent, guideCurrent);
-                graphs.add(gCurrent);
-                RoaringBitmap reverseTaxa = RoaringBitmap.xor(connectedTaxa, taxa);
-                if (reverseTaxa.getCardinality() > 0) {
-                    RoaringBitmap cRest = getCharacterForSubSetOfTaxa(reverseTaxa);
-                    RoaringBitmap guideRest = RoaringBitmap.and(cRest, activeGuideEdges);
-                    CompressedBCDSubGraph gRest = new CompressedBCDSubGraph(getSource(), reverseTaxa, getCharacterForSubSetOfTaxa(reverseTaxa), guideRest);
-                    gRest.split(graphs);
-                }
-            } else {
-                graphs.add(this);
-            }
-        } else {
-            graphs.add(this);
-        }
+        return split(labelComponents());
     }
 
-    protected RoaringBitmap getCharacterForSubSetOfTaxa(RoaringBitmap taxa) {
-        RoaringBitmap subCharacters = new RoaringBitmap();
-        characters.forEach((IntConsumer) i -> {
-            if (RoaringBitmap.intersects(getEdge(i).ones(), taxa)) {
-                subCharacters.add(i);
-            }
-        });
-        return subCharacters;
+    private List<CompressedBCDGraph> split(final Components components) {
+        if (components.size() < 2)
+            return new ArrayList<>(Collections.singletonList(this));
+
+        final List<CompressedBCDGraph> graphs = new ArrayList<>(components.size());
+        for (int i = 0; i < components.size(); i++) {
+            final RoaringBitmap guides = RoaringBitmap.and(components.characters[i], activeGuideEdges);
+            graphs.add(inherit(new CompressedBCDSubGraph(getSource(), components.taxa[i], components.characters[i], guides)));
+        }
+        return graphs;
     }
 
     @Override
     public List<? extends SourceTreeGraph> getPartitions(GraphCutter c) {
-        RoaringBitmap component = getConnectedComponent();
-        if (isConnected(component)) {
+        final Components components = labelComponents();
+        if (components.size() < 2) {
             CompressedBCDCut cut = (CompressedBCDCut) c.cut(this);
             deleteCharacters(cut.getCutSet());
+            return split();
         }
-        return split();
+        return split(components);
     }
 
     @Override
     public boolean isConnected() {
-        return isConnected(getConnectedComponent());
+        return labelComponents().size() < 2;
     }
 
     public boolean isCharacterClone(int index) {
@@ -216,8 +366,4 @@ public abstract class CompressedBCDGraph implements SourceTreeGraph<RoaringBitma
         return cloneIndex - getSource().getFirstEdgeCloneIndex();
     }
 
-
-    private boolean isConnected(RoaringBitmap component) {
-        return component.equals(taxa);
-    }
 }
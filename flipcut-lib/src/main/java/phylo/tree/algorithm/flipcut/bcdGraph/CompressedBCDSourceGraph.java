@@ -14,14 +14,22 @@ public class CompressedBCDSourceGraph extends CompressedBCDGraph {
 
     final TIntObjectMap<RoaringBitmap> scaffoldCharacterHirarchie;
 
+    // characters of every taxon (inverted index of the hyperedges)
+    final RoaringBitmap[] taxonCharacters;
+
     private final int firstCloneIndex;
 
 
     public CompressedBCDSourceGraph(String[] sourceTaxa, TIntObjectMap<Hyperedge> sourceCharacters, RoaringBitmap activeScaffoldChars, TIntObjectMap<RoaringBitmap> scaffoldCharacterMaping) {
+        this(sourceTaxa, sourceCharacters, activeScaffoldChars, scaffoldCharacterMaping, CompressedGraphFactory.createTaxonCharacterIndex(sourceTaxa.length, sourceCharacters));
+    }
+
+    public CompressedBCDSourceGraph(String[] sourceTaxa, TIntObjectMap<Hyperedge> sourceCharacters, RoaringBitmap activeScaffoldChars, TIntObjectMap<RoaringBitmap> scaffoldCharacterMaping, RoaringBitmap[] taxonCharacters) {
         super(RoaringBitmap.bitmapOf(sourceCharacters.keys()), activeScaffoldChars);
         this.sourceTaxa = sourceTaxa;
         this.sourceMergedHyperEdges = sourceCharacters;
         this.scaffoldCharacterHirarchie = scaffoldCharacterMaping;
+        this.taxonCharacters = taxonCharacters;
         taxa.add(0L, sourceTaxa.length);
 //        characters.add(0L, sourceCharacters.length);
         firstCloneIndex = sourceTaxa.length + sourceCharacters.size();
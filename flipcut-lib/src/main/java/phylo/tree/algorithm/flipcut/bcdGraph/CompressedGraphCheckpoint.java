@@ -0,0 +1,288 @@
+package phylo.tree.algorithm.flipcut.bcdGraph;
+
+import gnu.trove.iterator.TIntObjectIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phylo.tree.algorithm.flipcut.bcdGraph.edge.Hyperedge;
+import phylo.tree.model.Tree;
+import phylo.tree.model.TreeNode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checkpoint of a running BCD computation on a {@link CompressedBCDSourceGraph}: the partially built supertree
+ * and the graphs that still have to be split. A pending graph is described by its taxa, characters and active guide
+ * edges plus the supertree node it belongs to. Everything else is part of the source graph, which has to be created
+ * from the same input again to resume the computation.
+ * <p>
+ * Layout (big endian, version 1):
+ * <pre>
+ * int magic, int version, long source graph fingerprint, long weight of the cuts so far
+ * int numNodes, numNodes * (int parent, int label length (-1 = no label), UTF-8 label), nodes in preorder
+ * int numPending, numPending * (int node, taxa, characters, active guide edges), as portable serialized RoaringBitmaps
+ * </pre>
+ * The file is replaced atomically, so an interrupted write never destroys the previous checkpoint.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class CompressedGraphCheckpoint {
+    private final static Logger LOGGER = LoggerFactory.getLogger(CompressedGraphCheckpoint.class);
+
+    public static final int MAGIC = 0x42434443; // "BCDC"
+    public static final int VERSION = 1;
+    public static final long DEFAULT_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+
+    private final CompressedBCDSourceGraph source;
+    private final long sourceFingerprint;
+    private final Path file;
+    private final long interval;
+    private final AtomicLong nextCheckpoint;
+
+    public CompressedGraphCheckpoint(CompressedBCDSourceGraph source, Path file, long intervalMillis) {
+        this.source = source;
+        this.sourceFingerprint = fingerprint(source);
+        this.file = file;
+        this.interval = intervalMillis;
+        nextCheckpoint = new AtomicLong(System.currentTimeMillis() + intervalMillis);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return true if the checkpoint interval is elapsed. Only one caller gets true until the next checkpoint is written.
+     */
+    public boolean isDue() {
+        final long next = nextCheckpoint.get();
+        return System.currentTimeMillis() >= next && nextCheckpoint.compareAndSet(next, Long.MAX_VALUE);
+    }
+
+    /**
+     * Copies the state of the computation. The supertree and the pending graphs must not change during the call,
+     * the bitmaps of the pending graphs must not change until the state is written.
+     */
+    public State capture(Tree supertree, Collection<Pending> pending, long weight) {
+        final Map<TreeNode, Integer> nodeIds = new IdentityHashMap<>();
+        final List<TreeNode> nodes = new ArrayList<>();
+        final Deque<TreeNode> stack = new ArrayDeque<>();
+        stack.push(supertree.getRoot());
+        while (!stack.isEmpty()) {
+            final TreeNode node = stack.pop();
+            nodeIds.put(node, nodes.size());
+            nodes.add(node);
+            final List<TreeNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+
+        final int[] parents = new int[nodes.size()];
+        final String[] labels = new String[nodes.size()];
+        for (int i = 0; i < parents.length; i++) {
+            final TreeNode node = nodes.get(i);
+            parents[i] = node.getParent() == null ? -1 : nodeIds.get(node.getParent());
+            labels[i] = node.getLabel();
+        }
+
+        final int[] pendingNodes = new int[pending.size()];
+        final List<Pending> pendingGraphs = new ArrayList<>(pending);
+        for (int i = 0; i < pendingNodes.length; i++) {
+            pendingNodes[i] = nodeIds.get(pendingGraphs.get(i).node);
+        }
+        return new State(parents, labels, pendingNodes, pendingGraphs, weight);
+    }
+
+    public void write(State state) throws IOException {
+        final long start = System.currentTimeMillis();
+        final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(sourceFingerprint);
+                out.writeLong(state.weight);
+
+                out.writeInt(state.parents.length);
+                for (int i = 0; i < state.parents.length; i++) {
+                    out.writeInt(state.parents[i]);
+                    if (state.labels[i] == null) {
+                        out.writeInt(-1);
+                    } else {
+                        final byte[] label = state.labels[i].getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(label.length);
+                        out.write(label);
+                    }
+                }
+
+                out.writeInt(state.pendingNodes.length);
+                for (int i = 0; i < state.pendingNodes.length; i++) {
+                    final Pending pending = state.pendingGraphs.get(i);
+                    out.writeInt(state.pendingNodes[i]);
+                    pending.taxa.serialize(out);
+                    pending.characters.serialize(out);
+                    pending.guides.serialize(out);
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            LOGGER.info("Checkpoint with " + state.pendingNodes.length + " pending graphs written in " + (System.currentTimeMillis() - start) + "ms");
+        } finally {
+            nextCheckpoint.set(System.currentTimeMillis() + interval);
+        }
+    }
+
+    /**
+     * @return the supertree and the pending graphs of the checkpoint file
+     * @throws IOException if the file is no checkpoint or belongs to another source graph
+     */
+    public Resumed read() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("File is not a BCD checkpoint: " + file);
+            final int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported checkpoint version " + version + " (supported: " + VERSION + "): " + file);
+            if (in.readLong() != sourceFingerprint)
+                throw new IOException("Checkpoint was created for different input data: " + file);
+            final long weight = in.readLong();
+
+            final Tree supertree = new Tree();
+            final TreeNode[] nodes = new TreeNode[in.readInt()];
+            for (int i = 0; i < nodes.length; i++) {
+                final int parent = in.readInt();
+                final int length = in.readInt();
+                final TreeNode node = new TreeNode();
+                if (length >= 0) {
+                    final byte[] label = new byte[length];
+                    in.readFully(label);
+                    node.setLabel(new String(label, StandardCharsets.UTF_8));
+                }
+                nodes[i] = node;
+                supertree.addVertex(node);
+                if (parent < 0)
+                    supertree.setRoot(node);
+                else
+                    supertree.addEdge(nodes[parent], node);
+            }
+
+            final int numPending = in.readInt();
+            final List<TreeNode> pendingNodes = new ArrayList<>(numPending);
+            final List<CompressedBCDSubGraph> pendingGraphs = new ArrayList<>(numPending);
+            for (int i = 0; i < numPending; i++) {
+                pendingNodes.add(nodes[in.readInt()]);
+                final RoaringBitmap taxa = new RoaringBitmap();
+                taxa.deserialize(in);
+                final RoaringBitmap characters = new RoaringBitmap();
+                characters.deserialize(in);
+                final RoaringBitmap guides = new RoaringBitmap();
+                guides.deserialize(in);
+                pendingGraphs.add(new CompressedBCDSubGraph(source, taxa, characters, guides));
+            }
+            LOGGER.info("Resuming from checkpoint with " + numPending + " pending graphs");
+            return new Resumed(supertree, pendingNodes, pendingGraphs, weight);
+        }
+    }
+
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // order independent hash of taxa and characters, to detect checkpoints of other input data
+    private static long fingerprint(CompressedBCDSourceGraph source) {
+        long fingerprint = source.sourceTaxa.length;
+        for (String taxon : source.sourceTaxa) {
+            fingerprint = 31 * fingerprint + taxon.hashCode();
+        }
+        final TIntObjectIterator<Hyperedge> it = source.sourceMergedHyperEdges.iterator();
+        while (it.hasNext()) {
+            it.advance();
+            fingerprint += (BitmapInterner.key(it.key()) ^ it.value().onesFingerprint()) * 31 + it.value().getWeight();
+        }
+        return fingerprint;
+    }
+
+    /**
+     * A graph that still has to be split and the supertree node it belongs to.
+     */
+    public static class Pending {
+        final TreeNode node;
+        final RoaringBitmap taxa;
+        final RoaringBitmap characters;
+        final RoaringBitmap guides;
+
+        /**
+         * @param copy copy the bitmaps, needed if the graph may change before the checkpoint is written
+         */
+        public Pending(CompressedBCDGraph graph, TreeNode node, boolean copy) {
+            this.node = node;
+            taxa = copy ? graph.taxa.clone() : graph.taxa;
+            characters = copy ? graph.characters.clone() : graph.characters;
+            final RoaringBitmap guides = graph.activeGuideEdges == null ? new RoaringBitmap() : graph.activeGuideEdges;
+            this.guides = copy ? guides.clone() : guides;
+        }
+
+        public TreeNode getNode() {
+            return node;
+        }
+    }
+
+    public static class State {
+        private final int[] parents;
+        private final String[] labels;
+        private final int[] pendingNodes;
+        private final List<Pending> pendingGraphs;
+        private final long weight;
+
+        private State(int[] parents, String[] labels, int[] pendingNodes, List<Pending> pendingGraphs, long weight) {
+            this.parents = parents;
+            this.labels = labels;
+            this.pendingNodes = pendingNodes;
+            this.pendingGraphs = pendingGraphs;
+            this.weight = weight;
+        }
+    }
+
+    public static class Resumed {
+        public final Tree supertree;
+        public final List<TreeNode> pendingNodes;
+        public final List<CompressedBCDSubGraph> pendingGraphs;
+        public final long weight;
+
+        private Resumed(Tree supertree, List<TreeNode> pendingNodes, List<CompressedBCDSubGraph> pendingGraphs, long weight) {
+            this.supertree = supertree;
+            this.pendingNodes = pendingNodes;
+            this.pendingGraphs = pendingGraphs;
+            this.weight = weight;
+        }
+
+        /**
+         * @return the number of leaves of the partial supertree, i.e. finished taxa and pending graphs
+         */
+        public int numLeaves() {
+            return supertree.getLeaves().length;
+        }
+    }
+}
@@ -5,11 +5,11 @@ import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
-import gnu.trove.set.TIntSet;
-import gnu.trove.set.hash.TIntHashSet;
+import org.roaringbitmap.IntConsumer;
 import org.roaringbitmap.RoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import phylo.tree.algorithm.flipcut.AbstractFlipCut;
 import phylo.tree.algorithm.flipcut.bcdGraph.edge.Hyperedge;
 import phylo.tree.algorithm.flipcut.bcdGraph.edge.MergedHyperedge;
 import phylo.tree.algorithm.flipcut.bcdGraph.edge.SimpleHyperedge;
@@ -17,15 +17,35 @@ import phylo.tree.algorithm.flipcut.costComputer.CostComputer;
 import phylo.tree.algorithm.flipcut.cutter.CutGraphCutter;
 import phylo.tree.model.Tree;
 import phylo.tree.model.TreeNode;
-import phylo.tree.model.TreeUtils;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class CompressedGraphFactory {
     private final static Logger LOGGER = LoggerFactory.getLogger(CompressedGraphFactory.class);
 
     public static CompressedBCDSourceGraph createSourceGraph(CostComputer costComputer, double bootstrapTheshold, boolean mergedEdges) {
+        return createSourceGraph(costComputer, bootstrapTheshold, mergedEdges, 1);
+    }
+
+    /**
+     * Creates the graph representation of the input trees. The clade bitmaps of the trees are computed in parallel,
+     * the characters are added in input order afterwards, so the graph does not depend on the number of threads.
+     *
+     * @param numberOfThreads threads used to convert the trees, 0 means all available cores
+     */
+    public static CompressedBCDSourceGraph createSourceGraph(CostComputer costComputer, double bootstrapTheshold, boolean mergedEdges, int numberOfThreads) {
+        return createSourceGraph(costComputer, bootstrapTheshold, mergedEdges, numberOfThreads, null);
+    }
+
+    /**
+     * Same as {@link #createSourceGraph(CostComputer, double, boolean, int)}, but the trees are converted on the given
+     * executor instead of a temporary thread pool. The executor is not shut down.
+     *
+     * @param executor executor to convert the trees, null to create a temporary thread pool
+     */
+    public static CompressedBCDSourceGraph createSourceGraph(CostComputer costComputer, double bootstrapTheshold, boolean mergedEdges, int numberOfThreads, ExecutorService executor) {
         LOGGER.info("Creating graph representation of input trees...");
         LOGGER.info("Merge graph data structrure = " + mergedEdges);
         final Tree scaffold = costComputer.getScaffoldTree();
@@ -35,8 +55,11 @@ public class CompressedGraphFactory {
         TObjectIntMap<String> leafs = new TObjectIntHashMap<>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
 
         List<Hyperedge> edges = new LinkedList<>();
-        Map<Set<String>, MergedHyperedge> duplicateEdges = new LinkedHashMap<>();
-        Map<Set<String>, RoaringBitmap> duplicateBits = new HashMap<>();
+        final int threads = numberOfThreads == 0 ? AbstractFlipCut.CORES_AVAILABLE : Math.abs(numberOfThreads);
+
+        // all bitmaps are deduplicated by duplicateBits, so merged edges can be found by identity
+        Map<RoaringBitmap, MergedHyperedge> duplicateEdges = new IdentityHashMap<>();
+        BitmapInterner.Concurrent duplicateBits = new BitmapInterner.Concurrent(threads);
 
         int leafIndex = 0;
         int numOfChars = 0;
@@ -45,43 +68,49 @@ public class CompressedGraphFactory {
         RoaringBitmap activeScaffoldCharacters = null;
         if (scaffold != null) {
             TreeNode scaffoldRoot = scaffold.getRoot();
-            Set<String> treeTaxa = new HashSet<>();
 
             for (TreeNode scaffoldNode : scaffold.vertices()) {
                 if (scaffoldNode.isLeaf()) {
                     leafs.put(scaffoldNode.getLabel(), leafIndex++);
-                    treeTaxa.add(scaffoldNode.getLabel());
                 } else {
                     numOfChars++;
                 }
             }
+            final Map<TreeNode, Clade> cladeBits = createCladeBits(scaffoldRoot, leafs);
             AtomicInteger characterIndex = new AtomicInteger(leafIndex);
-            activeScaffoldCharacters = addScaffoldCharacterRecursive(scaffoldRoot.getChildren(), characterIndex, costComputer, treeTaxa, leafs, duplicateBits, edges, duplicateEdges, scaffoldMapping, mergedEdges);
+            activeScaffoldCharacters = addScaffoldCharacterRecursive(scaffoldRoot.getChildren(), characterIndex, costComputer, cladeBits, cladeBits.get(scaffoldRoot), duplicateBits, edges, duplicateEdges, scaffoldMapping, mergedEdges);
         }
         if (activeScaffoldCharacters == null) activeScaffoldCharacters = new RoaringBitmap();
 
         //do character stuff
+        //assign the taxa ids first, they are needed by all trees
+        final List<TreeNode> roots = new ArrayList<>(trees.size());
+        final List<List<TreeNode>> innerNodes = new ArrayList<>(trees.size());
         for (Tree tree : trees) {
             if (tree != scaffold) {
                 TreeNode root = tree.getRoot();
-                Set<String> treeTaxa = new HashSet<>(tree.vertexCount());
-                List<TreeNode> inner = new LinkedList<>();
+                List<TreeNode> inner = new ArrayList<>();
 
                 for (TreeNode node : root.depthFirstIterator()) {
                     if (node.isLeaf()) {
                         if (scaffold == null && leafs.putIfAbsent(node.getLabel(), leafIndex) == leafs.getNoEntryValue())
                             leafIndex++;
-                        treeTaxa.add((node.getLabel()));
                     } else if (!node.equals(root)) {
                         inner.add(node);
                     }
                 }
                 numOfChars += inner.size();
+                roots.add(root);
+                innerNodes.add(inner);
+            }
+        }
 
-                for (TreeNode node : inner) {
-                    //collect edges and zero edges
-                    addEdge(node, treeTaxa, leafs, duplicateBits, edges, duplicateEdges, costComputer, mergedEdges);
-                }
+        final List<TreeCharacters> treeCharacters = createTreeCharacters(roots, innerNodes, leafs, duplicateBits, costComputer, threads, executor);
+
+        //collect edges and zero edges in input order
+        for (TreeCharacters characters : treeCharacters) {
+            for (int i = 0; i < characters.weights.length; i++) {
+                addEdge(characters.ones[i], characters.zeroes[i], characters.weights[i], edges, duplicateEdges, mergedEdges);
             }
         }
 
@@ -112,91 +141,145 @@ public class CompressedGraphFactory {
         LOGGER.info(numOfChars + " where merged to " + allMergedChars + " and can be further reduced to " + duplicateEdges.size() + " during mincut");
 
 
-        return new CompressedBCDSourceGraph(taxa, hyperedges, activeScaffoldCharacters, scaffoldMapping);
+        LOGGER.info("Create taxon to character index...");
+        final RoaringBitmap[] taxonCharacters = createTaxonCharacterIndex(taxa.length, hyperedges);
+
+        return new CompressedBCDSourceGraph(taxa, hyperedges, activeScaffoldCharacters, scaffoldMapping, taxonCharacters);
     }
 
-    private static TIntSet createBits(TreeNode node, final TObjectIntMap<String> leafs) {
-        TIntSet oneBits = new TIntHashSet();
-        for (TreeNode treeNode : node.depthFirstIterator()) {
-            if (treeNode.isLeaf()) {
-                oneBits.add(leafs.get(treeNode.getLabel()));
-            }
+    /**
+     * Creates the inverted index of the given hyperedges.
+     *
+     * @return the indices of all characters that contain the taxon, for every taxon
+     */
+    public static RoaringBitmap[] createTaxonCharacterIndex(final int numTaxa, final TIntObjectMap<Hyperedge> hyperedges) {
+        final RoaringBitmap[] taxonCharacters = new RoaringBitmap[numTaxa];
+        for (int i = 0; i < numTaxa; i++) {
+            taxonCharacters[i] = new RoaringBitmap();
         }
-        return oneBits;
+        // ascending character order, so that the bitmaps are only appended
+        final int[] charIndices = hyperedges.keys();
+        Arrays.sort(charIndices);
+        for (int charIndex : charIndices) {
+            hyperedges.get(charIndex).ones().forEach((IntConsumer) t -> taxonCharacters[t].add(charIndex));
+        }
+        for (RoaringBitmap characters : taxonCharacters) {
+            characters.runOptimize();
+        }
+        return taxonCharacters;
     }
 
-    private static RoaringBitmap getCompressedBits(final Map<Set<String>, RoaringBitmap> zs, Set<String> bits, final TObjectIntMap<String> leafs) {
-        RoaringBitmap cbits = zs.get(bits);
-        if (cbits == null) {
-            cbits = new RoaringBitmap();
-            for (String s : bits) {
-                cbits.add(leafs.get(s));
-                zs.put(bits, cbits);
+    /**
+     * Computes the taxa of all clades of the given tree in a single bottom-up pass.
+     * The bitmap of an inner node is the union of the bitmaps of its children,
+     * its fingerprint is the xor of the fingerprints of its children.
+     *
+     * @return the taxa below every node of the tree, including the root
+     */
+    private static Map<TreeNode, Clade> createCladeBits(final TreeNode root, final TObjectIntMap<String> leafs) {
+        // pre-order without recursion, deep caterpillar trees would overflow the stack
+        final List<TreeNode> preOrder = new ArrayList<>();
+        final Deque<TreeNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            final TreeNode node = stack.pop();
+            preOrder.add(node);
+            for (TreeNode child : node.getChildren()) {
+                stack.push(child);
             }
         }
-        return cbits;
-    }
 
-    private static RoaringBitmap getCompressedBits(final Map<TIntSet, RoaringBitmap> zs, TIntSet bits) {
-        RoaringBitmap edge = zs.get(bits);
-        if (edge == null) {
-            edge = RoaringBitmap.bitmapOf(bits.toArray());
-            zs.put(bits, edge);
+        final Map<TreeNode, Clade> cladeBits = new IdentityHashMap<>(preOrder.size());
+        final ListIterator<TreeNode> it = preOrder.listIterator(preOrder.size());
+        while (it.hasPrevious()) {
+            final TreeNode node = it.previous();
+            final RoaringBitmap bits = new RoaringBitmap();
+            long fingerprint = 0L;
+            if (node.isLeaf()) {
+                final int taxon = leafs.get(node.getLabel());
+                bits.add(taxon);
+                fingerprint = BitmapInterner.key(taxon);
+            } else {
+                for (TreeNode child : node.getChildren()) {
+                    final Clade childClade = cladeBits.get(child);
+                    bits.or(childClade.taxa);
+                    fingerprint ^= childClade.fingerprint;
+                }
+            }
+            cladeBits.put(node, new Clade(bits, fingerprint));
         }
-        return edge;
+        return cladeBits;
     }
 
-
-    private static Hyperedge addEdge(final TreeNode node, final Set<String> treeTaxa, final TObjectIntMap<String> leafs, final Map<Set<String>, RoaringBitmap> zs, final List<Hyperedge> edges, final Map<Set<String>, MergedHyperedge> duplicateEdges, final CostComputer costComputer, boolean mergedEdge) {
-        if (mergedEdge) {
-            return addMergedEdge(node, treeTaxa, leafs, zs, edges, duplicateEdges, costComputer);
-        } else {
-            return addSimpleEdge(node, treeTaxa, leafs, zs, edges, costComputer);
-        }
+    private static RoaringBitmap getCompressedBits(final BitmapInterner.Concurrent zs, final RoaringBitmap bits, final long fingerprint) {
+        return zs.intern(bits, fingerprint);
     }
 
-    private static SimpleHyperedge addSimpleEdge(final TreeNode node, final Set<String> treeTaxa, final TObjectIntMap<String> leafs, final Map<Set<String>, RoaringBitmap> zs, final List<Hyperedge> edges, final CostComputer costComputer) {
-        Set<String> oneBits = TreeUtils.getLeafLabels(node);
-        RoaringBitmap edgeOnes = getCompressedBits(zs, oneBits, leafs);
-        Set<String> zeroBits = new HashSet<>(treeTaxa);
-        zeroBits.removeAll(oneBits);
-        RoaringBitmap edgeZeroes = getCompressedBits(zs, zeroBits, leafs);
-        SimpleHyperedge hyperedge = new SimpleHyperedge(edgeOnes, edgeZeroes, costComputer.getEdgeWeight(node));
-
-        edges.add(hyperedge);
+    private static RoaringBitmap getCompressedOnes(final BitmapInterner.Concurrent zs, final Clade clade) {
+        return getCompressedBits(zs, clade.taxa, clade.fingerprint);
+    }
 
-        return hyperedge;
+    // the clade is a subset of the tree, so the fingerprint of the difference is the xor
+    private static RoaringBitmap getCompressedZeroes(final BitmapInterner.Concurrent zs, final Clade tree, final Clade clade) {
+        return getCompressedBits(zs, RoaringBitmap.andNot(tree.taxa, clade.taxa), tree.fingerprint ^ clade.fingerprint);
     }
 
-    private static MergedHyperedge addMergedEdge(final TreeNode node, final Set<String> treeTaxa, final TObjectIntMap<String> leafs, final Map<Set<String>, RoaringBitmap> zs, final List<Hyperedge> edges, final Map<Set<String>, MergedHyperedge> duplicateEdges, final CostComputer costComputer) {
-        Set<String> oneBits = TreeUtils.getLeafLabels(node);
+    private static List<TreeCharacters> createTreeCharacters(final List<TreeNode> roots, final List<List<TreeNode>> innerNodes, final TObjectIntMap<String> leafs, final BitmapInterner.Concurrent zs, final CostComputer costComputer, final int threads, final ExecutorService sharedExecutor) {
+        final List<TreeCharacters> treeCharacters = new ArrayList<>(roots.size());
+        if (threads < 2 || roots.size() < 2) {
+            for (int i = 0; i < roots.size(); i++) {
+                treeCharacters.add(new TreeCharacters(roots.get(i), innerNodes.get(i), leafs, zs, costComputer));
+            }
+            return treeCharacters;
+        }
 
-        MergedHyperedge hyperedge = duplicateEdges.get(oneBits);
-        if (hyperedge == null) {
-            RoaringBitmap edge = getCompressedBits(zs, oneBits, leafs);
-            hyperedge = new MergedHyperedge(edge);
-            duplicateEdges.put(oneBits, hyperedge);
-            edges.add(hyperedge);
+        LOGGER.info("Creating clade bitmaps with " + threads + " threads...");
+        final List<Callable<TreeCharacters>> jobs = new ArrayList<>(roots.size());
+        for (int i = 0; i < roots.size(); i++) {
+            final TreeNode root = roots.get(i);
+            final List<TreeNode> inner = innerNodes.get(i);
+            jobs.add(() -> new TreeCharacters(root, inner, leafs, zs, costComputer));
         }
-        Set<String> zeroBits = new HashSet<>(treeTaxa);
-        zeroBits.removeAll(oneBits);
 
-        hyperedge.addZero(
-                getCompressedBits(zs, zeroBits, leafs),
-                costComputer.getEdgeWeight(node)
-        );
+        final ExecutorService executor = sharedExecutor == null ? Executors.newFixedThreadPool(threads) : sharedExecutor;
+        try {
+            for (Future<TreeCharacters> future : executor.invokeAll(jobs)) {
+                treeCharacters.add(future.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Error during parallel graph creation", e);
+        } finally {
+            if (executor != sharedExecutor)
+                executor.shutdown();
+        }
+        return treeCharacters;
+    }
 
-        return hyperedge;
+    private static Hyperedge addEdge(final RoaringBitmap ones, final RoaringBitmap zeroes, final long weight, final List<Hyperedge> edges, final Map<RoaringBitmap, MergedHyperedge> duplicateEdges, boolean mergedEdge) {
+        if (mergedEdge) {
+            MergedHyperedge hyperedge = duplicateEdges.get(ones);
+            if (hyperedge == null) {
+                hyperedge = new MergedHyperedge(ones);
+                duplicateEdges.put(ones, hyperedge);
+                edges.add(hyperedge);
+            }
+            hyperedge.addZero(zeroes, weight);
+            return hyperedge;
+        } else {
+            SimpleHyperedge hyperedge = new SimpleHyperedge(ones, zeroes, weight);
+            edges.add(hyperedge);
+            return hyperedge;
+        }
     }
 
 
     private static RoaringBitmap addScaffoldCharacterRecursive(final List<TreeNode> children, final AtomicInteger charIndex,
                                                                final CostComputer costComputer,
-                                                               final Set<String> treeTaxa,
-                                                               TObjectIntMap<String> leafs,
-                                                               final Map<Set<String>, RoaringBitmap> zs,
+                                                               final Map<TreeNode, Clade> cladeBits,
+                                                               final Clade treeTaxa,
+                                                               final BitmapInterner.Concurrent zs,
                                                                final List<Hyperedge> edges,
-                                                               final Map<Set<String>, MergedHyperedge> duplicateEdges,
+                                                               final Map<RoaringBitmap, MergedHyperedge> duplicateEdges,
                                                                final TIntObjectMap<RoaringBitmap> scaffoldMapping,
                                                                boolean mergedEdges) {
 
@@ -205,14 +288,16 @@ public class CompressedGraphFactory {
         for (TreeNode scaffoldNode : children) {
             if (scaffoldNode.isInnerNode()) {
                 //create hyperedge
-                Hyperedge hyperedge = addEdge(scaffoldNode, treeTaxa, leafs, zs, edges, duplicateEdges, costComputer, mergedEdges);
+                final Clade ones = cladeBits.get(scaffoldNode);
+                Hyperedge hyperedge = addEdge(getCompressedOnes(zs, ones), getCompressedZeroes(zs, treeTaxa, ones),
+                        costComputer.getEdgeWeight(scaffoldNode), edges, duplicateEdges, mergedEdges);
 
                 assert hyperedge.getWeight() == CutGraphCutter.getInfinity();
 
                 final int currentIndex = charIndex.getAndIncrement();
                 childrenI.add(currentIndex);
 
-                RoaringBitmap set = addScaffoldCharacterRecursive(scaffoldNode.getChildren(), charIndex, costComputer, treeTaxa, leafs, zs, edges, duplicateEdges, scaffoldMapping, mergedEdges);
+                RoaringBitmap set = addScaffoldCharacterRecursive(scaffoldNode.getChildren(), charIndex, costComputer, cladeBits, treeTaxa, zs, edges, duplicateEdges, scaffoldMapping, mergedEdges);
                 if (!set.isEmpty())
                     scaffoldMapping.put(currentIndex, set);
             }
@@ -220,4 +305,39 @@ public class CompressedGraphFactory {
 
         return childrenI;
     }
+
+    private static class Clade {
+        final RoaringBitmap taxa;
+        final long fingerprint;
+
+        Clade(RoaringBitmap taxa, long fingerprint) {
+            this.taxa = taxa;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * The characters of a single input tree: deduplicated ones and zero bitmaps with the edge weight.
+     */
+    private static class TreeCharacters {
+        final RoaringBitmap[] ones;
+        final RoaringBitmap[] zeroes;
+        final long[] weights;
+
+        TreeCharacters(final TreeNode root, final List<TreeNode> inner, final TObjectIntMap<String> leafs, final BitmapInterner.Concurrent zs, final CostComputer costComputer) {
+            ones = new RoaringBitmap[inner.size()];
+            zeroes = new RoaringBitmap[inner.size()];
+            weights = new long[inner.size()];
+
+            final Map<TreeNode, Clade> cladeBits = createCladeBits(root, leafs);
+            final Clade treeTaxa = cladeBits.get(root);
+            int i = 0;
+            for (TreeNode node : inner) {
+                final Clade clade = cladeBits.get(node);
+                ones[i] = getCompressedOnes(zs, clade);
+                zeroes[i] = getCompressedZeroes(zs, treeTaxa, clade);
+                weights[i++] = costComputer.getEdgeWeight(node);
+            }
+        }
+    }
 }
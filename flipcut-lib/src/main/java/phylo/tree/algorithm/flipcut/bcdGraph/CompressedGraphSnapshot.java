@@ -0,0 +1,308 @@
+package phylo.tree.algorithm.flipcut.bcdGraph;
+
+import gnu.trove.impl.Constants;
+import gnu.trove.iterator.TIntObjectIterator;
+import gnu.trove.iterator.TObjectLongIterator;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TObjectLongMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TObjectLongHashMap;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phylo.tree.algorithm.flipcut.bcdGraph.edge.Hyperedge;
+import phylo.tree.algorithm.flipcut.bcdGraph.edge.MergedHyperedge;
+import phylo.tree.algorithm.flipcut.bcdGraph.edge.SimpleHyperedge;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a {@link CompressedBCDSourceGraph}, so that the same input can be processed several times
+ * without parsing the trees and building the graph again.
+ * <p>
+ * Layout (big endian, version 1):
+ * <pre>
+ * int magic, int version
+ * int numTaxa, numTaxa * (int length, UTF-8 name)
+ * int numBitmaps, numBitmaps * (int length, portable serialized RoaringBitmap)
+ * int numCharacters, numCharacters * (int index, byte type, int ones, long weight, zeros)
+ *     zeros of a simple edge: int bitmap
+ *     zeros of a merged edge: int numZeros, numZeros * (int bitmap, long weight)
+ * int activeScaffoldCharacters
+ * int numScaffoldCharacters, numScaffoldCharacters * (int character, int childCharacters)
+ * numTaxa * int characters of the taxon
+ * </pre>
+ * Bitmaps are referenced by their position in the bitmap table. Every bitmap instance is stored only once,
+ * so bitmaps that are shared in the graph (e.g. the deduplicated zero sets) are shared in the loaded graph, too.
+ * <p>
+ * The size of the snapshot is not limited, it is read in mapped regions of at most 2 GB. Only every single entry
+ * (e.g. a serialized bitmap) has to be smaller than 2 GB, which the int length fields guarantee.
+ * <p>
+ * The snapshot has to be written before the graph is used by an algorithm, because the algorithms change the source graph.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class CompressedGraphSnapshot {
+    private final static Logger LOGGER = LoggerFactory.getLogger(CompressedGraphSnapshot.class);
+
+    public static final int MAGIC = 0x42434447; // "BCDG"
+    public static final int VERSION = 1;
+
+    private static final byte SIMPLE_EDGE = 0;
+    private static final byte MERGED_EDGE = 1;
+    private static final int NO_BITMAP = -1;
+
+    private CompressedGraphSnapshot() {
+    }
+
+    public static void write(final CompressedBCDSourceGraph graph, final Path file) throws IOException {
+        LOGGER.info("Writing graph snapshot to " + file + "...");
+        final Map<RoaringBitmap, Integer> bitmapIds = new IdentityHashMap<>();
+        final List<RoaringBitmap> bitmaps = new ArrayList<>();
+
+        // collect the bitmap table
+        TIntObjectIterator<Hyperedge> edgeIt = graph.sourceMergedHyperEdges.iterator();
+        while (edgeIt.hasNext()) {
+            edgeIt.advance();
+            final Hyperedge edge = edgeIt.value();
+            register(edge.ones(), bitmapIds, bitmaps);
+            if (edge instanceof MergedHyperedge) {
+                final TObjectLongIterator<RoaringBitmap> zit = ((MergedHyperedge) edge).zeroIterator();
+                while (zit.hasNext()) {
+                    zit.advance();
+                    register(zit.key(), bitmapIds, bitmaps);
+                }
+            } else {
+                register(simple(edge).zeroes(), bitmapIds, bitmaps);
+            }
+        }
+        register(graph.activeGuideEdges, bitmapIds, bitmaps);
+        for (RoaringBitmap childCharacters : graph.scaffoldCharacterHirarchie.valueCollection()) {
+            register(childCharacters, bitmapIds, bitmaps);
+        }
+        for (RoaringBitmap characters : graph.taxonCharacters) {
+            register(characters, bitmapIds, bitmaps);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(graph.sourceTaxa.length);
+            for (String taxon : graph.sourceTaxa) {
+                final byte[] name = taxon.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+
+            out.writeInt(bitmaps.size());
+            for (RoaringBitmap bitmap : bitmaps) {
+                out.writeInt(bitmap.serializedSizeInBytes());
+                bitmap.serialize(out);
+            }
+
+            out.writeInt(graph.sourceMergedHyperEdges.size());
+            edgeIt = graph.sourceMergedHyperEdges.iterator();
+            while (edgeIt.hasNext()) {
+                edgeIt.advance();
+                final Hyperedge edge = edgeIt.value();
+                out.writeInt(edgeIt.key());
+                if (edge instanceof MergedHyperedge) {
+                    final MergedHyperedge merged = (MergedHyperedge) edge;
+                    out.writeByte(MERGED_EDGE);
+                    out.writeInt(bitmapIds.get(edge.ones()));
+                    out.writeLong(edge.getWeight());
+                    out.writeInt(merged.umergedNumber());
+                    final TObjectLongIterator<RoaringBitmap> zit = merged.zeroIterator();
+                    while (zit.hasNext()) {
+                        zit.advance();
+                        out.writeInt(bitmapIds.get(zit.key()));
+                        out.writeLong(zit.value());
+                    }
+                } else {
+                    out.writeByte(SIMPLE_EDGE);
+                    out.writeInt(bitmapIds.get(edge.ones()));
+                    out.writeLong(edge.getWeight());
+                    out.writeInt(bitmapIds.get(simple(edge).zeroes()));
+                }
+            }
+
+            out.writeInt(id(graph.activeGuideEdges, bitmapIds));
+
+            out.writeInt(graph.scaffoldCharacterHirarchie.size());
+            final TIntObjectIterator<RoaringBitmap> scaffoldIt = graph.scaffoldCharacterHirarchie.iterator();
+            while (scaffoldIt.hasNext()) {
+                scaffoldIt.advance();
+                out.writeInt(scaffoldIt.key());
+                out.writeInt(id(scaffoldIt.value(), bitmapIds));
+            }
+
+            for (RoaringBitmap characters : graph.taxonCharacters) {
+                out.writeInt(id(characters, bitmapIds));
+            }
+        }
+        LOGGER.info("...graph snapshot with " + graph.sourceTaxa.length + " taxa, " + graph.sourceMergedHyperEdges.size() + " characters and " + bitmaps.size() + " bitmaps written");
+    }
+
+    /**
+     * Loads a snapshot written by {@link #write(CompressedBCDSourceGraph, Path)}. The file is memory mapped and the
+     * bitmaps are read through {@link ImmutableRoaringBitmap} views of the mapped file. The views are copied to
+     * heap bitmaps because the graph algorithms modify the graph.
+     * <p>
+     * A mapped region is limited to 2 GB, so larger snapshots are mapped as several regions. A new region starts
+     * at the first entry (e.g. bitmap) that does not fit into the current one.
+     */
+    public static CompressedBCDSourceGraph read(final Path file) throws IOException {
+        return read(file, Integer.MAX_VALUE);
+    }
+
+    static CompressedBCDSourceGraph read(final Path file, final int maxRegionSize) throws IOException {
+        LOGGER.info("Reading graph snapshot from " + file + "...");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedInput in = new MappedInput(channel, maxRegionSize);
+
+            if (!in.hasRemaining(8) || in.getInt() != MAGIC)
+                throw new IOException("File is not a BCD graph snapshot: " + file);
+            final int version = in.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported graph snapshot version " + version + " (supported: " + VERSION + "): " + file);
+
+            final String[] taxa = new String[in.getInt()];
+            for (int i = 0; i < taxa.length; i++) {
+                final int length = in.getInt();
+                final byte[] name = new byte[length];
+                in.region(length).get(name);
+                taxa[i] = new String(name, StandardCharsets.UTF_8);
+            }
+
+            final RoaringBitmap[] bitmaps = new RoaringBitmap[in.getInt()];
+            for (int i = 0; i < bitmaps.length; i++) {
+                final int size = in.getInt();
+                final MappedByteBuffer region = in.region(size);
+                final ImmutableRoaringBitmap view = new ImmutableRoaringBitmap(region);
+                if (view.serializedSizeInBytes() != size)
+                    throw new IOException("Corrupted bitmap " + i + " in graph snapshot: " + file);
+                bitmaps[i] = view.toRoaringBitmap();
+                region.position(region.position() + size);
+            }
+
+            final int numCharacters = in.getInt();
+            final TIntObjectMap<Hyperedge> hyperedges = new TIntObjectHashMap<>(numCharacters);
+            for (int i = 0; i < numCharacters; i++) {
+                final int index = in.getInt();
+                final byte type = in.get();
+                final RoaringBitmap ones = bitmaps[in.getInt()];
+                final long weight = in.getLong();
+                if (type == MERGED_EDGE) {
+                    final int numZeros = in.getInt();
+                    final TObjectLongMap<RoaringBitmap> zeros = new TObjectLongHashMap<>(numZeros);
+                    for (int j = 0; j < numZeros; j++) {
+                        zeros.put(bitmaps[in.getInt()], in.getLong());
+                    }
+                    hyperedges.put(index, new MergedHyperedge(ones, zeros, weight));
+                } else if (type == SIMPLE_EDGE) {
+                    hyperedges.put(index, new SimpleHyperedge(ones, bitmaps[in.getInt()], weight));
+                } else {
+                    throw new IOException("Unknown character type " + type + " in graph snapshot: " + file);
+                }
+            }
+
+            final RoaringBitmap activeScaffoldCharacters = bitmap(in.getInt(), bitmaps);
+
+            final int numScaffoldCharacters = in.getInt();
+            final TIntObjectMap<RoaringBitmap> scaffoldMapping = new TIntObjectHashMap<>(Math.max(numScaffoldCharacters, Constants.DEFAULT_CAPACITY), Constants.DEFAULT_LOAD_FACTOR, -1);
+            for (int i = 0; i < numScaffoldCharacters; i++) {
+                final int character = in.getInt();
+                scaffoldMapping.put(character, bitmap(in.getInt(), bitmaps));
+            }
+
+            final RoaringBitmap[] taxonCharacters = new RoaringBitmap[taxa.length];
+            for (int i = 0; i < taxonCharacters.length; i++) {
+                taxonCharacters[i] = bitmap(in.getInt(), bitmaps);
+            }
+
+            LOGGER.info("...graph snapshot with " + taxa.length + " taxa and " + numCharacters + " characters read");
+            return new CompressedBCDSourceGraph(taxa, hyperedges, activeScaffoldCharacters, scaffoldMapping, taxonCharacters);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated graph snapshot: " + file, e);
+        }
+    }
+
+    // sequential reader that maps the file region by region. Every entry has to fit into one region.
+    private static final class MappedInput {
+        private final FileChannel channel;
+        private final long size;
+        private final int maxRegionSize;
+        private long regionStart = 0;
+        private MappedByteBuffer buffer;
+
+        MappedInput(FileChannel channel, int maxRegionSize) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.maxRegionSize = maxRegionSize;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, maxRegionSize));
+        }
+
+        boolean hasRemaining(int bytes) {
+            return size - regionStart - buffer.position() >= bytes;
+        }
+
+        // the current region, remapped if it has less than the given number of bytes left
+        MappedByteBuffer region(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                regionStart += buffer.position();
+                if (bytes > maxRegionSize || regionStart + bytes > size)
+                    throw new BufferUnderflowException();
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(size - regionStart, maxRegionSize));
+            }
+            return buffer;
+        }
+
+        byte get() throws IOException {
+            return region(Byte.BYTES).get();
+        }
+
+        int getInt() throws IOException {
+            return region(Integer.BYTES).getInt();
+        }
+
+        long getLong() throws IOException {
+            return region(Long.BYTES).getLong();
+        }
+    }
+
+    private static SimpleHyperedge simple(Hyperedge edge) {
+        if (edge instanceof SimpleHyperedge)
+            return (SimpleHyperedge) edge;
+        throw new IllegalArgumentException("Unsupported character type for graph snapshots: " + edge.getClass().getName());
+    }
+
+    private static void register(RoaringBitmap bitmap, Map<RoaringBitmap, Integer> bitmapIds, List<RoaringBitmap> bitmaps) {
+        if (bitmap != null && !bitmapIds.containsKey(bitmap)) {
+            bitmapIds.put(bitmap, bitmaps.size());
+            bitmaps.add(bitmap);
+        }
+    }
+
+    private static int id(RoaringBitmap bitmap, Map<RoaringBitmap, Integer> bitmapIds) {
+        return bitmap == null ? NO_BITMAP : bitmapIds.get(bitmap);
+    }
+
+    private static RoaringBitmap bitmap(int id, RoaringBitmap[] bitmaps) {
+        return id == NO_BITMAP ? null : bitmaps[id];
+    }
+}
@@ -1,13 +1,16 @@
 package phylo.tree.algorithm.flipcut.bcdGraph.edge;
 
 import org.roaringbitmap.RoaringBitmap;
+import phylo.tree.algorithm.flipcut.bcdGraph.BitmapInterner;
 
 public abstract class AbstractHyperedge implements Hyperedge {
     protected final RoaringBitmap ones;
+    protected final long onesFingerprint;
     protected long weight = 0L;
 
     protected AbstractHyperedge(RoaringBitmap ones) {
         this.ones = ones;
+        onesFingerprint = BitmapInterner.fingerprint(ones);
     }
 
     @Override
@@ -19,4 +22,9 @@ public abstract class AbstractHyperedge implements Hyperedge {
     public RoaringBitmap ones() {
         return ones;
     }
+
+    @Override
+    public long onesFingerprint() {
+        return onesFingerprint;
+    }
 }
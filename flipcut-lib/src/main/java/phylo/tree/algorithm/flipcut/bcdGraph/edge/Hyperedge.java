@@ -5,7 +5,16 @@ import phylo.tree.algorithm.flipcut.cutter.CutGraphCutter;
 
 public interface Hyperedge {
 
-    boolean removeSemiuniversals(RoaringBitmap taxaInGraph);
+    long SEMI_UNIVERSAL = -1L;
+
+    /**
+     * Computes the weight of this hyperedge within a graph that contains only the given taxa.
+     * The hyperedge itself is not changed, so this is safe to call for different graphs concurrently.
+     *
+     * @param taxaInGraph the taxa of the graph
+     * @return the weight within the graph or {@link #SEMI_UNIVERSAL} if the whole edge is semi universal.
+     */
+    long getWeight(RoaringBitmap taxaInGraph);
 
     default boolean isInfinite() {
         assert getWeight() <= CutGraphCutter.getInfinity();
@@ -14,4 +23,9 @@ public interface Hyperedge {
 
     long getWeight();
     RoaringBitmap ones();
+
+    /**
+     * @return the fingerprint of {@link #ones()}, see {@link phylo.tree.algorithm.flipcut.bcdGraph.BitmapInterner}
+     */
+    long onesFingerprint();
 }
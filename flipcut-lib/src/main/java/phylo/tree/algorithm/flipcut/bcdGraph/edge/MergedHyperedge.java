@@ -4,10 +4,8 @@ import gnu.trove.iterator.TObjectLongIterator;
 import gnu.trove.map.TObjectLongMap;
 import gnu.trove.map.hash.TObjectLongHashMap;
 import org.roaringbitmap.RoaringBitmap;
-import org.slf4j.LoggerFactory;
 import phylo.tree.algorithm.flipcut.cutter.CutGraphCutter;
 
-import java.util.Arrays;
 
 //todo maybe special guide tree handling
 
@@ -23,27 +21,33 @@ public class MergedHyperedge extends AbstractHyperedge {
         super(ones);
     }
 
-    //returns true if the whole edge is semiuniversal.
-    public boolean removeSemiuniversals(RoaringBitmap taxaInGraph) {
+    // restores an edge whose zero sets are already merged (e.g. from a graph snapshot)
+    public MergedHyperedge(RoaringBitmap ones, TObjectLongMap<RoaringBitmap> zeros, long weight) {
+        super(ones);
+        zerosS.putAll(zeros);
+        this.weight = weight;
+    }
+
+    public TObjectLongIterator<RoaringBitmap> zeroIterator() {
+        return zerosS.iterator();
+    }
+
+    //the weight is the sum over all zero sets that are not semiuniversal, or infinite if one of them is infinite
+    public long getWeight(RoaringBitmap taxaInGraph) {
         TObjectLongIterator<RoaringBitmap> tit = zerosS.iterator();
-        boolean infiniteRemoval = false;
+        boolean empty = true;
+        long weight = 0;
         while (tit.hasNext()) {
             tit.advance();
 
-            if (!RoaringBitmap.intersects(tit.key(), taxaInGraph)) {
-                if (!isInfinite()) {
-                    weight -= tit.value();
-                } else if (tit.value() == CutGraphCutter.getInfinity()) {
-                    infiniteRemoval = true;
-                }
-                tit.remove();
+            if (RoaringBitmap.intersects(tit.key(), taxaInGraph)) {
+                if (tit.value() == CutGraphCutter.getInfinity())
+                    return tit.value();
+                weight += tit.value();
+                empty = false;
             }
         }
-        if (infiniteRemoval && !zerosS.isEmpty()) {
-            weight = Arrays.stream(zerosS.values()).sum();
-            LoggerFactory.getLogger(this.getClass()).warn("Re summing hyperedge weight -> This is only possible if a guid tree is used, that does not contain all taxa");
-        }
-        return zerosS.isEmpty();
+        return empty ? SEMI_UNIVERSAL : weight;
     }
 
     //returns new weight
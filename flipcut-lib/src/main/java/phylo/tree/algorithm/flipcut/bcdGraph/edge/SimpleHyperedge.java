@@ -17,8 +17,12 @@ public class SimpleHyperedge extends AbstractHyperedge {
     }
 
     @Override
-    public boolean removeSemiuniversals(RoaringBitmap taxaInGraph) {
-        return !RoaringBitmap.intersects(zeroes, taxaInGraph);
+    public long getWeight(RoaringBitmap taxaInGraph) {
+        return RoaringBitmap.intersects(zeroes, taxaInGraph) ? weight : SEMI_UNIVERSAL;
+    }
+
+    public RoaringBitmap zeroes() {
+        return zeroes;
     }
 
     public void setWeight(long weight) {
@@ -0,0 +1,121 @@
+package phylo.tree.algorithm.flipcut.cutter;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import mincut.cutGraphAPI.bipartition.CompressedBCDCut;
+import mincut.cutGraphAPI.bipartition.Cut;
+import mincut.cutGraphImpl.minCutHaoOrlin.HaoOrlinCutGraphImpl;
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.RoaringBitmap;
+import phylo.tree.algorithm.flipcut.SourceTreeGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.BitmapInterner;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDGraph;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Computes the minimum BCD cut of a {@link CompressedBCDGraph} with a single Hao-Orlin preflow run
+ * instead of n-1 maximum flow computations (see {@link CompressedSingleCutter}).
+ * The taxa are the terminals of the cut graph, so only cuts that split the taxa set are considered.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class CompressedHaoOrlinCutter implements GraphCutter<RoaringBitmap> {
+
+    private CompressedBCDCut cachedCut = null;
+
+    @Override
+    public void clear() {
+        cachedCut = null;
+    }
+
+    @Override
+    public Cut<RoaringBitmap> cut(SourceTreeGraph<RoaringBitmap> source) {
+        return cut((CompressedBCDGraph) source);
+    }
+
+    public Cut<RoaringBitmap> cut(final CompressedBCDGraph source) {
+        final BitmapInterner<TIntList> hyperEdgeMerging = CompressedSingleCutter.mergeHyperEdges(source);
+
+        // count nodes and edges
+        final RoaringBitmap taxa = new RoaringBitmap();
+        int numEdges = 0;
+        for (RoaringBitmap edgeOnes : hyperEdgeMerging.keys()) {
+            taxa.or(edgeOnes);
+            numEdges += 1 + 2 * edgeOnes.getCardinality();
+        }
+
+        final HaoOrlinCutGraphImpl cutGraph = new HaoOrlinCutGraphImpl(taxa.getCardinality() + 2 * hyperEdgeMerging.size(), numEdges);
+
+        // taxa are the terminals, the smallest taxon is the source
+        final TIntIntMap cutgraphTaxa = new TIntIntHashMap(taxa.getCardinality());
+        taxa.forEach((IntConsumer) taxonIndex -> cutgraphTaxa.put(taxonIndex, cutGraph.createTerminal(taxonIndex)));
+
+        final TIntObjectMap<TIntList> charMapping = new TIntObjectHashMap<>();
+        final TIntObjectMap<TIntList> groups = new TIntObjectHashMap<>(2 * hyperEdgeMerging.size());
+        hyperEdgeMerging.forEach((edgeOnes, mergedIndeces) -> {
+            final int edgeIndex = mergedIndeces.get(0);
+            final int out = cutGraph.createNode(edgeIndex);
+            final int in = cutGraph.createNode(source.getCloneIndex(edgeIndex));
+            groups.put(out, mergedIndeces);
+
+            cutGraph.addEdge(out, in, CompressedSingleCutter.getMergedWeight(source, mergedIndeces, charMapping));
+
+            edgeOnes.forEach((IntConsumer) taxonIndex -> {
+                final int t = cutgraphTaxa.get(taxonIndex);
+                cutGraph.addEdge(t, out, CutGraphCutter.getInfinity());
+                cutGraph.addEdge(in, t, CutGraphCutter.getInfinity());
+            });
+        });
+
+        cutGraph.calculateMinCut();
+
+        //we do not have to map merged taxa back, hence we need only the hyperedges we have to delete
+        final RoaringBitmap toDelete = new RoaringBitmap();
+        groups.forEachEntry((out, mergedIndeces) -> {
+            // character and clone on different sides -> the character arc is part of the cut
+            if (cutGraph.isInSourceSet(out) != cutGraph.isInSourceSet(out + 1)) {
+                mergedIndeces.forEach(i -> {
+                    toDelete.add(i);
+                    return true;
+                });
+            }
+            return true;
+        });
+
+        cachedCut = new CompressedBCDCut(toDelete, cutGraph.getValue());
+        return cachedCut;
+    }
+
+    @Override
+    public Cut<RoaringBitmap> getMinCut() {
+        return cachedCut;
+    }
+
+    @Override
+    public boolean isBCD() {
+        return true;
+    }
+
+    public static class CompressedHaoOrlinCutterFactory implements CutterFactory<CompressedHaoOrlinCutter, RoaringBitmap, CompressedBCDGraph> {
+
+        @Override
+        public CompressedHaoOrlinCutter newInstance(CompressedBCDGraph graph) {
+            return new CompressedHaoOrlinCutter();
+        }
+
+        @Override
+        public CompressedHaoOrlinCutter newInstance(CompressedBCDGraph graph, ExecutorService executorService, int threads) {
+            // a single preflow can not be split into independent jobs
+            return new CompressedHaoOrlinCutter();
+        }
+
+        @Override
+        public boolean isBCD() {
+            return true;
+        }
+    }
+}
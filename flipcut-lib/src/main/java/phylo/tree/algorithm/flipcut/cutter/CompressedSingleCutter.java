@@ -1,43 +1,69 @@
 package phylo.tree.algorithm.flipcut.cutter;
 
+import gnu.trove.iterator.TIntIntIterator;
 import gnu.trove.iterator.TIntIterator;
-import gnu.trove.iterator.TIntObjectIterator;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.linked.TIntLinkedList;
 import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TIntLongMap;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntLongHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
+import mincut.cutGraphAPI.CompressedAhujaOrlinCutGraph;
 import mincut.cutGraphAPI.CompressedGoldbergTarjanCutGraph;
+import mincut.cutGraphAPI.MaxFlowCutGraph;
+import mincut.cutGraphAPI.MaxFlowStatistics;
 import mincut.cutGraphAPI.bipartition.CompressedBCDCut;
 import mincut.cutGraphAPI.bipartition.Cut;
 import mincut.cutGraphAPI.bipartition.STCut;
+import mincut.cutGraphImpl.maxFlowAhujaOrlin.ArrayFlowGraph;
+import mincut.cutGraphImpl.maxFlowGoldbergTarjan.ArrayCutGraphImpl;
 import mincut.cutGraphImpl.maxFlowGoldbergTarjan.CutGraphImpl;
 import mincut.cutGraphImpl.maxFlowGoldbergTarjan.Node;
 import org.roaringbitmap.IntConsumer;
 import org.roaringbitmap.RoaringBitmap;
 import phylo.tree.algorithm.flipcut.SourceTreeGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.BitmapInterner;
 import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDGraph;
 import phylo.tree.algorithm.flipcut.bcdGraph.edge.Hyperedge;
+import phylo.tree.algorithm.flipcut.flipCutGraph.CutGraphTypes;
 
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
 
 public class CompressedSingleCutter implements GraphCutter<RoaringBitmap> {
 
     private CompressedBCDCut cachedCut = null;
+    private CutStatistics cachedStatistics = null;
     private final int threats;
     private final ExecutorService executorService;
+    private final CutGraphTypes type;
 
 
     public CompressedSingleCutter() {
-        this.threats = 1;
-        this.executorService = null;
+        this(CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG);
+    }
+
+    public CompressedSingleCutter(CutGraphTypes type) {
+        this(type, 1, null);
     }
 
     public CompressedSingleCutter(int threats, ExecutorService executorService) {
+        this(CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG, threats, executorService);
+    }
+
+    /**
+     * @param type the max flow algorithm, either {@link CutGraphTypes#COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG}
+     *             or {@link CutGraphTypes#COMPRESSED_BCD_VIA_MAXFLOW_AHOJI_ORLIN}
+     */
+    public CompressedSingleCutter(CutGraphTypes type, int threats, ExecutorService executorService) {
+        if (type != CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG && type != CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_AHOJI_ORLIN)
+            throw new IllegalArgumentException("Unsupported cut graph type: " + type);
+        this.type = type;
         this.threats = threats;
         this.executorService = executorService;
     }
@@ -45,6 +71,7 @@ public class CompressedSingleCutter implements GraphCutter<RoaringBitmap> {
     @Override
     public void clear() {
         cachedCut = null;
+        cachedStatistics = null;
     }
 
     @Override
@@ -54,18 +81,43 @@ public class CompressedSingleCutter implements GraphCutter<RoaringBitmap> {
 
     public Cut<RoaringBitmap> cut(final CompressedBCDGraph source) {
         final TIntObjectMap<TIntList> charMapping = new TIntObjectHashMap<>();
-        final TIntObjectMap<Node.IntNode> cutgraphTaxa = new TIntObjectHashMap<>(source.numTaxa());
-
-        final CutGraphImpl hipri = createHipri(
-                source, createGuideEdges(source), charMapping, cutgraphTaxa
-        );
-        CompressedGoldbergTarjanCutGraph cutGraph = new CompressedGoldbergTarjanCutGraph(hipri);
-        TIntObjectIterator<Node.IntNode> taxit = cutgraphTaxa.iterator();
+        final TIntIntMap cutgraphTaxa = new TIntIntHashMap(source.numTaxa());
+        final long buildStart = System.nanoTime();
+
+        final MaxFlowCutGraph<Integer> cutGraph;
+        final IntUnaryOperator degree;
+        final int nodes, arcs;
+        if (type == CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_AHOJI_ORLIN) {
+            final ArrayFlowGraph flowGraph = createArrayAhujaOrlin(
+                    source, mergeHyperEdges(source), charMapping, cutgraphTaxa
+            );
+            cutGraph = new CompressedAhujaOrlinCutGraph(flowGraph);
+            degree = flowGraph::degree;
+            nodes = flowGraph.n;
+            arcs = flowGraph.m;
+        } else {
+            final ArrayCutGraphImpl hipri = createArrayHipri(
+                    source, mergeHyperEdges(source), charMapping, cutgraphTaxa
+            );
+            cutGraph = new CompressedGoldbergTarjanCutGraph(hipri);
+            degree = hipri::degree;
+            nodes = hipri.n;
+            arcs = hipri.m;
+        }
+        final MaxFlowStatistics flowStatistics = new MaxFlowStatistics();
+        cutGraph.setStatistics(flowStatistics);
+        // sinks with small degree first, they are likely to give small cuts and hence good bounds to stop other flows early
+        final long[] sinks = new long[cutgraphTaxa.size() - 1];
+        TIntIntIterator taxit = cutgraphTaxa.iterator();
         taxit.advance();
-        Node s = taxit.value();
-        while (taxit.hasNext()) {
+        int s = taxit.value();
+        for (int i = 0; i < sinks.length; i++) {
             taxit.advance();
-            cutGraph.submitSTCutCalculation(s, taxit.value());
+            sinks[i] = ((long) degree.applyAsInt(taxit.value()) << 32) | taxit.value();
+        }
+        Arrays.sort(sinks);
+        for (long sink : sinks) {
+            cutGraph.submitSTCutCalculation(s, (int) sink);
         }
 
 
@@ -74,7 +126,9 @@ public class CompressedSingleCutter implements GraphCutter<RoaringBitmap> {
 
         //we do not have to map merged taxa back, hence we need only the hyperedges we have to delete
         try {
+            final long flowStart = System.nanoTime();
             STCut cut = cutGraph.calculateMinCut();
+            cachedStatistics = new CutStatistics(nodes, arcs, flowStart - buildStart, System.nanoTime() - flowStart, flowStatistics);
             RoaringBitmap toDelete = new RoaringBitmap();
 
             LinkedHashSet[] css = new LinkedHashSet[]{cut.getsSet(), cut.gettSet()};
@@ -117,49 +171,136 @@ public class CompressedSingleCutter implements GraphCutter<RoaringBitmap> {
         return guiEdges;
     }
 
-    public static CutGraphImpl createHipri(CompressedBCDGraph source, List<RoaringBitmap> guideEdges, TIntObjectMap<TIntList> charMapping, TIntObjectMap<Node.IntNode> cutgraphTaxa) {
-        final TIntIntMap nodeToEdges = new TIntIntHashMap(source.numTaxa() + 2 * source.numCharacter());
-        final Map<RoaringBitmap, TIntList> hyperEdgeMerging = new HashMap<>(); //todo: this hashing is not super fast
-        final AtomicInteger numEdges = new AtomicInteger(0);
+    /**
+     * Merges the hyperedges of the given graph (see {@link #mergeHyperEdges(CompressedBCDGraph, List)}).
+     * If the graph was split from an already cut graph and its guide edges did not change, the merged taxa of the parent
+     * graph are reused and only hyperedges that became identical are grouped again.
+     * The resulting merging is stored in the graph, so that its components can reuse it.
+     *
+     * @param source the graph to merge
+     * @return the taxa of every merged hyperedge mapped to the indices of the characters it contains,
+     * in the order of their first character.
+     */
+    public static BitmapInterner<TIntList> mergeHyperEdges(CompressedBCDGraph source) {
+        final TIntObjectMap<RoaringBitmap> parentTaxa = source.getMergedCharacterTaxa();
+        final TIntObjectMap<RoaringBitmap> mergedTaxa = new TIntObjectHashMap<>(source.numCharacter());
+        final TIntLongMap mergedFingerprints = new TIntLongHashMap(source.numCharacter());
+        final BitmapInterner<TIntList> hyperEdgeMerging;
+        if (parentTaxa == null) {
+            hyperEdgeMerging = mergeHyperEdges(source, createGuideEdges(source), mergedTaxa, mergedFingerprints);
+        } else {
+            final TIntLongMap parentFingerprints = source.getMergedCharacterFingerprints();
+            hyperEdgeMerging = new BitmapInterner<>(source.numCharacter());
+            source.characters.forEach((IntConsumer) edgeIndex -> {
+                final RoaringBitmap edgeOnes = parentTaxa.get(edgeIndex);
+                // null if the hyperedge was dropped in the parent graph
+                if (edgeOnes != null)
+                    addToMerging(hyperEdgeMerging, mergedTaxa, mergedFingerprints, edgeOnes, parentFingerprints.get(edgeIndex), edgeIndex);
+            });
+        }
+        source.setMergedCharacterTaxa(mergedTaxa, mergedFingerprints);
+        return hyperEdgeMerging;
+    }
+
+    /**
+     * Merges the taxa of the given guide edges and afterwards all characters that became identical due to the taxa merging.
+     * <p>
+     * The merged hyperedges are ordered by their first character, so the cut graphs built from them (and the choice
+     * between several cuts with the same minimum value) do not depend on the hash codes of the bitmaps.
+     *
+     * @param source     the graph to merge
+     * @param guideEdges the active guide edges
+     * @return the taxa of every merged hyperedge mapped to the indices of the characters it contains,
+     * in the order of their first character. Hyperedges with less than two taxa are dropped.
+     */
+    public static BitmapInterner<TIntList> mergeHyperEdges(CompressedBCDGraph source, List<RoaringBitmap> guideEdges) {
+        return mergeHyperEdges(source, guideEdges, null, null);
+    }
+
+    private static BitmapInterner<TIntList> mergeHyperEdges(CompressedBCDGraph source, List<RoaringBitmap> guideEdges, TIntObjectMap<RoaringBitmap> mergedTaxa, TIntLongMap mergedFingerprints) {
+        final BitmapInterner<TIntList> hyperEdgeMerging = new BitmapInterner<>(source.numCharacter());
 
         // add edge to cutgraph (maybe with merged taxa)
         source.characters.forEach((IntConsumer) edgeIndex -> {
-            RoaringBitmap edgeOnes = source.getEdge(edgeIndex).ones();
+            final Hyperedge edge = source.getEdge(edgeIndex);
+            RoaringBitmap edgeOnes = edge.ones();
+            long fingerprint = edge.onesFingerprint();
 
             // do taxa merging if needed
             for (RoaringBitmap guideOnes : guideEdges) {
                 if (RoaringBitmap.intersects(edgeOnes, guideOnes)) {
                     RoaringBitmap common = RoaringBitmap.and(guideOnes, edgeOnes);
+                    // the common taxa are replaced by the first taxon of the guide edge
+                    fingerprint ^= BitmapInterner.fingerprint(common) ^ BitmapInterner.key(guideOnes.first());
                     common.xor(edgeOnes);
                     edgeOnes = common;
                     edgeOnes.add(guideOnes.first());
                 }
             }
 
-            if (edgeOnes.getCardinality() > 1) {
-                //merging hyperedges, that are identical because of guide tree merging
-                TIntList merged = hyperEdgeMerging.get(edgeOnes);
-                if (merged == null) {
-                    merged = new TIntLinkedList();
-                    final int edgeCloneIndex = source.getCloneIndex(edgeIndex);
-                    hyperEdgeMerging.put(edgeOnes, merged);
+            if (edgeOnes.getCardinality() > 1)
+                addToMerging(hyperEdgeMerging, mergedTaxa, mergedFingerprints, edgeOnes, fingerprint, edgeIndex);
+        });
+        return hyperEdgeMerging;
+    }
+
+    //merging hyperedges, that are identical because of guide tree merging
+    private static void addToMerging(BitmapInterner<TIntList> hyperEdgeMerging, TIntObjectMap<RoaringBitmap> mergedTaxa, TIntLongMap mergedFingerprints, RoaringBitmap edgeOnes, long fingerprint, int edgeIndex) {
+        TIntList merged = hyperEdgeMerging.get(edgeOnes, fingerprint);
+        if (merged == null) {
+            merged = new TIntLinkedList();
+            hyperEdgeMerging.putIfAbsent(edgeOnes, fingerprint, merged);
+        } else {
+            // use the same bitmap instance for all merged characters
+            edgeOnes = mergedTaxa == null ? edgeOnes : mergedTaxa.get(merged.get(0));
+        }
+        merged.add(edgeIndex);
+        if (mergedTaxa != null) {
+            mergedTaxa.put(edgeIndex, edgeOnes);
+            mergedFingerprints.put(edgeIndex, fingerprint);
+        }
+    }
+
+    /**
+     * Sums up the weights of merged hyperedges and stores the mapping from the representative character to
+     * the merged characters.
+     */
+    public static long getMergedWeight(CompressedBCDGraph source, TIntList mergedIndeces, TIntObjectMap<TIntList> charMapping) {
+        final int edgeIndex = mergedIndeces.get(0);
+        if (mergedIndeces.size() > 1) {
+            long weight = 0;
+            TIntIterator it = mergedIndeces.iterator();
+            while (it.hasNext()) {
+                weight += source.getWeight(it.next());
+            }
+            charMapping.put(edgeIndex, mergedIndeces);
+            return weight;
+        } else {
+            return source.getWeight(edgeIndex);
+        }
+    }
+
+    public static CutGraphImpl createHipri(CompressedBCDGraph source, List<RoaringBitmap> guideEdges, TIntObjectMap<TIntList> charMapping, TIntObjectMap<Node.IntNode> cutgraphTaxa) {
+        final TIntIntMap nodeToEdges = new TIntIntHashMap(source.numTaxa() + 2 * source.numCharacter());
+        final BitmapInterner<TIntList> hyperEdgeMerging = mergeHyperEdges(source, guideEdges);
+        final AtomicInteger numEdges = new AtomicInteger(0);
 
-                    nodeToEdges.adjustOrPutValue(edgeIndex, 1, 1);
-                    nodeToEdges.adjustOrPutValue(edgeCloneIndex, 1, 1);
+        hyperEdgeMerging.forEach((edgeOnes, mergedIndeces) -> {
+            final int edgeIndex = mergedIndeces.get(0);
+            final int edgeCloneIndex = source.getCloneIndex(edgeIndex);
 
-                    numEdges.getAndAdd(2);
+            nodeToEdges.adjustOrPutValue(edgeIndex, 1, 1);
+            nodeToEdges.adjustOrPutValue(edgeCloneIndex, 1, 1);
 
-                    edgeOnes.forEach((IntConsumer) t -> {
+            numEdges.getAndAdd(2);
 
-                        nodeToEdges.adjustOrPutValue(edgeIndex, 1, 1);
-                        nodeToEdges.adjustOrPutValue(edgeCloneIndex, 1, 1);
-                        nodeToEdges.adjustOrPutValue(t, 2, 2);
+            edgeOnes.forEach((IntConsumer) t -> {
+                nodeToEdges.adjustOrPutValue(edgeIndex, 1, 1);
+                nodeToEdges.adjustOrPutValue(edgeCloneIndex, 1, 1);
+                nodeToEdges.adjustOrPutValue(t, 2, 2);
 
-                        numEdges.getAndAdd(4);
-                    });
-                }
-                merged.add(edgeIndex);
-            }
+                numEdges.getAndAdd(4);
+            });
         });
 
 
@@ -173,18 +314,7 @@ public class CompressedSingleCutter implements GraphCutter<RoaringBitmap> {
             Node.IntNode out = hipri.createNode(edgeIndex, nodeToEdges.get(edgeCloneIndex));
             Node.IntNode in = hipri.createNode(edgeCloneIndex, nodeToEdges.get(edgeCloneIndex));
 
-            long weight = 0;
-            if (mergedIndeces.size() > 1) {
-                TIntIterator it = mergedIndeces.iterator();
-                while (it.hasNext()) {
-                    weight += source.getEdge(it.next()).getWeight();
-                }
-                charMapping.put(edgeIndex, mergedIndeces);
-            } else {
-                weight = source.getEdge(edgeIndex).getWeight();
-            }
-
-            hipri.addEdge(out, in, weight);
+            hipri.addEdge(out, in, getMergedWeight(source, mergedIndeces, charMapping));
 
             edgeOnes.forEach((IntConsumer) taxonIndex -> {
                 Node.IntNode t = cutgraphTaxa.get(taxonIndex);
@@ -202,27 +332,139 @@ public class CompressedSingleCutter implements GraphCutter<RoaringBitmap> {
     }
 
 
+    /**
+     * Same as {@link #createHipri(CompressedBCDGraph, List, TIntObjectMap, TIntObjectMap)} but creates an array based
+     * cut graph without any node or arc objects.
+     *
+     * @param cutgraphTaxa map to fill with the taxon indices mapped to their node index in the cut graph
+     */
+    public static ArrayCutGraphImpl createArrayHipri(CompressedBCDGraph source, List<RoaringBitmap> guideEdges, TIntObjectMap<TIntList> charMapping, TIntIntMap cutgraphTaxa) {
+        return createArrayHipri(source, mergeHyperEdges(source, guideEdges), charMapping, cutgraphTaxa);
+    }
+
+    /**
+     * Creates the array based cut graph from already merged hyperedges.
+     *
+     * @param hyperEdgeMerging merged hyperedges as created by {@link #mergeHyperEdges(CompressedBCDGraph)}
+     * @param cutgraphTaxa     map to fill with the taxon indices mapped to their node index in the cut graph
+     */
+    public static ArrayCutGraphImpl createArrayHipri(CompressedBCDGraph source, BitmapInterner<TIntList> hyperEdgeMerging, TIntObjectMap<TIntList> charMapping, TIntIntMap cutgraphTaxa) {
+        final TIntIntMap taxonToArcs = new TIntIntHashMap(source.numTaxa());
+
+        int numArcs = 0;
+        for (RoaringBitmap edgeOnes : hyperEdgeMerging.keys()) {
+            numArcs += 2 + 4 * edgeOnes.getCardinality();
+            edgeOnes.forEach((IntConsumer) t -> taxonToArcs.adjustOrPutValue(t, 2, 2));
+        }
+
+        final ArrayCutGraphImpl hipri = new ArrayCutGraphImpl(2 * hyperEdgeMerging.size() + taxonToArcs.size(), numArcs);
+
+        hyperEdgeMerging.forEach((edgeOnes, mergedIndeces) -> {
+            final int edgeIndex = mergedIndeces.get(0);
+            final int edgeCloneIndex = source.getCloneIndex(edgeIndex);
+            final int arcs = 1 + edgeOnes.getCardinality();
+
+            final int out = hipri.createNode(edgeIndex, arcs);
+            final int in = hipri.createNode(edgeCloneIndex, arcs);
+
+            hipri.addEdge(out, in, getMergedWeight(source, mergedIndeces, charMapping));
+
+            edgeOnes.forEach((IntConsumer) taxonIndex -> {
+                int t;
+                if (cutgraphTaxa.containsKey(taxonIndex)) {
+                    t = cutgraphTaxa.get(taxonIndex);
+                } else {
+                    t = hipri.createNode(taxonIndex, taxonToArcs.get(taxonIndex));
+                    cutgraphTaxa.put(taxonIndex, t);
+                }
+                hipri.addEdge(t, out, CutGraphCutter.getInfinity());
+                hipri.addEdge(in, t, CutGraphCutter.getInfinity());
+            });
+        });
+
+        return hipri;
+    }
+
+    /**
+     * Same as {@link #createArrayHipri(CompressedBCDGraph, BitmapInterner, TIntObjectMap, TIntIntMap)} but creates
+     * the graph for the Ahuja-Orlin max flow algorithm.
+     *
+     * @param hyperEdgeMerging merged hyperedges as created by {@link #mergeHyperEdges(CompressedBCDGraph)}
+     * @param cutgraphTaxa     map to fill with the taxon indices mapped to their node index in the cut graph
+     */
+    public static ArrayFlowGraph createArrayAhujaOrlin(CompressedBCDGraph source, BitmapInterner<TIntList> hyperEdgeMerging, TIntObjectMap<TIntList> charMapping, TIntIntMap cutgraphTaxa) {
+        final TIntIntMap taxonToArcs = new TIntIntHashMap(source.numTaxa());
+
+        int numArcs = 0;
+        for (RoaringBitmap edgeOnes : hyperEdgeMerging.keys()) {
+            numArcs += 2 + 4 * edgeOnes.getCardinality();
+            edgeOnes.forEach((IntConsumer) t -> taxonToArcs.adjustOrPutValue(t, 2, 2));
+        }
+
+        final ArrayFlowGraph flowGraph = new ArrayFlowGraph(2 * hyperEdgeMerging.size() + taxonToArcs.size(), numArcs);
+
+        hyperEdgeMerging.forEach((edgeOnes, mergedIndeces) -> {
+            final int edgeIndex = mergedIndeces.get(0);
+            final int edgeCloneIndex = source.getCloneIndex(edgeIndex);
+            final int arcs = 1 + edgeOnes.getCardinality();
+
+            final int out = flowGraph.createNode(edgeIndex, arcs);
+            final int in = flowGraph.createNode(edgeCloneIndex, arcs);
+
+            flowGraph.addEdge(out, in, getMergedWeight(source, mergedIndeces, charMapping));
+
+            edgeOnes.forEach((IntConsumer) taxonIndex -> {
+                int t;
+                if (cutgraphTaxa.containsKey(taxonIndex)) {
+                    t = cutgraphTaxa.get(taxonIndex);
+                } else {
+                    t = flowGraph.createNode(taxonIndex, taxonToArcs.get(taxonIndex));
+                    cutgraphTaxa.put(taxonIndex, t);
+                }
+                flowGraph.addEdge(t, out, CutGraphCutter.getInfinity());
+                flowGraph.addEdge(in, t, CutGraphCutter.getInfinity());
+            });
+        });
+
+        return flowGraph;
+    }
+
+
     @Override
     public Cut<RoaringBitmap> getMinCut() {
         return cachedCut;
     }
 
+    @Override
+    public CutStatistics getCutStatistics() {
+        return cachedStatistics;
+    }
+
     @Override
     public boolean isBCD() {
         return true;
     }
 
     public static class CompressedSingleCutterFactory implements CutterFactory<CompressedSingleCutter, RoaringBitmap, CompressedBCDGraph> {
+        private final CutGraphTypes type;
+
+        public CompressedSingleCutterFactory() {
+            this(CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG);
+        }
+
+        public CompressedSingleCutterFactory(CutGraphTypes type) {
+            this.type = type;
+        }
 
         @Override
         public CompressedSingleCutter newInstance(CompressedBCDGraph graph) {
-            return new CompressedSingleCutter();
+            return new CompressedSingleCutter(type);
         }
 
         @Override
         public CompressedSingleCutter newInstance(CompressedBCDGraph graph, ExecutorService executorService,
                                                   int threads) {
-            return new CompressedSingleCutter(threads, executorService);
+            return new CompressedSingleCutter(type, threads, executorService);
         }
 
         @Override
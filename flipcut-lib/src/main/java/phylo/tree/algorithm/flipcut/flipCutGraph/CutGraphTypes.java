@@ -5,7 +5,9 @@ public enum CutGraphTypes {
     MAXFLOW_AHOJI_ORLIN(false),
     HYPERGRAPH_MINCUT_VIA_MAXFLOW_TARJAN_GOLDBERG(true),
     HYPERGRAPH_MINCUT_VIA_MAXFLOW_AHOJI_ORLIN(true),
-    COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG(true);
+    COMPRESSED_BCD_VIA_MAXFLOW_TARJAN_GOLDBERG(true),
+    COMPRESSED_BCD_VIA_MAXFLOW_AHOJI_ORLIN(true),
+    COMPRESSED_BCD_VIA_MINCUT_HAO_ORLIN(true);
 
     private final boolean bcd;
 
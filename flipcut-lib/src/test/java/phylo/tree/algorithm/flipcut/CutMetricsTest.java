@@ -0,0 +1,83 @@
+package phylo.tree.algorithm.flipcut;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDSourceGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.CompressedSingleCutter;
+import phylo.tree.model.Tree;
+import phylo.tree.model.TreeUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static phylo.tree.algorithm.flipcut.FlipCutSingleCutParallelTest.randomTrees;
+
+/**
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class CutMetricsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordsMatchScore() {
+        final Random r = new Random(4711);
+        for (int threads : new int[]{1, -4}) {
+            for (int run = 0; run < 5; run++) {
+                final List<Tree> source = randomTrees(r, 3 + r.nextInt(8), 10 + r.nextInt(40));
+                final CutMetrics metrics = new CutMetrics();
+                final long score = run(source, threads, metrics);
+
+                long weight = 0;
+                for (CutMetrics.Record record : metrics.getRecords()) {
+                    weight += record.weight;
+                    assertTrue(record.components >= 2);
+                    assertTrue(record.flows >= record.abortedFlows);
+                }
+                assertTrue(metrics.getRecords().size() > 0);
+                assertEquals(score, weight);
+            }
+        }
+    }
+
+    @Test
+    public void testReports() throws Exception {
+        final CutMetrics metrics = new CutMetrics();
+        run(randomTrees(new Random(42), 6, 30), 1, metrics);
+
+        final File csv = new File(folder.getRoot(), "metrics.csv");
+        metrics.writeReport(csv.toPath());
+        final List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+        assertEquals(metrics.getRecords().size() + 1, lines.size());
+        final int columns = lines.get(0).split(",").length;
+        for (String line : lines) {
+            assertEquals(columns, line.split(",").length);
+        }
+
+        final File json = new File(folder.getRoot(), "metrics.json");
+        metrics.writeReport(json.toPath());
+        final String content = new String(Files.readAllBytes(json.toPath()), StandardCharsets.UTF_8);
+        assertTrue(content.trim().startsWith("{") && content.trim().endsWith("}"));
+        assertTrue(content.contains("\"summary\": {\"cuts\": " + metrics.getRecords().size() + ","));
+    }
+
+    private static long run(List<Tree> source, int threads, CutMetrics metrics) {
+        final CompressedBCDSourceGraph graph = CompressedGraphFactory.createSourceGraph(
+                SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.UNIT_COST), 0, true, threads);
+        final FlipCutSingleCut fs = new FlipCutSingleCut(new CompressedSingleCutter.CompressedSingleCutterFactory());
+        fs.setMetrics(metrics);
+        fs.setInput(graph);
+        fs.setNumberOfThreads(threads);
+        fs.run();
+        return Long.parseLong(fs.getResult().getName());
+    }
+}
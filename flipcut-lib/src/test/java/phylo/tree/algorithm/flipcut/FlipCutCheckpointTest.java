@@ -0,0 +1,183 @@
+package phylo.tree.algorithm.flipcut;
+
+import mincut.cutGraphAPI.bipartition.Cut;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.LoggerFactory;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDSourceGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.CompressedSingleCutter;
+import phylo.tree.algorithm.flipcut.cutter.CutterFactory;
+import phylo.tree.algorithm.flipcut.cutter.GraphCutter;
+import phylo.tree.io.Newick;
+import phylo.tree.model.Tree;
+import phylo.tree.model.TreeNode;
+import phylo.tree.model.TreeUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Interrupts the computation after some cuts and resumes it from the last checkpoint.
+ * The resumed computation has to end with the same supertree as an uninterrupted one.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class FlipCutCheckpointTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testResumeSingleThreaded() throws Exception {
+        resume(1, 4242);
+    }
+
+    @Test
+    public void testResumeParallel() throws Exception {
+        resume(-4, 2424);
+    }
+
+    private void resume(int threads, long seed) throws Exception {
+        final Random r = new Random(seed);
+        for (int run = 0; run < 10; run++) {
+            final List<Tree> source = FlipCutSingleCutParallelTest.randomTrees(r, 3 + r.nextInt(8), 20 + r.nextInt(40));
+            final List<String> taxa = new ArrayList<>();
+            for (Tree tree : source) {
+                for (TreeNode leaf : tree.getLeaves()) {
+                    if (!taxa.contains(leaf.getLabel()))
+                        taxa.add(leaf.getLabel());
+                }
+            }
+            final Tree guide = Newick.getTreeFromString(FlipCutSingleCutParallelTest.randomNewick(r, taxa, true) + ";");
+            final Path file = folder.newFile().toPath();
+            Files.delete(file);
+
+            final InterruptingCutterFactory counter = new InterruptingCutterFactory(Integer.MAX_VALUE);
+            final Tree expected = compute(createGraph(source, guide), threads, null, false, counter);
+            if (counter.numCuts() < 2)
+                continue;
+
+            try {
+                compute(createGraph(source, guide), threads, file, false, new InterruptingCutterFactory(1 + r.nextInt(counter.numCuts() - 1)));
+                fail("Computation was not interrupted");
+            } catch (RuntimeException e) {
+                // the failure of the cutter is passed on and the checkpoint of the failed run is kept
+                assertTrue("Unexpected failure: " + e, isInterrupted(e));
+            }
+            assertTrue(Files.exists(file));
+
+            final Tree resumed = compute(createGraph(source, guide), threads, file, true, new InterruptingCutterFactory(Integer.MAX_VALUE));
+            assertEquals(expected.getName(), resumed.getName());
+            assertEquals(Newick.getStringFromTree(expected), Newick.getStringFromTree(resumed));
+            assertFalse(Files.exists(file));
+        }
+    }
+
+    private static boolean isInterrupted(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IllegalStateException && "Interrupted".equals(cause.getMessage()))
+                return true;
+        }
+        return false;
+    }
+
+    private static CompressedBCDSourceGraph createGraph(List<Tree> source, Tree guide) {
+        return CompressedGraphFactory.createSourceGraph(
+                SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), guide.cloneTree(), FlipCutWeights.Weights.UNIT_COST), 0, true);
+    }
+
+    private static Tree compute(CompressedBCDSourceGraph graph, int threads, Path checkpoint, boolean resume, InterruptingCutterFactory factory) throws InterruptedException {
+        final ExecutorService executor = threads < 0 ? new ForkJoinPool(-threads) : Executors.newSingleThreadExecutor();
+        try {
+            final FlipCutSingleCut fs = new FlipCutSingleCut(LoggerFactory.getLogger(FlipCutCheckpointTest.class), executor, factory);
+            fs.setInput(graph);
+            fs.setNumberOfThreads(threads);
+            // write a checkpoint after every cut
+            fs.setCheckpoint(checkpoint, 0);
+            fs.setResume(resume);
+            fs.run();
+            return fs.getResult();
+        } finally {
+            // the remaining tasks of an interrupted computation may still write checkpoints
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static class InterruptingCutterFactory implements CutterFactory<GraphCutter<RoaringBitmap>, RoaringBitmap, CompressedBCDGraph> {
+        private final CompressedSingleCutter.CompressedSingleCutterFactory factory = new CompressedSingleCutter.CompressedSingleCutterFactory();
+        private final int maxCuts;
+        private final AtomicInteger cuts = new AtomicInteger();
+
+        InterruptingCutterFactory(int maxCuts) {
+            this.maxCuts = maxCuts;
+        }
+
+        int numCuts() {
+            return cuts.get();
+        }
+
+        @Override
+        public GraphCutter<RoaringBitmap> newInstance(CompressedBCDGraph graph) {
+            return new InterruptingCutter(factory.newInstance(graph));
+        }
+
+        @Override
+        public GraphCutter<RoaringBitmap> newInstance(CompressedBCDGraph graph, ExecutorService executorService, int threads) {
+            return new InterruptingCutter(factory.newInstance(graph, executorService, threads));
+        }
+
+        @Override
+        public boolean isBCD() {
+            return true;
+        }
+
+        private class InterruptingCutter implements GraphCutter<RoaringBitmap> {
+            private final GraphCutter<RoaringBitmap> cutter;
+
+            InterruptingCutter(GraphCutter<RoaringBitmap> cutter) {
+                this.cutter = cutter;
+            }
+
+            @Override
+            public void clear() {
+                cutter.clear();
+            }
+
+            @Override
+            public Cut<RoaringBitmap> cut(SourceTreeGraph<RoaringBitmap> source) {
+                if (cuts.incrementAndGet() > maxCuts)
+                    throw new IllegalStateException("Interrupted");
+                return cutter.cut(source);
+            }
+
+            @Override
+            public Cut<RoaringBitmap> getMinCut() {
+                return cutter.getMinCut();
+            }
+
+            @Override
+            public boolean isBCD() {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package phylo.tree.algorithm.flipcut;
+
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDSourceGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.CompressedSingleCutter;
+import phylo.tree.io.Newick;
+import phylo.tree.model.Tree;
+import phylo.tree.model.TreeNode;
+import phylo.tree.model.TreeUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Stress test for the parallel computation: all subgraphs share the hyperedges of the source graph,
+ * so the scores have to be the same for any number of threads. The source graph is created with the same
+ * number of threads, which must not change the graph either.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class FlipCutSingleCutParallelTest {
+    private static final int[] THREADS = {1, 4, -4, -16};
+
+    @Test
+    public void testRandomInstances() {
+        final Random r = new Random(4242);
+        for (int run = 0; run < 25; run++) {
+            final List<Tree> source = randomTrees(r, 3 + r.nextInt(8), 10 + r.nextInt(40));
+            compareScores(source, null);
+        }
+    }
+
+    @Test
+    public void testRandomInstancesWithGuideTree() {
+        final Random r = new Random(2424);
+        for (int run = 0; run < 25; run++) {
+            final List<Tree> source = randomTrees(r, 3 + r.nextInt(8), 10 + r.nextInt(40));
+            final List<String> taxa = new ArrayList<>();
+            for (Tree tree : source) {
+                for (TreeNode leaf : tree.getLeaves()) {
+                    if (!taxa.contains(leaf.getLabel()))
+                        taxa.add(leaf.getLabel());
+                }
+            }
+            compareScores(source, Newick.getTreeFromString(randomNewick(r, taxa, true) + ";"));
+        }
+    }
+
+    @Test
+    public void testAutomaticThreadsWithGivenExecutor() {
+        final Random r = new Random(4711);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int run = 0; run < 5; run++) {
+                final List<Tree> source = randomTrees(r, 3 + r.nextInt(8), 10 + r.nextInt(40));
+
+                final FlipCutSingleCut expected = new FlipCutSingleCut(new CompressedSingleCutter.CompressedSingleCutterFactory());
+                expected.setInput(CompressedGraphFactory.createSourceGraph(SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.UNIT_COST), 0, true));
+                expected.setNumberOfThreads(1);
+                expected.run();
+
+                // 0 threads with an executor that is not a fork join pool
+                final FlipCutSingleCut fs = new FlipCutSingleCut(LoggerFactory.getLogger(FlipCutSingleCut.class), executor, new CompressedSingleCutter.CompressedSingleCutterFactory());
+                fs.setInput(CompressedGraphFactory.createSourceGraph(SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.UNIT_COST), 0, true));
+                fs.setNumberOfThreads(0);
+                fs.run();
+
+                assertEquals(expected.getResult().getName(), fs.getResult().getName());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void compareScores(List<Tree> source, Tree guide) {
+        String expected = null;
+        for (int threads : THREADS) {
+            // every run needs a new graph, because the algorithm changes it
+            final CompressedBCDSourceGraph graph = CompressedGraphFactory.createSourceGraph(guide == null
+                    ? SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), FlipCutWeights.Weights.UNIT_COST)
+                    : SimpleCosts.newCostComputer(TreeUtils.cloneTrees(source), guide.cloneTree(), FlipCutWeights.Weights.UNIT_COST),
+                    0, true, threads);
+
+            final FlipCutSingleCut fs = new FlipCutSingleCut(new CompressedSingleCutter.CompressedSingleCutterFactory());
+            fs.setInput(graph);
+            fs.setNumberOfThreads(threads);
+            fs.run();
+
+            final String score = fs.getResult().getName();
+            if (expected == null)
+                expected = score;
+            assertEquals("Score with " + threads + " threads differs", expected, score);
+        }
+    }
+
+    static List<Tree> randomTrees(Random r, int numTrees, int numTaxa) {
+        final List<Tree> trees = new ArrayList<>(numTrees);
+        for (int i = 0; i < numTrees; i++) {
+            final List<String> taxa = new ArrayList<>();
+            for (int t = 0; t < numTaxa; t++) {
+                if (r.nextInt(3) > 0)
+                    taxa.add("t" + t);
+            }
+            while (taxa.size() < 3)
+                taxa.add("t" + (numTaxa + taxa.size()));
+            trees.add(Newick.getTreeFromString(randomNewick(r, taxa, false) + ";"));
+        }
+        return trees;
+    }
+
+    static String randomNewick(Random r, List<String> taxa, boolean polytomies) {
+        if (taxa.size() == 1)
+            return taxa.get(0);
+        if (polytomies && r.nextInt(3) == 0)
+            return "(" + String.join(",", taxa) + ")";
+
+        Collections.shuffle(taxa, r);
+        final int k = 1 + r.nextInt(taxa.size() - 1);
+        return "(" + randomNewick(r, new ArrayList<>(taxa.subList(0, k)), polytomies) + ","
+                + randomNewick(r, new ArrayList<>(taxa.subList(k, taxa.size())), polytomies) + ")";
+    }
+}
@@ -10,6 +10,7 @@ import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
 import phylo.tree.algorithm.flipcut.bcdGraph.edge.Hyperedge;
 import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
 import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.CompressedHaoOrlinCutter;
 import phylo.tree.algorithm.flipcut.cutter.CompressedSingleCutter;
 import phylo.tree.algorithm.flipcut.cutter.SingleCutGraphCutter;
 import phylo.tree.algorithm.flipcut.flipCutGraph.CutGraphTypes;
@@ -286,6 +287,36 @@ public class FlipCutSingleCutTest {
         //todo check difference?
     }
 
+    @Test
+    public void bcdHaoOrlinTests() {
+        CompressedBCDSourceGraph test = CompressedGraphFactory.createSourceGraph(SimpleCosts.newCostComputer(
+                TreeUtils.cloneTrees(source),
+                FlipCutWeights.Weights.UNIT_COST), 0, true);
+
+        long maxFlowCut = new CompressedSingleCutter().cut(test).minCutValue();
+        long haoOrlinCut = new CompressedHaoOrlinCutter().cut(test).minCutValue();
+        assertEquals(maxFlowCut, haoOrlinCut);
+
+        FlipCutSingleCut fs = new FlipCutSingleCut(new CompressedHaoOrlinCutter.CompressedHaoOrlinCutterFactory());
+        fs.setInput(test);
+        calculateSupertrees(fs, expected);
+    }
+
+    @Test
+    public void bcdAhujaOrlinTests() {
+        CompressedBCDSourceGraph test = CompressedGraphFactory.createSourceGraph(SimpleCosts.newCostComputer(
+                TreeUtils.cloneTrees(source),
+                FlipCutWeights.Weights.UNIT_COST), 0, true);
+
+        long goldbergTarjanCut = new CompressedSingleCutter().cut(test).minCutValue();
+        long ahujaOrlinCut = new CompressedSingleCutter(CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_AHOJI_ORLIN).cut(test).minCutValue();
+        assertEquals(goldbergTarjanCut, ahujaOrlinCut);
+
+        FlipCutSingleCut fs = new FlipCutSingleCut(new CompressedSingleCutter.CompressedSingleCutterFactory(CutGraphTypes.COMPRESSED_BCD_VIA_MAXFLOW_AHOJI_ORLIN));
+        fs.setInput(test);
+        calculateSupertrees(fs, expected);
+    }
+
     /*@Test
     public void testBryantSample2() {
 
@@ -0,0 +1,64 @@
+package phylo.tree.algorithm.flipcut.bcdGraph;
+
+import org.junit.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class BitmapInternerTest {
+
+    @Test
+    public void testDerivedFingerprints() {
+        final Random r = new Random(42);
+        for (int run = 0; run < 100; run++) {
+            final RoaringBitmap a = new RoaringBitmap();
+            final RoaringBitmap b = new RoaringBitmap();
+            for (int t = 0; t < 200; t++) {
+                final int side = r.nextInt(3);
+                if (side == 0) a.add(t);
+                else if (side == 1) b.add(t);
+            }
+            final long fa = BitmapInterner.fingerprint(a);
+            final long fb = BitmapInterner.fingerprint(b);
+
+            // disjoint union and difference
+            final RoaringBitmap union = RoaringBitmap.or(a, b);
+            assertEquals(BitmapInterner.fingerprint(union), fa ^ fb);
+            assertEquals(BitmapInterner.fingerprint(RoaringBitmap.andNot(union, a)), fa ^ fb ^ fa);
+
+            // merging all taxa of b into its first taxon
+            if (!b.isEmpty()) {
+                final RoaringBitmap merged = a.clone();
+                merged.add(b.first());
+                assertEquals(BitmapInterner.fingerprint(merged), fa ^ BitmapInterner.key(b.first()));
+            }
+        }
+    }
+
+    @Test
+    public void testCollisions() {
+        final BitmapInterner<String> interner = new BitmapInterner<>();
+        final RoaringBitmap a = RoaringBitmap.bitmapOf(1, 2, 3);
+        final RoaringBitmap b = RoaringBitmap.bitmapOf(4, 5);
+
+        // same fingerprint for different content has to be resolved by equals
+        assertNull(interner.putIfAbsent(a, 7L, "a"));
+        assertNull(interner.putIfAbsent(b, 7L, "b"));
+        assertEquals("a", interner.get(RoaringBitmap.bitmapOf(1, 2, 3), 7L));
+        assertEquals("b", interner.putIfAbsent(RoaringBitmap.bitmapOf(4, 5), 7L, "c"));
+        assertEquals(2, interner.size());
+        assertSame(a, interner.keys().get(0));
+        assertSame(b, interner.keys().get(1));
+
+        final BitmapInterner.Concurrent concurrent = new BitmapInterner.Concurrent(4);
+        assertSame(a, concurrent.intern(a, BitmapInterner.fingerprint(a)));
+        assertSame(a, concurrent.intern(RoaringBitmap.bitmapOf(1, 2, 3), BitmapInterner.fingerprint(a)));
+    }
+}
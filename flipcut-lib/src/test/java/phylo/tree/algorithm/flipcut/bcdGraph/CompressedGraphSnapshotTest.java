@@ -0,0 +1,141 @@
+package phylo.tree.algorithm.flipcut.bcdGraph;
+
+import gnu.trove.iterator.TObjectLongIterator;
+import gnu.trove.map.TObjectLongMap;
+import gnu.trove.map.hash.TObjectLongHashMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.roaringbitmap.RoaringBitmap;
+import phylo.tree.algorithm.flipcut.FlipCutSingleCut;
+import phylo.tree.algorithm.flipcut.bcdGraph.edge.Hyperedge;
+import phylo.tree.algorithm.flipcut.bcdGraph.edge.MergedHyperedge;
+import phylo.tree.algorithm.flipcut.bcdGraph.edge.SimpleHyperedge;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.algorithm.flipcut.cutter.CompressedSingleCutter;
+import phylo.tree.io.Newick;
+import phylo.tree.model.Tree;
+import phylo.tree.model.TreeUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class CompressedGraphSnapshotTest {
+    private static final List<Tree> SOURCE = Arrays.asList(
+            Newick.getTreeFromString("(((a,b),c),(d,e));"),
+            Newick.getTreeFromString("(((a,b),c),(d,f));"),
+            Newick.getTreeFromString("((a,c),(b,(e,f)));"),
+            Newick.getTreeFromString("((a,b),(c,d),g);")
+    );
+    private static final Tree GUIDE = Newick.getTreeFromString("(((a,b),c),(d,(e,f)),g);");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTripMergedEdges() throws IOException {
+        roundTrip(true);
+    }
+
+    @Test
+    public void testRoundTripSimpleEdges() throws IOException {
+        roundTrip(false);
+    }
+
+    // small regions, so that the file is mapped as several regions like a snapshot larger than 2 GB
+    @Test
+    public void testRoundTripSmallRegions() throws IOException {
+        roundTrip(true, 64);
+        roundTrip(false, 64);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedSnapshot() throws IOException {
+        final Path file = folder.newFile().toPath();
+        CompressedGraphSnapshot.write(createGraph(true), file);
+        final byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        CompressedGraphSnapshot.read(file, 64);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoSnapshot() throws IOException {
+        final Path file = folder.newFile().toPath();
+        Files.write(file, "(a,b);".getBytes());
+        CompressedGraphSnapshot.read(file);
+    }
+
+    private void roundTrip(boolean mergedEdges) throws IOException {
+        roundTrip(mergedEdges, Integer.MAX_VALUE);
+    }
+
+    private void roundTrip(boolean mergedEdges, int maxRegionSize) throws IOException {
+        final Path file = folder.newFile().toPath();
+        CompressedGraphSnapshot.write(createGraph(mergedEdges), file);
+        assertTrue(maxRegionSize == Integer.MAX_VALUE || Files.size(file) > 4 * maxRegionSize);
+
+        final CompressedBCDSourceGraph expected = createGraph(mergedEdges);
+        final CompressedBCDSourceGraph loaded = CompressedGraphSnapshot.read(file, maxRegionSize);
+
+        assertArrayEquals(expected.sourceTaxa, loaded.sourceTaxa);
+        assertEquals(expected.taxa, loaded.taxa);
+        assertEquals(expected.characters, loaded.characters);
+        assertEquals(expected.activeGuideEdges, loaded.activeGuideEdges);
+        assertEquals(expected.scaffoldCharacterHirarchie, loaded.scaffoldCharacterHirarchie);
+        assertArrayEquals(expected.taxonCharacters, loaded.taxonCharacters);
+        assertEquals(expected.getFirstEdgeCloneIndex(), loaded.getFirstEdgeCloneIndex());
+
+        for (int character : expected.sourceMergedHyperEdges.keys()) {
+            final Hyperedge e = expected.getEdge(character);
+            final Hyperedge l = loaded.getEdge(character);
+            assertSame(e.getClass(), l.getClass());
+            assertEquals(e.ones(), l.ones());
+            assertEquals(e.onesFingerprint(), l.onesFingerprint());
+            assertEquals(e.getWeight(), l.getWeight());
+            assertEquals(e.getWeight(expected.taxa), l.getWeight(loaded.taxa));
+            if (e instanceof MergedHyperedge) {
+                assertEquals(zeros((MergedHyperedge) e), zeros((MergedHyperedge) l));
+            } else {
+                assertEquals(((SimpleHyperedge) e).zeroes(), ((SimpleHyperedge) l).zeroes());
+            }
+        }
+
+        assertEquals(run(expected), run(loaded));
+    }
+
+    private static CompressedBCDSourceGraph createGraph(boolean mergedEdges) {
+        return CompressedGraphFactory.createSourceGraph(
+                SimpleCosts.newCostComputer(TreeUtils.cloneTrees(SOURCE), GUIDE.cloneTree(), FlipCutWeights.Weights.UNIT_COST),
+                0, mergedEdges);
+    }
+
+    private static TObjectLongMap<RoaringBitmap> zeros(MergedHyperedge edge) {
+        final TObjectLongMap<RoaringBitmap> zeros = new TObjectLongHashMap<>();
+        final TObjectLongIterator<RoaringBitmap> it = edge.zeroIterator();
+        while (it.hasNext()) {
+            it.advance();
+            zeros.put(it.key(), it.value());
+        }
+        return zeros;
+    }
+
+    private static String run(CompressedBCDSourceGraph graph) {
+        final FlipCutSingleCut fs = new FlipCutSingleCut(new CompressedSingleCutter.CompressedSingleCutterFactory());
+        fs.setInput(graph);
+        fs.setNumberOfThreads(1);
+        fs.run();
+        return fs.getResult().getName() + Newick.getStringFromTree(fs.getResult());
+    }
+}
@@ -0,0 +1,59 @@
+package phylo.tree.algorithm.flipcut.cutter;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Test;
+import phylo.tree.algorithm.flipcut.bcdGraph.BitmapInterner;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedBCDSourceGraph;
+import phylo.tree.algorithm.flipcut.bcdGraph.CompressedGraphFactory;
+import phylo.tree.algorithm.flipcut.costComputer.FlipCutWeights;
+import phylo.tree.algorithm.flipcut.costComputer.SimpleCosts;
+import phylo.tree.io.Newick;
+import phylo.tree.model.Tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class CompressedSingleCutterTest {
+
+    @Test
+    public void testMergedHyperedgeOrder() {
+        final List<Tree> source = Arrays.asList(
+                Newick.getTreeFromString("(((a,b),c),(d,e));"),
+                Newick.getTreeFromString("(((a,c),b),(d,f));"),
+                Newick.getTreeFromString("((a,(b,d)),(c,e,f));"),
+                Newick.getTreeFromString("(((e,f),d),(a,b));"));
+        final Tree guide = Newick.getTreeFromString("((a,b),(e,f),c,d);");
+        final CompressedBCDSourceGraph graph = CompressedGraphFactory.createSourceGraph(
+                SimpleCosts.newCostComputer(source, guide, FlipCutWeights.Weights.UNIT_COST), 0, true);
+
+        final BitmapInterner<TIntList> merging = CompressedSingleCutter.mergeHyperEdges(graph, CompressedSingleCutter.createGuideEdges(graph));
+        final List<TIntList> merged = new ArrayList<>();
+        merging.forEach((ones, characters) -> merged.add(characters));
+        assertEquals(merging.size(), merged.size());
+
+        // ordered by the first character, independent of the hash codes of the bitmaps
+        final TIntSet seen = new TIntHashSet();
+        boolean mergedCharacters = false;
+        int lastFirst = -1;
+        for (TIntList characters : merged) {
+            assertTrue("Merged hyperedges are not in character order", lastFirst < characters.get(0));
+            lastFirst = characters.get(0);
+            mergedCharacters |= characters.size() > 1;
+            for (int i = 0; i < characters.size(); i++) {
+                assertTrue("Character merged twice", seen.add(characters.get(i)));
+                if (i > 0)
+                    assertTrue(characters.get(i - 1) < characters.get(i));
+            }
+        }
+        assertTrue("The guide tree should merge characters", mergedCharacters);
+    }
+}
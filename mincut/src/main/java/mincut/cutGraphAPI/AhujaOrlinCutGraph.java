@@ -1,16 +1,16 @@
 package mincut.cutGraphAPI;
 
 import core.utils.parallel.IterationCallableFactory;
-import gnu.trove.iterator.TIntIterator;
-import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.map.hash.TObjectIntHashMap;
-import gnu.trove.set.hash.TIntHashSet;
 import mincut.cutGraphAPI.bipartition.STCut;
-import mincut.cutGraphImpl.maxFlowAhujaOrlin.FlowGraph;
+import mincut.cutGraphImpl.maxFlowAhujaOrlin.ArrayFlowGraph;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by fleisch on 21.09.15.
@@ -20,23 +20,31 @@ public class AhujaOrlinCutGraph<V> extends MaxFlowCutGraph<V> implements CutGrap
      * The internal nodes to simplify graph construction
      */
     private TObjectIntHashMap<V> vertexToNode = new TObjectIntHashMap<>();
-    TIntObjectHashMap<V> nodeToVertex = new TIntObjectHashMap<>();
+    private List<V> nodeToVertex = new ArrayList<>();
+
+    /**
+     * The edges and the number of arcs per node, collected until the flow graph is built
+     */
+    private TIntArrayList edgeSources = new TIntArrayList();
+    private TIntArrayList edgeTargets = new TIntArrayList();
+    private TLongArrayList edgeCaps = new TLongArrayList();
+    private TIntArrayList arcs = new TIntArrayList();
 
     private AhujaOrlinCallableFactory factory;
 
     /**
-     * The internal graph
+     * The internal graph, its structure is shared between the callables
      */
-    private final FlowGraph ahujaGraph = new FlowGraph();
-    private int nodeCounter = 0;
+    private ArrayFlowGraph ahujaGraph = null;
 
 
     @Override
     public void addNode(V vertex) {
         if (!vertexToNode.containsKey(vertex)) {
-            vertexToNode.put(vertex, ++nodeCounter);
-            nodeToVertex.put(nodeCounter, vertex);
-            ahujaGraph.addNode(nodeCounter);
+            vertexToNode.put(vertex, nodeToVertex.size());
+            nodeToVertex.add(vertex);
+            arcs.add(0);
+            ahujaGraph = null;
         }
 
     }
@@ -45,7 +53,14 @@ public class AhujaOrlinCutGraph<V> extends MaxFlowCutGraph<V> implements CutGrap
     public void addEdge(V vertex1, V vertex2, long capacity) {
         addNode(vertex1);
         addNode(vertex2);
-        ahujaGraph.addEdge(vertexToNode.get(vertex1), vertexToNode.get(vertex2), capacity);
+        final int source = vertexToNode.get(vertex1);
+        final int target = vertexToNode.get(vertex2);
+        edgeSources.add(source);
+        edgeTargets.add(target);
+        edgeCaps.add(capacity);
+        arcs.setQuick(source, arcs.getQuick(source) + 1);
+        arcs.setQuick(target, arcs.getQuick(target) + 1);
+        ahujaGraph = null;
     }
 
 
@@ -54,8 +69,25 @@ public class AhujaOrlinCutGraph<V> extends MaxFlowCutGraph<V> implements CutGrap
         super.clear();
         vertexToNode.clear();
         nodeToVertex.clear();
-        ahujaGraph.clear();
-        nodeCounter = 0;
+        edgeSources.clear();
+        edgeTargets.clear();
+        edgeCaps.clear();
+        arcs.clear();
+        ahujaGraph = null;
+    }
+
+    private synchronized ArrayFlowGraph getFlowGraph() {
+        if (ahujaGraph == null) {
+            final ArrayFlowGraph graph = new ArrayFlowGraph(nodeToVertex.size(), 2 * edgeSources.size());
+            for (int i = 0; i < nodeToVertex.size(); i++) {
+                graph.createNode(i, arcs.getQuick(i));
+            }
+            for (int i = 0; i < edgeSources.size(); i++) {
+                graph.addEdge(edgeSources.getQuick(i), edgeTargets.getQuick(i), edgeCaps.getQuick(i));
+            }
+            ahujaGraph = graph;
+        }
+        return ahujaGraph;
     }
 
     /**
@@ -66,40 +98,54 @@ public class AhujaOrlinCutGraph<V> extends MaxFlowCutGraph<V> implements CutGrap
      */
     @Override
     public STCut<V> calculateMinSTCut(V source, V sink) {
-        return calculateMinSTCut(source, sink, ahujaGraph);
+        return calculateMinSTCut(source, sink, getFlowGraph());
     }
 
-    STCut<V> calculateMinSTCut(final V source, final V sink, final FlowGraph ahujaGraph) {
-        ahujaGraph.setSource(vertexToNode.get(source));
-        ahujaGraph.setSink(vertexToNode.get(sink));
+    @Override
+    STCut<V> calculateMinSTCut(V source, V sink, long cutoff, AtomicLong sharedBound) {
+        return calculateMinSTCut(source, sink, getFlowGraph(), cutoff, sharedBound);
+    }
 
-        List<LinkedHashSet<V>> sourceList = creatCut(ahujaGraph);
-        STCut<V> cut = new STCut(sourceList.get(0), sourceList.get(1), source, sink, (long) ahujaGraph.getMaximumFlow());
-        return cut;
+    STCut<V> calculateMinSTCut(final V source, final V sink, final ArrayFlowGraph ahujaGraph) {
+        return calculateMinSTCut(source, sink, ahujaGraph, Long.MAX_VALUE, null);
     }
 
-    private List<LinkedHashSet<V>> creatCut(FlowGraph flowGraph) {
-        //create source set
-        TIntHashSet sourceSet = flowGraph.calculateSTCut();
-        TIntIterator sIt = sourceSet.iterator();
-        LinkedHashSet<V> sset = new LinkedHashSet<>(sourceSet.size());
-        while (sIt.hasNext()) {
-            sset.add(nodeToVertex.get(sIt.next()));
+    STCut<V> calculateMinSTCut(final V source, final V sink, final ArrayFlowGraph ahujaGraph, long cutoff, AtomicLong sharedBound) {
+        ahujaGraph.setSource(vertexToNode.get(source));
+        ahujaGraph.setSink(vertexToNode.get(sink));
+        ahujaGraph.setCutoff(cutoff);
+        ahujaGraph.setSharedBound(sharedBound);
+
+        final MaxFlowStatistics statistics = getStatistics();
+        if (statistics == null) {
+            ahujaGraph.calculateMaxFlow();
+        } else {
+            // augmentations are counted as pushes
+            final long augmentations = ahujaGraph.getAugmentCount();
+            final long relabels = ahujaGraph.getRelabelCount();
+            final long gaps = ahujaGraph.getGapCount();
+            ahujaGraph.calculateMaxFlow();
+            statistics.addFlow(ahujaGraph.isAborted(), ahujaGraph.getAugmentCount() - augmentations,
+                    ahujaGraph.getRelabelCount() - relabels, ahujaGraph.getGapCount() - gaps, 0);
         }
-
-        //create target set
-        TIntHashSet targetSet = flowGraph.getTSet(sourceSet);
-        TIntIterator tIt = targetSet.iterator();
-        LinkedHashSet<V> tset = new LinkedHashSet<>(targetSet.size());
-        while (tIt.hasNext()) {
-            tset.add(nodeToVertex.get(tIt.next()));
+        final long value = (long) ahujaGraph.getValue();
+        if (ahujaGraph.isAborted())
+            return new STCut<>(new LinkedHashSet<>(), new LinkedHashSet<>(), source, sink, value);
+
+        //create source and target set, the source set contains the nodes reachable from the source
+        final LinkedHashSet<V> sset = new LinkedHashSet<>();
+        final LinkedHashSet<V> tset = new LinkedHashSet<>();
+        for (int i = 0; i < ahujaGraph.numNodes(); i++) {
+            if (ahujaGraph.isReachableFromSource(i))
+                sset.add(nodeToVertex.get(ahujaGraph.getName(i)));
+            else
+                tset.add(nodeToVertex.get(ahujaGraph.getName(i)));
         }
-
-        return Arrays.asList(sset, tset);
+        return new STCut<>(sset, tset, source, sink, value);
     }
 
     private class AhujaOrlinCallable extends MaxFlowCallable {
-        private FlowGraph flowGraph = null;
+        private ArrayFlowGraph flowGraph = null;
 
         AhujaOrlinCallable(List<SS> jobs) {
             super(jobs);
@@ -109,13 +155,18 @@ public class AhujaOrlinCutGraph<V> extends MaxFlowCutGraph<V> implements CutGrap
         @Override
         void initGraph() {
             if (flowGraph == null)
-                flowGraph = ahujaGraph.clone();
+                flowGraph = new ArrayFlowGraph(getFlowGraph());
         }
 
         @Override
         public STCut<V> doJob(SS ss) {
             return calculateMinSTCut(ss.source, ss.sink, flowGraph);
         }
+
+        @Override
+        STCut<V> doJob(SS ss, long cutoff, AtomicLong sharedBound) {
+            return calculateMinSTCut(ss.source, ss.sink, flowGraph, cutoff, sharedBound);
+        }
     }
 
     @Override
@@ -26,6 +26,7 @@ import mincut.cutGraphImpl.maxFlowGoldbergTarjan.CutGraphImpl;
 import mincut.cutGraphImpl.maxFlowGoldbergTarjan.Node;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is an implementation of the push-relabel method to compute minimum mincut/maximum flows
@@ -171,11 +172,41 @@ public class GoldbergTarjanCutGraph<V> extends MaxFlowCutGraph<V> implements Cut
         return calculateMinSTCut(source, sink, hipri, algoNodes);
     }
 
+    @Override
+    STCut<V> calculateMinSTCut(V source, V sink, long cutoff, AtomicLong sharedBound) {
+        if (hipri == null) {
+            algoNodes = new HashMap<>(nodes.size());
+            hipri = createHipri(algoNodes);
+        }
+        return calculateMinSTCut(source, sink, hipri, algoNodes, cutoff, sharedBound);
+    }
+
     STCut<V> calculateMinSTCut(final V source, final V sink, final CutGraphImpl hipri, Map<N, Node> algoNodeMap) {
+        return calculateMinSTCut(source, sink, hipri, algoNodeMap, Long.MAX_VALUE, null);
+    }
+
+    STCut<V> calculateMinSTCut(final V source, final V sink, final CutGraphImpl hipri, Map<N, Node> algoNodeMap, long cutoff, AtomicLong sharedBound) {
         hipri.setSource(algoNodeMap.get(nodes.get(source)));
         hipri.setSink(algoNodeMap.get(nodes.get(sink)));
+        hipri.setCutoff(cutoff);
+        hipri.setSharedBound(sharedBound);
+
+        final MaxFlowStatistics statistics = getStatistics();
+        if (statistics == null) {
+            hipri.calculateMaxFlow(false);
+        } else {
+            final long pushes = hipri.getPushCount();
+            final long relabels = hipri.getRelabelCount();
+            final long gaps = hipri.getGapCount();
+            final long updates = hipri.getUpdateCount();
+            hipri.calculateMaxFlow(false);
+            statistics.addFlow(hipri.isAborted(), hipri.getPushCount() - pushes, hipri.getRelabelCount() - relabels,
+                    hipri.getGapCount() - gaps, hipri.getUpdateCount() - updates);
+        }
+        if (hipri.isAborted())
+            return new STCut<>(new LinkedHashSet<>(), new LinkedHashSet<>(), source, sink, hipri.getValue());
 
-        List<LinkedHashSet<Object>> cutList = hipri.calculateMaxSTFlowFull(false);
+        List<LinkedHashSet<Object>> cutList = hipri.getCutSets();
         return new STCut(cutList.get(0), cutList.get(1), source, sink, hipri.getValue());
     }
 
@@ -199,6 +230,11 @@ public class GoldbergTarjanCutGraph<V> extends MaxFlowCutGraph<V> implements Cut
         public STCut<V> doJob(SS ss) {
             return calculateMinSTCut(ss.source, ss.sink, hipri, algoNodeMap);
         }
+
+        @Override
+        STCut<V> doJob(SS ss, long cutoff, AtomicLong sharedBound) {
+            return calculateMinSTCut(ss.source, ss.sink, hipri, algoNodeMap, cutoff, sharedBound);
+        }
     }
 
     @Override
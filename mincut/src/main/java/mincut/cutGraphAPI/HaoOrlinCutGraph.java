@@ -0,0 +1,126 @@
+package mincut.cutGraphAPI;
+
+import mincut.cutGraphAPI.bipartition.STCut;
+import mincut.cutGraphImpl.minCutHaoOrlin.HaoOrlinCutGraphImpl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Global minimum cut on a directed graph using a single preflow (Hao-Orlin) instead of n-1 independent
+ * maximum flow computations.
+ * <p>
+ * Only cuts that separate at least two terminals are considered. Terminals can be added via
+ * {@link #addTerminal(Object)}. If no terminal is specified, every node is a terminal. The first terminal is
+ * always part of the source set of the resulting cut.
+ *
+ * @param <V> the nodes type
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class HaoOrlinCutGraph<V> implements CutGraph<V>, Cutting<V> {
+    private final Map<V, N> nodes = new LinkedHashMap<>();
+    private int edges = 0;
+    private int terminals = 0;
+
+    @Override
+    public void addNode(V vertex) {
+        if (!nodes.containsKey(vertex))
+            nodes.put(vertex, new N());
+    }
+
+    /**
+     * Adds the given node as terminal to the graph. Marks the node as terminal if it is already contained.
+     *
+     * @param vertex the terminal
+     */
+    public void addTerminal(V vertex) {
+        addNode(vertex);
+        N node = nodes.get(vertex);
+        if (!node.terminal) {
+            node.terminal = true;
+            terminals++;
+        }
+    }
+
+    @Override
+    public void addEdge(V vertex1, V vertex2, long capacity) {
+        addNode(vertex1);
+        addNode(vertex2);
+        nodes.get(vertex1).edges.add(new E(vertex2, capacity));
+        edges++;
+    }
+
+    @Override
+    public void clear() {
+        nodes.clear();
+        edges = 0;
+        terminals = 0;
+    }
+
+    @Override
+    public STCut<V> calculateMinCut() {
+        final boolean allTerminal = terminals == 0;
+        final HaoOrlinCutGraphImpl hoGraph = new HaoOrlinCutGraphImpl(nodes.size(), edges);
+        final List<V> vertices = new ArrayList<>(nodes.size());
+        final Map<V, Integer> index = new LinkedHashMap<>(nodes.size());
+
+        for (Map.Entry<V, N> entry : nodes.entrySet()) {
+            final int i = (allTerminal || entry.getValue().terminal)
+                    ? hoGraph.createTerminal(vertices.size())
+                    : hoGraph.createNode(vertices.size());
+            vertices.add(entry.getKey());
+            index.put(entry.getKey(), i);
+        }
+
+        for (Map.Entry<V, N> entry : nodes.entrySet()) {
+            final int source = index.get(entry.getKey());
+            for (E edge : entry.getValue().edges) {
+                hoGraph.addEdge(source, index.get(edge.target), edge.cap);
+            }
+        }
+
+        hoGraph.calculateMinCut();
+        if (hoGraph.getValue() == Long.MAX_VALUE)
+            return new STCut<>(new LinkedHashSet<>(), new LinkedHashSet<>(), Long.MAX_VALUE);
+
+        final LinkedHashSet<V> sSet = new LinkedHashSet<>();
+        final LinkedHashSet<V> tSet = new LinkedHashSet<>();
+        V source = null;
+        for (int i = 0; i < hoGraph.n; i++) {
+            final V vertex = vertices.get(hoGraph.getName(i));
+            if (hoGraph.isInSourceSet(i)) {
+                if (source == null && hoGraph.isTerminal(i))
+                    source = vertex;
+                sSet.add(vertex);
+            } else {
+                tSet.add(vertex);
+            }
+        }
+
+        return new STCut<>(sSet, tSet, source, vertices.get(hoGraph.getName(hoGraph.getSink())), hoGraph.getValue());
+    }
+
+    /**
+     * Internal builder representation for Nodes
+     */
+    private class N {
+        private final List<E> edges = new ArrayList<>();
+        private boolean terminal = false;
+    }
+
+    /**
+     * Internal representation for edges
+     */
+    private class E {
+        final V target;
+        final long cap;
+
+        E(V target, long capacity) {
+            this.target = target;
+            this.cap = capacity;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by fleisch on 07.05.15.
@@ -22,6 +23,17 @@ public abstract class MaxFlowCutGraph<V> implements DirectedCutting<V>, Cutting<
 
     final ArrayList<SS> stToCalculate = new ArrayList<>();
 
+    /**
+     * Value of the best cut found so far by any worker. Used to stop flow computations that can not result in a
+     * better cut.
+     */
+    final AtomicLong bestValue = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * Collects the operation counts of the flow computations if not null
+     */
+    private MaxFlowStatistics statistics = null;
+
 
     public void setExecutorService(ExecutorService executorService) {
         this.executorService = executorService;
@@ -31,6 +43,18 @@ public abstract class MaxFlowCutGraph<V> implements DirectedCutting<V>, Cutting<
         this.threads = threads;
     }
 
+    /**
+     * @param statistics sums up the operation counts of all following flow computations, null disables it.
+     *                   Only supported by some implementations.
+     */
+    public void setStatistics(MaxFlowStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public MaxFlowStatistics getStatistics() {
+        return statistics;
+    }
+
     public void submitSTCutCalculation(V source, V sink) {
         stToCalculate.add(new SS(source, sink));
     }
@@ -48,6 +72,7 @@ public abstract class MaxFlowCutGraph<V> implements DirectedCutting<V>, Cutting<
     }
 
     public STCut<V> calculateMinCut() throws ExecutionException, InterruptedException {
+        bestValue.set(Long.MAX_VALUE);
         if (threads == 1 || executorService == null) {
             return calculatMinCutSingle();
         } else {
@@ -62,7 +87,9 @@ public abstract class MaxFlowCutGraph<V> implements DirectedCutting<V>, Cutting<
             SS st = stToCalculate.get(i);
             STCut<V> next = calculateMinSTCut(
                     st.source,
-                    st.sink);
+                    st.sink,
+                    cut.minCutValue(),
+                    null);
             if (next.minCutValue() < cut.minCutValue())
                 cut = next;
         }
@@ -87,6 +114,18 @@ public abstract class MaxFlowCutGraph<V> implements DirectedCutting<V>, Cutting<
         stToCalculate.clear();
     }
 
+    /**
+     * Calculates the s-t cut, but may stop the computation if the cut can not be better than the given bounds.
+     * Implementations that support this return a cut with a value of at least the respective bound (and possibly empty
+     * cut sets) in that case.
+     *
+     * @param cutoff      stop if the cut value is greater or equal than this value
+     * @param sharedBound stop if the cut value is strictly greater than this value (may be null)
+     */
+    STCut<V> calculateMinSTCut(V source, V sink, long cutoff, AtomicLong sharedBound) {
+        return calculateMinSTCut(source, sink);
+    }
+
     //    abstract <T extends MaxFlowCallable> IterationCallableFactory<T, SS> getMaxFlowCallableFactory();
     abstract IterationCallableFactory<? extends DefaultIterationCallable<SS, STCut<V>>, SS> getMaxFlowCallableFactory();
 
@@ -97,6 +136,13 @@ public abstract class MaxFlowCutGraph<V> implements DirectedCutting<V>, Cutting<
 
         abstract void initGraph();
 
+        /**
+         * Calculates the cut of the given job. Implementations may stop jobs early that can not be better than
+         * the given cutoff or the best cut of all workers (see {@link #calculateMinSTCut(Object, Object, long, AtomicLong)}).
+         */
+        STCut<V> doJob(SS job, long cutoff, AtomicLong sharedBound) throws Exception {
+            return doJob(job);
+        }
 
         @Override
         public List<STCut<V>> call() throws Exception {
@@ -104,9 +150,13 @@ public abstract class MaxFlowCutGraph<V> implements DirectedCutting<V>, Cutting<
             STCut<V> best = STCut.MAX_CUT_DUMMY;
 
             for (SS job : jobs) {
-                STCut<V> next = doJob(job);
-                if (next.minCutValue() < best.minCutValue())
+                // equal cuts of other workers do not stop a job, so the result does not depend on thread timing
+                STCut<V> next = doJob(job, best.minCutValue(), bestValue);
+                if (next.minCutValue() < best.minCutValue()) {
                     best = next;
+                    final long value = best.minCutValue();
+                    bestValue.accumulateAndGet(value, Math::min);
+                }
             }
             return Arrays.asList(best);
         }
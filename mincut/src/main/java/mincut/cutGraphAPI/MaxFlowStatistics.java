@@ -0,0 +1,58 @@
+package mincut.cutGraphAPI;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operation counts of the s-t flow computations of a {@link MaxFlowCutGraph}, summed up over all flows and workers.
+ * For push-relabel implementations pushes are the number of push operations, for augmenting path implementations
+ * the number of augmentations.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class MaxFlowStatistics {
+    private final LongAdder flows = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+    private final LongAdder pushes = new LongAdder();
+    private final LongAdder relabels = new LongAdder();
+    private final LongAdder gaps = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+
+    /**
+     * Adds the counts of one s-t flow computation
+     *
+     * @param aborted true if the flow was stopped because it can not result in a better cut
+     */
+    public void addFlow(boolean aborted, long pushes, long relabels, long gaps, long updates) {
+        flows.increment();
+        if (aborted)
+            this.aborted.increment();
+        this.pushes.add(pushes);
+        this.relabels.add(relabels);
+        this.gaps.add(gaps);
+        this.updates.add(updates);
+    }
+
+    public long getFlows() {
+        return flows.sum();
+    }
+
+    public long getAborted() {
+        return aborted.sum();
+    }
+
+    public long getPushes() {
+        return pushes.sum();
+    }
+
+    public long getRelabels() {
+        return relabels.sum();
+    }
+
+    public long getGaps() {
+        return gaps.sum();
+    }
+
+    public long getUpdates() {
+        return updates.sum();
+    }
+}
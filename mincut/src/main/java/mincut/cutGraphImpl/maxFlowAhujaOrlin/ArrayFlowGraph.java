@@ -0,0 +1,360 @@
+package mincut.cutGraphImpl.maxFlowAhujaOrlin;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Array based version of the Ahuja-Orlin shortest augmenting path algorithm of {@link FlowGraph}.
+ * Nodes are identified by int indices and carry an int name. The arcs are stored in compressed sparse row layout
+ * (flat arrays for heads, reverse arcs and residual capacities), so no objects are created per node or arc and no
+ * lookups are needed to find the reverse arc of an augmenting path. The arc slots of a node are reserved when the
+ * node is created, hence the number of arcs of every node (including reverse arcs) has to be known in advance.
+ * <p>
+ * The graph structure is immutable after construction and can be shared between multiple instances via
+ * {@link #ArrayFlowGraph(ArrayFlowGraph)}, only the flow state is allocated per instance.
+ * <p>
+ * The sink set of a cut contains the nodes that can reach the sink in the residual network, hence it is the smallest
+ * sink set of all minimum cuts. The source set can be restricted to the nodes reachable from the source instead
+ * (see {@link #isReachableFromSource(int)}).
+ * The flow value never decreases, so a computation can be stopped as soon as it reaches a given cutoff
+ * (see {@link #setCutoff(long)} and {@link #setSharedBound(AtomicLong)}).
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class ArrayFlowGraph {
+    private static final int NIL = -1;
+
+    public final int n;                    /* number of nodes */
+    public final int m;                    /* number of arcs */
+
+    /* graph structure (shared between copies) */
+    private final int[] names;
+    private final int[] first;             /* first arc of node i */
+    private final int[] last;              /* end of the arcs of node i (exclusive) */
+    private final int[] heads;             /* arc head */
+    private final int[] revs;              /* reverse arc */
+    private final double[] caps;           /* capacity, 0 for reverse arcs */
+    private int createdNodes = 0;
+    private int reservedArcs = 0;
+
+    /* flow state */
+    private double[] resCaps;              /* residual capacity */
+    private int[] d;                       /* distance label */
+    private int[] count;                   /* number of nodes with a given label */
+    private int[] current;                 /* current arc */
+    private int[] pred;                    /* arc of the augmenting path that enters a node */
+    private int[] queue;
+    private boolean[] reached;             /* reachable from the source, see isReachableFromSource */
+    private boolean sourceSideValid = false;
+
+    int source = NIL;          /* source node */
+    int sink = NIL;            /* sink node */
+    double flow;               /* flow value */
+    long augmentCnt = 0;       /* number of augmentations */
+    long relabelCnt = 0;       /* number of relabels */
+    long gapCnt = 0;           /* number of gaps */
+
+    long cutoff = Long.MAX_VALUE;  /* stop if flow >= cutoff */
+    AtomicLong sharedBound = null; /* stop if flow > sharedBound */
+    boolean aborted = false;
+
+    /**
+     * @param nodes number of nodes that will be created
+     * @param arcs  number of arcs including reverse arcs
+     */
+    public ArrayFlowGraph(int nodes, int arcs) {
+        this.n = nodes;
+        this.m = arcs;
+        names = new int[nodes];
+        first = new int[nodes];
+        last = new int[nodes];
+        heads = new int[arcs];
+        revs = new int[arcs];
+        caps = new double[arcs];
+    }
+
+    /**
+     * Creates a new instance that shares the graph structure with the given graph, but has its own flow state.
+     *
+     * @param graph the graph to copy
+     */
+    public ArrayFlowGraph(ArrayFlowGraph graph) {
+        this.n = graph.n;
+        this.m = graph.m;
+        names = graph.names;
+        first = graph.first;
+        last = graph.last;
+        heads = graph.heads;
+        revs = graph.revs;
+        caps = graph.caps;
+        createdNodes = graph.createdNodes;
+        reservedArcs = graph.reservedArcs;
+    }
+
+    /**
+     * Creates a node and reserves space for its arcs
+     *
+     * @param name the name of the node
+     * @param arcs number of arcs (outgoing and reverse arcs) of the node
+     * @return the index of the node
+     */
+    public int createNode(int name, int arcs) {
+        names[createdNodes] = name;
+        first[createdNodes] = reservedArcs;
+        last[createdNodes] = reservedArcs;
+        reservedArcs += arcs;
+        return createdNodes++;
+    }
+
+    /**
+     * @return the index of the arc from ns to nt
+     */
+    public int addEdge(int ns, int nt, double cap) {
+        final int a = last[ns]++;
+        final int r = last[nt]++;
+        heads[a] = nt;
+        heads[r] = ns;
+        revs[a] = r;
+        revs[r] = a;
+        caps[a] = cap;
+        return a;
+    }
+
+    public int getName(int node) {
+        return names[node];
+    }
+
+    public int numNodes() {
+        return createdNodes;
+    }
+
+    /**
+     * @return number of arcs (outgoing and reverse arcs) of the given node
+     */
+    public int degree(int node) {
+        return last[node] - first[node];
+    }
+
+    public void setSource(int source) {
+        this.source = source;
+    }
+
+    public void setSink(int sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Stop the computation as soon as the flow value is greater or equal than the cutoff.
+     *
+     * @param cutoff the cutoff, {@link Long#MAX_VALUE} to disable
+     */
+    public void setCutoff(long cutoff) {
+        this.cutoff = cutoff;
+    }
+
+    /**
+     * Stop the computation as soon as the flow value is strictly greater than the value of the given bound.
+     * The bound may be updated concurrently by other threads.
+     *
+     * @param sharedBound the bound, null to disable
+     */
+    public void setSharedBound(AtomicLong sharedBound) {
+        this.sharedBound = sharedBound;
+    }
+
+    /**
+     * @return true if the last computation was stopped because the flow reached the cutoff.
+     * The flow value is then a lower bound for the cut and the cut sets are not valid.
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    private void allocDS() {
+        if (resCaps == null) {
+            resCaps = new double[m];
+            d = new int[n];
+            count = new int[n + 1];
+            current = new int[n];
+            pred = new int[n];
+            queue = new int[n];
+        }
+    }
+
+    private boolean reachedCutoff() {
+        if (flow >= cutoff)
+            return true;
+        final AtomicLong bound = sharedBound;
+        return bound != null && flow > bound.get();
+    }
+
+    // exact distances to the sink in the residual network, n for nodes that can not reach the sink
+    private void computeDistanceLabels() {
+        for (int i = 0; i < n; i++) {
+            d[i] = n;
+        }
+        d[sink] = 0;
+        queue[0] = sink;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            final int j = queue[head++];
+            final int dj = d[j] + 1;
+            for (int a = first[j]; a < last[j]; a++) {
+                final int i = heads[a];
+                // arc i -> j is the reverse of a
+                if (d[i] == n && resCaps[revs[a]] > 0) {
+                    d[i] = dj;
+                    queue[tail++] = i;
+                }
+            }
+        }
+    }
+
+    private void augment() {
+        double delta = Double.POSITIVE_INFINITY;
+        for (int v = sink; v != source; v = heads[revs[pred[v]]]) {
+            delta = Math.min(delta, resCaps[pred[v]]);
+        }
+        for (int v = sink; v != source; v = heads[revs[pred[v]]]) {
+            final int a = pred[v];
+            resCaps[a] -= delta;
+            resCaps[revs[a]] += delta;
+        }
+        flow += delta;
+        augmentCnt++;
+    }
+
+    /**
+     * Computes the maximum flow and therefore the minimum cut between source and sink.
+     */
+    public void calculateMaxFlow() {
+        allocDS();
+        System.arraycopy(caps, 0, resCaps, 0, m);
+        flow = 0;
+        aborted = false;
+        sourceSideValid = false;
+
+        computeDistanceLabels();
+        for (int k = 0; k <= n; k++) {
+            count[k] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            count[d[i]]++;
+            current[i] = first[i];
+        }
+
+        int i = source;
+        while (d[source] < n) {
+            // advance along an admissible arc
+            final int end = last[i];
+            int a = current[i];
+            while (a < end && (resCaps[a] <= 0 || d[i] != d[heads[a]] + 1)) {
+                a++;
+            }
+            current[i] = a;
+
+            if (a < end) {
+                final int j = heads[a];
+                pred[j] = a;
+                i = j;
+                if (i == sink) {
+                    augment();
+                    if (reachedCutoff()) {
+                        aborted = true;
+                        return;
+                    }
+                    i = source;
+                }
+            } else {
+                // retreat: relabel i and go back to its predecessor on the path
+                int dMin = n - 1;
+                for (int b = first[i]; b < end; b++) {
+                    if (resCaps[b] > 0 && d[heads[b]] < dMin)
+                        dMin = d[heads[b]];
+                }
+                // gap: no node with the old label left, so the source can not reach the sink anymore
+                if (--count[d[i]] == 0) {
+                    gapCnt++;
+                    break;
+                }
+                d[i] = dMin + 1;
+                count[d[i]]++;
+                current[i] = first[i];
+                relabelCnt++;
+                if (i != source)
+                    i = heads[revs[pred[i]]];
+            }
+        }
+
+        // the labels are not exact after a gap, the cut is defined by the nodes that can reach the sink
+        computeDistanceLabels();
+    }
+
+    public boolean isInSinkSet(int node) {
+        return d[node] < n;
+    }
+
+    public boolean isInSourceSet(int node) {
+        return !isInSinkSet(node);
+    }
+
+    /**
+     * Nodes that are reachable from the source in the residual network. This is the smallest source set of a minimum
+     * cut, whereas {@link #isInSourceSet(int)} is the largest one.
+     */
+    public boolean isReachableFromSource(int node) {
+        if (!sourceSideValid) {
+            if (reached == null)
+                reached = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                reached[i] = false;
+            }
+            reached[source] = true;
+            queue[0] = source;
+            int head = 0;
+            int tail = 1;
+            while (head < tail) {
+                final int i = queue[head++];
+                for (int a = first[i]; a < last[i]; a++) {
+                    final int j = heads[a];
+                    if (!reached[j] && resCaps[a] > 0) {
+                        reached[j] = true;
+                        queue[tail++] = j;
+                    }
+                }
+            }
+            sourceSideValid = true;
+        }
+        return reached[node];
+    }
+
+    /**
+     * Returns the flow value
+     *
+     * @return flow the flow value
+     */
+    public double getValue() {
+        return flow;
+    }
+
+    /**
+     * @return number of augmentations of all flow computations of this instance
+     */
+    public long getAugmentCount() {
+        return augmentCnt;
+    }
+
+    /**
+     * @return number of relabels of all flow computations of this instance
+     */
+    public long getRelabelCount() {
+        return relabelCnt;
+    }
+
+    /**
+     * @return number of gaps of all flow computations of this instance
+     */
+    public long getGapCount() {
+        return gapCnt;
+    }
+}
@@ -0,0 +1,582 @@
+package mincut.cutGraphImpl.maxFlowGoldbergTarjan;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Array based version of {@link CutGraphImpl}. Nodes are identified by int indices and carry an int name.
+ * The arcs are stored in compressed sparse row layout (flat arrays for heads, residual capacities and reverse arcs),
+ * so no objects are created per node or arc. The arc slots of a node are reserved when the node is created,
+ * hence the number of arcs of every node (including reverse arcs) has to be known in advance.
+ * <p>
+ * The graph structure (heads, reverse arcs, capacities) is immutable after construction and can be shared between
+ * multiple instances via {@link #ArrayCutGraphImpl(ArrayCutGraphImpl)}. Only the flow state is allocated per instance,
+ * so that every worker thread can use its own copy without cloning the graph. A copy may change the capacities of
+ * single arcs (see {@link #setCapacity(int, long)}), e.g. to fix nodes to the source or sink side.
+ * <p>
+ * The push-relabel part is the same as in {@link CutGraphImpl} (highest label, gap relabeling and global updates),
+ * such that both implementations return the same cuts.
+ * <p>
+ * An instance can be used for many s-t flows. The arcs that carry flow are recorded, so that the next flow only has to
+ * reset these arcs (and their incident nodes) instead of all m arcs.
+ * <p>
+ * The flow into the sink never decreases during the preflow phase, so a computation can be stopped as soon as
+ * it reaches a given cutoff (see {@link #setCutoff(long)} and {@link #setSharedBound(AtomicLong)}).
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class ArrayCutGraphImpl {
+    private static final float GLOB_UPDT_FREQ = 0.5f;
+    private static final byte ALPHA = 6;
+    private static final byte BETA = 12;
+    private static final int NIL = -1;
+
+    public final int n;                    /* number of nodes */
+    public final int m;                    /* number of arcs */
+
+    /* graph structure (shared between copies) */
+    private final int[] names;
+    private final int[] first;             /* first arc of node i */
+    private final int[] last;              /* end of the arcs of node i (exclusive) */
+    private final int[] heads;             /* arc head */
+    private final int[] revs;              /* reverse arc */
+    private long[] caps;                   /* capacity, 0 for reverse arcs */
+    private boolean sharedCaps = false;    /* caps belong to the graph this instance was copied from */
+    private int createdNodes = 0;
+    private int reservedArcs = 0;
+
+    /* flow state */
+    private long[] resCaps;                /* residual capacity */
+    private long[] excess;
+    private int[] d;                       /* distance label */
+    private int[] current;                 /* current arc */
+    private int[] bNext;                   /* next node in bucket */
+    private int[] bPrev;                   /* previous node in bucket */
+    private int[] firstActive;             /* first node with positive excess */
+    private int[] firstInactive;           /* first node with zero excess */
+    private boolean[] touched;             /* arc carries flow of the last computation */
+    private int[] touchedArcs;             /* stack of touched arcs */
+    private int numTouched = 0;
+
+    long nm;                   /* n + ALPHA * m */
+    int source = NIL;          /* source node */
+    int sink = NIL;            /* sink node */
+    int dMax;                  /* maximum label */
+    int aMax;                  /* maximum active node label */
+    int aMin;                  /* minimum active node label */
+    long flow;                 /* flow value */
+    long pushCnt = 0;          /* number of pushes */
+    long relabelCnt = 0;       /* number of relabels */
+    long updateCnt = 0;        /* number of updates */
+    long gapCnt = 0;           /* number of gaps */
+    long workSinceUpdate = 0;  /* the number of arc scans since last update */
+
+    long cutoff = Long.MAX_VALUE;  /* stop if flow >= cutoff */
+    AtomicLong sharedBound = null; /* stop if flow > sharedBound */
+    boolean aborted = false;
+    long abortCnt = 0;         /* number of stopped computations */
+
+    /**
+     * @param nodes number of nodes that will be created
+     * @param arcs  number of arcs including reverse arcs
+     */
+    public ArrayCutGraphImpl(int nodes, int arcs) {
+        this.n = nodes;
+        this.m = arcs;
+        names = new int[nodes];
+        first = new int[nodes];
+        last = new int[nodes];
+        heads = new int[arcs];
+        revs = new int[arcs];
+        caps = new long[arcs];
+    }
+
+    /**
+     * Creates a new instance that shares the graph structure with the given graph, but has its own flow state.
+     *
+     * @param graph the graph to copy
+     */
+    public ArrayCutGraphImpl(ArrayCutGraphImpl graph) {
+        this.n = graph.n;
+        this.m = graph.m;
+        names = graph.names;
+        first = graph.first;
+        last = graph.last;
+        heads = graph.heads;
+        revs = graph.revs;
+        caps = graph.caps;
+        sharedCaps = true;
+        createdNodes = graph.createdNodes;
+        reservedArcs = graph.reservedArcs;
+    }
+
+    /**
+     * Creates a node and reserves space for its arcs
+     *
+     * @param name the name of the node
+     * @param arcs number of arcs (outgoing and reverse arcs) of the node
+     * @return the index of the node
+     */
+    public int createNode(int name, int arcs) {
+        names[createdNodes] = name;
+        first[createdNodes] = reservedArcs;
+        last[createdNodes] = reservedArcs;
+        reservedArcs += arcs;
+        return createdNodes++;
+    }
+
+    /**
+     * @return the index of the arc from ns to nt
+     */
+    public int addEdge(int ns, int nt, long cap) {
+        final int a = last[ns]++;
+        final int r = last[nt]++;
+        heads[a] = nt;
+        heads[r] = ns;
+        revs[a] = r;
+        revs[r] = a;
+        caps[a] = cap;
+        return a;
+    }
+
+    /**
+     * Changes the capacity of an arc for the following flow computations of this instance. The capacities of a copy
+     * are copied on the first change, so the other instances that share the graph structure are not affected.
+     * Must not be called on a graph that has already been copied.
+     *
+     * @param arc the arc as returned by {@link #addEdge(int, int, long)}
+     * @param cap the new capacity
+     */
+    public void setCapacity(int arc, long cap) {
+        if (sharedCaps) {
+            caps = caps.clone();
+            sharedCaps = false;
+        }
+        caps[arc] = cap;
+        // arcs that carry flow are reset from caps before the next flow anyway
+        if (resCaps != null)
+            resCaps[arc] = cap;
+    }
+
+    public int getName(int node) {
+        return names[node];
+    }
+
+    public int numNodes() {
+        return createdNodes;
+    }
+
+    /**
+     * @return number of arcs (outgoing and reverse arcs) of the given node
+     */
+    public int degree(int node) {
+        return last[node] - first[node];
+    }
+
+    public void setSource(int source) {
+        this.source = source;
+    }
+
+    public void setSink(int sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Stop the computation as soon as the flow value is greater or equal than the cutoff.
+     *
+     * @param cutoff the cutoff, {@link Long#MAX_VALUE} to disable
+     */
+    public void setCutoff(long cutoff) {
+        this.cutoff = cutoff;
+    }
+
+    /**
+     * Stop the computation as soon as the flow value is strictly greater than the value of the given bound.
+     * The bound may be updated concurrently by other threads.
+     *
+     * @param sharedBound the bound, null to disable
+     */
+    public void setSharedBound(AtomicLong sharedBound) {
+        this.sharedBound = sharedBound;
+    }
+
+    /**
+     * @return true if the last computation was stopped because the flow reached the cutoff.
+     * The flow value is then a lower bound for the cut and the cut sets are not valid.
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    private boolean exceedsBound(long flow) {
+        return flow >= cutoff || (sharedBound != null && flow > sharedBound.get());
+    }
+
+    private void aAdd(int l, int i) {
+        bNext[i] = firstActive[l];
+        firstActive[l] = i;
+        if (l < aMin)
+            aMin = l;
+        if (l > aMax)
+            aMax = l;
+        if (dMax < aMax)
+            dMax = aMax;
+    }
+
+    private void iAdd(int l, int i) {
+        final int iNext = firstInactive[l];
+        bNext[i] = iNext;
+        bPrev[i] = NIL;
+        if (iNext != NIL)
+            bPrev[iNext] = i;
+        firstInactive[l] = i;
+    }
+
+    private void iDelete(int l, int i) {
+        final int iNext = bNext[i];
+        if (firstInactive[l] == i) {
+            firstInactive[l] = iNext;
+            if (iNext != NIL)
+                bPrev[iNext] = NIL;
+        } else {
+            final int iPrev = bPrev[i];
+            bNext[iPrev] = iNext;
+            if (iNext != NIL)
+                bPrev[iNext] = iPrev;
+        }
+    }
+
+    void allocDS() {
+        nm = ALPHA * n + m;
+        if (resCaps == null) {
+            resCaps = new long[m];
+            excess = new long[n];
+            d = new int[n];
+            current = new int[n];
+            bNext = new int[n];
+            bPrev = new int[n];
+            firstActive = new int[n + 2];
+            firstInactive = new int[n + 2];
+            touched = new boolean[m];
+            touchedArcs = new int[m];
+            for (int i = 0; i < n; i++) {
+                current[i] = first[i];
+            }
+            System.arraycopy(caps, 0, resCaps, 0, m);
+        }
+        for (int l = 0; l < firstActive.length; l++) {
+            firstActive[l] = NIL;
+            firstInactive[l] = NIL;
+        }
+    }
+
+    /* reset residual capacities and excesses of the arcs used by the last flow */
+    private void resetTouched() {
+        while (numTouched > 0) {
+            final int a = touchedArcs[--numTouched];
+            final int r = revs[a];
+            touched[a] = false;
+            resCaps[a] = caps[a];
+            resCaps[r] = caps[r];
+            excess[heads[a]] = 0;
+            excess[heads[r]] = 0;
+        }
+    }
+
+    private void touch(int a) {
+        if (!touched[a]) {
+            touched[a] = true;
+            touchedArcs[numTouched++] = a;
+        }
+    }
+
+    void init() {
+        // initialize excesses
+        resetTouched();
+
+        for (int a = first[source]; a < last[source]; a++) {
+            if (heads[a] != source) {
+                pushCnt++;
+                final long delta = resCaps[a];
+                touch(a);
+                resCaps[a] -= delta;
+                resCaps[revs[a]] += delta;
+                excess[heads[a]] += delta;
+            }
+        }
+
+        aborted = exceedsBound(excess[sink]);
+
+        /*  setup labels and buckets */
+        aMax = 0;
+        aMin = n;
+        for (int i = 0; i < n; i++) {
+            if (i == sink) {
+                d[i] = 0;
+                iAdd(0, i);
+                continue;
+            }
+            if (i == source) {
+                d[i] = n;
+            } else {
+                d[i] = 1;
+            }
+            if (excess[i] > 0) {
+                /* put into active list */
+                aAdd(1, i);
+            } else if (d[i] < n) {
+                /* put into inactive list */
+                iAdd(1, i);
+            }
+        }
+        dMax = 1;
+    }
+
+    /* global update via backward breadth first search from the sink */
+    void globalUpdate() {
+        updateCnt++;
+
+        /* initialization */
+        for (int i = 0; i < n; i++) {
+            d[i] = n;
+        }
+        d[sink] = 0;
+
+        for (int l = 0; l <= dMax; l++) {
+            firstActive[l] = NIL;
+            firstInactive[l] = NIL;
+        }
+
+        dMax = aMax = 0;
+        aMin = n;
+
+        /* breadth first search */
+        iAdd(0, sink);
+        for (int curDist = 0; ; curDist++) {
+            final int jD = curDist + 1;
+
+            if ((firstActive[curDist] == NIL) && (firstInactive[curDist] == NIL))
+                break;
+
+            for (int i = firstInactive[curDist]; i != NIL; i = bNext[i]) {
+                scanGlobalUpdate(i, jD);
+            }
+            for (int i = firstActive[curDist]; i != NIL; i = bNext[i]) {
+                scanGlobalUpdate(i, jD);
+            }
+        }
+    }
+
+    /* scanning arcs incident to node i */
+    private void scanGlobalUpdate(final int i, final int jD) {
+        for (int a = first[i]; a < last[i]; a++) {
+            if (resCaps[revs[a]] > 0) {
+                final int j = heads[a];
+                if (d[j] == n) {
+                    d[j] = jD;
+                    current[j] = first[j];
+
+                    if (jD > dMax) dMax = jD;
+
+                    if (excess[j] > 0) {
+                        /* put into active list */
+                        aAdd(jD, j);
+                    } else {
+                        /* put into inactive list */
+                        iAdd(jD, j);
+                    }
+                }
+            }
+        }
+    }
+
+    /* gap relabeling */
+    void gap(int emptyB) {
+        gapCnt++;
+        final int r = emptyB - 1;
+
+        /* set labels of nodes beyond the gap to "infinity" */
+        for (int l = emptyB + 1; l <= dMax; l++) {
+            for (int i = firstInactive[l]; i != NIL; i = bNext[i]) {
+                d[i] = n;
+            }
+            firstInactive[l] = NIL;
+        }
+        dMax = r;
+        aMax = r;
+    }
+
+    /*--- relabelling node i */
+    int relabel(int i) {
+        relabelCnt++;
+        workSinceUpdate += BETA;
+
+        int minD = n;
+        int minA = NIL;
+        d[i] = n;
+
+        /* find the minimum */
+        for (int a = first[i]; a < last[i]; a++) {
+            workSinceUpdate++;
+            if (resCaps[a] > 0) {
+                final int jD = d[heads[a]];
+                if (jD < minD) {
+                    minD = jD;
+                    minA = a;
+                }
+            }
+        }
+
+        minD++;
+
+        if (minD < n) {
+            d[i] = minD;
+            current[i] = minA;
+            if (dMax < minD) dMax = minD;
+        }
+
+        return minD;
+    }
+
+    /* discharge: push flow out of i until i becomes inactive */
+    void discharge(int i) {
+        final int stopA = last[i];
+        do {
+            final int jD = d[i] - 1;
+            final int l = d[i];
+
+            /* scanning arcs outgoing from  i  */
+            int a;
+            for (a = current[i]; a != stopA; a++) {
+                if (resCaps[a] > 0) {
+                    final int j = heads[a];
+
+                    if (d[j] == jD) {
+                        pushCnt++;
+                        final long delta = Math.min(resCaps[a], excess[i]);
+                        touch(a);
+                        resCaps[a] -= delta;
+                        resCaps[revs[a]] += delta;
+
+                        if (j != sink) {
+                            if (excess[j] == 0) {
+                                /* remove j from inactive list */
+                                iDelete(jD, j);
+                                /* add j to active list */
+                                aAdd(jD, j);
+                            }
+                        }
+
+                        excess[j] += delta;
+                        excess[i] -= delta;
+
+                        if (j == sink && exceedsBound(excess[j])) {
+                            /* the cut can not be smaller than the cutoff */
+                            aborted = true;
+                            abortCnt++;
+                            return;
+                        }
+
+                        if (excess[i] == 0) break;
+                    } /* j belongs to the next bucket */
+                } /* a  is not saturated */
+            } /* end of scanning arcs from  i */
+
+            if (a == stopA) {
+                /* i must be relabeled */
+                relabel(i);
+
+                if (d[i] == n) break;
+                if ((firstActive[l] == NIL) && (firstInactive[l] == NIL))
+                    gap(l);
+
+                if (d[i] == n) break;
+            } else {
+                /* i no longer active */
+                current[i] = a;
+                /* put i on inactive list */
+                iAdd(l, i);
+                break;
+            }
+        } while (true);
+    }
+
+    /* first stage  -- maximum preflow*/
+    void stageOne() {
+        workSinceUpdate = 0;
+        /* main loop */
+        while (aMax >= aMin && !aborted) {
+            final int i = firstActive[aMax];
+
+            if (i == NIL) {
+                aMax--;
+            } else {
+                firstActive[aMax] = bNext[i];
+                discharge(i);
+
+                if (aMax < aMin || aborted)
+                    break;
+
+                /* is it time for global update? */
+                if (workSinceUpdate * GLOB_UPDT_FREQ > nm) {
+                    globalUpdate();
+                    workSinceUpdate = 0;
+                }
+            }
+        } /* end of the main loop */
+        flow = excess[sink];
+    }
+
+    /**
+     * Computes the maximum preflow (stageOne) and therefore the minimum cut between source and sink.
+     */
+    public void calculateMaxFlow() {
+        allocDS();
+        init();
+        stageOne();
+    }
+
+    public boolean isInSinkSet(int node) {
+        return d[node] < n;
+    }
+
+    public boolean isInSourceSet(int node) {
+        return !isInSinkSet(node);
+    }
+
+    /**
+     * Returns the flow value
+     *
+     * @return flow the flow value
+     */
+    public long getValue() {
+        return flow;
+    }
+
+    /**
+     * @return number of pushes of all flow computations of this instance
+     */
+    public long getPushCount() {
+        return pushCnt;
+    }
+
+    /**
+     * @return number of relabels of all flow computations of this instance
+     */
+    public long getRelabelCount() {
+        return relabelCnt;
+    }
+
+    /**
+     * @return number of gaps of all flow computations of this instance
+     */
+    public long getGapCount() {
+        return gapCnt;
+    }
+
+    /**
+     * @return number of global updates of all flow computations of this instance
+     */
+    public long getUpdateCount() {
+        return updateCnt;
+    }
+}
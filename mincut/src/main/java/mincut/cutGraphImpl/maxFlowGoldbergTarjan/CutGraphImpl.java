@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The actual implementation the the push-relabel maxflow min cut method based on the C
@@ -85,6 +86,11 @@ public class CutGraphImpl {
 
     long i_dist;
 
+    long cutoff = Long.MAX_VALUE;  /* stop if flow >= cutoff */
+    AtomicLong sharedBound = null; /* stop if flow > sharedBound */
+    boolean aborted = false;
+    long abortCnt = 0;         /* number of stopped computations */
+
     private int createdNodes = 0;
 
     public Node[] getNodes() {
@@ -214,6 +220,8 @@ public class CutGraphImpl {
         }
 
 
+        aborted = exceedsBound(sink.excess);
+
         /*  setup labels and buckets */
         Bucket l = buckets[1];
 
@@ -643,6 +651,13 @@ public class CutGraphImpl {
                         j.excess += delta;
                         i.excess -= delta;
 
+                        if (j == sink && exceedsBound(j.excess)) {
+                            /* the cut can not be smaller than the cutoff */
+                            aborted = true;
+                            abortCnt++;
+                            return;
+                        }
+
                         if (i.excess == 0) break;
 
                     } /* j belongs to the next bucket */
@@ -679,7 +694,7 @@ public class CutGraphImpl {
 
         workSinceUpdate = 0;
         /* main loop */
-        while (aMax >= aMin) {
+        while (aMax >= aMin && !aborted) {
             //l = buckets + aMax;
             l = buckets[((int) aMax)];
             i = l.firstActive;
@@ -692,7 +707,7 @@ public class CutGraphImpl {
                 assert (i.excess > 0);
                 discharge(i);
 
-                if (aMax < aMin)
+                if (aMax < aMin || aborted)
                     break;
 
                 /* is it time for global update? */
@@ -716,6 +731,37 @@ public class CutGraphImpl {
         this.source = source;
     }
 
+    /**
+     * Stop the computation as soon as the flow value is greater or equal than the cutoff.
+     *
+     * @param cutoff the cutoff, {@link Long#MAX_VALUE} to disable
+     */
+    public void setCutoff(long cutoff) {
+        this.cutoff = cutoff;
+    }
+
+    /**
+     * Stop the computation as soon as the flow value is strictly greater than the value of the given bound.
+     * The bound may be updated concurrently by other threads.
+     *
+     * @param sharedBound the bound, null to disable
+     */
+    public void setSharedBound(AtomicLong sharedBound) {
+        this.sharedBound = sharedBound;
+    }
+
+    /**
+     * @return true if the last computation was stopped because the flow reached the cutoff.
+     * The flow value is then a lower bound for the cut and the cut sets are not valid.
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    private boolean exceedsBound(long flow) {
+        return flow >= cutoff || (sharedBound != null && flow > sharedBound.get());
+    }
+
     /**
      * Computes the mincut - this does only stageOne
      *
@@ -724,6 +770,13 @@ public class CutGraphImpl {
      */
     public List<LinkedHashSet<Object>> calculateMaxSTFlowFull(final boolean activateChecks) {
         calculateMaxFlow(activateChecks);
+        return getCutSets();
+    }
+
+    /**
+     * @return the source and sink set of the last computation
+     */
+    public List<LinkedHashSet<Object>> getCutSets() {
         LinkedHashSet<Object> sSet = new LinkedHashSet<>();
         LinkedHashSet<Object> tSet = new LinkedHashSet<>();
         /// original :
@@ -754,7 +807,7 @@ public class CutGraphImpl {
         init();
         stageOne();
 
-        if (activateChecks) {
+        if (activateChecks && !aborted) {
             /* check if you have a flow (pseudoflow) */
             /* check arc flows */
             for (Node i : nodes) {
@@ -813,6 +866,34 @@ public class CutGraphImpl {
         return flow;
     }
 
+    /**
+     * @return number of pushes of all flow computations of this instance
+     */
+    public long getPushCount() {
+        return pushCnt;
+    }
+
+    /**
+     * @return number of relabels of all flow computations of this instance
+     */
+    public long getRelabelCount() {
+        return relabelCnt;
+    }
+
+    /**
+     * @return number of gaps of all flow computations of this instance
+     */
+    public long getGapCount() {
+        return gapCnt;
+    }
+
+    /**
+     * @return number of global updates of all flow computations of this instance
+     */
+    public long getUpdateCount() {
+        return updateCnt;
+    }
+
     /**
      * Internal data structure
      */
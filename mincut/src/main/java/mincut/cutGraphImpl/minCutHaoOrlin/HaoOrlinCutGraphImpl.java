@@ -0,0 +1,463 @@
+package mincut.cutGraphImpl.minCutHaoOrlin;
+
+/**
+ * Global minimum cut between a set of terminal nodes on a directed graph using the preflow based approach of
+ * Hao and Orlin.
+ * See:
+ * <pre>
+ * Hao and Orlin, "A Faster Algorithm for Finding the Minimum Cut in a Directed Graph,"
+ * J. Algorithms Vol. 17, 424--446, 1994
+ * </pre>
+ * <br>
+ * Instead of running n-1 independent s-t flows, the terminals are processed one after another as sink of
+ * a single preflow that is never reset. After a stage is finished its sink is moved to the source set and its
+ * residual arcs are saturated, so every stage only has to push the flow that was not routed by the previous stages.
+ * The stage value is the minimum cut between all processed terminals and the current sink, the minimum over all
+ * stages is the global minimum cut that separates at least two terminals.
+ * <p>
+ * In contrast to the original algorithm only terminal nodes become sinks (non terminal nodes are never moved to the
+ * source set). This is needed for cut graphs where cheap cuts that separate no terminals exist, e.g. the BCD
+ * cut graph where a character node can be separated by cutting the character arc only. Hence the distance labels are
+ * recomputed by a global update at the beginning of every stage. The push-relabel part uses highest label
+ * selection, gap relabeling and periodic global updates as in the Cherkassky and Goldberg implementation
+ * (see {@link mincut.cutGraphImpl.maxFlowGoldbergTarjan.CutGraphImpl}).
+ * <p>
+ * The graph is stored in flat arrays (compressed sparse row layout). Nodes are identified by the int returned from
+ * {@link #createNode(int)} or {@link #createTerminal(int)} and carry a user defined int name.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class HaoOrlinCutGraphImpl {
+    private static final long MAXLONG = Long.MAX_VALUE - 1;
+
+    private static final float GLOB_UPDT_FREQ = 0.5f;
+    private static final byte ALPHA = 6;
+    private static final byte BETA = 12;
+    private static final int NIL = -1;
+
+    public final int n;                    /* number of nodes */
+    public final int m;                    /* number of arcs (including reverse arcs) */
+
+    /* construction */
+    private final int[] names;
+    private final boolean[] terminal;
+    private int createdNodes = 0;
+    private int numTerminals = 0;
+
+    private final int[] edgeTails;
+    private final int[] edgeHeads;
+    private final long[] edgeCaps;
+    private int createdEdges = 0;
+
+    /* compressed sparse row representation */
+    private int[] first;               /* first arc of node i, first[n] == number of arcs */
+    private int[] heads;               /* arc head */
+    private int[] revs;                /* reverse arc */
+    private long[] resCaps;            /* residual capacity */
+
+    /* preflow state */
+    private long[] excess;
+    private int[] d;                   /* distance label */
+    private int[] current;             /* current arc */
+    private boolean[] inSourceSet;     /* processed terminals */
+
+    /* buckets */
+    private int[] activeFirst;         /* first active node with label l */
+    private int[] activeNext;
+    private int[] allFirst;            /* first labeled (active or inactive) node with label l */
+    private int[] allNext;
+    private int[] allPrev;
+    private int[] queue;
+
+    private long nm;
+    private int sink;
+    private int dMax;                  /* maximum label */
+    private int aMax;                  /* maximum active node label */
+    private long workSinceUpdate;
+
+    /* result */
+    private long value = Long.MAX_VALUE;
+    private int bestSink = NIL;
+    private boolean[] sinkSet;
+
+    long stageCnt = 0;         /* number of stages (sinks) */
+    long pushCnt = 0;          /* number of pushes */
+    long relabelCnt = 0;       /* number of relabels */
+    long updateCnt = 0;        /* number of updates */
+    long gapCnt = 0;           /* number of gaps */
+
+    /**
+     * @param nodes number of nodes that will be created
+     * @param edges number of edges that will be added (without reverse arcs)
+     */
+    public HaoOrlinCutGraphImpl(int nodes, int edges) {
+        this.n = nodes;
+        this.m = 2 * edges;
+        names = new int[nodes];
+        terminal = new boolean[nodes];
+        edgeTails = new int[edges];
+        edgeHeads = new int[edges];
+        edgeCaps = new long[edges];
+    }
+
+    /**
+     * Creates a node that may not be separated on its own, i.e. it will never become a sink.
+     *
+     * @param name the name of the node
+     * @return the internal node index
+     */
+    public int createNode(int name) {
+        names[createdNodes] = name;
+        return createdNodes++;
+    }
+
+    /**
+     * Creates a terminal node. Only cuts that separate at least two terminals are considered. The first created
+     * terminal is the fixed source.
+     *
+     * @param name the name of the node
+     * @return the internal node index
+     */
+    public int createTerminal(int name) {
+        terminal[createdNodes] = true;
+        numTerminals++;
+        return createNode(name);
+    }
+
+    public void addEdge(int source, int target, long cap) {
+        if (first != null)
+            throw new RuntimeException("A computation was already started. You can not add new nodes or edges !");
+        if (source == target) //self loops can never be part of a cut
+            return;
+        edgeTails[createdEdges] = source;
+        edgeHeads[createdEdges] = target;
+        edgeCaps[createdEdges] = cap;
+        createdEdges++;
+    }
+
+    public int getName(int node) {
+        return names[node];
+    }
+
+    public boolean isTerminal(int node) {
+        return terminal[node];
+    }
+
+    public int getNumTerminals() {
+        return numTerminals;
+    }
+
+    /**
+     * Returns the flow value
+     *
+     * @return value of the minimum cut or {@link Long#MAX_VALUE} if there are less than two terminals
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * @return the terminal that was the sink when the minimum cut was found
+     */
+    public int getSink() {
+        return bestSink;
+    }
+
+    public boolean isInSinkSet(int node) {
+        return sinkSet != null && sinkSet[node];
+    }
+
+    public boolean isInSourceSet(int node) {
+        return !isInSinkSet(node);
+    }
+
+    private void buildArcs() {
+        first = new int[n + 1];
+        heads = new int[2 * createdEdges];
+        revs = new int[2 * createdEdges];
+        resCaps = new long[2 * createdEdges];
+
+        for (int e = 0; e < createdEdges; e++) {
+            first[edgeTails[e] + 1]++;
+            first[edgeHeads[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            first[i + 1] += first[i];
+        }
+
+        final int[] pos = new int[n];
+        System.arraycopy(first, 0, pos, 0, n);
+        for (int e = 0; e < createdEdges; e++) {
+            final int a = pos[edgeTails[e]]++;
+            final int r = pos[edgeHeads[e]]++;
+            heads[a] = edgeHeads[e];
+            heads[r] = edgeTails[e];
+            revs[a] = r;
+            revs[r] = a;
+            resCaps[a] = edgeCaps[e];
+        }
+    }
+
+    private void allocDS() {
+        nm = ALPHA * n + m;
+        excess = new long[n];
+        d = new int[n];
+        current = new int[n];
+        inSourceSet = new boolean[n];
+        activeFirst = new int[n + 1];
+        activeNext = new int[n];
+        allFirst = new int[n + 1];
+        allNext = new int[n];
+        allPrev = new int[n];
+        queue = new int[n];
+    }
+
+    /**
+     * Computes the global minimum cut between the terminals. Terminals are processed in order of creation
+     * for the first stage, afterwards the unprocessed terminal with the smallest distance label becomes the next sink.
+     */
+    public void calculateMinCut() {
+        if (first != null)
+            throw new RuntimeException("The minimum cut was already computed!");
+        buildArcs();
+        allocDS();
+
+        final int[] remaining = new int[numTerminals];
+        int numRemaining = 0;
+        for (int i = 0; i < createdNodes; i++) {
+            if (terminal[i])
+                remaining[numRemaining++] = i;
+        }
+        if (numRemaining < 2)
+            return;
+
+        moveToSourceSet(remaining[0]);
+        remaining[0] = remaining[--numRemaining];
+
+        while (numRemaining > 0) {
+            // select next sink
+            int next = 0;
+            for (int i = 1; i < numRemaining; i++) {
+                if (d[remaining[i]] < d[remaining[next]])
+                    next = i;
+            }
+            sink = remaining[next];
+            remaining[next] = remaining[--numRemaining];
+
+            stageCnt++;
+            globalUpdate();
+            stageOne();
+
+            if (excess[sink] < value) {
+                value = excess[sink];
+                bestSink = sink;
+                // exact sink set: all nodes that can still reach the sink in the residual graph
+                globalUpdate();
+                if (sinkSet == null)
+                    sinkSet = new boolean[n];
+                for (int i = 0; i < n; i++) {
+                    sinkSet[i] = d[i] < n;
+                }
+            }
+
+            moveToSourceSet(sink);
+        }
+    }
+
+    /* make node i a source and saturate all its residual arcs */
+    private void moveToSourceSet(int i) {
+        inSourceSet[i] = true;
+        d[i] = n;
+        for (int a = first[i]; a < first[i + 1]; a++) {
+            final long delta = resCaps[a];
+            if (delta > 0) {
+                final int j = heads[a];
+                if (!inSourceSet[j]) {
+                    pushCnt++;
+                    resCaps[a] = 0;
+                    resCaps[revs[a]] += delta;
+                    excess[j] = addExcess(excess[j], delta);
+                }
+            }
+        }
+        excess[i] = 0;
+    }
+
+    // saturating addition, infinite arcs from many sources may point to the same node
+    private static long addExcess(long excess, long delta) {
+        final long sum = excess + delta;
+        return sum < excess ? MAXLONG : sum;
+    }
+
+    private void aAdd(int l, int i) {
+        activeNext[i] = activeFirst[l];
+        activeFirst[l] = i;
+        if (l > aMax)
+            aMax = l;
+    }
+
+    private void iAdd(int l, int i) {
+        final int next = allFirst[l];
+        allNext[i] = next;
+        allPrev[i] = NIL;
+        if (next != NIL)
+            allPrev[next] = i;
+        allFirst[l] = i;
+    }
+
+    private void iDelete(int l, int i) {
+        final int next = allNext[i];
+        final int prev = allPrev[i];
+        if (prev == NIL)
+            allFirst[l] = next;
+        else
+            allNext[prev] = next;
+        if (next != NIL)
+            allPrev[next] = prev;
+    }
+
+    /* global update via backward breadth first search from the sink */
+    private void globalUpdate() {
+        updateCnt++;
+
+        for (int i = 0; i < n; i++) {
+            d[i] = n;
+            current[i] = first[i];
+        }
+        for (int l = 0; l <= n; l++) {
+            activeFirst[l] = NIL;
+            allFirst[l] = NIL;
+        }
+
+        dMax = 0;
+        aMax = -1;
+
+        d[sink] = 0;
+        iAdd(0, sink);
+        int qHead = 0;
+        int qTail = 0;
+        queue[qTail++] = sink;
+
+        while (qHead < qTail) {
+            final int i = queue[qHead++];
+            final int jD = d[i] + 1;
+            /* scanning arcs incident to node i */
+            for (int a = first[i]; a < first[i + 1]; a++) {
+                final int j = heads[a];
+                if (d[j] == n && !inSourceSet[j] && resCaps[revs[a]] > 0) {
+                    d[j] = jD;
+                    if (jD > dMax) dMax = jD;
+                    iAdd(jD, j);
+                    if (excess[j] > 0)
+                        aAdd(jD, j);
+                    queue[qTail++] = j;
+                }
+            }
+        }
+    }
+
+    /* first stage  -- maximum preflow to the current sink */
+    private void stageOne() {
+        workSinceUpdate = 0;
+        while (aMax >= 0) {
+            final int i = activeFirst[aMax];
+            if (i == NIL) {
+                aMax--;
+            } else {
+                activeFirst[aMax] = activeNext[i];
+                discharge(i);
+
+                /* is it time for global update? */
+                if (workSinceUpdate * GLOB_UPDT_FREQ > nm) {
+                    globalUpdate();
+                    workSinceUpdate = 0;
+                }
+            }
+        }
+    }
+
+    /* discharge: push flow out of i until i becomes inactive */
+    private void discharge(int i) {
+        final int stopA = first[i + 1];
+        do {
+            final int iD = d[i];
+            final int jD = iD - 1;
+            int a;
+            for (a = current[i]; a < stopA; a++) {
+                if (resCaps[a] > 0) {
+                    final int j = heads[a];
+                    if (d[j] == jD) {
+                        pushCnt++;
+                        final long delta = Math.min(resCaps[a], excess[i]);
+                        resCaps[a] -= delta;
+                        resCaps[revs[a]] += delta;
+
+                        if (j != sink && excess[j] == 0)
+                            aAdd(jD, j);
+
+                        excess[j] = addExcess(excess[j], delta);
+                        excess[i] -= delta;
+
+                        if (excess[i] == 0) break;
+                    }
+                }
+            }
+
+            if (a == stopA) {
+                /* i must be relabeled */
+                relabel(i);
+                if (allFirst[iD] == NIL)
+                    gap(iD);
+                if (d[i] == n) break;
+            } else {
+                /* i no longer active */
+                current[i] = a;
+                break;
+            }
+        } while (true);
+    }
+
+    /*--- relabelling node i */
+    private void relabel(int i) {
+        relabelCnt++;
+        workSinceUpdate += BETA;
+
+        iDelete(d[i], i);
+
+        int minD = n;
+        int minA = NIL;
+        for (int a = first[i]; a < first[i + 1]; a++) {
+            workSinceUpdate++;
+            if (resCaps[a] > 0) {
+                final int jD = d[heads[a]];
+                if (jD < minD) {
+                    minD = jD;
+                    minA = a;
+                }
+            }
+        }
+        minD++;
+
+        if (minD < n) {
+            d[i] = minD;
+            current[i] = minA;
+            iAdd(minD, i);
+            if (dMax < minD) dMax = minD;
+        } else {
+            d[i] = n;
+        }
+    }
+
+    /* gap relabeling: nodes above the empty bucket can not reach the sink anymore */
+    private void gap(int emptyLabel) {
+        gapCnt++;
+        for (int l = emptyLabel + 1; l <= dMax; l++) {
+            for (int i = allFirst[l]; i != NIL; i = allNext[i]) {
+                d[i] = n;
+            }
+            allFirst[l] = NIL;
+        }
+        dMax = emptyLabel - 1;
+        aMax = emptyLabel - 1;
+    }
+}
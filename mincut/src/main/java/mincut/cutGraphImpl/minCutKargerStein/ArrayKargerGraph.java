@@ -0,0 +1,367 @@
+package mincut.cutGraphImpl.minCutKargerStein;
+
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import mincut.cutGraphAPI.bipartition.HashableCut;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Array based Karger graph for weighted hypergraphs (a simple graph is a hypergraph with two vertices per edge).
+ * A contraction draws a hyperedge with probability proportional to its weight and merges two random vertices of it.
+ * <p>
+ * The hyperedges are stored in flat arrays that are shared between a graph and its plain clones. Vertices are merged
+ * in a union-find structure and the hyperedges are drawn from a Fenwick tree over their weights. Hyperedges that lie
+ * within one merged vertex are not searched after a contraction, they are removed from the tree when they are drawn
+ * (and the draw is repeated), which does not change the distribution of the other hyperedges. Hence a contraction does
+ * not allocate any memory and needs O(log m) time plus the time for the rejected draws.
+ * <p>
+ * A clone of a contracted graph is compacted, it contains only the merged vertices and the hyperedges between them.
+ * So the small graphs at the bottom of the Karger-Stein recursion do not carry the arrays of the input graph around.
+ * Instances are not thread safe, but clones are independent of each other.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class ArrayKargerGraph implements KargerGraph<ArrayKargerGraph, RoaringBitmap> {
+    /* hypergraph (shared with plain clones) */
+    private final int[] firstPin;          /* pins of hyperedge e are firstPin[e] to firstPin[e + 1] (exclusive) */
+    private final int[] pins;              /* vertex indices */
+    private final double[] weights;
+
+    /* input vertices (shared with all clones) */
+    private final RoaringBitmap[] labels;  /* labels of the input vertices */
+    private final VertexMap vertexMap;     /* vertices of the compacted graphs this one was created from */
+
+    /* contraction state */
+    private final int[] parent;            /* union-find, roots point to themselves */
+    private final double[] tree;           /* Fenwick tree over the weights of the hyperedges, 1-based */
+    private final boolean[] removed;       /* hyperedge lies within one merged vertex */
+    private int numberOfVertices;
+    private boolean purged = true;         /* all removable hyperedges are removed */
+
+    /* scratch space for the vertices of the drawn hyperedge */
+    private int[] drawnRoots = null;
+    private int[] marks = null;
+    private int mark = 0;
+
+    /**
+     * @param hyperEdges     the hyperedges, as sets of vertex labels
+     * @param weights        the weight of every hyperedge
+     * @param mergedVertices optional, maps the vertex labels to the labels they represent (e.g. because they are
+     *                       already merged). Vertices that are not contained are represented by their own label.
+     */
+    public ArrayKargerGraph(RoaringBitmap[] hyperEdges, double[] weights, TIntObjectMap<RoaringBitmap> mergedVertices) {
+        if (hyperEdges == null || weights == null || hyperEdges.length != weights.length)
+            throw new IllegalArgumentException("Input must not be null and there has to be a weight for every edge.");
+
+        final RoaringBitmap allVertices = new RoaringBitmap();
+        int numPins = 0;
+        for (RoaringBitmap hyperEdge : hyperEdges) {
+            allVertices.or(hyperEdge);
+            numPins += hyperEdge.getCardinality();
+        }
+        if (mergedVertices != null)
+            allVertices.add(mergedVertices.keys());
+
+        numberOfVertices = allVertices.getCardinality();
+        labels = new RoaringBitmap[numberOfVertices];
+        vertexMap = null;
+        final TIntIntHashMap labelToVertex = new TIntIntHashMap(numberOfVertices);
+        final IntIterator it = allVertices.getIntIterator();
+        for (int v = 0; v < numberOfVertices; v++) {
+            final int label = it.next();
+            final RoaringBitmap merged = mergedVertices == null ? null : mergedVertices.get(label);
+            labels[v] = merged == null ? RoaringBitmap.bitmapOf(label) : merged.clone();
+            labelToVertex.put(label, v);
+        }
+
+        firstPin = new int[hyperEdges.length + 1];
+        pins = new int[numPins];
+        this.weights = weights.clone();
+        int p = 0;
+        for (int e = 0; e < hyperEdges.length; e++) {
+            firstPin[e] = p;
+            final IntIterator edgeIt = hyperEdges[e].getIntIterator();
+            while (edgeIt.hasNext()) {
+                pins[p++] = labelToVertex.get(edgeIt.next());
+            }
+        }
+        firstPin[hyperEdges.length] = p;
+
+        parent = createParents(numberOfVertices);
+        removed = new boolean[hyperEdges.length];
+        tree = createTree(firstPin, this.weights, removed);
+    }
+
+    //compacted graph
+    private ArrayKargerGraph(int[] firstPin, int[] pins, double[] weights, RoaringBitmap[] labels, VertexMap vertexMap, int numberOfVertices) {
+        this.firstPin = firstPin;
+        this.pins = pins;
+        this.weights = weights;
+        this.labels = labels;
+        this.vertexMap = vertexMap;
+        this.numberOfVertices = numberOfVertices;
+        parent = createParents(numberOfVertices);
+        removed = new boolean[weights.length];
+        tree = createTree(firstPin, weights, removed);
+    }
+
+    //clone constructor
+    private ArrayKargerGraph(ArrayKargerGraph graph) {
+        firstPin = graph.firstPin;
+        pins = graph.pins;
+        weights = graph.weights;
+        labels = graph.labels;
+        vertexMap = graph.vertexMap;
+        parent = graph.parent.clone();
+        tree = graph.tree.clone();
+        removed = graph.removed.clone();
+        numberOfVertices = graph.numberOfVertices;
+        purged = graph.purged;
+    }
+
+    private static int[] createParents(int numberOfVertices) {
+        final int[] parent = new int[numberOfVertices];
+        for (int v = 0; v < numberOfVertices; v++) {
+            parent[v] = v;
+        }
+        return parent;
+    }
+
+    // hyperedges with less than two vertices are marked as removed
+    private static double[] createTree(int[] firstPin, double[] weights, boolean[] removed) {
+        final double[] tree = new double[weights.length + 1];
+        for (int e = 0; e < weights.length; e++) {
+            if (firstPin[e + 1] - firstPin[e] < 2) {
+                removed[e] = true;
+            } else {
+                tree[e + 1] += weights[e];
+            }
+            // linear time construction, add the node to its parent
+            final int up = (e + 1) + ((e + 1) & -(e + 1));
+            if (up < tree.length)
+                tree[up] += tree[e + 1];
+        }
+        return tree;
+    }
+
+    @Override
+    public ArrayKargerGraph clone() {
+        if (numberOfVertices < parent.length)
+            return compact();
+        return new ArrayKargerGraph(this);
+    }
+
+    // creates a graph that contains only the merged vertices and the hyperedges between them
+    private ArrayKargerGraph compact() {
+        final int[] newVertex = new int[parent.length];
+        Arrays.fill(newVertex, -1);
+        int numVertices = 0;
+        for (int v = 0; v < parent.length; v++) {
+            final int root = find(v);
+            if (newVertex[root] < 0)
+                newVertex[root] = numVertices++;
+        }
+
+        final int[] nuFirstPin = new int[firstPin.length];
+        final int[] nuPins = new int[pins.length];
+        final double[] nuWeights = new double[weights.length];
+        int numEdges = 0;
+        int p = 0;
+        for (int e = 0; e < removed.length; e++) {
+            if (!removed[e]) {
+                final int numRoots = collectRoots(e);
+                if (numRoots > 1) {
+                    nuFirstPin[numEdges] = p;
+                    nuWeights[numEdges++] = weights[e];
+                    for (int i = 0; i < numRoots; i++) {
+                        nuPins[p++] = newVertex[drawnRoots[i]];
+                    }
+                }
+            }
+        }
+        nuFirstPin[numEdges] = p;
+
+        // the input vertices are mapped when a cut is created, this keeps the compaction independent of the input size
+        for (int v = 0; v < parent.length; v++) {
+            newVertex[v] = newVertex[find(v)];
+        }
+
+        return new ArrayKargerGraph(Arrays.copyOf(nuFirstPin, numEdges + 1), Arrays.copyOf(nuPins, p),
+                Arrays.copyOf(nuWeights, numEdges), labels, new VertexMap(newVertex, vertexMap), numVertices);
+    }
+
+    // the vertices of the input graph in this graph
+    private int[] inputVertices() {
+        final ArrayList<int[]> maps = new ArrayList<>();
+        for (VertexMap map = vertexMap; map != null; map = map.previous) {
+            maps.add(map.vertexOf);
+        }
+        final int[] vertices = new int[labels.length];
+        for (int v = 0; v < vertices.length; v++) {
+            int vertex = v;
+            for (int i = maps.size() - 1; i >= 0; i--) {
+                vertex = maps.get(i)[vertex];
+            }
+            vertices[v] = vertex;
+        }
+        return vertices;
+    }
+
+    private int find(int v) {
+        while (parent[v] != v) {
+            // path halving
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private void remove(int e) {
+        removed[e] = true;
+        final double weight = weights[e];
+        for (int i = e + 1; i < tree.length; i += i & -i) {
+            tree[i] -= weight;
+        }
+    }
+
+    private double totalWeight() {
+        double sum = 0;
+        for (int i = tree.length - 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // the hyperedge with the smallest index whose prefix sum of weights is greater than r
+    private int search(double r) {
+        int pos = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            final int next = pos + step;
+            if (next < tree.length && tree[next] <= r) {
+                pos = next;
+                r -= tree[next];
+            }
+        }
+        return Math.min(pos, removed.length - 1);
+    }
+
+    // collects the distinct merged vertices of the hyperedge in drawnRoots and returns their number
+    private int collectRoots(int e) {
+        if (drawnRoots == null) {
+            drawnRoots = new int[parent.length];
+            marks = new int[parent.length];
+        }
+        if (++mark == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            mark = 1;
+        }
+        int numRoots = 0;
+        for (int p = firstPin[e]; p < firstPin[e + 1]; p++) {
+            final int root = find(pins[p]);
+            if (marks[root] != mark) {
+                marks[root] = mark;
+                drawnRoots[numRoots++] = root;
+            }
+        }
+        return numRoots;
+    }
+
+    @Override
+    public void contract() {
+        contract(ThreadLocalRandom.current());
+    }
+
+    @Override
+    public void contract(final Random random) {
+        while (true) {
+            final double total = totalWeight();
+            if (total <= 0d)
+                throw new IllegalStateException("Graph is not connected, there are no edges left to contract.");
+            final int e = search(random.nextDouble() * total);
+            if (removed[e])
+                continue; // rounding at the border of a removed hyperedge
+            final int numRoots = collectRoots(e);
+            if (numRoots < 2) {
+                remove(e);
+                continue;
+            }
+
+            // merge two random vertices of the hyperedge
+            final int first = random.nextInt(numRoots);
+            int second = random.nextInt(numRoots - 1);
+            if (second >= first)
+                second++;
+            parent[drawnRoots[second]] = drawnRoots[first];
+            numberOfVertices--;
+            purged = false;
+            return;
+        }
+    }
+
+    // removes all hyperedges that lie within one merged vertex
+    private void purge() {
+        if (!purged) {
+            for (int e = 0; e < removed.length; e++) {
+                if (!removed[e] && collectRoots(e) < 2)
+                    remove(e);
+            }
+            purged = true;
+        }
+    }
+
+    @Override
+    public boolean isCutted() {
+        return numberOfVertices == 2;
+    }
+
+    /**
+     * @return the sum of the weights of all hyperedges that connect at least two merged vertices.
+     */
+    @Override
+    public double getSumOfWeights() {
+        purge();
+        return totalWeight();
+    }
+
+    @Override
+    public int getNumberOfVertices() {
+        return numberOfVertices;
+    }
+
+    @Override
+    public HashableCut<RoaringBitmap> asCut() {
+        if (!isCutted())
+            throw new IllegalStateException("Graph has to be cutted to get Cut representation");
+        final int[] vertices = inputVertices();
+        final int sRoot = find(vertices[0]);
+        final List<RoaringBitmap> s = new ArrayList<>();
+        final List<RoaringBitmap> t = new ArrayList<>();
+        for (int v = 0; v < labels.length; v++) {
+            if (find(vertices[v]) == sRoot)
+                s.add(labels[v]);
+            else
+                t.add(labels[v]);
+        }
+        // aggregating all labels at once is much faster than adding them one by one
+        return new HashableCut<>(FastAggregation.or(s.iterator()), FastAggregation.or(t.iterator()), getSumOfWeights());
+    }
+
+    // maps the vertices of a graph to the vertices of its compacted clone
+    private static class VertexMap {
+        private final int[] vertexOf;
+        private final VertexMap previous;
+
+        private VertexMap(int[] vertexOf, VertexMap previous) {
+            this.vertexOf = vertexOf;
+            this.previous = previous;
+        }
+    }
+}
@@ -11,34 +11,57 @@ import gnu.trove.set.TIntSet;
 import mincut.cutGraphAPI.bipartition.HashableCut;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.stream.Collectors;
 
+/**
+ * Karger-Stein minimum cut sampling. The trials (and the two branches of every recursive contraction) are independent,
+ * so they can run as fork-join tasks (see {@link #setForkJoinPool(ForkJoinPool)}). The contractions draw from
+ * {@link java.util.concurrent.ThreadLocalRandom}, and every task collects its cuts in its own bounded top-k set,
+ * so the tasks share no state and the sets are merged when the tasks are joined.
+ * <p>
+ * By default the number of trials is fixed ((log n)^2 recursive, n^2 log n otherwise). In the adaptive mode
+ * (see {@link #setStableTrials(int)} and {@link #setTimeLimit(long)}) the sampling stops early, if the top-k cuts have
+ * not changed for a number of trials or if the time limit is reached. {@link #getConfidence()} reports the probability
+ * that a minimum cut was found by the trials that have been run.
+ */
 public class KargerStein<G extends KargerGraph<G, S>, S> {
     public static final double SQRT2 = Math.sqrt(2d);
-    private TreeMap<Double, Set<HashableCut<S>>> cutsSorted;
-    private int sumOfCuts;
-
+    // smaller graphs are contracted by the task that created them, splitting them does not pay off
+    private static final int PARALLEL_THRESHOLD = 32;
 
     private int maxCuts = Integer.MAX_VALUE;
+    private ForkJoinPool pool = null;
+    private int stableTrials = 0;
+    private long timeLimit = 0;
 
-    private G recursiveContract(G gr) {
+    /* statistics of the last run */
+    private int trials = 0;
+    private int maxTrials = 0;
+    private double confidence = Double.NaN;
+
+    private void recursiveContract(final G gr, final TopCuts<S> cuts) {
         assert !gr.isCutted();
         final int n = gr.getNumberOfVertices();
         if (n <= 6) {
             contract(gr, 2);
-            addCut(gr);
-            return gr;
+            cuts.add(gr);
         } else {
             final int contractTo = (int) Math.ceil((((double) n) / SQRT2) + 1d);
 
             G grClone = contractAndKeep(gr, contractTo);
             contract(grClone, contractTo);
 
-            G g1 = recursiveContract(gr);
-            G g2 = recursiveContract(grClone);
-
-
-            return (g1.getSumOfWeights() < g2.getSumOfWeights()) ? g1 : g2;
+            if (pool != null && n > PARALLEL_THRESHOLD) {
+                final RecursiveContraction other = new RecursiveContraction(grClone);
+                other.fork();
+                recursiveContract(gr, cuts);
+                cuts.addAll(other.join());
+            } else {
+                recursiveContract(gr, cuts);
+                recursiveContract(grClone, cuts);
+            }
         }
     }
 
@@ -50,60 +73,266 @@ public class KargerStein<G extends KargerGraph<G, S>, S> {
         return maxCuts;
     }
 
+    /**
+     * @param pool pool to run the trials in parallel, null (default) to run them sequentially in the calling thread
+     */
+    public void setForkJoinPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return pool;
+    }
+
+    /**
+     * @param stableTrials stop sampling if the top-k cuts did not change for this number of trials,
+     *                     0 (default) to run the full number of trials.
+     */
+    public void setStableTrials(int stableTrials) {
+        this.stableTrials = Math.max(0, stableTrials);
+    }
+
+    public int getStableTrials() {
+        return stableTrials;
+    }
+
+    /**
+     * @param timeLimit stop sampling after this number of milliseconds, 0 (default) for no limit.
+     *                  At least one trial is run.
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = Math.max(0, timeLimit);
+    }
+
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * @return number of trials of the last run
+     */
+    public int getNumberOfTrials() {
+        return trials;
+    }
+
+    /**
+     * @return number of trials the last run would have run without adaptive stopping
+     */
+    public int getMaxNumberOfTrials() {
+        return maxTrials;
+    }
+
+    /**
+     * @return true if the adaptive sampling stopped the last run before the full number of trials
+     */
+    public boolean isStoppedEarly() {
+        return trials < maxTrials;
+    }
+
+    /**
+     * @return lower bound for the probability that the last run found a (fixed) minimum cut, i.e. 1 - (1 - p)^t for
+     * t trials that succeed with probability p = 1 / (log2(n) + 1) (recursive) or 2 / (n^2 - n). The bounds are proven for
+     * graphs, for hypergraphs they are an estimate.
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
     public List<HashableCut<S>> getMinCuts(final G gr, final boolean recursive) {
         final int n = gr.getNumberOfVertices();
-        cutsSorted = new TreeMap<>();
-
+        final int iter;
         if (recursive) {
-            final int iter = (int) ((Math.log(n) / Math.log(2)) * (Math.log(n) / Math.log(2)));
+            iter = (int) ((Math.log(n) / Math.log(2)) * (Math.log(n) / Math.log(2)));
+        } else {
+            iter = (int) (n * n * (Math.log(n) / Math.log(2)));
+        }
+        maxTrials = iter;
+
+        final TopCuts<S> cutsSorted;
+        if (stableTrials > 0 || timeLimit > 0) {
+            cutsSorted = new TopCuts<>(maxCuts);
+            trials = adaptiveTrials(gr, recursive, iter, cutsSorted);
+        } else if (pool == null) {
+            cutsSorted = new TopCuts<>(maxCuts);
             for (int i = 0; i < iter; i++) {
-                recursiveContract(gr.clone());
+                trial(gr, recursive, cutsSorted);
             }
+            trials = iter;
         } else {
-            final int iter = (int) (n * n * (Math.log(n) / Math.log(2)));
-            for (int i = 0; i < iter; i++) {
-                G clone = gr.clone();
-                contract(clone, 2);
-                addCut(clone);
+            cutsSorted = pool.invoke(new Trials(gr, recursive, 0, iter));
+            trials = iter;
+        }
+        confidence = confidence(n, recursive, trials);
+
+        return cutsSorted.toList();
+    }
+
+    // runs at most maxTrials trials and returns the number of trials that have been run
+    private int adaptiveTrials(final G gr, final boolean recursive, final int maxTrials, final TopCuts<S> cuts) {
+        if (maxTrials <= 0)
+            return 0;
+        final long deadline = System.nanoTime() + timeLimit * 1000000L;
+        // the parallel trials run in batches, the stop criteria are checked between the batches
+        final int batchSize = pool == null ? 1 : pool.getParallelism();
+        int done = 0;
+        int stable = 0;
+        do {
+            final int batch = Math.min(batchSize, maxTrials - done);
+            final long modifications = cuts.getModifications();
+            if (pool == null) {
+                trial(gr, recursive, cuts);
+            } else {
+                cuts.addAll(pool.invoke(new Trials(gr, recursive, 0, batch)));
             }
+            done += batch;
+            stable = modifications == cuts.getModifications() ? stable + batch : 0;
+        } while (done < maxTrials
+                && (stableTrials <= 0 || stable < stableTrials)
+                && (timeLimit <= 0 || System.nanoTime() < deadline));
+        return done;
+    }
+
+    private static double confidence(final int n, final boolean recursive, final int trials) {
+        if (n <= 2)
+            return 1d;
+        final double p = recursive ? 1d / (Math.log(n) / Math.log(2) + 1d) : 2d / ((double) n * (n - 1));
+        return 1d - Math.pow(1d - p, trials);
+    }
+
+    private void trial(final G gr, final boolean recursive, final TopCuts<S> cuts) {
+        final G clone = gr.clone();
+        if (recursive) {
+            recursiveContract(clone, cuts);
+        } else {
+            contract(clone, 2);
+            cuts.add(clone);
+        }
+    }
+
+    // runs the trials lo to hi (exclusive). Every leaf task runs a batch of trials into one top-k set,
+    // about four batches per worker, so that the forking and merging does not dominate small trials
+    private class Trials extends RecursiveTask<TopCuts<S>> {
+        private static final long serialVersionUID = 1L;
+
+        private final G gr;
+        private final boolean recursive;
+        private final int lo;
+        private final int hi;
+        private final int batchSize;
+
+        Trials(G gr, boolean recursive, int lo, int hi) {
+            this(gr, recursive, lo, hi, Math.max(1, (hi - lo) / (pool.getParallelism() * 4)));
+        }
+
+        private Trials(G gr, boolean recursive, int lo, int hi, int batchSize) {
+            this.gr = gr;
+            this.recursive = recursive;
+            this.lo = lo;
+            this.hi = hi;
+            this.batchSize = batchSize;
         }
 
-        return cutsSorted.values().stream().flatMap(Collection::stream).collect(Collectors.toList());
+        @Override
+        protected TopCuts<S> compute() {
+            if (hi - lo <= batchSize) {
+                final TopCuts<S> cuts = new TopCuts<>(maxCuts);
+                for (int i = lo; i < hi; i++)
+                    trial(gr, recursive, cuts);
+                return cuts;
+            }
+            final int mid = (lo + hi) >>> 1;
+            final Trials left = new Trials(gr, recursive, lo, mid, batchSize);
+            left.fork();
+            final TopCuts<S> cuts = new Trials(gr, recursive, mid, hi, batchSize).compute();
+            cuts.addAll(left.join());
+            return cuts;
+        }
     }
 
-    private void addCut(G graph) {
-        final double weight = graph.getSumOfWeights();
+    private class RecursiveContraction extends RecursiveTask<TopCuts<S>> {
+        private static final long serialVersionUID = 1L;
+
+        private final G gr;
+
+        RecursiveContraction(G gr) {
+            this.gr = gr;
+        }
+
+        @Override
+        protected TopCuts<S> compute() {
+            final TopCuts<S> cuts = new TopCuts<>(maxCuts);
+            recursiveContract(gr, cuts);
+            return cuts;
+        }
+    }
+
+    /**
+     * The best cuts found so far, sorted by weight. Contains at most maxCuts distinct cuts, if there are more,
+     * cuts with the highest weight are removed. Not thread safe, every task has its own instance.
+     */
+    static class TopCuts<S> {
+        private final TreeMap<Double, Set<HashableCut<S>>> cutsSorted = new TreeMap<>();
+        private final int maxCuts;
+        private int sumOfCuts;
+        private long modifications = 0;
+
+        TopCuts(int maxCuts) {
+            this.maxCuts = maxCuts;
+        }
+
+        // the cut is only created if the graph is good enough
+        boolean add(KargerGraph<?, S> graph) {
+            final double weight = graph.getSumOfWeights();
+            return isCandidate(weight) && add(weight, graph.asCut());
+        }
+
+        boolean add(double weight, HashableCut<S> cut) {
+            if (!isCandidate(weight))
+                return false;
 
-        if (cutsSorted.size() < maxCuts || cutsSorted.lastKey() > weight) {
-            final HashableCut<S> cut = graph.asCut();
             final Set<HashableCut<S>> cuts = cutsSorted.computeIfAbsent(weight, k -> new HashSet<>());
-            if (cuts.add(cut))
-                sumOfCuts++;
+            if (!cuts.add(cut))
+                return false;
+            sumOfCuts++;
 
             if (sumOfCuts > maxCuts) {
                 Map.Entry<Double, Set<HashableCut<S>>> last = cutsSorted.lastEntry();
                 Set<HashableCut<S>> lastValue = last.getValue();
-                if (lastValue.remove(lastValue.iterator().next()))
+                final HashableCut<S> evicted = lastValue.iterator().next();
+                if (lastValue.remove(evicted))
                     sumOfCuts--;
                 if (lastValue.isEmpty()) {
                     cutsSorted.remove(last.getKey());
                 }
+                // the kept cuts did not change
+                if (evicted.equals(cut))
+                    return false;
             }
+            modifications++;
+            return true;
+        }
+
+        // a cut is only kept if there is space left or if it is better than the worst kept cut
+        private boolean isCandidate(double weight) {
+            return sumOfCuts < maxCuts || cutsSorted.lastKey() > weight;
         }
 
-            /*while (sumOfCuts > maxCuts) {
-                Map.Entry<Double, Set<G>> last = cutsSorted.lastEntry();
-                Set<G> lastValue = last.getValue();
-                while(sumOfCuts > maxCuts){
-                    if (lastValue.remove(lastValue.iterator().next()))
-                        sumOfCuts --;
-                    if (lastValue.isEmpty()) {
-                        cutsSorted.remove(last.getKey());
-                        break;
-                    }
+        void addAll(TopCuts<S> other) {
+            for (Map.Entry<Double, Set<HashableCut<S>>> entry : other.cutsSorted.entrySet()) {
+                for (HashableCut<S> cut : entry.getValue()) {
+                    add(entry.getKey(), cut);
                 }
-            }*/
+            }
+        }
+
+        // number of changes of the kept cuts, to detect that the sampling did not find better cuts
+        long getModifications() {
+            return modifications;
+        }
 
+        List<HashableCut<S>> toList() {
+            return cutsSorted.values().stream().flatMap(Collection::stream).collect(Collectors.toList());
+        }
     }
 
 
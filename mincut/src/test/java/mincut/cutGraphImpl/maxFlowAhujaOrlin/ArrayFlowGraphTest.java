@@ -0,0 +1,143 @@
+package mincut.cutGraphImpl.maxFlowAhujaOrlin;
+
+import mincut.cutGraphImpl.maxFlowGoldbergTarjan.ArrayCutGraphImpl;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the array based Ahuja-Orlin implementation computes the same flow values as the object based one
+ * and the push-relabel implementation and that both of its cut sets are minimum cuts.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class ArrayFlowGraphTest {
+
+    @Test
+    public void testRandomGraphs() {
+        final Random r = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            final int n = 2 + r.nextInt(40);
+            final int m = n + r.nextInt(4 * n);
+            final int[][] edges = new int[m][];
+            final int[] arcs = new int[n];
+            for (int e = 0; e < m; e++) {
+                int s = r.nextInt(n);
+                int t = r.nextInt(n - 1);
+                if (t >= s) t++;
+                edges[e] = new int[]{s, t, 1 + r.nextInt(20)};
+                arcs[s]++;
+                arcs[t]++;
+            }
+
+            final ArrayCutGraphImpl hipri = new ArrayCutGraphImpl(n, 2 * m);
+            final ArrayFlowGraph flowGraph = new ArrayFlowGraph(n, 2 * m);
+            final FlowGraph objectGraph = new FlowGraph();
+            for (int i = 0; i < n; i++) {
+                hipri.createNode(i, arcs[i]);
+                flowGraph.createNode(i, arcs[i]);
+                objectGraph.addNode(i);
+            }
+            for (int[] edge : edges) {
+                hipri.addEdge(edge[0], edge[1], edge[2]);
+                flowGraph.addEdge(edge[0], edge[1], edge[2]);
+                objectGraph.addEdge(edge[0], edge[1], edge[2]);
+            }
+
+            // the copy shares the graph structure but has its own flow state
+            final ArrayFlowGraph copy = new ArrayFlowGraph(flowGraph);
+            for (int sink = 1; sink < n; sink++) {
+                hipri.setSource(0);
+                hipri.setSink(sink);
+                hipri.calculateMaxFlow();
+                flowGraph.setSource(0);
+                flowGraph.setSink(sink);
+                flowGraph.calculateMaxFlow();
+                copy.setSource(0);
+                copy.setSink(sink);
+                copy.calculateMaxFlow();
+                final FlowGraph objectCopy = objectGraph.clone();
+                objectCopy.setSource(0);
+                objectCopy.setSink(sink);
+                objectCopy.calculateSTFlow();
+
+                assertEquals(hipri.getValue(), flowGraph.getValue(), 0d);
+                assertEquals(hipri.getValue(), copy.getValue(), 0d);
+                assertEquals(objectCopy.getMaximumFlow(), flowGraph.getValue(), 0d);
+                // the nodes that can reach the sink are the smallest sink set of all minimum cuts
+                for (int i = 0; i < n; i++) {
+                    assertTrue(!flowGraph.isInSinkSet(i) || hipri.isInSinkSet(i));
+                    assertEquals(flowGraph.isInSinkSet(i), copy.isInSinkSet(i));
+                    assertTrue(!flowGraph.isReachableFromSource(i) || flowGraph.isInSourceSet(i));
+                }
+                assertTrue(flowGraph.isInSourceSet(0) && flowGraph.isInSinkSet(sink));
+                assertTrue(flowGraph.isReachableFromSource(0) && !flowGraph.isReachableFromSource(sink));
+
+                double sinkSetCut = 0;
+                double reachableCut = 0;
+                for (int[] edge : edges) {
+                    if (flowGraph.isInSourceSet(edge[0]) && flowGraph.isInSinkSet(edge[1]))
+                        sinkSetCut += edge[2];
+                    if (flowGraph.isReachableFromSource(edge[0]) && !flowGraph.isReachableFromSource(edge[1]))
+                        reachableCut += edge[2];
+                }
+                assertEquals(flowGraph.getValue(), sinkSetCut, 0d);
+                assertEquals(flowGraph.getValue(), reachableCut, 0d);
+            }
+        }
+    }
+
+    @Test
+    public void testCutoff() {
+        final Random r = new Random(7);
+        for (int run = 0; run < 100; run++) {
+            final int n = 3 + r.nextInt(30);
+            final int m = n + r.nextInt(4 * n);
+            final int[][] edges = new int[m][];
+            final int[] arcs = new int[n];
+            for (int e = 0; e < m; e++) {
+                int s = r.nextInt(n);
+                int t = r.nextInt(n - 1);
+                if (t >= s) t++;
+                edges[e] = new int[]{s, t, 1 + r.nextInt(20)};
+                arcs[s]++;
+                arcs[t]++;
+            }
+            final ArrayFlowGraph flowGraph = new ArrayFlowGraph(n, 2 * m);
+            for (int i = 0; i < n; i++) {
+                flowGraph.createNode(i, arcs[i]);
+            }
+            for (int[] edge : edges) {
+                flowGraph.addEdge(edge[0], edge[1], edge[2]);
+            }
+            flowGraph.setSource(0);
+            flowGraph.setSink(n - 1);
+            flowGraph.calculateMaxFlow();
+            final double value = flowGraph.getValue();
+            assertTrue(!flowGraph.isAborted());
+
+            // a cutoff above the flow value does not change the result
+            flowGraph.setCutoff((long) value + 1);
+            flowGraph.calculateMaxFlow();
+            assertTrue(!flowGraph.isAborted());
+            assertEquals(value, flowGraph.getValue(), 0d);
+
+            if (value > 0) {
+                flowGraph.setCutoff((long) value);
+                flowGraph.calculateMaxFlow();
+                assertTrue(flowGraph.isAborted());
+                assertTrue(flowGraph.getValue() >= value);
+
+                flowGraph.setCutoff(Long.MAX_VALUE);
+                flowGraph.setSharedBound(new AtomicLong((long) value - 1));
+                flowGraph.calculateMaxFlow();
+                assertTrue(flowGraph.isAborted());
+                assertTrue(flowGraph.getValue() > value - 1);
+            }
+        }
+    }
+}
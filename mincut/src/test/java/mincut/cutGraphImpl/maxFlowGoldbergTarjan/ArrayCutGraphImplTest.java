@@ -0,0 +1,154 @@
+package mincut.cutGraphImpl.maxFlowGoldbergTarjan;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the array based push-relabel implementation computes the same cuts as the object based one.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class ArrayCutGraphImplTest {
+
+    @Test
+    public void testRandomGraphs() {
+        final Random r = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            final int n = 2 + r.nextInt(40);
+            final int m = n + r.nextInt(4 * n);
+            final int[][] edges = new int[m][];
+            final int[] arcs = new int[n];
+            for (int e = 0; e < m; e++) {
+                int s = r.nextInt(n);
+                int t = r.nextInt(n - 1);
+                if (t >= s) t++;
+                edges[e] = new int[]{s, t, 1 + r.nextInt(20)};
+                arcs[s]++;
+                arcs[t]++;
+            }
+
+            final CutGraphImpl hipri = new CutGraphImpl(n, 2 * m);
+            final ArrayCutGraphImpl arrayHipri = new ArrayCutGraphImpl(n, 2 * m);
+            final Node[] nodes = new Node[n];
+            for (int i = 0; i < n; i++) {
+                nodes[i] = hipri.createNode(i, arcs[i]);
+                arrayHipri.createNode(i, arcs[i]);
+            }
+            for (int[] edge : edges) {
+                hipri.addEdge(nodes[edge[0]], nodes[edge[1]], edge[2]);
+                arrayHipri.addEdge(edge[0], edge[1], edge[2]);
+            }
+
+            // the copy shares the graph structure but has its own flow state
+            final ArrayCutGraphImpl copy = new ArrayCutGraphImpl(arrayHipri);
+            for (int sink = 1; sink < n; sink++) {
+                hipri.setSource(nodes[0]);
+                hipri.setSink(nodes[sink]);
+                hipri.calculateMaxFlow(false);
+                arrayHipri.setSource(0);
+                arrayHipri.setSink(sink);
+                arrayHipri.calculateMaxFlow();
+                copy.setSource(0);
+                copy.setSink(sink);
+                copy.calculateMaxFlow();
+
+                assertEquals(hipri.getValue(), arrayHipri.getValue());
+                assertEquals(hipri.getValue(), copy.getValue());
+                for (int i = 0; i < n; i++) {
+                    assertEquals(hipri.isInSinkSet(nodes[i]), arrayHipri.isInSinkSet(i));
+                    assertEquals(hipri.isInSinkSet(nodes[i]), copy.isInSinkSet(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCapacityChanges() {
+        final Random r = new Random(7);
+        final long inf = 1000000000L;
+        for (int run = 0; run < 100; run++) {
+            final int n = 3 + r.nextInt(30);
+            final int m = n + r.nextInt(4 * n);
+            final int[][] edges = new int[m][];
+            final int[] arcs = new int[n];
+            for (int e = 0; e < m; e++) {
+                int s = r.nextInt(n);
+                int t = r.nextInt(n - 1);
+                if (t >= s) t++;
+                edges[e] = new int[]{s, t, 1 + r.nextInt(20)};
+                arcs[s]++;
+                arcs[t]++;
+            }
+
+            // every node is connected to a super source (node n) and a super sink (node n + 1)
+            final int[] sourceArcs = new int[n];
+            final int[] sinkArcs = new int[n];
+            final ArrayCutGraphImpl network = createGraph(n, edges, arcs, new long[n], new long[n], sourceArcs, sinkArcs);
+            final ArrayCutGraphImpl copy = new ArrayCutGraphImpl(network);
+
+            for (int partial = 0; partial < 10; partial++) {
+                final long[] sourceCaps = new long[n];
+                final long[] sinkCaps = new long[n];
+                for (int i = 0; i < n; i++) {
+                    final int side = r.nextInt(4);
+                    if (side == 0) {
+                        sourceCaps[i] = inf;
+                        copy.setCapacity(sourceArcs[i], inf);
+                    } else if (side == 1) {
+                        sinkCaps[i] = inf;
+                        copy.setCapacity(sinkArcs[i], inf);
+                    }
+                }
+
+                final ArrayCutGraphImpl expected = createGraph(n, edges, arcs, sourceCaps, sinkCaps, null, null);
+                expected.setSource(n);
+                expected.setSink(n + 1);
+                expected.calculateMaxFlow();
+                copy.setSource(n);
+                copy.setSink(n + 1);
+                copy.calculateMaxFlow();
+
+                assertEquals(expected.getValue(), copy.getValue());
+                for (int i = 0; i < n + 2; i++) {
+                    assertEquals(expected.isInSinkSet(i), copy.isInSinkSet(i));
+                }
+
+                for (int i = 0; i < n; i++) {
+                    copy.setCapacity(sourceArcs[i], 0);
+                    copy.setCapacity(sinkArcs[i], 0);
+                }
+            }
+
+            // the capacities of the original graph are not changed by the copy
+            final ArrayCutGraphImpl other = new ArrayCutGraphImpl(network);
+            other.setSource(n);
+            other.setSink(n + 1);
+            other.calculateMaxFlow();
+            assertEquals(0, other.getValue());
+        }
+    }
+
+    private static ArrayCutGraphImpl createGraph(int n, int[][] edges, int[] arcs, long[] sourceCaps, long[] sinkCaps, int[] sourceArcs, int[] sinkArcs) {
+        final ArrayCutGraphImpl graph = new ArrayCutGraphImpl(n + 2, 2 * edges.length + 4 * n);
+        for (int i = 0; i < n; i++) {
+            graph.createNode(i, arcs[i] + 2);
+        }
+        final int source = graph.createNode(n, n);
+        final int sink = graph.createNode(n + 1, n);
+        for (int[] edge : edges) {
+            graph.addEdge(edge[0], edge[1], edge[2]);
+        }
+        for (int i = 0; i < n; i++) {
+            final int sourceArc = graph.addEdge(source, i, sourceCaps[i]);
+            final int sinkArc = graph.addEdge(i, sink, sinkCaps[i]);
+            if (sourceArcs != null) {
+                sourceArcs[i] = sourceArc;
+                sinkArcs[i] = sinkArc;
+            }
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,138 @@
+package mincut.cutGraphImpl.minCutHaoOrlin;
+
+import mincut.cutGraphAPI.GoldbergTarjanCutGraph;
+import mincut.cutGraphAPI.HaoOrlinCutGraph;
+import mincut.cutGraphAPI.bipartition.STCut;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the single preflow global minimum cut against n-1 independent Goldberg-Tarjan maximum flows.
+ *
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class HaoOrlinCutGraphTest {
+    private static final long INFINITY = 1000000000000000L;
+
+    @Test
+    public void testExample() throws ExecutionException, InterruptedException {
+        int[][] edges = {{1, 2, 5}, {2, 3, 5}, {3, 4, 5}, {3, 5, 2}, {4, 2, 5}, {4, 7, 2}, {5, 6, 5}, {6, 6, 5}, {6, 8, 4}, {7, 5, 5}, {7, 8, 1}, {8, 1, 3}};
+
+        HaoOrlinCutGraph<Integer> ho = new HaoOrlinCutGraph<>();
+        GoldbergTarjanCutGraph<Integer> gt = new GoldbergTarjanCutGraph<>();
+        for (int[] edge : edges) {
+            ho.addEdge(edge[0], edge[1], edge[2]);
+            gt.addEdge(edge[0], edge[1], edge[2]);
+        }
+        for (int i = 2; i <= 8; i++) {
+            gt.submitSTCutCalculation(1, i);
+        }
+
+        STCut<Integer> cut = ho.calculateMinCut();
+        assertEquals(gt.calculateMinCut().minCutValue(), cut.minCutValue());
+        assertEquals(2, cut.minCutValue());
+        assertTrue(cut.getsSet().contains(1));
+        assertEquals(cut.minCutValue(), cutValue(edges, cut.getsSet()));
+    }
+
+    @Test
+    public void testRandomGraphs() throws ExecutionException, InterruptedException {
+        final Random r = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            final int n = 2 + r.nextInt(30);
+            final int m = n + r.nextInt(4 * n);
+            final int[][] edges = new int[m][];
+            for (int e = 0; e < m; e++) {
+                edges[e] = new int[]{r.nextInt(n), r.nextInt(n), 1 + r.nextInt(20)};
+            }
+
+            HaoOrlinCutGraph<Integer> ho = new HaoOrlinCutGraph<>();
+            GoldbergTarjanCutGraph<Integer> gt = new GoldbergTarjanCutGraph<>();
+            for (int i = 0; i < n; i++) {
+                ho.addNode(i);
+                gt.addNode(i);
+            }
+            for (int[] edge : edges) {
+                ho.addEdge(edge[0], edge[1], edge[2]);
+                gt.addEdge(edge[0], edge[1], edge[2]);
+            }
+            for (int i = 1; i < n; i++) {
+                gt.submitSTCutCalculation(0, i);
+            }
+
+            STCut<Integer> cut = ho.calculateMinCut();
+            assertEquals(gt.calculateMinCut().minCutValue(), cut.minCutValue());
+            assertTrue(cut.getsSet().contains(0));
+            assertFalse(cut.gettSet().isEmpty());
+            assertEquals(cut.minCutValue(), cutValue(edges, cut.getsSet()));
+        }
+    }
+
+    @Test
+    public void testRandomHypergraphs() throws ExecutionException, InterruptedException {
+        final Random r = new Random(23);
+        for (int run = 0; run < 200; run++) {
+            final int taxa = 2 + r.nextInt(20);
+            final int chars = 1 + r.nextInt(2 * taxa);
+
+            HaoOrlinCutGraph<Integer> ho = new HaoOrlinCutGraph<>();
+            GoldbergTarjanCutGraph<Integer> gt = new GoldbergTarjanCutGraph<>();
+            final List<int[]> edges = new ArrayList<>();
+
+            for (int t = 0; t < taxa; t++) {
+                ho.addTerminal(t);
+                gt.addNode(t);
+            }
+            // hyperedge gadget: taxa -> out -> in -> taxa
+            for (int c = 0; c < chars; c++) {
+                final int out = taxa + 2 * c;
+                final int in = out + 1;
+                edges.add(new int[]{out, in, 1 + r.nextInt(10)});
+                for (int t = 0; t < taxa; t++) {
+                    if (r.nextInt(3) == 0) {
+                        edges.add(new int[]{t, out, -1});
+                        edges.add(new int[]{in, t, -1});
+                    }
+                }
+            }
+            for (int[] edge : edges) {
+                final long cap = edge[2] < 0 ? INFINITY : edge[2];
+                ho.addEdge(edge[0], edge[1], cap);
+                gt.addEdge(edge[0], edge[1], cap);
+            }
+            for (int t = 1; t < taxa; t++) {
+                gt.submitSTCutCalculation(0, t);
+            }
+
+            STCut<Integer> cut = ho.calculateMinCut();
+            assertEquals(gt.calculateMinCut().minCutValue(), cut.minCutValue());
+
+            // the cut has to separate the taxa
+            int taxaInT = 0;
+            for (int t = 0; t < taxa; t++) {
+                if (cut.gettSet().contains(t))
+                    taxaInT++;
+            }
+            assertTrue(taxaInT > 0);
+            assertTrue(taxaInT < taxa);
+        }
+    }
+
+    private static long cutValue(int[][] edges, LinkedHashSet<Integer> sSet) {
+        long value = 0;
+        for (int[] edge : edges) {
+            if (sSet.contains(edge[0]) && !sSet.contains(edge[1]))
+                value += edge[2];
+        }
+        return value;
+    }
+}
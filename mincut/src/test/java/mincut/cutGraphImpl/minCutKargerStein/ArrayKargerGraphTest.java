@@ -0,0 +1,98 @@
+package mincut.cutGraphImpl.minCutKargerStein;
+
+import mincut.cutGraphAPI.bipartition.HashableCut;
+import org.junit.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Markus Fleischauer (markus.fleischauer@gmail.com)
+ */
+public class ArrayKargerGraphTest {
+
+    @Test
+    public void testCutValues() {
+        final Random r = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            final int numVertices = 3 + r.nextInt(20);
+            final RoaringBitmap[] hyperEdges = new RoaringBitmap[2 * numVertices];
+            final double[] weights = new double[hyperEdges.length];
+            for (int e = 0; e < hyperEdges.length; e++) {
+                // a path over all vertices keeps the graph connected
+                hyperEdges[e] = e < numVertices - 1 ? RoaringBitmap.bitmapOf(e, e + 1) : new RoaringBitmap();
+                final int size = 1 + r.nextInt(5);
+                for (int j = 0; j < size; j++) {
+                    hyperEdges[e].add(r.nextInt(numVertices));
+                }
+                weights[e] = 1 + r.nextInt(10);
+            }
+
+            final ArrayKargerGraph graph = new ArrayKargerGraph(hyperEdges, weights, null);
+            assertEquals(numVertices, graph.getNumberOfVertices());
+
+            ArrayKargerGraph cutted = graph.clone();
+            while (cutted.getNumberOfVertices() > numVertices / 2 + 1) {
+                cutted.contract(r);
+            }
+            // clones of contracted graphs are compacted
+            final ArrayKargerGraph contracted = cutted;
+            cutted = contracted.clone();
+            assertEquals(contracted.getNumberOfVertices(), cutted.getNumberOfVertices());
+            while (!cutted.isCutted()) {
+                cutted.contract(r);
+            }
+            // the clones do not change the originals
+            assertEquals(numVertices, graph.getNumberOfVertices());
+            assertEquals(numVertices / 2 + 1, contracted.getNumberOfVertices());
+            assertFalse(graph.isCutted());
+
+            final HashableCut<RoaringBitmap> cut = cutted.asCut();
+            assertFalse(cut.getSset().isEmpty());
+            assertFalse(cut.getTset().isEmpty());
+            assertFalse(RoaringBitmap.intersects(cut.getSset(), cut.getTset()));
+            assertEquals(numVertices, RoaringBitmap.or(cut.getSset(), cut.getTset()).getCardinality());
+
+            double expected = 0d;
+            for (int e = 0; e < hyperEdges.length; e++) {
+                if (RoaringBitmap.intersects(hyperEdges[e], cut.getSset()) && RoaringBitmap.intersects(hyperEdges[e], cut.getTset()))
+                    expected += weights[e];
+            }
+            assertEquals(expected, cut.minCutValue(), 0d);
+        }
+    }
+
+    @Test
+    public void testMinCut() {
+        String testFile = getClass().getResource("/kargerAdj.txt").getFile();
+        final int[][] arr = GraphUtils.getArray(testFile);
+        final Set<RoaringBitmap> edges = new LinkedHashSet<>();
+        for (int i = 0; i < arr.length; i++) {
+            for (int j = 0; j < arr[i].length; j++) {
+                edges.add(RoaringBitmap.bitmapOf(i, arr[i][j]));
+            }
+        }
+        final double[] weights = new double[edges.size()];
+        Arrays.fill(weights, 1d);
+        final ArrayKargerGraph graph = new ArrayKargerGraph(edges.toArray(new RoaringBitmap[edges.size()]), weights, null);
+
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            KargerStein<ArrayKargerGraph, RoaringBitmap> cutter = new KargerStein<>();
+            cutter.setMaxCutNumber(10);
+            List<HashableCut<RoaringBitmap>> cuts = new ArrayList<>(cutter.getMinCuts(graph, true));
+            assertTrue(cuts.size() <= 10);
+            best = Math.min(best, cuts.get(0).minCutValue());
+        }
+        assertEquals(3d, best, 0d);
+    }
+}
@@ -11,6 +11,7 @@ import mincut.cutGraphAPI.GoldbergTarjanCutGraph;
 import mincut.cutGraphAPI.KargerSteinCutGraph;
 import mincut.cutGraphAPI.bipartition.AbstractBipartition;
 import mincut.cutGraphAPI.bipartition.DefaultBipartition;
+import mincut.cutGraphAPI.bipartition.HashableCut;
 import mincut.cutGraphAPI.bipartition.STCut;
 import mincut.cutGraphAPI.bipartition.SimpleHashableCut;
 import org.junit.Test;
@@ -20,8 +21,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Markus Fleischauer (markus.fleischauer@gmail.com)
@@ -106,4 +110,126 @@ public class KargerSteinTest {
         assertEquals(goldCut.minCutValue(), randCut.minCutValue());
     }
 //    }
+
+    @Test
+    public void testParallel() {
+        String testFile = getClass().getResource("/kargerAdj.txt").getFile();
+        final int[][] arr = GraphUtils.getArray(testFile);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            double best = Double.MAX_VALUE;
+            for (int i = 0; i < 10; i++) {
+                KargerStein<SimpleGraph, TIntSet> cutter = new KargerStein<>();
+                cutter.setMaxCutNumber(10);
+                cutter.setForkJoinPool(pool);
+                List<HashableCut<TIntSet>> cuts = cutter.getMinCuts(GraphUtils.createGraph(arr), true);
+
+                assertTrue(cuts.size() <= 10);
+                assertEquals(cuts.size(), new HashSet<>(cuts).size());
+                for (int j = 1; j < cuts.size(); j++) {
+                    assertTrue(cuts.get(j - 1).minCutValue() <= cuts.get(j).minCutValue());
+                }
+                best = Math.min(best, cuts.get(0).minCutValue());
+            }
+            assertEquals(3d, best, 0d);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdaptive() {
+        String testFile = getClass().getResource("/kargerAdj.txt").getFile();
+        final int[][] arr = GraphUtils.getArray(testFile);
+        final int n = arr.length;
+        final int maxTrials = (int) ((Math.log(n) / Math.log(2)) * (Math.log(n) / Math.log(2)));
+
+        KargerStein<SimpleGraph, TIntSet> fixed = new KargerStein<>();
+        fixed.setMaxCutNumber(5);
+        fixed.getMinCuts(GraphUtils.createGraph(arr), true);
+        assertEquals(maxTrials, fixed.getNumberOfTrials());
+        assertEquals(maxTrials, fixed.getMaxNumberOfTrials());
+        assertFalse(fixed.isStoppedEarly());
+        assertTrue(fixed.getConfidence() > 0.99);
+
+        KargerStein<SimpleGraph, TIntSet> stable = new KargerStein<>();
+        stable.setMaxCutNumber(5);
+        stable.setStableTrials(3);
+        List<HashableCut<TIntSet>> cuts = stable.getMinCuts(GraphUtils.createGraph(arr), true);
+        assertTrue(stable.getNumberOfTrials() >= 3);
+        assertTrue(stable.getNumberOfTrials() <= maxTrials);
+        assertEquals(maxTrials, stable.getMaxNumberOfTrials());
+        assertEquals(stable.getNumberOfTrials() < maxTrials, stable.isStoppedEarly());
+        assertTrue(stable.getConfidence() <= fixed.getConfidence());
+        assertTrue(cuts.size() <= 5);
+
+        KargerStein<SimpleGraph, TIntSet> timed = new KargerStein<>();
+        timed.setTimeLimit(1);
+        timed.getMinCuts(GraphUtils.createGraph(arr), true);
+        assertTrue(timed.getNumberOfTrials() >= 1);
+        assertTrue(timed.getConfidence() > 0);
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            KargerStein<SimpleGraph, TIntSet> parallel = new KargerStein<>();
+            parallel.setForkJoinPool(pool);
+            parallel.setStableTrials(4);
+            parallel.getMinCuts(GraphUtils.createGraph(arr), true);
+            assertTrue(parallel.getNumberOfTrials() >= 4);
+            assertTrue(parallel.getNumberOfTrials() <= maxTrials);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testTopCutsModifications() {
+        final KargerStein.TopCuts<Integer> cuts = new KargerStein.TopCuts<>(3);
+        assertTrue(cuts.add(1, new HashableCut<>(0, 1, 1)));
+        assertTrue(cuts.add(5, new HashableCut<>(0, 2, 5)));
+        assertTrue(cuts.add(5, new HashableCut<>(0, 3, 5)));
+        assertEquals(3, cuts.getModifications());
+
+        // full (with only two distinct weights) and not better than the worst kept cut
+        assertFalse(cuts.add(5, new HashableCut<>(0, 4, 5)));
+        assertFalse(cuts.add(1, new HashableCut<>(0, 1, 1)));
+        assertEquals(3, cuts.getModifications());
+
+        assertTrue(cuts.add(3, new HashableCut<>(0, 5, 3)));
+        assertEquals(4, cuts.getModifications());
+        final List<HashableCut<Integer>> kept = cuts.toList();
+        assertEquals(3, kept.size());
+        assertEquals(new HashableCut<>(0, 1, 1), kept.get(0));
+        assertEquals(new HashableCut<>(0, 5, 3), kept.get(1));
+        assertEquals(5d, kept.get(2).minCutValue(), 0d);
+    }
+
+    @Test
+    public void testStableTrialsStopEarly() {
+        // two cliques connected by one edge: a unique minimum cut and many tied single vertex cuts
+        final int size = 8;
+        final int[][] arr = new int[2 * size][];
+        for (int v = 0; v < arr.length; v++) {
+            final int first = v < size ? 0 : size;
+            final int[] neighbours = new int[v == 0 || v == size ? size : size - 1];
+            int j = 0;
+            for (int w = first; w < first + size; w++) {
+                if (w != v)
+                    neighbours[j++] = w;
+            }
+            if (v == 0)
+                neighbours[j] = size;
+            else if (v == size)
+                neighbours[j] = 0;
+            arr[v] = neighbours;
+        }
+
+        KargerStein<SimpleGraph, TIntSet> stable = new KargerStein<>();
+        stable.setMaxCutNumber(3);
+        stable.setStableTrials(20);
+        final List<HashableCut<TIntSet>> cuts = stable.getMinCuts(GraphUtils.createGraph(arr), false);
+        assertTrue(stable.isStoppedEarly());
+        assertTrue(stable.getNumberOfTrials() < stable.getMaxNumberOfTrials());
+        assertEquals(1d, cuts.get(0).minCutValue(), 0d);
+    }
 }